@@ -0,0 +1,348 @@
+package com.mypackage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * The CarBatchCheck class represents a check of batches of car changes. A
+ * batch of price and colour edits, deletes and adds must leave a car
+ * database with the same cars as the same changes made one at a time, and
+ * so must replaying its journal. A batch with an invalid change must be
+ * rejected naming the change and leave every car unchanged, and a batch cut
+ * off at the end of the journal must be skipped on replay. Each is checked
+ * for the heap, the concurrent heap, the column store and the off-heap
+ * store, with journals in a temporary directory.
+ *
+ * It is kept in the check source root, and is compiled and run against the
+ * rest of the program:
+ *
+ *     javac -d out src/com/mypackage/*.java
+ *     javac -cp out -d out check/com/mypackage/*.java
+ *     java -cp out com.mypackage.CarBatchCheck [<number of cars>]
+ *
+ * It exits with status 1 if any check fails.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarBatchCheck
+{
+    private static final String[] CAR_MAKERS = {"Toyota", "BMW", "Honda"};
+    private static final String[][] CAR_MODELS = {{"Corolla", "Camry"},
+            {"X3", "X5"}, {"Civic", "Accord"}};
+    private static final String[] COLOURS = {"Red", "Blue", "White",
+            "Black", "Silver"};
+    private static final int DEFAULT_NUMBER_OF_CAR = 200000;
+    private static final String[] NAMES = {"heap", "concurrent", "column",
+            "off-heap"};
+
+    /**
+     * Add cars of random attributes to a car database, the same cars each
+     * time
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be added to
+     * @param  numberOfCar  an integer represents number of cars to be added
+     */
+    private static void addCars(CarDatabase carDatabase, int numberOfCar)
+    {
+        Random random = new Random(1);
+        int currentYear = carDatabase.getCurrentYear();
+        for (int index = 0; index < numberOfCar; index++)
+        {
+            int carMaker = random.nextInt(CAR_MAKERS.length);
+            String carModel = CAR_MODELS[carMaker][random.nextInt
+                    (CAR_MODELS[carMaker].length)];
+            int yearMade = CarValidator.MINIMUM_YEAR_MADE + random.nextInt
+                    (currentYear - CarValidator.MINIMUM_YEAR_MADE + 1);
+            String[] colours = {COLOURS[random.nextInt(COLOURS.length)],
+                    random.nextBoolean() ? COLOURS[random.nextInt
+                    (COLOURS.length)] : "", ""};
+            carDatabase.addCar(new Car(getRegistrationNumber(index),
+                    yearMade, colours, CAR_MAKERS[carMaker], carModel, 500 +
+                    random.nextInt(29501)));
+        }
+    }
+
+    /**
+     * Check batches of car changes for a kind of car database
+     *
+     * @param  name  a string represents name of kind of car database
+     * @param  numberOfCar  an integer represents number of cars to start
+     *                      with
+     * @param  directory  a Path object represents directory of journals
+     * @param  output  a PrintStream object represents stream of results
+     * @return    a boolean represents whether check passes or not
+     * @throws    IOException if a journal cannot be read or written
+     */
+    private static boolean check(String name, int numberOfCar,
+                                 Path directory, PrintStream output)
+            throws IOException
+    {
+        String journalFilename = directory.resolve(name + ".journal")
+                .toString();
+        String carFilename = directory.resolve(name + ".txt").toString();
+        CarDatabase sequentialDatabase = newCarDatabase(name, numberOfCar);
+        CarDatabase batchDatabase = newCarDatabase(name, numberOfCar);
+        batchDatabase.openJournal(journalFilename, carFilename);
+        List<String> registrationNumbers = new ArrayList<>();
+        for (int index = 0; index < numberOfCar; index++)
+            registrationNumbers.add(getRegistrationNumber(index));
+        CarBatch batch = new CarBatch();
+        long startTime = System.nanoTime();
+        makeChanges(sequentialDatabase, batch, registrationNumbers);
+        long sequentialTime = System.nanoTime() - startTime;
+
+        String carsBefore = getCarsKey(batchDatabase);
+        CarBatch invalidBatch = new CarBatch();
+        invalidBatch.editCarPrice(registrationNumbers.get(0), 700);
+        invalidBatch.deleteCar(registrationNumbers.get(1));
+        invalidBatch.addCar(new Car("ADDED", 2010, new String[] {"Red",
+                "", ""}, "Toyota", "Camry", 700));
+        invalidBatch.editCarPrice(registrationNumbers.get(1), 5);
+        boolean isRejected = isRejected(batchDatabase, invalidBatch, 4);
+        CarBatch duplicateBatch = new CarBatch();
+        duplicateBatch.addCar(new Car(registrationNumbers.get(2), 2010,
+                new String[] {"Red", "", ""}, "Toyota", "Camry", 700));
+        isRejected &= isRejected(batchDatabase, duplicateBatch, 1);
+        boolean isUnchanged = carsBefore.equals(getCarsKey(batchDatabase));
+
+        startTime = System.nanoTime();
+        batchDatabase.applyBatch(batch);
+        long batchTime = System.nanoTime() - startTime;
+        String expectedCars = getCarsKey(sequentialDatabase);
+        boolean isSame = expectedCars.equals(getCarsKey(batchDatabase));
+        batchDatabase.closeJournal();
+
+        CarDatabase replayedDatabase;
+        if (Files.exists(directory.resolve(name + ".txt")))
+        {
+            replayedDatabase = newCarDatabase(name, 0);
+            replayedDatabase.readCarFile(carFilename);
+        }
+        else
+            replayedDatabase = newCarDatabase(name, numberOfCar);
+        replayedDatabase.openJournal(journalFilename, carFilename);
+        replayedDatabase.closeJournal();
+        boolean isReplayed = expectedCars.equals(getCarsKey
+                (replayedDatabase));
+
+        String cutJournalFilename = directory.resolve(name + "-cut.journal")
+                .toString();
+        CarDatabase cutDatabase = newCarDatabase(name, numberOfCar);
+        String cutCarsBefore = getCarsKey(cutDatabase);
+        cutDatabase.openJournal(cutJournalFilename, carFilename);
+        CarBatch cutBatch = new CarBatch();
+        cutBatch.editCarPrice(registrationNumbers.get(0), 700);
+        cutBatch.editCarPrice(registrationNumbers.get(1), 800);
+        cutDatabase.applyBatch(cutBatch);
+        cutDatabase.closeJournal();
+        byte[] journal = Files.readAllBytes(Path.of(cutJournalFilename));
+        Files.write(Path.of(cutJournalFilename), Arrays.copyOf(journal,
+                journal.length - 3));
+        CarDatabase cutReplayedDatabase = newCarDatabase(name, numberOfCar);
+        cutReplayedDatabase.openJournal(cutJournalFilename, carFilename);
+        cutReplayedDatabase.closeJournal();
+        boolean isCutSkipped = cutCarsBefore.equals(getCarsKey
+                (cutReplayedDatabase));
+
+        boolean isPassed = isSame && isReplayed && isRejected &&
+                isUnchanged && isCutSkipped;
+        output.println(name + ": same " + isSame + ", replayed " +
+                isReplayed + ", rejected " + isRejected + ", unchanged " +
+                isUnchanged + ", cut batch skipped " + isCutSkipped + ", " +
+                batch.getNumberOfChange() + " changes one at a time in " +
+                sequentialTime / 1000000 + "ms, as a journaled batch in " +
+                batchTime / 1000000 + "ms" + (isPassed ? "" : " FAILED"));
+        return isPassed;
+    }
+
+    /**
+     * Get a key of every car in a car database and of searches of them,
+     * which is the same for car databases of the same cars
+     *
+     * @param  carDatabase  a CarDatabase object represents car database
+     * @return    a string represents key of cars
+     */
+    private static String getCarsKey(CarDatabase carDatabase)
+    {
+        TreeSet<String> carAttributeStrings = new TreeSet<>();
+        for (Car thisCar: carDatabase.getSnapshot().getCars())
+            carAttributeStrings.add(carDatabase.getCarAttributeString
+                    (thisCar));
+        CarQuery colourQuery = new CarQuery();
+        colourQuery.setPriceRange(5000, 20000);
+        colourQuery.setColour("Red");
+        CarQuery carMakerQuery = new CarQuery();
+        carMakerQuery.setCarMaker("Toyota");
+        carMakerQuery.setCarModel("ANY");
+        return carAttributeStrings.size() + ":" + carAttributeStrings
+                .hashCode() + ":" + carDatabase.findCars(colourQuery).size() +
+                ":" + carDatabase.findCars(carMakerQuery).size();
+    }
+
+    /**
+     * Get registration number of a car added at random, which is short
+     * enough to be read back from the car file the journal is compacted
+     * into
+     *
+     * @param  index  an integer represents number of car
+     * @return    a string represents registration number of car
+     */
+    private static String getRegistrationNumber(int index)
+    {
+        return "C" + Integer.toString(index, Character.MAX_RADIX);
+    }
+
+    /**
+     * Check whether a car database rejects a batch, naming a change of it
+     *
+     * @param  carDatabase  a CarDatabase object represents car database
+     * @param  batch  a CarBatch object represents batch to be rejected
+     * @param  change  an integer represents number of change to be named
+     * @return    a boolean represents whether batch is rejected or not
+     */
+    private static boolean isRejected(CarDatabase carDatabase,
+                                      CarBatch batch, int change)
+    {
+        try
+        {
+            carDatabase.applyBatch(batch);
+            return false;
+        }
+        catch (IllegalArgumentException exception)
+        {
+            return exception.getMessage().contains("change " + change +
+                    " ");
+        }
+    }
+
+    /**
+     * Run the check for the heap, the concurrent heap, the column store
+     * and the off-heap store
+     *
+     * @param  args  an array of string represents number of cars, which is
+     *               optional
+     * @throws    IOException if a journal cannot be read or written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int numberOfCar = DEFAULT_NUMBER_OF_CAR;
+        if (args.length > 0)
+            numberOfCar = Integer.parseInt(args[0]);
+        // the car database prints its progress, which is not checked here
+        PrintStream output = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Path directory = Files.createTempDirectory("carbatch");
+        boolean isPassed = true;
+        try
+        {
+            for (String thisName: NAMES)
+                isPassed &= check(thisName, numberOfCar, directory, output);
+        }
+        finally
+        {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream
+                    (directory))
+            {
+                for (Path thisFile: files)
+                    Files.delete(thisFile);
+            }
+            Files.delete(directory);
+        }
+        if (!isPassed)
+            System.exit(1);
+    }
+
+    /**
+     * Make price and colour edits, deletes and adds to a car database one
+     * at a time, and the same changes to a batch
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be changed
+     * @param  batch  a CarBatch object represents batch to be added to
+     * @param  registrationNumbers  a list of string represents registration
+     *                              numbers of cars, which loses the ones
+     *                              deleted
+     */
+    private static void makeChanges(CarDatabase carDatabase, CarBatch batch,
+                                    List<String> registrationNumbers)
+    {
+        Random random = new Random(1);
+        for (int index = 0; index < 20000; index++)
+        {
+            String registrationNumber = registrationNumbers.get(random
+                    .nextInt(registrationNumbers.size()));
+            int price = 500 + random.nextInt(29501);
+            batch.editCarPrice(registrationNumber, price);
+            carDatabase.editCarPrice(carDatabase.getCarByRegistrationNumber
+                    (registrationNumber), price);
+        }
+        for (int index = 0; index < 2000; index++)
+        {
+            String registrationNumber = registrationNumbers.remove(random
+                    .nextInt(registrationNumbers.size()));
+            batch.deleteCar(registrationNumber);
+            carDatabase.deleteCar(carDatabase.getCarByRegistrationNumber
+                    (registrationNumber));
+        }
+        for (int index = 0; index < 1000; index++)
+        {
+            String registrationNumber = registrationNumbers.get(random
+                    .nextInt(registrationNumbers.size()));
+            String[] colours = {"Red", index % 2 == 0 ? "Blue" : "", ""};
+            batch.editCarColour(registrationNumber, colours);
+            carDatabase.editCarColour(carDatabase
+                    .getCarByRegistrationNumber(registrationNumber), colours);
+        }
+        for (int index = 0; index < 1000; index++)
+        {
+            String registrationNumber = "NEW" + index;
+            batch.addCar(new Car(registrationNumber, 2010, new String[]
+                    {"Red", "", ""}, "Toyota", "Camry", 9000 + index));
+            carDatabase.addCar(new Car(registrationNumber, 2010, new String[]
+                    {"Red", "", ""}, "Toyota", "Camry", 9000 + index));
+            batch.editCarPrice(registrationNumber, 12000);
+            carDatabase.editCarPrice(carDatabase.getCarByRegistrationNumber
+                    (registrationNumber), 12000);
+        }
+        batch.deleteCar("NEW0");
+        carDatabase.deleteCar(carDatabase.getCarByRegistrationNumber
+                ("NEW0"));
+        batch.addCar(new Car("NEW0", 2011, new String[] {"Blue", "", ""},
+                "BMW", "X5", 1000));
+        carDatabase.addCar(new Car("NEW0", 2011, new String[] {"Blue", "",
+                ""}, "BMW", "X5", 1000));
+    }
+
+    /**
+     * Create a car database of a kind with cars of random attributes
+     *
+     * @param  name  a string represents name of kind of car database
+     * @param  numberOfCar  an integer represents number of cars to be added
+     * @return    a CarDatabase object represents car database created
+     */
+    private static CarDatabase newCarDatabase(String name, int numberOfCar)
+    {
+        CarDatabase carDatabase;
+        if (name.equals("concurrent"))
+            carDatabase = new CarDatabase(null, true);
+        else if (name.equals("column"))
+            carDatabase = new CarDatabase(new CarColumnStore());
+        else if (name.equals("off-heap"))
+            carDatabase = new CarDatabase(new CarOffHeapStore());
+        else
+            carDatabase = new CarDatabase();
+        addCars(carDatabase, numberOfCar);
+        return carDatabase;
+    }
+}
@@ -0,0 +1,235 @@
+package com.mypackage;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The CarConcurrencyCheck class represents a check of a car database in
+ * concurrent mode. Several writer threads add, edit and delete cars of their
+ * own registration numbers, and try to add each of them again in lower case,
+ * while reader threads keep searching. Afterwards the number of cars, of
+ * cars at the edited price and of cars of the edited colour must be what
+ * the writers left, for the heap, column store and off-heap store.
+ *
+ * It is kept in the check source root, and is compiled and run against the
+ * rest of the program:
+ *
+ *     javac -d out src/com/mypackage/*.java
+ *     javac -cp out -d out check/com/mypackage/*.java
+ *     java -cp out com.mypackage.CarConcurrencyCheck [<cars per writer>]
+ *
+ * It exits with status 1 if any check fails.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarConcurrencyCheck
+{
+    private static final int DEFAULT_CARS_PER_WRITER = 20000;
+    private static final int EDITED_PRICE = 5000;
+    private static final String EDITED_COLOUR = "Green";
+    private static final int NUMBER_OF_READER = 2;
+    private static final int NUMBER_OF_WRITER = 4;
+
+    /**
+     * Add, edit and delete the cars of one writer
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be written
+     * @param  writer  an integer represents number of writer
+     * @param  carsPerWriter  an integer represents number of cars added by
+     *                        writer
+     * @throws    IllegalStateException if a duplicate car is accepted
+     */
+    private static void addCars(CarDatabase carDatabase, int writer,
+                                int carsPerWriter)
+    {
+        Random random = new Random(writer);
+        for (int index = 0; index < carsPerWriter; index++)
+        {
+            String registrationNumber = "R" + writer + "X" + index;
+            carDatabase.addCar(new Car(registrationNumber, 2000 +
+                    random.nextInt(20), new String[] {random.nextBoolean() ?
+                    "Red" : "Blue"}, random.nextBoolean() ? "Toyota" : "BMW",
+                    "M" + random.nextInt(3), 1000 + random.nextInt(1000)));
+            if (index % 3 == 0)
+                carDatabase.editCarPrice(carDatabase
+                        .getCarByRegistrationNumber(registrationNumber),
+                        EDITED_PRICE);
+            if (index % 5 == 0)
+                carDatabase.editCarColour(carDatabase
+                        .getCarByRegistrationNumber(registrationNumber),
+                        new String[] {EDITED_COLOUR, "", ""});
+            boolean isDeleted = index % 7 == 0;
+            if (isDeleted)
+                carDatabase.deleteCar(carDatabase
+                        .getCarByRegistrationNumber(registrationNumber));
+            try
+            {
+                carDatabase.addCar(new Car(registrationNumber.toLowerCase(),
+                        2000, new String[] {"Red"}, "BMW", "X", 1000));
+                if (!isDeleted)
+                    throw new IllegalStateException("Error: duplicate car " +
+                            registrationNumber + " is accepted");
+                carDatabase.deleteCar(carDatabase
+                        .getCarByRegistrationNumber(registrationNumber));
+            }
+            catch (IllegalArgumentException exception)
+            {
+                if (isDeleted)
+                    throw exception;
+            }
+        }
+    }
+
+    /**
+     * Check a car database of a car store in concurrent mode
+     *
+     * @param  name  a string represents name of car store
+     * @param  carStore  a CarStore object represents car store, or null
+     *                   for cars kept on heap
+     * @param  carsPerWriter  an integer represents number of cars added by
+     *                        each writer
+     * @param  output  a PrintStream object represents stream of results
+     * @return    a boolean represents whether check passes or not
+     * @throws    Exception if a writer or reader cannot be waited for
+     */
+    private static boolean check(String name, CarStore carStore,
+                                 int carsPerWriter, PrintStream output)
+            throws Exception
+    {
+        CarDatabase carDatabase = new CarDatabase(carStore, true);
+        AtomicBoolean isWritten = new AtomicBoolean();
+        AtomicLong numberOfSearch = new AtomicLong();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool
+                (NUMBER_OF_WRITER + NUMBER_OF_READER);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < NUMBER_OF_WRITER; writer++)
+        {
+            int thisWriter = writer;
+            writers.add(executor.submit(() -> addCars(carDatabase,
+                    thisWriter, carsPerWriter)));
+        }
+        for (int reader = 0; reader < NUMBER_OF_READER; reader++)
+            executor.submit(() ->
+            {
+                try
+                {
+                    while (!isWritten.get())
+                    {
+                        searchCars(carDatabase);
+                        numberOfSearch.incrementAndGet();
+                    }
+                }
+                catch (Throwable exception)
+                {
+                    error.set(exception);
+                }
+            });
+        long startTime = System.nanoTime();
+        try
+        {
+            for (Future<?> thisWriter: writers)
+                thisWriter.get();
+        }
+        finally
+        {
+            isWritten.set(true);
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        long writeTime = (System.nanoTime() - startTime) / 1000000;
+        if (error.get() != null)
+        {
+            output.println("Error: " + name + " search failed");
+            error.get().printStackTrace(output);
+            return false;
+        }
+        int expectedCars = 0;
+        int expectedEditedPrice = 0;
+        int expectedEditedColour = 0;
+        for (int index = 0; index < carsPerWriter; index++)
+            if (index % 7 != 0)
+            {
+                expectedCars += NUMBER_OF_WRITER;
+                if (index % 3 == 0)
+                    expectedEditedPrice += NUMBER_OF_WRITER;
+                if (index % 5 == 0)
+                    expectedEditedColour += NUMBER_OF_WRITER;
+            }
+        CarQuery colourQuery = new CarQuery();
+        colourQuery.setColour(EDITED_COLOUR);
+        int numberOfCar = carDatabase.getNumberOfCar();
+        int numberOfListedCar = carDatabase.getCars().size();
+        int editedPrice = carDatabase.getCarsInPriceRange(EDITED_PRICE,
+                EDITED_PRICE).getNumberOfCar();
+        int editedColour = carDatabase.findCars(colourQuery)
+                .getNumberOfCar();
+        boolean isPassed = numberOfCar == expectedCars &&
+                numberOfListedCar == expectedCars &&
+                editedPrice == expectedEditedPrice &&
+                editedColour == expectedEditedColour;
+        output.println(name + ": cars " + numberOfCar + "/" + expectedCars +
+                ", listed " + numberOfListedCar + "/" + expectedCars +
+                ", price " + editedPrice + "/" + expectedEditedPrice +
+                ", colour " + editedColour + "/" + expectedEditedColour +
+                ", " + numberOfSearch.get() + " searches while writing for " +
+                writeTime + "ms" + (isPassed ? "" : " FAILED"));
+        return isPassed;
+    }
+
+    /**
+     * Run the check for the heap, column store and off-heap store
+     *
+     * @param  args  an array of string represents number of cars added by
+     *               each writer, which is optional
+     * @throws    Exception if a writer or reader cannot be waited for
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int carsPerWriter = DEFAULT_CARS_PER_WRITER;
+        if (args.length > 0)
+            carsPerWriter = Integer.parseInt(args[0]);
+        // the car database prints rejected changes, which are expected here
+        PrintStream output = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        boolean isPassed = check("heap", null, carsPerWriter, output);
+        isPassed &= check("column", new CarColumnStore(), carsPerWriter,
+                output);
+        isPassed &= check("off-heap", new CarOffHeapStore(), carsPerWriter,
+                output);
+        if (!isPassed)
+            System.exit(1);
+    }
+
+    /**
+     * Search cars by every kind of criterion, reading every car found
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be searched
+     */
+    private static void searchCars(CarDatabase carDatabase)
+    {
+        CarQuery query = new CarQuery();
+        query.setCarMaker("Toyota");
+        query.setColour("Red," + EDITED_COLOUR);
+        for (Car thisCar: carDatabase.findCars(query))
+            thisCar.getPrice();
+        carDatabase.getCarsInPriceRange(EDITED_PRICE, EDITED_PRICE)
+                .getNumberOfCar();
+        carDatabase.getCarsInAgeRange(0, 100).size();
+        carDatabase.getCars().size();
+        carDatabase.getNumberOfCar();
+    }
+}
@@ -0,0 +1,207 @@
+package com.mypackage;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The CarOrderCheck class represents a check of ordered car searches. The
+ * first cars found by an ordered search with a limit must have the same
+ * prices or years made, in the same order, as the first cars of a full
+ * sort of every car the search matches, and must all match the search.
+ * Searches of every car, of a car maker and of a car maker and car model
+ * are ordered by price and by year made, both ascending and descending,
+ * with and without price, age and colour criteria, for the heap, the
+ * concurrent heap, the column store and the off-heap store.
+ *
+ * It is kept in the check source root, and is compiled and run against the
+ * rest of the program:
+ *
+ *     javac -d out src/com/mypackage/*.java
+ *     javac -cp out -d out check/com/mypackage/*.java
+ *     java -cp out com.mypackage.CarOrderCheck [<number of cars>]
+ *
+ * It exits with status 1 if any check fails.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarOrderCheck
+{
+    private static final String[] CAR_MAKERS = {"Toyota", "BMW", "Honda"};
+    private static final String[][] CAR_MODELS = {{"Corolla", "Camry"},
+            {"X3", "X5"}, {"Civic", "Jazz"}};
+    private static final String[] COLOURS = {"Red", "Blue", "White",
+            "Black", "Silver"};
+    private static final int DEFAULT_NUMBER_OF_CAR = 200000;
+    private static final int[] LIMITS = {1, 20, 500};
+    private static final String[][] SEARCHED_CARS = {{null, null},
+            {"Toyota", "Corolla"}, {"BMW", "ANY"}, {"Honda", "Jazz"}};
+
+    /**
+     * Add cars of random attributes to car databases, the same cars to each
+     *
+     * @param  carDatabases  an array of CarDatabase represents car databases
+     *                       to be added to
+     * @param  numberOfCar  an integer represents number of cars to be added
+     */
+    private static void addCars(CarDatabase[] carDatabases, int numberOfCar)
+    {
+        Random random = new Random(1);
+        int currentYear = carDatabases[0].getCurrentYear();
+        for (int index = 0; index < numberOfCar; index++)
+        {
+            int carMaker = random.nextInt(CAR_MAKERS.length);
+            String carModel = CAR_MODELS[carMaker][random.nextInt
+                    (CAR_MODELS[carMaker].length)];
+            int yearMade = CarValidator.MINIMUM_YEAR_MADE + random.nextInt
+                    (currentYear - CarValidator.MINIMUM_YEAR_MADE + 1);
+            String[] colours = {COLOURS[random.nextInt(COLOURS.length)],
+                    random.nextBoolean() ? COLOURS[random.nextInt
+                    (COLOURS.length)] : "", ""};
+            int price = 500 + random.nextInt(29501);
+            for (CarDatabase thisCarDatabase: carDatabases)
+                thisCarDatabase.addCar(new Car("C" + index, yearMade,
+                        colours, CAR_MAKERS[carMaker], carModel, price));
+        }
+    }
+
+    /**
+     * Check every ordered search of a car database against a full sort
+     *
+     * @param  name  a string represents name of car database
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be searched
+     * @param  output  a PrintStream object represents stream of results
+     * @return    a boolean represents whether check passes or not
+     */
+    private static boolean check(String name, CarDatabase carDatabase,
+                                 PrintStream output)
+    {
+        boolean isPassed = true;
+        int numberOfSearch = 0;
+        long orderedTime = 0;
+        long sortedTime = 0;
+        for (String[] thisSearchedCar: SEARCHED_CARS)
+            for (String thisOrderBy: new String[] {CarQuery.ORDER_BY_PRICE,
+                    CarQuery.ORDER_BY_YEAR_MADE})
+                for (boolean isAscending: new boolean[] {true, false})
+                    for (int criteria = 0; criteria < 3; criteria++)
+                        for (int thisLimit: LIMITS)
+                        {
+                            CarQuery query = new CarQuery();
+                            query.setCarMaker(thisSearchedCar[0]);
+                            query.setCarModel(thisSearchedCar[1]);
+                            query.setOrder(thisOrderBy, isAscending);
+                            if (criteria == 1)
+                                query.setPriceRange(5000, 20000);
+                            else if (criteria == 2)
+                            {
+                                query.setAgeRange(3, 30);
+                                query.setColour("Red");
+                            }
+                            long startTime = System.nanoTime();
+                            CarView carsFound = carDatabase.findCars(query,
+                                    thisLimit);
+                            long orderedEndTime = System.nanoTime();
+                            List<Car> sortedCars = new ArrayList<>
+                                    (carDatabase.findCars(query));
+                            sortedCars.sort(query.getComparator());
+                            long sortedEndTime = System.nanoTime();
+                            orderedTime += orderedEndTime - startTime;
+                            sortedTime += sortedEndTime - orderedEndTime;
+                            numberOfSearch++;
+                            if (!isSameOrder(query, carsFound, sortedCars
+                                    .subList(0, Math.min(thisLimit,
+                                    sortedCars.size())), carDatabase
+                                    .getCurrentYear()))
+                            {
+                                output.println("Error: " + name + " " +
+                                        Arrays.toString(thisSearchedCar) +
+                                        " by " + thisOrderBy + (isAscending ?
+                                        " ascending" : " descending") +
+                                        " with criteria " + criteria +
+                                        " and limit " + thisLimit +
+                                        " differs from full sort");
+                                isPassed = false;
+                            }
+                        }
+        output.println(name + ": " + numberOfSearch + " searches in " +
+                orderedTime / 1000000 + "ms, full sorts in " + sortedTime /
+                1000000 + "ms" + (isPassed ? "" : " FAILED"));
+        return isPassed;
+    }
+
+    /**
+     * Get the price or year made of a car, whichever a search is ordered by
+     *
+     * @param  query  a CarQuery object represents ordered search
+     * @param  car  a Car object represents car
+     * @return    an integer represents price or year made of car
+     */
+    private static int getOrderKey(CarQuery query, Car car)
+    {
+        if (query.getOrderBy().equals(CarQuery.ORDER_BY_PRICE))
+            return car.getPrice();
+        return car.getYearMade();
+    }
+
+    /**
+     * Check whether cars found by an ordered search match it and are in the
+     * same order as cars expected. Cars of the same price or year made may
+     * be in any order, so only the prices or years made are compared.
+     *
+     * @param  query  a CarQuery object represents ordered search
+     * @param  carsFound  a CarView object represents cars found
+     * @param  expectedCars  a list of Car represents cars expected
+     * @param  currentYear  an integer represents current year to measure
+     *                      age of car
+     * @return    a boolean represents whether cars are in the same order
+     */
+    private static boolean isSameOrder(CarQuery query, CarView carsFound,
+                                       List<Car> expectedCars,
+                                       int currentYear)
+    {
+        if (carsFound.size() != expectedCars.size())
+            return false;
+        int index = 0;
+        for (Car thisCar: carsFound)
+        {
+            if (!query.matches(thisCar, currentYear) || getOrderKey(query,
+                    thisCar) != getOrderKey(query, expectedCars.get(index)))
+                return false;
+            index++;
+        }
+        return true;
+    }
+
+    /**
+     * Run the check for the heap, the concurrent heap, the column store
+     * and the off-heap store
+     *
+     * @param  args  an array of string represents number of cars, which is
+     *               optional
+     */
+    public static void main(String[] args)
+    {
+        int numberOfCar = DEFAULT_NUMBER_OF_CAR;
+        if (args.length > 0)
+            numberOfCar = Integer.parseInt(args[0]);
+        // the car database prints its progress, which is not checked here
+        PrintStream output = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        String[] names = {"heap", "concurrent", "column", "off-heap"};
+        CarDatabase[] carDatabases = {new CarDatabase(), new CarDatabase
+                (null, true), new CarDatabase(new CarColumnStore()),
+                new CarDatabase(new CarOffHeapStore())};
+        addCars(carDatabases, numberOfCar);
+        boolean isPassed = true;
+        for (int index = 0; index < carDatabases.length; index++)
+            isPassed &= check(names[index], carDatabases[index], output);
+        if (!isPassed)
+            System.exit(1);
+    }
+}
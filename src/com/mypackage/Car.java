@@ -1,20 +1,34 @@
 package com.mypackage;
 
+import java.io.PrintWriter;
+import java.util.Arrays;
+
 /**
  * The Car class represents a car object generator. It is used to generate
- * a car which has 6 attributes.
+ * a car which has 6 attributes. Car maker, car model and colours are kept
+ * as codes of the shared CarSymbolTable, so a name repeated across many
+ * cars is stored only once. The codes of up to three colours are packed
+ * into a single long.
  *
  * @author  Zi Sing Lim
  * @version 1.0 (29.Apr.2021)
  */
 public class Car
 {
+    private static final CarSymbolTable SYMBOLS =
+            CarSymbolTable.getSharedTable();
+    private static final long COLOUR_CODE_MASK =
+            CarSymbolTable.MAXIMUM_NUMBER_OF_SYMBOL - 1;
+
     private String registrationNumber;
     private int yearMade;
-    private String[] colours;
-    private String carMaker;
-    private String carModel;
+    private long colourCodes;
+    private int carMakerCode;
+    private int carModelCode;
     private int price;
+    private CarDatabase carDatabase;
+    private int listPosition;
+    private int[] groupPositions;
 
     /**
      * Default constructor for objects of class Car
@@ -23,10 +37,11 @@ public class Car
     {
         registrationNumber = "";
         yearMade = 0;
-        colours = new String[3];
-        carMaker = "";
-        carModel = "";
+        colourCodes = 0;
+        carMakerCode = CarSymbolTable.BLANK_CODE;
+        carModelCode = CarSymbolTable.BLANK_CODE;
         price = 0;
+        listPosition = -1;
     }
 
     /**
@@ -52,51 +67,139 @@ public class Car
             yearMade = 0;
         else
             yearMade = newYearMade;
-        if (newColours == null)
-            colours = new String[3];
-        else
-            colours = newColours;
-        if (newCarMaker == null)
-            carMaker = "";
-        else
-            carMaker = newCarMaker;
-        if (newCarModel == null)
-            carModel = "";
-        else
-            carModel = newCarModel;
+        colourCodes = encodeColours(newColours);
+        carMakerCode = SYMBOLS.getCode(newCarMaker);
+        carModelCode = SYMBOLS.getCode(newCarModel);
         if (newPrice < 0)
             price = 0;
         else
             price = newPrice;
+        listPosition = -1;
+    }
+
+    /**
+     * Assign codes of car maker and car model, once the owning car database
+     * has updated its index
+     *
+     * @param  newCarMakerCode  an integer represents code of car maker
+     * @param  newCarModelCode  an integer represents code of car model
+     */
+    void assignCarMakerAndModel(int newCarMakerCode, int newCarModelCode)
+    {
+        carMakerCode = newCarMakerCode;
+        carModelCode = newCarModelCode;
+    }
+
+    /**
+     * Assign packed codes of colours, once the owning car database has
+     * updated its index
+     *
+     * @param  newColourCodes  a long represents packed codes of colours
+     */
+    void assignColourCodes(long newColourCodes)
+    {
+        colourCodes = newColourCodes;
+    }
+
+    /**
+     * Assign price, once the owning car database has updated its index
+     *
+     * @param  newPrice  an integer represents price of car
+     */
+    void assignPrice(int newPrice)
+    {
+        price = newPrice;
+    }
+
+    /**
+     * Assign registration number, once the owning car database has updated
+     * its index
+     *
+     * @param  newRegistrationNumber  a string represents registration
+     *                                number of car
+     */
+    void assignRegistrationNumber(String newRegistrationNumber)
+    {
+        registrationNumber = newRegistrationNumber;
+    }
+
+    /**
+     * Assign year made, once the owning car database has updated its index
+     *
+     * @param  newYearMade  an integer represents year made of car
+     */
+    void assignYearMade(int newYearMade)
+    {
+        yearMade = newYearMade;
+    }
+
+    /**
+     * Copy attributes of a car into this car
+     *
+     * @param  car  a Car object represents car to be copied
+     */
+    void copyAttributes(Car car)
+    {
+        registrationNumber = car.getRegistrationNumber();
+        yearMade = car.getYearMade();
+        colourCodes = car.getColourCodes();
+        carMakerCode = car.getCarMakerCode();
+        carModelCode = car.getCarModelCode();
+        price = car.getPrice();
     }
 
     /**
      * Display car attributes
+     *
+     * @param  output  a PrintWriter object represents output of car
      */
-    public void displayCar()
+    public void displayCar(PrintWriter output)
     {
-        String colourString = "";
-        for (int index = 0; index < colours.length; index++)
+        output.println();
+        output.print("Registration Number: ");
+        output.println(getRegistrationNumber());
+        output.print("Year Made: ");
+        output.println(getYearMade());
+        output.print("Colour: ");
+        boolean isFirstColour = true;
+        for (int index = 0; index < CarFileWriter.NUMBER_OF_COLOUR; index++)
         {
-            String colour = colours[index];
-            if (colour != null)
+            int colourCode = getColourCode(index);
+            if (colourCode != CarSymbolTable.BLANK_CODE)
             {
-                if (colour.length() != 0)
-                {
-                    if (colourString.length() > 0)
-                        colourString = colourString + ", ";
-                    colourString = colourString + colour;
-                }
+                if (!isFirstColour)
+                    output.print(", ");
+                output.print(SYMBOLS.getSymbol(colourCode));
+                isFirstColour = false;
             }
         }
+        output.println();
+        output.print("Car Maker: ");
+        output.println(getCarMaker());
+        output.print("Car Model: ");
+        output.println(getCarModel());
+        output.print("Price: ");
+        output.println(getPrice());
+    }
 
-        System.out.println();
-        System.out.println("Registration Number: " + registrationNumber);
-        System.out.println("Year Made: " + yearMade);
-        System.out.println("Colour: " + colourString);
-        System.out.println("Car Maker: " + carMaker);
-        System.out.println("Car Model: " + carModel);
-        System.out.println("Price: " + price);
+    /**
+     * Encode colours as codes of the shared car symbol table packed into a
+     * long. Colours after the third are not kept, as in the car file.
+     *
+     * @param  newColours  an array of string represents colours of car
+     * @return    a long represents packed codes of colours
+     */
+    static long encodeColours(String[] newColours)
+    {
+        long newColourCodes = 0;
+        if (newColours == null)
+            return newColourCodes;
+        int numberOfColour = Math.min(newColours.length,
+                CarFileWriter.NUMBER_OF_COLOUR);
+        for (int index = 0; index < numberOfColour; index++)
+            newColourCodes = newColourCodes | (long) SYMBOLS.getCode
+                    (newColours[index]) << (index * CarSymbolTable.CODE_BITS);
+        return newColourCodes;
     }
 
     /**
@@ -106,7 +209,28 @@ public class Car
      */
     public String getCarMaker()
     {
-        return carMaker;
+        return SYMBOLS.getSymbol(getCarMakerCode());
+    }
+
+    /**
+     * Get car database which owns and indexes this car
+     *
+     * @return    a CarDatabase object represents owning car database, or
+     *            null if the car is not in any car database
+     */
+    CarDatabase getCarDatabase()
+    {
+        return carDatabase;
+    }
+
+    /**
+     * Get code of car maker in the shared car symbol table
+     *
+     * @return    an integer represents code of car maker
+     */
+    int getCarMakerCode()
+    {
+        return carMakerCode;
     }
 
     /**
@@ -116,7 +240,71 @@ public class Car
      */
     public String getCarModel()
     {
-        return carModel;
+        return SYMBOLS.getSymbol(getCarModelCode());
+    }
+
+    /**
+     * Get code of car model in the shared car symbol table
+     *
+     * @return    an integer represents code of car model
+     */
+    int getCarModelCode()
+    {
+        return carModelCode;
+    }
+
+    /**
+     * Get code of a colour in the shared car symbol table
+     *
+     * @param  index  an integer represents index of colour
+     * @return    an integer represents code of colour, which is the blank
+     *            code if the car has fewer colours
+     */
+    int getColourCode(int index)
+    {
+        if (index < 0 || index >= CarFileWriter.NUMBER_OF_COLOUR)
+            return CarSymbolTable.BLANK_CODE;
+        return (int) ((getColourCodes() >>> (index *
+                CarSymbolTable.CODE_BITS)) & COLOUR_CODE_MASK);
+    }
+
+    /**
+     * Get codes of colours in the shared car symbol table, packed into a
+     * long
+     *
+     * @return    a long represents packed codes of colours
+     */
+    long getColourCodes()
+    {
+        return colourCodes;
+    }
+
+    /**
+     * Get codes of the distinct colours packed into a long, leaving out
+     * blank colours
+     *
+     * @param  colourCodes  a long represents packed codes of colours
+     * @return    an array of integer represents codes of distinct colours
+     */
+    static int[] getColourCodeSet(long colourCodes)
+    {
+        int[] codes = new int[CarFileWriter.NUMBER_OF_COLOUR];
+        int numberOfCode = 0;
+        for (int index = 0; index < codes.length; index++)
+        {
+            int colourCode = (int) ((colourCodes >>> (index *
+                    CarSymbolTable.CODE_BITS)) & COLOUR_CODE_MASK);
+            boolean isRepeated = colourCode == CarSymbolTable.BLANK_CODE;
+            for (int codeIndex = 0; codeIndex < numberOfCode; codeIndex++)
+                if (codes[codeIndex] == colourCode)
+                    isRepeated = true;
+            if (!isRepeated)
+            {
+                codes[numberOfCode] = colourCode;
+                numberOfCode++;
+            }
+        }
+        return Arrays.copyOf(codes, numberOfCode);
     }
 
     /**
@@ -126,9 +314,38 @@ public class Car
      */
     public String[] getColours()
     {
+        String[] colours = new String[CarFileWriter.NUMBER_OF_COLOUR];
+        for (int index = 0; index < colours.length; index++)
+            colours[index] = SYMBOLS.getSymbol(getColourCode(index));
         return colours;
     }
 
+    /**
+     * Get position of car in a group of cars of an index of its owning car
+     * database
+     *
+     * @param  group  an integer represents which group of the car it is
+     * @return    an integer represents position of car, or -1 if it is not
+     *            known
+     */
+    int getGroupPosition(int group)
+    {
+        if (groupPositions == null)
+            return -1;
+        return groupPositions[group];
+    }
+
+    /**
+     * Get position of car in the list of cars of its owning car database
+     *
+     * @return    an integer represents position of car, or -1 if it is not
+     *            in a list of cars
+     */
+    int getListPosition()
+    {
+        return listPosition;
+    }
+
     /**
      * Get price of car
      *
@@ -159,6 +376,21 @@ public class Car
         return yearMade;
     }
 
+    /**
+     * Check whether car has a colour
+     *
+     * @param  colourCode  an integer represents code of colour in the
+     *                     shared car symbol table
+     * @return    a boolean represents whether car has the colour or not
+     */
+    boolean hasColourCode(int colourCode)
+    {
+        for (int index = 0; index < CarFileWriter.NUMBER_OF_COLOUR; index++)
+            if (getColourCode(index) == colourCode)
+                return true;
+        return false;
+    }
+
     /**
      * Set car maker
      *
@@ -167,10 +399,21 @@ public class Car
     public void setCarMaker(String aCarMaker)
     {
         String newCarMaker = aCarMaker.trim();
-        if (newCarMaker.length() == 0)
-            System.out.println("Error: car maker must not be blank");
+        CarValidator validator = new CarValidator();
+        if (validator.checkCarMaker(newCarMaker) != CarStatus.OK)
+            System.out.println(validator.getMessage());
         else
-            carMaker = newCarMaker;
+        {
+            CarDatabase owningCarDatabase = getCarDatabase();
+            int status = CarStatus.OK;
+            if (owningCarDatabase != null)
+                status = owningCarDatabase.editCarMakerAndModel(this,
+                        newCarMaker, getCarModel());
+            else
+                carMakerCode = SYMBOLS.getCode(newCarMaker);
+            if (status != CarStatus.OK)
+                System.out.println(CarStatus.getMessage(status));
+        }
     }
 
     /**
@@ -181,27 +424,88 @@ public class Car
     public void setCarModel(String aCarModel)
     {
         String newCarModel = aCarModel.trim();
-        if (newCarModel.length() == 0)
-            System.out.println("Error: car model must not be blank");
+        CarValidator validator = new CarValidator();
+        if (validator.checkCarModel(newCarModel) != CarStatus.OK)
+            System.out.println(validator.getMessage());
         else
-            carModel = newCarModel;
+        {
+            CarDatabase owningCarDatabase = getCarDatabase();
+            int status = CarStatus.OK;
+            if (owningCarDatabase != null)
+                status = owningCarDatabase.editCarMakerAndModel(this,
+                        getCarMaker(), newCarModel);
+            else
+                carModelCode = SYMBOLS.getCode(newCarModel);
+            if (status != CarStatus.OK)
+                System.out.println(CarStatus.getMessage(status));
+        }
     }
 
     /**
-     * Set colours of car
+     * Set car database which owns and indexes this car
+     *
+     * @param  newCarDatabase  a CarDatabase object represents owning car
+     *                         database, or null to detach the car
+     */
+    void setCarDatabase(CarDatabase newCarDatabase)
+    {
+        carDatabase = newCarDatabase;
+    }
+
+    /**
+     * Set colours of car. The colours of a car owned by a car database are
+     * edited through it, so the edit is journaled.
      *
      * @param  newColours  an array of string represents colours of car
      */
     public void setColours(String[] newColours)
     {
-        if (newColours.length == 0)
-            System.out.println("Error: colour(s) must not be blank");
+        CarValidator validator = new CarValidator();
+        if (validator.checkColours(newColours) != CarStatus.OK)
+            System.out.println(validator.getMessage());
         else
-            colours = newColours;
+        {
+            CarDatabase owningCarDatabase = getCarDatabase();
+            int status = CarStatus.OK;
+            if (owningCarDatabase != null)
+                status = owningCarDatabase.editCarColour(this, newColours);
+            else
+                colourCodes = encodeColours(newColours);
+            if (status != CarStatus.OK)
+                System.out.println(CarStatus.getMessage(status));
+        }
     }
 
     /**
-     * Set price of car
+     * Set position of car in a group of cars of an index of its owning car
+     * database
+     *
+     * @param  group  an integer represents which group of the car it is
+     * @param  newGroupPosition  an integer represents position of car
+     */
+    void setGroupPosition(int group, int newGroupPosition)
+    {
+        if (groupPositions == null)
+        {
+            groupPositions = new int[CarDatabase.NUMBER_OF_GROUP];
+            Arrays.fill(groupPositions, -1);
+        }
+        groupPositions[group] = newGroupPosition;
+    }
+
+    /**
+     * Set position of car in the list of cars of its owning car database
+     *
+     * @param  newListPosition  an integer represents position of car
+     */
+    void setListPosition(int newListPosition)
+    {
+        listPosition = newListPosition;
+    }
+
+    /**
+     * Set price of car. The price of a car owned by a car database is
+     * edited through it, so the edit is journaled.
      *
      * @param  newPrice  an integer represents price of car
      */
@@ -211,7 +515,16 @@ public class Car
             System.out.println("Error: price must be a non negative " +
                     "value");
         else
-            price = newPrice;
+        {
+            CarDatabase owningCarDatabase = getCarDatabase();
+            int status = CarStatus.OK;
+            if (owningCarDatabase != null)
+                status = owningCarDatabase.editCarPrice(this, newPrice);
+            else
+                price = newPrice;
+            if (status != CarStatus.OK)
+                System.out.println(CarStatus.getMessage(status));
+        }
     }
 
     /**
@@ -219,6 +532,9 @@ public class Car
      *
      * @param  aRegistrationNumber  a string represents registration
      *                              number of car
+     * @throws    IllegalArgumentException if another car in the owning car
+     *                                     database has this registration
+     *                                     number
      */
     public void setRegistrationNumber(String aRegistrationNumber)
     {
@@ -227,7 +543,20 @@ public class Car
             System.out.println("Error: registration number must not be " +
                     "blank");
         else
-            registrationNumber = newRegistrationNumber;
+        {
+            CarDatabase owningCarDatabase = getCarDatabase();
+            int status = CarStatus.OK;
+            if (owningCarDatabase != null)
+                status = owningCarDatabase.editCarRegistrationNumber(this,
+                        newRegistrationNumber);
+            else
+                registrationNumber = newRegistrationNumber;
+            if (status == CarStatus.DUPLICATE_CAR)
+                throw new IllegalArgumentException(CarStatus.getMessage
+                        (status));
+            if (status != CarStatus.OK)
+                System.out.println(CarStatus.getMessage(status));
+        }
     }
 
     /**
@@ -241,7 +570,16 @@ public class Car
             System.out.println("Error: year made must be a non negative " +
                     "value");
         else
-            yearMade = newYearMade;
+        {
+            CarDatabase owningCarDatabase = getCarDatabase();
+            int status = CarStatus.OK;
+            if (owningCarDatabase != null)
+                status = owningCarDatabase.editCarYearMade(this, newYearMade);
+            else
+                yearMade = newYearMade;
+            if (status != CarStatus.OK)
+                System.out.println(CarStatus.getMessage(status));
+        }
     }
 }
 
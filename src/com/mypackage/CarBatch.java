@@ -0,0 +1,239 @@
+package com.mypackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The CarBatch class represents a car batch object generator. It is used to
+ * generate a batch of adds, deletes and edits of cars which is applied to a
+ * car database in one call by CarDatabase.applyBatch. The values of each
+ * change, and whether its car is registered, are checked against the rules
+ * of the car warehouse, the car database and the changes before it when
+ * the batch is applied, so a batch is applied either as a whole or not at
+ * all.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarBatch
+{
+    private ArrayList<Change> changes;
+
+    /**
+     * Constructor for objects of class CarBatch
+     */
+    public CarBatch()
+    {
+        changes = new ArrayList<>();
+    }
+
+    /**
+     * Add to batch a car to be added
+     *
+     * @param  newCar  a Car object represents car to be added
+     * @throws    IllegalArgumentException if the car or its registration
+     *                                     number is blank
+     */
+    public void addCar(Car newCar)
+    {
+        if (newCar == null)
+            throw new IllegalArgumentException("Error: car must not be " +
+                    "blank");
+        changes.add(new Change(Change.ADD_CAR, checkRegistrationNumber
+                (newCar.getRegistrationNumber()), newCar, 0, null));
+    }
+
+    /**
+     * Check that a registration number of a change is not blank
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car
+     * @return    a string represents registration number of car
+     * @throws    IllegalArgumentException if the registration number is
+     *                                     blank
+     */
+    private static String checkRegistrationNumber(String registrationNumber)
+    {
+        if (registrationNumber == null || registrationNumber.trim().length()
+                == 0)
+            throw new IllegalArgumentException("Error: registration number " +
+                    "must not be blank");
+        return registrationNumber;
+    }
+
+    /**
+     * Remove every change from batch, so it can be filled again
+     */
+    public void clear()
+    {
+        changes.clear();
+    }
+
+    /**
+     * Add to batch a car to be deleted
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car to be deleted
+     * @throws    IllegalArgumentException if the registration number is
+     *                                     blank
+     */
+    public void deleteCar(String registrationNumber)
+    {
+        changes.add(new Change(Change.DELETE_CAR, checkRegistrationNumber
+                (registrationNumber), null, 0, null));
+    }
+
+    /**
+     * Add to batch new colours of a car
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car to be edited
+     * @param  newColours  an array of string represents new colours of car
+     * @throws    IllegalArgumentException if the registration number is
+     *                                     blank
+     */
+    public void editCarColour(String registrationNumber, String[] newColours)
+    {
+        changes.add(new Change(Change.EDIT_CAR_COLOUR, checkRegistrationNumber
+                (registrationNumber), null, 0, newColours == null ? null :
+                newColours.clone()));
+    }
+
+    /**
+     * Add to batch a new price of a car
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car to be edited
+     * @param  newPrice  an integer represents new price of car
+     * @throws    IllegalArgumentException if the registration number is
+     *                                     blank
+     */
+    public void editCarPrice(String registrationNumber, int newPrice)
+    {
+        changes.add(new Change(Change.EDIT_CAR_PRICE, checkRegistrationNumber
+                (registrationNumber), null, newPrice, null));
+    }
+
+    /**
+     * Get changes of batch in the order they are applied
+     *
+     * @return    a list of Change represents changes of batch, which must
+     *            not be changed
+     */
+    List<Change> getChanges()
+    {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Get number of changes in batch
+     *
+     * @return    an integer represents number of changes
+     */
+    public int getNumberOfChange()
+    {
+        return changes.size();
+    }
+
+    /**
+     * Check whether batch has no change
+     *
+     * @return    a boolean represents whether batch is empty or not
+     */
+    public boolean isEmpty()
+    {
+        return changes.isEmpty();
+    }
+
+    /**
+     * The Change class represents one add, delete or edit of a batch. Its
+     * type is the letter of its record in a car journal.
+     */
+    static class Change
+    {
+        static final char ADD_CAR = 'A';
+        static final char DELETE_CAR = 'D';
+        static final char EDIT_CAR_COLOUR = 'C';
+        static final char EDIT_CAR_PRICE = 'P';
+
+        private final char type;
+        private final String registrationNumber;
+        private final Car car;
+        private final int price;
+        private final String[] colours;
+
+        /**
+         * Constructor for objects of class Change
+         *
+         * @param  newType  a char represents type of change
+         * @param  newRegistrationNumber  a string represents registration
+         *                                number of car changed
+         * @param  newCar  a Car object represents car added, or null
+         * @param  newPrice  an integer represents new price of car
+         * @param  newColours  an array of string represents new colours of
+         *                     car, or null
+         */
+        Change(char newType, String newRegistrationNumber, Car newCar,
+               int newPrice, String[] newColours)
+        {
+            type = newType;
+            registrationNumber = newRegistrationNumber;
+            car = newCar;
+            price = newPrice;
+            colours = newColours;
+        }
+
+        /**
+         * Get car added by change
+         *
+         * @return    a Car object represents car added, or null if the
+         *            change is not an add
+         */
+        Car getCar()
+        {
+            return car;
+        }
+
+        /**
+         * Get new colours of car
+         *
+         * @return    an array of string represents new colours of car, or
+         *            null if the change is not an edit of colours
+         */
+        String[] getColours()
+        {
+            return colours;
+        }
+
+        /**
+         * Get new price of car
+         *
+         * @return    an integer represents new price of car
+         */
+        int getPrice()
+        {
+            return price;
+        }
+
+        /**
+         * Get registration number of car changed
+         *
+         * @return    a string represents registration number of car
+         */
+        String getRegistrationNumber()
+        {
+            return registrationNumber;
+        }
+
+        /**
+         * Get type of change
+         *
+         * @return    a char represents type of change
+         */
+        char getType()
+        {
+            return type;
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package com.mypackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The CarBitmap class represents a car bitmap object generator. It is used
+ * to generate a compressed bitmap of rows, such as the slots of a car store
+ * which have a colour or a car maker. Rows are split into chunks of 65536
+ * by their upper 16 bits, and each chunk keeps the lower 16 bits of its
+ * rows either in a sorted array, while it has few rows, or in a plain
+ * bitmap of 1024 words, once it has many. A sparse bitmap therefore takes
+ * two bytes a row and a dense one an eighth of a byte a row.
+ *
+ * Bitmaps are combined with AND and OR chunk by chunk, without visiting
+ * rows of chunks which only one of the bitmaps has.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarBitmap
+{
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_WORDS = 1 << (CHUNK_BITS - 6);
+    private static final int MAXIMUM_ARRAY_ROWS = 4096;
+
+    private ArrayList<Chunk> chunks;
+
+    /**
+     * Constructor for objects of class CarBitmap
+     */
+    public CarBitmap()
+    {
+        chunks = new ArrayList<>();
+    }
+
+    /**
+     * Add a row to bitmap
+     *
+     * @param  row  an integer represents row to be added, which must not be
+     *              negative
+     * @return    a boolean represents whether the row is added or was in
+     *            bitmap already
+     */
+    public boolean add(int row)
+    {
+        int chunkIndex = findChunk(row >>> CHUNK_BITS);
+        if (chunkIndex < 0)
+        {
+            chunkIndex = -chunkIndex - 1;
+            chunks.add(chunkIndex, new Chunk(row >>> CHUNK_BITS));
+        }
+        return chunks.get(chunkIndex).add((char) row);
+    }
+
+    /**
+     * Get a new bitmap of the rows in both this bitmap and another bitmap
+     *
+     * @param  otherBitmap  a CarBitmap object represents other bitmap
+     * @return    a CarBitmap object represents rows in both bitmaps
+     */
+    public CarBitmap and(CarBitmap otherBitmap)
+    {
+        CarBitmap result = new CarBitmap();
+        int index = 0;
+        int otherIndex = 0;
+        while (index < chunks.size() && otherIndex < otherBitmap.chunks.size())
+        {
+            Chunk thisChunk = chunks.get(index);
+            Chunk otherChunk = otherBitmap.chunks.get(otherIndex);
+            if (thisChunk.key < otherChunk.key)
+                index++;
+            else if (thisChunk.key > otherChunk.key)
+                otherIndex++;
+            else
+            {
+                Chunk chunkFound = thisChunk.and(otherChunk);
+                if (chunkFound.numberOfRow > 0)
+                    result.chunks.add(chunkFound);
+                index++;
+                otherIndex++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check whether a row is in bitmap
+     *
+     * @param  row  an integer represents row to be checked
+     * @return    a boolean represents whether the row is in bitmap or not
+     */
+    public boolean contains(int row)
+    {
+        int chunkIndex = findChunk(row >>> CHUNK_BITS);
+        return chunkIndex >= 0 && chunks.get(chunkIndex).contains((char) row);
+    }
+
+    /**
+     * Find a chunk by its key
+     *
+     * @param  key  an integer represents upper 16 bits of rows of chunk
+     * @return    an integer represents index of chunk, or -(insertion
+     *            point) - 1 if there is no such chunk
+     */
+    private int findChunk(int key)
+    {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int middleKey = chunks.get(middle).key;
+            if (middleKey < key)
+                low = middle + 1;
+            else if (middleKey > key)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Get number of rows in bitmap
+     *
+     * @return    an integer represents number of rows
+     */
+    public int getNumberOfRow()
+    {
+        int numberOfRow = 0;
+        for (Chunk thisChunk: chunks)
+            numberOfRow = numberOfRow + thisChunk.numberOfRow;
+        return numberOfRow;
+    }
+
+    /**
+     * Check whether bitmap has no row
+     *
+     * @return    a boolean represents whether bitmap is empty or not
+     */
+    public boolean isEmpty()
+    {
+        return chunks.isEmpty();
+    }
+
+    /**
+     * Get a new bitmap of the rows in this bitmap or another bitmap
+     *
+     * @param  otherBitmap  a CarBitmap object represents other bitmap
+     * @return    a CarBitmap object represents rows in either bitmap
+     */
+    public CarBitmap or(CarBitmap otherBitmap)
+    {
+        CarBitmap result = new CarBitmap();
+        int index = 0;
+        int otherIndex = 0;
+        while (index < chunks.size() || otherIndex < otherBitmap.chunks.size())
+        {
+            Chunk thisChunk = index < chunks.size() ? chunks.get(index) : null;
+            Chunk otherChunk = otherIndex < otherBitmap.chunks.size() ?
+                    otherBitmap.chunks.get(otherIndex) : null;
+            if (otherChunk == null || (thisChunk != null &&
+                    thisChunk.key < otherChunk.key))
+            {
+                result.chunks.add(thisChunk.copy());
+                index++;
+            }
+            else if (thisChunk == null || thisChunk.key > otherChunk.key)
+            {
+                result.chunks.add(otherChunk.copy());
+                otherIndex++;
+            }
+            else
+            {
+                result.chunks.add(thisChunk.or(otherChunk));
+                index++;
+                otherIndex++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove a row from bitmap
+     *
+     * @param  row  an integer represents row to be removed
+     * @return    a boolean represents whether the row is removed or was not
+     *            in bitmap
+     */
+    public boolean remove(int row)
+    {
+        int chunkIndex = findChunk(row >>> CHUNK_BITS);
+        if (chunkIndex < 0)
+            return false;
+        Chunk chunk = chunks.get(chunkIndex);
+        if (!chunk.remove((char) row))
+            return false;
+        if (chunk.numberOfRow == 0)
+            chunks.remove(chunkIndex);
+        return true;
+    }
+
+    /**
+     * Get rows of bitmap as an uncompressed bitmap, where bit i of word
+     * i / 64 stands for row i, so that it can be ANDed with the bitmaps of
+     * CarScanKernel
+     *
+     * @param  numberOfRow  an integer represents number of rows to be
+     *                      covered, beyond which rows are left out
+     * @return    an array of long represents uncompressed bitmap of rows
+     */
+    public long[] toBitmap(int numberOfRow)
+    {
+        long[] bitmap = CarScanKernel.newBitmap(numberOfRow);
+        for (Chunk thisChunk: chunks)
+            thisChunk.copyInto(bitmap, numberOfRow);
+        return bitmap;
+    }
+
+    /**
+     * The Chunk class represents the rows of a bitmap which share their
+     * upper 16 bits. The lower 16 bits of the rows are kept in a sorted
+     * array of char while there are at most MAXIMUM_ARRAY_ROWS rows, and in
+     * 1024 words of bits otherwise.
+     */
+    private static class Chunk
+    {
+        private final int key;
+        private int numberOfRow;
+        private char[] rows;
+        private long[] words;
+
+        /**
+         * Constructor for objects of class Chunk with no row
+         *
+         * @param  newKey  an integer represents upper 16 bits of rows
+         */
+        private Chunk(int newKey)
+        {
+            key = newKey;
+            numberOfRow = 0;
+            rows = new char[4];
+            words = null;
+        }
+
+        /**
+         * Add a row to chunk
+         *
+         * @param  low  a char represents lower 16 bits of row
+         * @return    a boolean represents whether the row is added or was
+         *            in chunk already
+         */
+        private boolean add(char low)
+        {
+            if (words != null)
+            {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) != 0)
+                    return false;
+                words[low >>> 6] = words[low >>> 6] | bit;
+                numberOfRow++;
+                return true;
+            }
+            int index = Arrays.binarySearch(rows, 0, numberOfRow, low);
+            if (index >= 0)
+                return false;
+            if (numberOfRow == MAXIMUM_ARRAY_ROWS)
+            {
+                toWords();
+                return add(low);
+            }
+            index = -index - 1;
+            if (numberOfRow == rows.length)
+                rows = Arrays.copyOf(rows, Math.min(rows.length * 2,
+                        MAXIMUM_ARRAY_ROWS));
+            System.arraycopy(rows, index, rows, index + 1,
+                    numberOfRow - index);
+            rows[index] = low;
+            numberOfRow++;
+            return true;
+        }
+
+        /**
+         * Get a new chunk of the rows in both this chunk and another chunk
+         * of the same key
+         *
+         * @param  otherChunk  a Chunk object represents other chunk
+         * @return    a Chunk object represents rows in both chunks
+         */
+        private Chunk and(Chunk otherChunk)
+        {
+            Chunk result = new Chunk(key);
+            if (words != null && otherChunk.words != null)
+            {
+                long[] newWords = new long[CHUNK_WORDS];
+                for (int index = 0; index < CHUNK_WORDS; index++)
+                    newWords[index] = words[index] & otherChunk.words[index];
+                result.setWords(newWords);
+                return result;
+            }
+            Chunk arrayChunk = words == null ? this : otherChunk;
+            Chunk checkedChunk = words == null ? otherChunk : this;
+            result.rows = new char[Math.max(arrayChunk.numberOfRow, 1)];
+            for (int index = 0; index < arrayChunk.numberOfRow; index++)
+            {
+                char low = arrayChunk.rows[index];
+                if (checkedChunk.contains(low))
+                {
+                    result.rows[result.numberOfRow] = low;
+                    result.numberOfRow++;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Check whether a row is in chunk
+         *
+         * @param  low  a char represents lower 16 bits of row
+         * @return    a boolean represents whether the row is in chunk or not
+         */
+        private boolean contains(char low)
+        {
+            if (words != null)
+                return (words[low >>> 6] & 1L << low) != 0;
+            return Arrays.binarySearch(rows, 0, numberOfRow, low) >= 0;
+        }
+
+        /**
+         * Copy chunk
+         *
+         * @return    a Chunk object represents copy of chunk
+         */
+        private Chunk copy()
+        {
+            Chunk copy = new Chunk(key);
+            copy.numberOfRow = numberOfRow;
+            if (words != null)
+            {
+                copy.rows = null;
+                copy.words = words.clone();
+            }
+            else
+                copy.rows = Arrays.copyOf(rows, Math.max(numberOfRow, 1));
+            return copy;
+        }
+
+        /**
+         * Set the bits of rows of chunk in an uncompressed bitmap
+         *
+         * @param  bitmap  an array of long represents uncompressed bitmap
+         * @param  bitmapRows  an integer represents number of rows covered
+         *                     by the bitmap
+         */
+        private void copyInto(long[] bitmap, int bitmapRows)
+        {
+            int firstRow = key << CHUNK_BITS;
+            if (words != null)
+            {
+                int firstWord = firstRow >>> 6;
+                int numberOfWord = Math.min(CHUNK_WORDS,
+                        bitmap.length - firstWord);
+                if (numberOfWord > 0)
+                    System.arraycopy(words, 0, bitmap, firstWord,
+                            numberOfWord);
+                if ((bitmapRows & 63) != 0 && firstWord + numberOfWord ==
+                        bitmap.length && numberOfWord > 0)
+                    bitmap[bitmap.length - 1] = bitmap[bitmap.length - 1] &
+                            (-1L >>> (64 - (bitmapRows & 63)));
+                return;
+            }
+            for (int index = 0; index < numberOfRow; index++)
+            {
+                int row = firstRow + rows[index];
+                if (row >= bitmapRows)
+                    return;
+                bitmap[row >>> 6] = bitmap[row >>> 6] | 1L << row;
+            }
+        }
+
+        /**
+         * Get a new chunk of the rows in this chunk or another chunk of the
+         * same key
+         *
+         * @param  otherChunk  a Chunk object represents other chunk
+         * @return    a Chunk object represents rows in either chunk
+         */
+        private Chunk or(Chunk otherChunk)
+        {
+            Chunk result = new Chunk(key);
+            if (words == null && otherChunk.words == null &&
+                    numberOfRow + otherChunk.numberOfRow <= MAXIMUM_ARRAY_ROWS)
+            {
+                result.rows = new char[Math.max(numberOfRow +
+                        otherChunk.numberOfRow, 1)];
+                int index = 0;
+                int otherIndex = 0;
+                while (index < numberOfRow ||
+                        otherIndex < otherChunk.numberOfRow)
+                {
+                    char low;
+                    if (otherIndex == otherChunk.numberOfRow ||
+                            (index < numberOfRow &&
+                            rows[index] < otherChunk.rows[otherIndex]))
+                    {
+                        low = rows[index];
+                        index++;
+                    }
+                    else if (index == numberOfRow ||
+                            rows[index] > otherChunk.rows[otherIndex])
+                    {
+                        low = otherChunk.rows[otherIndex];
+                        otherIndex++;
+                    }
+                    else
+                    {
+                        low = rows[index];
+                        index++;
+                        otherIndex++;
+                    }
+                    result.rows[result.numberOfRow] = low;
+                    result.numberOfRow++;
+                }
+                return result;
+            }
+            long[] newWords = new long[CHUNK_WORDS];
+            orInto(newWords);
+            otherChunk.orInto(newWords);
+            result.setWords(newWords);
+            return result;
+        }
+
+        /**
+         * Set the bits of rows of chunk in 1024 words of bits
+         *
+         * @param  chunkWords  an array of long represents words of bits
+         */
+        private void orInto(long[] chunkWords)
+        {
+            if (words != null)
+            {
+                for (int index = 0; index < CHUNK_WORDS; index++)
+                    chunkWords[index] = chunkWords[index] | words[index];
+            }
+            else
+            {
+                for (int index = 0; index < numberOfRow; index++)
+                    chunkWords[rows[index] >>> 6] = chunkWords[rows[index] >>>
+                            6] | 1L << rows[index];
+            }
+        }
+
+        /**
+         * Remove a row from chunk
+         *
+         * @param  low  a char represents lower 16 bits of row
+         * @return    a boolean represents whether the row is removed or was
+         *            not in chunk
+         */
+        private boolean remove(char low)
+        {
+            if (words != null)
+            {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0)
+                    return false;
+                words[low >>> 6] = words[low >>> 6] & ~bit;
+                numberOfRow--;
+                if (numberOfRow <= MAXIMUM_ARRAY_ROWS / 2)
+                    setWords(words);
+                return true;
+            }
+            int index = Arrays.binarySearch(rows, 0, numberOfRow, low);
+            if (index < 0)
+                return false;
+            System.arraycopy(rows, index + 1, rows, index,
+                    numberOfRow - index - 1);
+            numberOfRow--;
+            return true;
+        }
+
+        /**
+         * Set the rows of chunk from 1024 words of bits, kept as a sorted
+         * array instead if there are few rows
+         *
+         * @param  newWords  an array of long represents words of bits
+         */
+        private void setWords(long[] newWords)
+        {
+            int newNumberOfRow = 0;
+            for (long thisWord: newWords)
+                newNumberOfRow = newNumberOfRow + Long.bitCount(thisWord);
+            numberOfRow = newNumberOfRow;
+            if (numberOfRow > MAXIMUM_ARRAY_ROWS)
+            {
+                rows = null;
+                words = newWords;
+                return;
+            }
+            rows = new char[Math.max(numberOfRow, 1)];
+            int index = 0;
+            for (int wordIndex = 0; wordIndex < CHUNK_WORDS; wordIndex++)
+            {
+                long word = newWords[wordIndex];
+                while (word != 0)
+                {
+                    rows[index] = (char) ((wordIndex << 6) +
+                            Long.numberOfTrailingZeros(word));
+                    index++;
+                    word = word & (word - 1);
+                }
+            }
+            words = null;
+        }
+
+        /**
+         * Change the rows of chunk from a sorted array into words of bits
+         */
+        private void toWords()
+        {
+            long[] newWords = new long[CHUNK_WORDS];
+            orInto(newWords);
+            rows = null;
+            words = newWords;
+        }
+    }
+}
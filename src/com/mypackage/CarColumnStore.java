@@ -0,0 +1,503 @@
+package com.mypackage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The CarColumnStore class represents a car column store object generator.
+ * It is used to generate a car store which keeps each attribute of cars in
+ * its own array, indexed by slot, instead of keeping a Car object per car.
+ * Searches by price, year made, car maker and car model scan a single
+ * contiguous int array with the shared CarScanKernel, without visiting any
+ * object. Large scans are split into ranges of slots scanned in parallel
+ * by a CarParallelScan.
+ *
+ * A removed slot is marked by the smallest int in its price and year made
+ * and by no code in its car maker, so it never matches a scan, and it is
+ * used again by the next car added.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarColumnStore implements CarStore
+{
+    public static final int INITIAL_CAPACITY = 64;
+    public static final int MAXIMUM_NUMBER_OF_CAR = 1 << 30;
+
+    private static final int REMOVED = Integer.MIN_VALUE;
+
+    private String[] registrationNumbers;
+    private int[] yearsMade;
+    private int[] prices;
+    private int[] carMakerCodes;
+    private int[] carModelCodes;
+    private long[] colourCodes;
+    private int[] generations;
+    private int slotLimit;
+    private int numberOfCar;
+    private int[] freeSlots;
+    private int numberOfFreeSlot;
+    private HashMap<String, Integer> registrationSlots;
+    private CarParallelScan parallelScan;
+
+    /**
+     * Constructor for objects of class CarColumnStore
+     */
+    public CarColumnStore()
+    {
+        registrationNumbers = new String[INITIAL_CAPACITY];
+        yearsMade = new int[INITIAL_CAPACITY];
+        prices = new int[INITIAL_CAPACITY];
+        carMakerCodes = new int[INITIAL_CAPACITY];
+        carModelCodes = new int[INITIAL_CAPACITY];
+        colourCodes = new long[INITIAL_CAPACITY];
+        generations = new int[INITIAL_CAPACITY];
+        slotLimit = 0;
+        numberOfCar = 0;
+        freeSlots = new int[INITIAL_CAPACITY];
+        numberOfFreeSlot = 0;
+        registrationSlots = new HashMap<>();
+        parallelScan = CarParallelScan.getSharedScan();
+    }
+
+    /**
+     * Add the attributes of a car to a free slot
+     *
+     * @param  car  a Car object represents car to be added
+     * @return    an integer represents slot of car
+     * @throws    IllegalArgumentException if the car store is full
+     */
+    @Override
+    public int addCar(Car car)
+    {
+        if (numberOfCar == MAXIMUM_NUMBER_OF_CAR)
+            throw new IllegalArgumentException("Error: no more than " +
+                    MAXIMUM_NUMBER_OF_CAR + " cars can be stored");
+        int slot;
+        if (numberOfFreeSlot > 0)
+        {
+            numberOfFreeSlot--;
+            slot = freeSlots[numberOfFreeSlot];
+        }
+        else
+        {
+            if (slotLimit == prices.length)
+                grow(prices.length * 2);
+            slot = slotLimit;
+            slotLimit++;
+        }
+        registrationNumbers[slot] = car.getRegistrationNumber();
+        yearsMade[slot] = car.getYearMade();
+        prices[slot] = car.getPrice();
+        carMakerCodes[slot] = car.getCarMakerCode();
+        carModelCodes[slot] = car.getCarModelCode();
+        colourCodes[slot] = car.getColourCodes();
+        registrationSlots.put(CarDatabase.getRegistrationKey
+                (car.getRegistrationNumber()), slot);
+        numberOfCar++;
+        return slot;
+    }
+
+    /**
+     * Remove every car from car store
+     */
+    @Override
+    public void clear()
+    {
+        Arrays.fill(registrationNumbers, 0, slotLimit, null);
+        for (int slot = 0; slot < slotLimit; slot++)
+            generations[slot]++;
+        slotLimit = 0;
+        numberOfCar = 0;
+        numberOfFreeSlot = 0;
+        registrationSlots.clear();
+    }
+
+    /**
+     * Copy car store, so that the copy is not changed by later changes of
+     * this car store
+     *
+     * @return    a CarColumnStore object represents copy of car store
+     */
+    @Override
+    public CarColumnStore copy()
+    {
+        CarColumnStore copy = new CarColumnStore();
+        copy.registrationNumbers = Arrays.copyOf(registrationNumbers,
+                slotLimit);
+        copy.yearsMade = Arrays.copyOf(yearsMade, slotLimit);
+        copy.prices = Arrays.copyOf(prices, slotLimit);
+        copy.carMakerCodes = Arrays.copyOf(carMakerCodes, slotLimit);
+        copy.carModelCodes = Arrays.copyOf(carModelCodes, slotLimit);
+        copy.colourCodes = Arrays.copyOf(colourCodes, slotLimit);
+        copy.generations = Arrays.copyOf(generations, slotLimit);
+        copy.slotLimit = slotLimit;
+        copy.numberOfCar = numberOfCar;
+        copy.freeSlots = Arrays.copyOf(freeSlots, freeSlots.length);
+        copy.numberOfFreeSlot = numberOfFreeSlot;
+        copy.registrationSlots = new HashMap<>(registrationSlots);
+        copy.parallelScan = parallelScan;
+        return copy;
+    }
+
+    /**
+     * Find slot of a car by registration number, which is compared case
+     * insensitively
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    an integer represents slot of car, or -1 if not found
+     */
+    @Override
+    public int findCar(String registrationNumber)
+    {
+        Integer slot = registrationSlots.get(CarDatabase.getRegistrationKey
+                (registrationNumber));
+        if (slot == null)
+            return -1;
+        return slot;
+    }
+
+    /**
+     * Get code of car maker of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents code of car maker
+     */
+    @Override
+    public int getCarMakerCode(int slot)
+    {
+        return carMakerCodes[slot];
+    }
+
+    /**
+     * Get code of car model of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents code of car model
+     */
+    @Override
+    public int getCarModelCode(int slot)
+    {
+        return carModelCodes[slot];
+    }
+
+    /**
+     * Get packed codes of colours of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    a long represents packed codes of colours
+     */
+    @Override
+    public long getColourCodes(int slot)
+    {
+        return colourCodes[slot];
+    }
+
+    /**
+     * Get generation of a slot, which changes whenever the car in the slot
+     * is removed. Any slot below the slot limit may be checked.
+     *
+     * @param  slot  an integer represents slot
+     * @return    an integer represents generation of slot
+     */
+    @Override
+    public int getGeneration(int slot)
+    {
+        return generations[slot];
+    }
+
+    /**
+     * Get maximum number of cars which can be kept in car store at once
+     *
+     * @return    an integer represents maximum number of cars
+     */
+    @Override
+    public int getMaximumNumberOfCar()
+    {
+        return MAXIMUM_NUMBER_OF_CAR;
+    }
+
+    /**
+     * Get number of cars in car store
+     *
+     * @return    an integer represents number of cars
+     */
+    @Override
+    public int getNumberOfCar()
+    {
+        return numberOfCar;
+    }
+
+    /**
+     * Get price of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents price of car
+     */
+    @Override
+    public int getPrice(int slot)
+    {
+        return prices[slot];
+    }
+
+    /**
+     * Get registration number of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    a string represents registration number of car
+     */
+    @Override
+    public String getRegistrationNumber(int slot)
+    {
+        return registrationNumbers[slot];
+    }
+
+    /**
+     * Get number of slots which may be in use. Every car is in a slot
+     * below this number.
+     *
+     * @return    an integer represents number of slots
+     */
+    @Override
+    public int getSlotLimit()
+    {
+        return slotLimit;
+    }
+
+    /**
+     * Get year made of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents year made of car
+     */
+    @Override
+    public int getYearMade(int slot)
+    {
+        return yearsMade[slot];
+    }
+
+    /**
+     * Grow every column to a capacity
+     *
+     * @param  capacity  an integer represents new capacity of columns
+     */
+    private void grow(int capacity)
+    {
+        registrationNumbers = Arrays.copyOf(registrationNumbers, capacity);
+        yearsMade = Arrays.copyOf(yearsMade, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        carMakerCodes = Arrays.copyOf(carMakerCodes, capacity);
+        carModelCodes = Arrays.copyOf(carModelCodes, capacity);
+        colourCodes = Arrays.copyOf(colourCodes, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+    }
+
+    /**
+     * Check whether a slot is in use. Any slot number may be checked.
+     *
+     * @param  slot  an integer represents slot
+     * @return    a boolean represents whether slot is in use or not
+     */
+    @Override
+    public boolean isUsed(int slot)
+    {
+        return slot >= 0 && slot < slotLimit &&
+                registrationNumbers[slot] != null;
+    }
+
+    /**
+     * Remove a car from its slot
+     *
+     * @param  slot  an integer represents slot of car
+     */
+    @Override
+    public void removeCar(int slot)
+    {
+        registrationSlots.remove(CarDatabase.getRegistrationKey
+                (registrationNumbers[slot]));
+        registrationNumbers[slot] = null;
+        yearsMade[slot] = REMOVED;
+        prices[slot] = REMOVED;
+        carMakerCodes[slot] = CarSymbolTable.NO_CODE;
+        carModelCodes[slot] = CarSymbolTable.NO_CODE;
+        colourCodes[slot] = 0;
+        generations[slot]++;
+        if (numberOfFreeSlot == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        freeSlots[numberOfFreeSlot] = slot;
+        numberOfFreeSlot++;
+        numberOfCar--;
+    }
+
+    /**
+     * Select slots of cars whose car maker and car model match
+     *
+     * @param  carMakerCode  an integer represents code of car maker
+     * @param  carModelCode  an integer represents code of car model, or
+     *                       CarSymbolTable.NO_CODE for every model
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectCarMakerAndModel(int carMakerCode, int carModelCode)
+    {
+        CarScanKernel kernel = CarScanKernel.getSharedKernel();
+        long[] bitmap = CarScanKernel.newBitmap(slotLimit);
+        if (carMakerCode == CarSymbolTable.NO_CODE)
+            return bitmap;
+        parallelScan.scan(slotLimit, (fromRow, toRow) -> kernel.selectEqual
+                (carMakerCodes, fromRow, toRow, carMakerCode, bitmap));
+        if (carModelCode != CarSymbolTable.NO_CODE)
+        {
+            long[] modelBitmap = CarScanKernel.newBitmap(slotLimit);
+            parallelScan.scan(slotLimit, (fromRow, toRow) ->
+                    kernel.selectEqual(carModelCodes, fromRow, toRow,
+                    carModelCode, modelBitmap));
+            CarScanKernel.and(bitmap, modelBitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Select slots of cars whose price is within a range
+     *
+     * @param  minimumPrice  an integer represents minimum price of car
+     * @param  maximumPrice  an integer represents maximum price of car
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectPriceRange(int minimumPrice, int maximumPrice)
+    {
+        return selectRange(prices, minimumPrice, maximumPrice);
+    }
+
+    /**
+     * Select slots whose value in a column is within a range. Removed
+     * slots hold the smallest int, which is never in the range.
+     *
+     * @param  column  an array of integer represents column to be scanned
+     * @param  minimum  an integer represents minimum value
+     * @param  maximum  an integer represents maximum value
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    private long[] selectRange(int[] column, int minimum, int maximum)
+    {
+        CarScanKernel kernel = CarScanKernel.getSharedKernel();
+        long[] bitmap = CarScanKernel.newBitmap(slotLimit);
+        int from = Math.max(minimum, REMOVED + 1);
+        parallelScan.scan(slotLimit, (fromRow, toRow) -> kernel.selectRange
+                (column, fromRow, toRow, from, maximum, bitmap));
+        return bitmap;
+    }
+
+    /**
+     * Select slots of every car
+     *
+     * @return    an array of long represents bitmap of slots in use,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectUsed()
+    {
+        return selectRange(prices, REMOVED + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Select slots of cars whose year made is within a range
+     *
+     * @param  fromYear  an integer represents earliest year made of car
+     * @param  toYear  an integer represents latest year made of car
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectYearRange(int fromYear, int toYear)
+    {
+        return selectRange(yearsMade, fromYear, toYear);
+    }
+
+    /**
+     * Set codes of car maker and car model of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  carMakerCode  an integer represents code of car maker
+     * @param  carModelCode  an integer represents code of car model
+     */
+    @Override
+    public void setCarMakerAndModel(int slot, int carMakerCode,
+                                    int carModelCode)
+    {
+        carMakerCodes[slot] = carMakerCode;
+        carModelCodes[slot] = carModelCode;
+    }
+
+    /**
+     * Set packed codes of colours of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  newColourCodes  a long represents packed codes of colours
+     */
+    @Override
+    public void setColourCodes(int slot, long newColourCodes)
+    {
+        colourCodes[slot] = newColourCodes;
+    }
+
+    /**
+     * Set scan which splits large scans of car store into ranges scanned
+     * in parallel
+     *
+     * @param  newParallelScan  a CarParallelScan object represents parallel
+     *                          scan of car store
+     */
+    @Override
+    public void setParallelScan(CarParallelScan newParallelScan)
+    {
+        parallelScan = newParallelScan;
+    }
+
+    /**
+     * Set price of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  price  an integer represents price of car
+     */
+    @Override
+    public void setPrice(int slot, int price)
+    {
+        prices[slot] = price;
+    }
+
+    /**
+     * Set registration number of a car. The caller checks that no other
+     * car has the registration number.
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     */
+    @Override
+    public void setRegistrationNumber(int slot, String registrationNumber)
+    {
+        registrationSlots.remove(CarDatabase.getRegistrationKey
+                (registrationNumbers[slot]));
+        registrationNumbers[slot] = registrationNumber;
+        registrationSlots.put(CarDatabase.getRegistrationKey
+                (registrationNumber), slot);
+    }
+
+    /**
+     * Set year made of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  yearMade  an integer represents year made of car
+     */
+    @Override
+    public void setYearMade(int slot, int yearMade)
+    {
+        yearsMade[slot] = yearMade;
+    }
+}
@@ -0,0 +1,85 @@
+package com.mypackage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The CarCursor class represents a car cursor object generator. It is used
+ * to generate a cursor which reads the cars of a CarView a page at a time.
+ * The cursor keeps its position in the view, so each page goes on from the
+ * last car of the page before without visiting the cars already read, and
+ * only the cars of a page are ever kept in memory.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarCursor implements Iterator<Car>
+{
+    private Iterator<Car> carIterator;
+    private int numberOfCarRead;
+
+    /**
+     * Constructor for objects of class CarCursor
+     *
+     * @param  newCarIterator  an iterator of Car represents cars to be read
+     * @param  newNumberOfCarRead  an integer represents number of cars
+     *                             before the first car to be read
+     */
+    CarCursor(Iterator<Car> newCarIterator, int newNumberOfCarRead)
+    {
+        carIterator = newCarIterator;
+        numberOfCarRead = newNumberOfCarRead;
+    }
+
+    /**
+     * Get number of cars before the next car to be read, counting the cars
+     * skipped when the cursor was opened
+     *
+     * @return    an integer represents number of cars read
+     */
+    public int getNumberOfCarRead()
+    {
+        return numberOfCarRead;
+    }
+
+    /**
+     * Check whether there is another car to be read
+     *
+     * @return    a boolean represents whether there is another car or not
+     */
+    @Override
+    public boolean hasNext()
+    {
+        return carIterator.hasNext();
+    }
+
+    /**
+     * Read the next car
+     *
+     * @return    a Car object represents next car
+     * @throws    NoSuchElementException if there is no more car
+     */
+    @Override
+    public Car next()
+    {
+        Car thisCar = carIterator.next();
+        numberOfCarRead++;
+        return thisCar;
+    }
+
+    /**
+     * Read the next page of cars
+     *
+     * @param  limit  an integer represents maximum number of cars in page
+     * @return    an array list of Car represents cars of page, which is
+     *            empty if there is no more car
+     */
+    public ArrayList<Car> nextPage(int limit)
+    {
+        ArrayList<Car> page = new ArrayList<>();
+        while (page.size() < limit && hasNext())
+            page.add(next());
+        return page;
+    }
+}
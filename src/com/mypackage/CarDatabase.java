@@ -1,360 +1,3018 @@
 package com.mypackage;
 
 import java.io.*;
-import java.util.Scanner;
+import java.nio.file.NoSuchFileException;
+import java.time.Clock;
+import java.time.Year;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * The CarDatabase class represents a car database object generator. It is
- * used to generate a car database which stores Car objects.
+ * used to generate a car database which stores Car objects. A car database
+ * may instead keep its cars in a CarStore, in which case searches scan the
+ * columns of the car store and cars are handed out as CarRow views. The
+ * slots of a car store are also indexed by car maker and by colour in
+ * compressed CarBitmap objects, which are updated as cars are added,
+ * deleted and edited. Searches which have to scan every car, in the car
+ * store or in the list of cars, split large scans into ranges checked in
+ * parallel by a CarParallelScan. The first cars of a search in order of
+ * price or year made are found by walking the price or year made index in
+ * order, or by keeping the best cars found in a bounded heap, so the cars
+ * which match are never sorted as a whole. Many adds, deletes and edits
+ * may be applied at once as a CarBatch, which is checked as a whole and
+ * journaled as one record.
+ *
+ * A car database made in concurrent mode may be shared by many threads.
+ * Registration numbers are looked up without locking, searches share a
+ * read lock on the secondary indexes and return a copy of the cars found
+ * instead of a live view, and changes of different registration numbers
+ * are journaled in parallel, holding the write lock only while the
+ * indexes are updated. In concurrent mode cars must be changed through
+ * the car database, or through the setters of Car, but not while being
+ * read by another thread.
+ *
+ * Every change makes a new version of the cars in car database. A
+ * CarSnapshot of immutable car records is taken on the first request, and
+ * from then on every change copies only the car records it changes into
+ * the next version, which is published through an atomic reference when
+ * the write lock is released. Readers never copy the cars, and long
+ * reports read a snapshot without locking while writers go on.
  *
  * @author  Zi Sing Lim
  * @version 1.0 (29.Apr.2021)
  */
 public class CarDatabase
 {
+    public static final int NUMBER_OF_WRITE_STRIPE = 64;
+
+    private static final int PRICE_GROUP = 0;
+    private static final int MODEL_GROUP = 1;
+    private static final int YEAR_GROUP = 2;
+    private static final int COLOUR_GROUP = 3;
+    // marks of registration numbers checked in a batch, for a car deleted
+    // by the batch and for a car of the car store which is not looked up
+    private static final Car DELETED_CAR = new Car();
+    private static final Car REGISTERED_CAR = new Car();
+    static final int NUMBER_OF_GROUP = COLOUR_GROUP +
+            CarFileWriter.NUMBER_OF_COLOUR;
+
     private ArrayList<Car> cars;
+    private Map<String, Car> registrationIndex;
+    private TreeMap<Integer, ArrayList<Car>> priceIndex;
+    private HashMap<Integer, HashMap<Integer, ArrayList<Car>>> makerModelIndex;
+    private ArrayList<ArrayList<Car>> yearIndex;
+    private HashMap<Integer, ArrayList<Car>> colourIndex;
+    private TreeMap<Integer, ArrayList<Car>> outlyingYearIndex;
+    private Clock clock;
+    private CarJournal journal;
+    private String journalCarFilename;
+    private CarStore carStore;
+    private HashMap<Integer, CarBitmap> carMakerBitmaps;
+    private HashMap<Integer, CarBitmap> colourBitmaps;
+    private boolean isConcurrent;
+    private ReentrantReadWriteLock indexLock;
+    private ReentrantLock[] writeStripes;
+    private AtomicLong version;
+    private AtomicReference<CarSnapshot> snapshot;
+    private CarSnapshot.Builder snapshotBuilder;
+    private int[] snapshotPositions;
+    private int writeHoldCount;
+    private CarParallelScan parallelScan;
 
     /**
      * Constructor for objects of class CarDatabase
      */
     public CarDatabase()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructor for objects of class CarDatabase which keeps its cars in
+     * a car store
+     *
+     * @param  newCarStore  a CarStore object represents car store of cars,
+     *                      or null to keep Car objects
+     */
+    public CarDatabase(CarStore newCarStore)
+    {
+        this(newCarStore, false);
+    }
+
+    /**
+     * Constructor for objects of class CarDatabase which may be made in
+     * concurrent mode, to be shared by many threads
+     *
+     * @param  newCarStore  a CarStore object represents car store of cars,
+     *                      or null to keep Car objects
+     * @param  newIsConcurrent  a boolean represents whether car database is
+     *                          in concurrent mode or not
+     */
+    public CarDatabase(CarStore newCarStore, boolean newIsConcurrent)
     {
         cars = new ArrayList<>();
+        isConcurrent = newIsConcurrent;
+        registrationIndex = newRegistrationIndex();
+        priceIndex = new TreeMap<>();
+        makerModelIndex = new HashMap<>();
+        yearIndex = new ArrayList<>();
+        colourIndex = new HashMap<>();
+        outlyingYearIndex = new TreeMap<>();
+        clock = Clock.systemDefaultZone();
+        journal = null;
+        journalCarFilename = null;
+        carStore = newCarStore;
+        carMakerBitmaps = new HashMap<>();
+        colourBitmaps = new HashMap<>();
+        indexLock = new ReentrantReadWriteLock();
+        writeStripes = new ReentrantLock[NUMBER_OF_WRITE_STRIPE];
+        for (int index = 0; index < writeStripes.length; index++)
+            writeStripes[index] = new ReentrantLock();
+        version = new AtomicLong();
+        snapshot = new AtomicReference<>(null);
+        snapshotBuilder = null;
+        snapshotPositions = new int[0];
+        writeHoldCount = 0;
+        parallelScan = CarParallelScan.getSharedScan();
+        if (carStore != null)
+        {
+            carStore.clear();
+            carStore.setParallelScan(parallelScan);
+        }
     }
 
     /**
-     * Add a car to car database
+     * Add a car to car database. If car database keeps its cars in a car
+     * store, the attributes of the car are copied into the car store.
      *
      * @param  newCar  a Car object represents car to be added
+     * @throws    IllegalArgumentException if the car is duplicate
+     * @throws    UncheckedIOException if the car cannot be journaled
      */
     public void addCar(Car newCar)
     {
-        cars.add(newCar);
+        int status = tryAddCar(newCar);
+        if (status != CarStatus.OK)
+            throw new IllegalArgumentException(CarStatus.getMessage(status));
     }
 
     /**
      * Add car from a string of its attributes
      *
      * @param  carAttributeString  a string represents the attributes of a car
+     * @throws    IllegalArgumentException if the attributes are malformed or
+     *                                     the car is duplicate
      */
     public void addCarFromFile(String carAttributeString)
     {
-        String[] carAttributes = carAttributeString.split(",");
-
-        String registrationNumber = carAttributes[0];
-        int yearMade = Integer.parseInt(carAttributes[1]);
-        String[] colours = {carAttributes[2], carAttributes[3], carAttributes[4]};
-        String carMaker = carAttributes[5];
-        String carModel = carAttributes[6];
-        int price = Integer.parseInt(carAttributes[7]);
+        String[] carAttributes = new String[CarFileLoader.NUMBER_OF_CAR_FIELDS];
+        addCar(CarFileLoader.parseCar(carAttributeString, carAttributes));
+    }
 
-        Car newCar = new Car(registrationNumber, yearMade, colours,
-                carMaker, carModel, price);
-        addCar(newCar);
+    /**
+     * Add the car in a slot of the car store to the snapshot
+     *
+     * @param  slot  an integer represents slot of car
+     */
+    private void addSlotToSnapshot(int slot)
+    {
+        CarSnapshot.Builder builder = getSnapshotBuilder();
+        if (builder != null)
+            setSnapshotPosition(slot, builder.addCar(new CarRow(this,
+                    carStore, slot)));
     }
 
     /**
-     * Check uniqueness of a car in car database
+     * Add a slot to a bitmap of slots in an index
      *
-     * @param  registrationNumber  a string represents registration
-     *                             number of car
-     * @throws    IllegalArgumentException if the car is duplicate
+     * @param  index  a map represents index of slots
+     * @param  code  an integer represents code of bitmap in index
+     * @param  slot  an integer represents slot to be added
      */
-    public void checkDuplicateCar(String registrationNumber)
+    private static void addToBitmap(Map<Integer, CarBitmap> index, int code,
+                                    int slot)
     {
-        for (Car thisCar: cars)
+        CarBitmap bitmap = index.get(code);
+        if (bitmap == null)
         {
-            if (thisCar.getRegistrationNumber().equalsIgnoreCase
-                    (registrationNumber))
-            {
-                throw new IllegalArgumentException("Error: registration number " +
-                        "must be unique. This number " +
-                        "is already been registered");
-            }
+            bitmap = new CarBitmap();
+            index.put(code, bitmap);
         }
+        bitmap.add(slot);
     }
 
     /**
-     * Delete a car from car database
+     * Add a car to the end of a group of cars, keeping its position in the
+     * car for a later removal
      *
-     * @param  car  a Car object represents car to be deleted
+     * @param  carGroup  an array list of Car represents group of cars
+     * @param  group  an integer represents which group of the car it is,
+     *                such as PRICE_GROUP
+     * @param  car  a Car object represents car to be added
      */
-    public void deleteCar(Car car)
+    private static void addToGroup(ArrayList<Car> carGroup, int group,
+                                   Car car)
     {
-        cars.remove(car);
-        System.out.println();
-        System.out.println("This car is deleted successfully");
+        car.setGroupPosition(group, carGroup.size());
+        carGroup.add(car);
     }
 
     /**
-     * Display cars in car database
+     * Add a car to a group of cars in an index
+     *
+     * @param  index  a map represents index of cars
+     * @param  key  a key represents group of cars in index
+     * @param  group  an integer represents which group of the car it is,
+     *                such as PRICE_GROUP
+     * @param  car  a Car object represents car to be added
      */
-    public void displayCars()
+    private static <K> void addToGroup(Map<K, ArrayList<Car>> index, K key,
+                                       int group, Car car)
     {
-        for (int index = 0; index < getNumberOfCar(); index++)
+        ArrayList<Car> carGroup = index.get(key);
+        if (carGroup == null)
         {
-            int number = index + 1;
-            Car thisCar = cars.get(index);
-            thisCar.displayCar();
-            System.out.println("(Car " + number + " Information)");
+            carGroup = new ArrayList<>();
+            index.put(key, carGroup);
         }
+        addToGroup(carGroup, group, car);
     }
 
     /**
-     * Edit colours of a car
+     * Add a car to the end of the list of cars, keeping its position in
+     * the car for a later removal. The snapshot keeps its car records in
+     * the same positions.
      *
-     * @param  car  a Car object represents car to be edited
-     * @param  newColours  an array of string represents represents new
-     *                     colours of car
+     * @param  car  a Car object represents car to be added
      */
-    public void editCarColour(Car car, String[] newColours)
+    private void appendCar(Car car)
     {
-        car.setColours(newColours);
-        System.out.println();
-        System.out.println("This car colour is edited successfully");
+        car.setListPosition(cars.size());
+        cars.add(car);
+        CarSnapshot.Builder builder = getSnapshotBuilder();
+        if (builder != null)
+            builder.addCar(car);
     }
 
     /**
-     * Edit price of a car
+     * Apply a batch of adds, deletes and edits of cars. Every change is
+     * checked against the cars in car database and the changes before it
+     * first, so either the whole batch is applied or none of it is. The
+     * batch is journaled as one record and its changes are applied under
+     * one hold of the write lock, looking cars up by registration number.
+     * Every write stripe is held meanwhile, so no other change comes in
+     * between.
      *
-     * @param  car  a Car object represents car to be edited
-     * @param  newPrice  an integer represents price of car
+     * @param  batch  a CarBatch object represents changes to be applied
+     * @throws    IllegalArgumentException if a change adds a duplicate car
+     *                                     or changes a car which is not
+     *                                     registered
+     * @throws    UncheckedIOException if the batch cannot be journaled
      */
-    public void editCarPrice(Car car, int newPrice)
+    public void applyBatch(CarBatch batch)
     {
-        car.setPrice(newPrice);
-        System.out.println();
-        System.out.println("This car price is edited successfully");
+        List<CarBatch.Change> changes = batch.getChanges();
+        if (changes.isEmpty())
+            return;
+        for (ReentrantLock thisWriteStripe: writeStripes)
+            thisWriteStripe.lock();
+        try
+        {
+            Car[] batchCars = checkBatch(changes);
+            if (journal != null)
+            {
+                try
+                {
+                    journal.recordBatch(batch);
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            lockForWriting();
+            try
+            {
+                applyChanges(changes, batchCars);
+            }
+            finally
+            {
+                unlockForWriting();
+            }
+        }
+        finally
+        {
+            for (ReentrantLock thisWriteStripe: writeStripes)
+                thisWriteStripe.unlock();
+        }
+        compactJournalIfFull();
     }
 
     /**
-     * Get a string of a car attributes
+     * Apply changes of a batch which have been checked, holding the write
+     * lock
      *
-     * @param  aCar  a Car object represents the car which its attributes
-     *               to be extarcted
+     * @param  changes  a list of Change represents changes to be applied
+     * @param  batchCars  an array of Car represents car of each change,
+     *                    found when the batch is checked, if cars are
+     *                    kept on heap
      */
-    public String getCarAttributeString(Car aCar)
+    private void applyChanges(List<CarBatch.Change> changes,
+                              Car[] batchCars)
     {
-        String registrationNumber = aCar.getRegistrationNumber();
-        String yearMade = String.valueOf(aCar.getYearMade());
-        String colourString = String.join(",", aCar.getColours());
-        String carMaker = aCar.getCarMaker();
-        String carModel = aCar.getCarModel();
-        String price = String.valueOf(aCar.getPrice());
+        if (carStore == null)
+        {
+            applyChangesToIndexes(changes, batchCars);
+            return;
+        }
+        for (CarBatch.Change thisChange: changes)
+        {
+            if (thisChange.getType() == CarBatch.Change.ADD_CAR)
+            {
+                int slot = carStore.addCar(thisChange.getCar());
+                indexSlot(slot);
+                addSlotToSnapshot(slot);
+                continue;
+            }
 
-        String carAttributeString = String.join(",", registrationNumber,
-                yearMade, colourString, carMaker, carModel,
-                price);
-        return carAttributeString;
+            Car car = new CarRow(this, carStore, carStore.findCar
+                    (thisChange.getRegistrationNumber()));
+            if (thisChange.getType() == CarBatch.Change.EDIT_CAR_PRICE)
+                updatePrice(car, thisChange.getPrice());
+            else if (thisChange.getType() == CarBatch.Change.EDIT_CAR_COLOUR)
+                updateColours(car, Car.encodeColours(thisChange.getColours()));
+            else
+                removeCar(car);
+        }
     }
 
     /**
-     * Get car by registration number of car
+     * Apply changes of a batch which have been checked to the list of cars
+     * and the secondary indexes, holding the write lock. Adds and deletes
+     * are applied in turn, but the edits of a car are merged into its final
+     * price and colours first, so the indexes are changed once for each car
+     * however many times it is edited, or not at all if its edits cancel
+     * out, and each group of the price index is looked up once.
      *
-     * @param  registrationNumber  a string represents registration
-     *                             number of car
-     * @return    a Car object represents car found by registration number
-     * @throws    IllegalArgumentException if car is not found
+     * @param  changes  a list of Change represents changes to be applied
+     * @param  batchCars  an array of Car represents car of each change,
+     *                    found when the batch is checked
      */
-    public Car getCarByRegistrationNumber(String registrationNumber)
+    private void applyChangesToIndexes(List<CarBatch.Change> changes,
+                                       Car[] batchCars)
     {
-        boolean found = false;
-        int index = 0;
-        while (!found && index < cars.size())
+        LinkedHashMap<Car, Car> editedCars = new LinkedHashMap<>();
+        for (int index = 0; index < changes.size(); index++)
         {
-            Car thisCar = cars.get(index);
-            if (thisCar.getRegistrationNumber().
-                    equalsIgnoreCase(registrationNumber))
+            CarBatch.Change thisChange = changes.get(index);
+            Car car = batchCars[index];
+            if (thisChange.getType() == CarBatch.Change.ADD_CAR)
+            {
+                appendCar(car);
+                registrationIndex.put(getRegistrationKey(car
+                        .getRegistrationNumber()), car);
+                indexCar(car);
+                if (car.getCarDatabase() == null)
+                    car.setCarDatabase(this);
+                continue;
+            }
+
+            if (thisChange.getType() == CarBatch.Change.DELETE_CAR)
             {
-                found = true;
-                return thisCar;
+                editedCars.remove(car);
+                registrationIndex.remove(getRegistrationKey(car
+                        .getRegistrationNumber()));
+                unindexCar(car);
+                removeFromCarList(car);
+                if (car.getCarDatabase() == this)
+                    car.setCarDatabase(null);
+                continue;
             }
-            index++;
+
+            Car editedCar = editedCars.get(car);
+            if (editedCar == null)
+            {
+                editedCar = new Car();
+                editedCar.copyAttributes(car);
+                editedCars.put(car, editedCar);
+            }
+            if (thisChange.getType() == CarBatch.Change.EDIT_CAR_PRICE)
+                editedCar.assignPrice(thisChange.getPrice());
+            else
+                editedCar.assignColourCodes(Car.encodeColours(thisChange
+                        .getColours()));
+        }
+
+        HashMap<Integer, ArrayList<Car>> priceGroups = new HashMap<>();
+        for (Map.Entry<Car, Car> thisEntry: editedCars.entrySet())
+        {
+            Car car = thisEntry.getKey();
+            Car editedCar = thisEntry.getValue();
+            boolean isRepriced = editedCar.getPrice() != car.getPrice();
+            if (isRepriced)
+            {
+                removeFromGroup(getPriceGroup(priceGroups, car.getPrice()),
+                        PRICE_GROUP, car);
+                addToGroup(getPriceGroup(priceGroups, editedCar.getPrice()),
+                        PRICE_GROUP, car);
+                car.assignPrice(editedCar.getPrice());
+            }
+            if (editedCar.getColourCodes() != car.getColourCodes())
+                updateColours(car, editedCar.getColourCodes());
+            else if (isRepriced)
+                updateSnapshot(car);
         }
-        if (found == false)
-            throw new IllegalArgumentException("No such car with this " +
-                    "Registration Number");
-        return null;
+        for (Map.Entry<Integer, ArrayList<Car>> thisEntry:
+                priceGroups.entrySet())
+            if (thisEntry.getValue().isEmpty())
+                priceIndex.remove(thisEntry.getKey());
     }
 
     /**
-     * Get cars in car database
+     * Check that every change of a batch has valid values, and adds a car
+     * which is not registered, or changes a car which is registered, by car
+     * database or by the changes before it. The work which may fail while
+     * the batch is applied is done here, before the batch is journaled:
+     * the car store must have room for the cars added, and new colours are
+     * encoded in the shared car symbol table. If cars are kept on heap, the
+     * car of each change is found here too, so the batch is applied
+     * without looking up the registration index again.
      *
-     * @return    an array list of Car represents cars in car database
+     * @param  changes  a list of Change represents changes to be checked
+     * @return    an array of Car represents car of each change if cars are
+     *            kept on heap, or null if they are kept in the car store
+     * @throws    IllegalArgumentException if a change is not valid
      */
-    public ArrayList<Car> getCars()
+    private Car[] checkBatch(List<CarBatch.Change> changes)
     {
-        return cars;
+        HashMap<String, Car> batchRegistrations = new HashMap<>();
+        Car[] batchCars = carStore == null ? new Car[changes.size()] : null;
+        CarValidator validator = new CarValidator();
+        int currentYear = getCurrentYear();
+        long numberOfCar = carStore != null ? carStore.getNumberOfCar() :
+                cars.size();
+        for (int index = 0; index < changes.size(); index++)
+        {
+            CarBatch.Change thisChange = changes.get(index);
+            if (checkChange(thisChange, validator, currentYear) !=
+                    CarStatus.OK)
+                throw new IllegalArgumentException(getBatchError(index,
+                        validator.getMessage()));
+            try
+            {
+                if (thisChange.getType() == CarBatch.Change.EDIT_CAR_COLOUR)
+                    Car.encodeColours(thisChange.getColours());
+            }
+            catch (IllegalArgumentException exception)
+            {
+                throw new IllegalArgumentException(getBatchError(index,
+                        exception.getMessage()));
+            }
+            if (thisChange.getType() == CarBatch.Change.ADD_CAR)
+                numberOfCar++;
+            else if (thisChange.getType() == CarBatch.Change.DELETE_CAR)
+                numberOfCar--;
+            if (carStore != null && numberOfCar >
+                    carStore.getMaximumNumberOfCar())
+                throw new IllegalArgumentException("Error: change " +
+                        (index + 1) + " of batch: no more than " +
+                        carStore.getMaximumNumberOfCar() + " cars can be " +
+                        "stored");
+            String registrationNumber = thisChange.getRegistrationNumber();
+            String registrationKey = getRegistrationKey(registrationNumber);
+            Car car = batchRegistrations.get(registrationKey);
+            boolean isRegistered;
+            if (car != null)
+                isRegistered = car != DELETED_CAR;
+            else if (carStore == null)
+            {
+                car = registrationIndex.get(registrationKey);
+                isRegistered = car != null;
+            }
+            else
+                isRegistered = isRegistered(registrationNumber);
+            boolean isAdd = thisChange.getType() == CarBatch.Change.ADD_CAR;
+            if (isAdd && isRegistered)
+                throw new IllegalArgumentException("Error: change " +
+                        (index + 1) + " of batch: registration number " +
+                        registrationNumber + " is already been registered");
+            if (!isAdd && !isRegistered)
+                throw new IllegalArgumentException("Error: change " +
+                        (index + 1) + " of batch: no such car with " +
+                        "registration number " + registrationNumber);
+            if (isAdd)
+                car = thisChange.getCar();
+            if (batchCars != null)
+                batchCars[index] = car;
+            if (thisChange.getType() == CarBatch.Change.DELETE_CAR)
+                batchRegistrations.put(registrationKey, DELETED_CAR);
+            else if (isAdd && carStore == null)
+                batchRegistrations.put(registrationKey, car);
+            else if (isAdd)
+                batchRegistrations.put(registrationKey, REGISTERED_CAR);
+        }
+        return batchCars;
     }
 
     /**
-     * Get cars by age of car
+     * Check the values of a change of a batch against the rules of the car
+     * warehouse
      *
-     * @param  age  an integer represents age of car
-     * @return    a CarDatabase object represents cars found by age of car
-     * @throws    IllegalArgumentException if no car is found
+     * @param  change  a Change object represents change to be checked
+     * @param  validator  a CarValidator object represents validator of
+     *                    values
+     * @param  currentYear  an integer represents current year
+     * @return    an integer represents status code of CarStatus
      */
-    public CarDatabase getCarsByAge(int age)
+    private static int checkChange(CarBatch.Change change,
+                                   CarValidator validator, int currentYear)
     {
-        int currentYear = 2021;
-        CarDatabase carsFound = new CarDatabase();
-        for (Car thisCar: cars)
+        switch (change.getType())
         {
-            if (currentYear - thisCar.getYearMade() <= age)
-            {
-                carsFound.addCar(thisCar);
-            }
+            case CarBatch.Change.ADD_CAR:
+                return validator.checkCar(change.getCar(), currentYear);
+            case CarBatch.Change.EDIT_CAR_COLOUR:
+                return validator.checkColours(change.getColours());
+            case CarBatch.Change.EDIT_CAR_PRICE:
+                return validator.checkPrice(change.getPrice());
+            default:
+                return CarStatus.OK;
         }
-        if (carsFound.getNumberOfCar() == 0)
-            throw new IllegalArgumentException("There is no car younger " +
-                    "than or equal to this age " +
-                    "in the warehouse currently");
-        return carsFound;
     }
 
     /**
-     * Get cars by car maker and car model
+     * Check uniqueness of a car in car database
      *
-     * @param  carMaker  a string represents car maker
-     * @param  carModel  a string represents car model
-     * @return    a CarDatabase object represents cars found by car maker and
-     *            car model
-     * @throws    IllegalArgumentException if no car is found
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @throws    IllegalArgumentException if the car is duplicate
      */
-    public CarDatabase getCarsByMakerAndModel(String carMaker, String carModel)
+    public void checkDuplicateCar(String registrationNumber)
     {
-        CarDatabase carsFound = new CarDatabase();
-        for (Car thisCar: cars)
+        if (isRegistered(registrationNumber))
+            throw new IllegalArgumentException(CarStatus.getMessage
+                    (CarStatus.DUPLICATE_CAR));
+    }
+
+    /**
+     * Close the journal of car database, waiting for a compaction in
+     * progress to finish. Changes are no longer journaled after this.
+     */
+    public void closeJournal()
+    {
+        if (journal == null)
+            return;
+        try
         {
-            if (thisCar.getCarMaker().equalsIgnoreCase(carMaker))
-            {
-                if (carModel.equalsIgnoreCase("ANY"))
-                    carsFound.addCar(thisCar);
-                else
-                if (thisCar.getCarModel().equalsIgnoreCase(carModel))
-                    carsFound.addCar(thisCar);
-            }
+            journal.close();
         }
-        if (carsFound.getNumberOfCar() == 0)
-            throw new IllegalArgumentException("There is no car with this " +
-                    "car maker and model in the " +
-                    "warehouse currently");
-        return carsFound;
+        catch (IOException exception)
+        {
+            System.out.println("Error: " + journal.getFilename() +
+                    " cannot be closed (" + exception + ")");
+        }
+        journal = null;
+        journalCarFilename = null;
     }
 
     /**
-     * Get cars by price of car
+     * Compact the journal of car database by writing every car to the car
+     * file and starting an empty journal. Every write stripe is held while
+     * the snapshot is read and the journal is set aside, so no change is
+     * journaled but left out of the snapshot. The snapshot is taken before
+     * the write stripes are held, and kept up to date by every change
+     * afterwards, so reading it under them copies no car.
      *
-     * @param  minimumPrice  an integer represents minimum price of car
-     * @param  maximumPrice  an integer represents maximum price of car
-     * @return    a CarDatabase object represents cars found by price of car
-     * @throws    IllegalArgumentException if no car is found
+     * @param  inBackground  a boolean represents whether the car file is
+     *                       written on a background thread or not
+     * @return    a boolean represents whether the compaction is done or
+     *            started
      */
-    public CarDatabase getCarsByPrice(int minimumPrice, int maximumPrice)
+    public boolean compactJournal(boolean inBackground)
     {
-        CarDatabase carsFound = new CarDatabase();
-        for (Car thisCar: cars)
+        if (journal == null)
+            return false;
+        getSnapshot();
+        for (ReentrantLock thisWriteStripe: writeStripes)
+            thisWriteStripe.lock();
+        try
+        {
+            return journal.compact(getSnapshot().getCars(),
+                    journalCarFilename, inBackground);
+        }
+        finally
+        {
+            for (ReentrantLock thisWriteStripe: writeStripes)
+                thisWriteStripe.unlock();
+        }
+    }
+
+    /**
+     * Start compacting the journal in the background once it has grown
+     * past the compaction threshold
+     */
+    private void compactJournalIfFull()
+    {
+        if (journal != null && journal.getNumberOfRecord() >=
+                CarJournal.COMPACTION_THRESHOLD)
+            compactJournal(true);
+    }
+
+    /**
+     * Delete a car from car database
+     *
+     * @param  car  a Car object represents car to be deleted
+     * @return    an integer represents status code of CarStatus, which is
+     *            NO_SUCH_CAR if the car is not in car database
+     * @throws    UncheckedIOException if the deletion cannot be journaled
+     */
+    public int deleteCar(Car car)
+    {
+        boolean isRemoved;
+        ReentrantLock writeStripe = lockWriteStripe(car);
+        try
         {
-            if (thisCar.getPrice() >= minimumPrice &&
-                    thisCar.getPrice() <= maximumPrice)
+            if (journal != null && car.getCarDatabase() == this)
             {
-                carsFound.addCar(thisCar);
+                try
+                {
+                    journal.recordDeleteCar(car.getRegistrationNumber());
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
+                }
             }
+            isRemoved = removeCar(car);
         }
-        if (carsFound.getNumberOfCar() == 0)
-            throw new IllegalArgumentException("There is no car within " +
-                    "this price range");
-        return carsFound;
+        finally
+        {
+            writeStripe.unlock();
+        }
+        if (!isRemoved)
+            return CarStatus.NO_SUCH_CAR;
+        compactJournalIfFull();
+        return CarStatus.OK;
     }
 
     /**
-     * Get number of cars in car database
+     * Display cars in car database
      *
-     * @return    an integer represents number of cars in car database
+     * @param  output  a PrintWriter object represents output of cars
      */
-    public int getNumberOfCar()
+    public void displayCars(PrintWriter output)
     {
-        return cars.size();
+        int number = 0;
+        for (Car thisCar: readCarList())
+        {
+            number++;
+            thisCar.displayCar(output);
+            output.println("(Car " + number + " Information)");
+        }
     }
 
     /**
-     * Read file which contains cars information in it
+     * Edit colours of a car. The edit is journaled first, then the colour
+     * index and the colours of the car are changed under one hold of the
+     * write lock.
      *
-     * @param  filename  a string represents filename of file to be read
+     * @param  car  a Car object represents car to be edited
+     * @param  newColours  an array of string represents represents new
+     *                     colours of car
+     * @return    an integer represents status code of CarStatus, which is
+     *            the status of checking the colours if they are not valid,
+     *            such as BLANK_COLOURS if every colour is blank, or
+     *            NO_SUCH_CAR if the car is not in car database
+     * @throws    IllegalArgumentException if the colours cannot be encoded
+     * @throws    UncheckedIOException if the edit cannot be journaled
      */
-    public void readCarFile(String filename)
+    public int editCarColour(Car car, String[] newColours)
     {
+        int colourStatus = new CarValidator().checkColours(newColours);
+        if (colourStatus != CarStatus.OK)
+            return colourStatus;
+        if (car.getCarDatabase() != this)
+            return CarStatus.NO_SUCH_CAR;
+        long newColourCodes = Car.encodeColours(newColours);
+        ReentrantLock writeStripe = lockWriteStripe(car);
         try
         {
-            FileReader inputFile = new FileReader(filename);
-            try
+            if (car.getCarDatabase() != this)
+                return CarStatus.NO_SUCH_CAR;
+            if (journal != null)
             {
-                Scanner parser = new Scanner(inputFile);
-                String carAttributeString = "";
-                while (parser.hasNextLine())
+                try
                 {
-                    carAttributeString = parser.nextLine();
-                    addCarFromFile(carAttributeString);
+                    journal.recordEditCarColour(car.getRegistrationNumber(),
+                            newColours);
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
                 }
             }
-            finally
-            {
-                inputFile.close();
-            }
-        }
-        catch (FileNotFoundException exception)
-        {
-            System.out.println(filename + " not found");
+            updateColours(car, newColourCodes);
         }
-        catch (IOException exception)
+        finally
         {
-            System.out.println("Unexpected I/O exception occurs");
+            writeStripe.unlock();
         }
+        compactJournalIfFull();
+        return CarStatus.OK;
     }
 
     /**
-     * Set cars in car database
+     * Edit car maker and car model of a car. The edit is journaled first,
+     * then the car maker and car model index and the car maker and car
+     * model of the car are changed under one hold of the write lock.
      *
-     * @param  newCars  an array list of Car represents cars in car database
+     * @param  car  a Car object represents car to be edited
+     * @param  newCarMaker  a string represents new car maker of car
+     * @param  newCarModel  a string represents new car model of car
+     * @return    an integer represents status code of CarStatus, which is
+     *            the status of checking the car maker or car model if it
+     *            is not valid, such as BLANK_NAME if it is blank, or
+     *            NO_SUCH_CAR if the car is not in car database
+     * @throws    UncheckedIOException if the edit cannot be journaled
      */
-    public void setCars(ArrayList<Car> newCars)
+    public int editCarMakerAndModel(Car car, String newCarMaker,
+                                    String newCarModel)
     {
-        cars = newCars;
+        CarValidator validator = new CarValidator();
+        if (validator.checkCarMaker(newCarMaker) != CarStatus.OK ||
+                validator.checkCarModel(newCarModel) != CarStatus.OK)
+            return validator.getStatus();
+        if (car.getCarDatabase() != this)
+            return CarStatus.NO_SUCH_CAR;
+        String carMaker = newCarMaker.trim();
+        String carModel = newCarModel.trim();
+        CarSymbolTable symbols = CarSymbolTable.getSharedTable();
+        int newCarMakerCode = symbols.getCode(carMaker);
+        int newCarModelCode = symbols.getCode(carModel);
+        ReentrantLock writeStripe = lockWriteStripe(car);
+        try
+        {
+            if (car.getCarDatabase() != this)
+                return CarStatus.NO_SUCH_CAR;
+            if (journal != null)
+            {
+                try
+                {
+                    journal.recordEditCarMakerAndModel(car
+                            .getRegistrationNumber(), carMaker, carModel);
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            updateCarMakerAndModel(car, newCarMakerCode, newCarModelCode);
+        }
+        finally
+        {
+            writeStripe.unlock();
+        }
+        compactJournalIfFull();
+        return CarStatus.OK;
     }
 
     /**
-     * Write cars information in car database to file
+     * Edit price of a car. The edit is journaled first, then the price
+     * index and the price of the car are changed under one hold of the
+     * write lock.
      *
-     * @param  filename  a string represents filename of file to be writed
+     * @param  car  a Car object represents car to be edited
+     * @param  newPrice  an integer represents price of car
+     * @return    an integer represents status code of CarStatus, which is
+     *            NEGATIVE_PRICE if the price is negative, or NO_SUCH_CAR
+     *            if the car is not in car database
+     * @throws    UncheckedIOException if the edit cannot be journaled
      */
-    public void writeCarFile(String filename)
+    public int editCarPrice(Car car, int newPrice)
     {
+        if (newPrice < 0)
+            return CarStatus.NEGATIVE_PRICE;
+        if (car.getCarDatabase() != this)
+            return CarStatus.NO_SUCH_CAR;
+        ReentrantLock writeStripe = lockWriteStripe(car);
         try
         {
-            PrintWriter outputFile = new PrintWriter(filename);
-            try
+            if (car.getCarDatabase() != this)
+                return CarStatus.NO_SUCH_CAR;
+            if (journal != null)
             {
-                ArrayList<Car> cars = getCars();
-                for (Car aCar: cars)
+                try
+                {
+                    journal.recordEditCarPrice(car.getRegistrationNumber(),
+                            newPrice);
+                }
+                catch (IOException exception)
                 {
-                    String carAttributeString = getCarAttributeString(aCar);
-                    outputFile.println(carAttributeString);
+                    throw new UncheckedIOException(exception);
                 }
             }
-            finally
+            updatePrice(car, newPrice);
+        }
+        finally
+        {
+            writeStripe.unlock();
+        }
+        compactJournalIfFull();
+        return CarStatus.OK;
+    }
+
+    /**
+     * Edit registration number of a car. The write stripes of both the
+     * old and the new registration number are held, so no write of either
+     * runs in between. The edit is journaled first, then the registration
+     * index and the registration number of the car are changed under one
+     * hold of the write lock.
+     *
+     * @param  car  a Car object represents car to be edited
+     * @param  newRegistrationNumber  a string represents new registration
+     *                                number of car
+     * @return    an integer represents status code of CarStatus, which is
+     *            the status of checking the registration number if it is
+     *            not valid, DUPLICATE_CAR if another car has it, or
+     *            NO_SUCH_CAR if the car is not in car database
+     * @throws    UncheckedIOException if the edit cannot be journaled
+     */
+    public int editCarRegistrationNumber(Car car,
+                                         String newRegistrationNumber)
+    {
+        String registrationNumber = newRegistrationNumber.trim();
+        int registrationStatus = new CarValidator().checkRegistrationNumber
+                (registrationNumber);
+        if (registrationStatus != CarStatus.OK)
+            return registrationStatus;
+        if (car.getCarDatabase() != this)
+            return CarStatus.NO_SUCH_CAR;
+        ReentrantLock[] renameStripes = lockWriteStripes(car,
+                registrationNumber);
+        try
+        {
+            if (car.getCarDatabase() != this)
+                return CarStatus.NO_SUCH_CAR;
+            if (!getRegistrationKey(car.getRegistrationNumber()).equals
+                    (getRegistrationKey(registrationNumber)) &&
+                    isRegistered(registrationNumber))
+                return CarStatus.DUPLICATE_CAR;
+            if (journal != null)
             {
-                outputFile.close();
+                try
+                {
+                    journal.recordEditCarRegistrationNumber(car
+                            .getRegistrationNumber(), registrationNumber);
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
+                }
             }
+            updateRegistrationNumber(car, registrationNumber);
         }
-        catch (FileNotFoundException exception)
+        finally
         {
-            System.out.println(filename + " not found");
+            for (ReentrantLock thisWriteStripe: renameStripes)
+                thisWriteStripe.unlock();
         }
-        catch (IOException exception)
+        compactJournalIfFull();
+        return CarStatus.OK;
+    }
+
+    /**
+     * Edit year made of a car. The edit is journaled first, then the year
+     * made index and the year made of the car are changed under one hold
+     * of the write lock.
+     *
+     * @param  car  a Car object represents car to be edited
+     * @param  newYearMade  an integer represents new year made of car
+     * @return    an integer represents status code of CarStatus, which is
+     *            OUT_OF_RANGE if the year made is negative, or NO_SUCH_CAR
+     *            if the car is not in car database
+     * @throws    UncheckedIOException if the edit cannot be journaled
+     */
+    public int editCarYearMade(Car car, int newYearMade)
+    {
+        if (newYearMade < 0)
+            return CarStatus.OUT_OF_RANGE;
+        if (car.getCarDatabase() != this)
+            return CarStatus.NO_SUCH_CAR;
+        ReentrantLock writeStripe = lockWriteStripe(car);
+        try
         {
-            System.out.println("Unexpected I/O exception occurs");
+            if (car.getCarDatabase() != this)
+                return CarStatus.NO_SUCH_CAR;
+            if (journal != null)
+            {
+                try
+                {
+                    journal.recordEditCarYearMade(car.getRegistrationNumber(),
+                            newYearMade);
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            updateYearMade(car, newYearMade);
+        }
+        finally
+        {
+            writeStripe.unlock();
         }
+        compactJournalIfFull();
+        return CarStatus.OK;
     }
-}
 
+    /**
+     * Find car by registration number of car, without throwing if it is
+     * not found
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    a Car object represents car found by registration number,
+     *            or null if car is not found
+     */
+    public Car findCar(String registrationNumber)
+    {
+        if (carStore != null)
+        {
+            int slot;
+            lockForReading();
+            try
+            {
+                slot = carStore.findCar(registrationNumber);
+            }
+            finally
+            {
+                unlockForReading();
+            }
+            if (slot < 0)
+                return null;
+            return new CarRow(this, carStore, slot);
+        }
+        return registrationIndex.get(getRegistrationKey(registrationNumber));
+    }
+
+    /**
+     * Find cars which match every criterion of a car query. The number of
+     * cars matching each indexed criterion is estimated from its index, the
+     * index with the fewest cars drives the search, and the remaining
+     * criteria are checked lazily on those cars only. If no index narrows
+     * the search, a large list of cars is checked in parallel instead.
+     *
+     * @param  query  a CarQuery object represents criteria of cars
+     * @return    a CarView object represents cars found by the query, which
+     *            is empty if no car is found
+     */
+    public CarView findCars(CarQuery query)
+    {
+        final int currentYear = getCurrentYear();
+        if (carStore != null)
+            return searchCars(() -> findCarsInStore(query, currentYear));
+        return searchCars(() -> findCarsInIndexes(query, currentYear));
+    }
+
+    /**
+     * Find the first cars in order of a car query which match every
+     * criterion of the car query. If the car query has no order, these are
+     * the first cars found by the query. Only these cars are read, so in
+     * concurrent mode no more than the limit of cars are copied.
+     *
+     * @param  query  a CarQuery object represents criteria and order of
+     *                cars
+     * @param  limit  an integer represents maximum number of cars found
+     * @return    a CarView object represents cars found in order, which is
+     *            empty if no car is found
+     */
+    public CarView findCars(CarQuery query, int limit)
+    {
+        final int currentYear = getCurrentYear();
+        if (query.hasOrder())
+            return searchCars(() -> findFirstCars(query, limit, currentYear));
+        if (carStore != null)
+            return searchCars(() -> new CarView(Collections.singletonList
+                    (findCarsInStore(query, currentYear).getPage(0, limit))));
+        return searchCars(() -> new CarView(Collections.singletonList
+                (findCarsInIndexes(query, currentYear).getPage(0, limit))));
+    }
+
+    /**
+     * Find cars which match every criterion of a car query from the
+     * secondary indexes of car database
+     *
+     * @param  query  a CarQuery object represents criteria of cars
+     * @param  currentYear  an integer represents current year to measure
+     *                      age of car
+     * @return    a CarView object represents cars found by the query, which
+     *            is empty if no car is found
+     */
+    private CarView findCarsInIndexes(CarQuery query, int currentYear)
+    {
+        CarView drivingCars = null;
+        int drivingCost = Integer.MAX_VALUE;
+        if (query.hasCarMaker())
+        {
+            String carModel = query.hasCarModel() ? query.getCarModel() : "ANY";
+            drivingCars = findCarsOfMakerAndModel(query.getCarMaker(),
+                    carModel);
+            drivingCost = drivingCars.getNumberOfCar();
+        }
+        if (query.hasAgeRange())
+        {
+            CarView carsInAgeRange = findCarsInYearRange((long) currentYear -
+                    query.getMaximumAge(), (long) currentYear -
+                    query.getMinimumAge());
+            int cost = carsInAgeRange.getNumberOfCar(drivingCost);
+            if (cost < drivingCost)
+            {
+                drivingCars = carsInAgeRange;
+                drivingCost = cost;
+            }
+        }
+        if (query.hasPriceRange())
+        {
+            CarView carsInPriceRange = findCarsInPriceRange
+                    (query.getMinimumPrice(), query.getMaximumPrice());
+            int cost = carsInPriceRange.getNumberOfCar(drivingCost);
+            if (cost < drivingCost)
+            {
+                drivingCars = carsInPriceRange;
+                drivingCost = cost;
+            }
+        }
+        if (query.hasColour() && query.getColourCodes().length == 1)
+        {
+            ArrayList<Car> carGroup = colourIndex.get(query.getColourCodes()
+                    [0]);
+            if (carGroup == null)
+                return new CarView(null);
+            if (carGroup.size() < drivingCost)
+            {
+                drivingCars = new CarView(Collections.singletonList
+                        (carGroup));
+                drivingCost = carGroup.size();
+            }
+        }
+        if (drivingCost == 0)
+            return new CarView(null);
+        if (drivingCars == null && parallelScan.isParallel(cars.size()))
+            return new CarView(Collections.singletonList(parallelScan.filter
+                    (cars, thisCar -> query.matches(thisCar, currentYear))));
+        if (drivingCars == null)
+            drivingCars = new CarView(Collections.singletonList
+                    (getCarList()));
+        return new CarView(Collections.singletonList(drivingCars),
+                thisCar -> query.matches(thisCar, currentYear));
+    }
+
+    /**
+     * Find cars of the secondary indexes which match every criterion of a
+     * car query, walking the price index or year made index in the order of
+     * the car query from its resume key, so that the cars are found in
+     * order of price or year made
+     *
+     * @param  query  a CarQuery object represents criteria and order of
+     *                cars
+     * @param  currentYear  an integer represents current year to measure
+     *                      age of car
+     * @return    a CarView object represents cars found in order, which is
+     *            empty if no car is found
+     */
+    private CarView findCarsInOrder(CarQuery query, int currentYear)
+    {
+        Collection<ArrayList<Car>> carGroups;
+        if (query.getOrderBy().equals(CarQuery.ORDER_BY_PRICE))
+        {
+            int minimumPrice = Integer.MIN_VALUE;
+            int maximumPrice = Integer.MAX_VALUE;
+            if (query.hasPriceRange())
+            {
+                minimumPrice = query.getMinimumPrice();
+                maximumPrice = query.getMaximumPrice();
+            }
+            if (query.hasResumeKey() && query.isAscending())
+                minimumPrice = Math.max(minimumPrice,
+                        query.getResumeOrderKey());
+            else if (query.hasResumeKey())
+                maximumPrice = Math.min(maximumPrice,
+                        query.getResumeOrderKey());
+            if (minimumPrice > maximumPrice)
+                return new CarView(null);
+            NavigableMap<Integer, ArrayList<Car>> groupsByPrice =
+                    priceIndex.subMap(minimumPrice, true, maximumPrice, true);
+            if (!query.isAscending())
+                groupsByPrice = groupsByPrice.descendingMap();
+            carGroups = groupsByPrice.values();
+        }
+        else
+        {
+            long firstYear = Integer.MIN_VALUE;
+            long lastYear = Integer.MAX_VALUE;
+            if (query.hasAgeRange())
+            {
+                firstYear = (long) currentYear - query.getMaximumAge();
+                lastYear = (long) currentYear - query.getMinimumAge();
+            }
+            if (query.hasResumeKey() && query.isAscending())
+                firstYear = Math.max(firstYear, query.getResumeOrderKey());
+            else if (query.hasResumeKey())
+                lastYear = Math.min(lastYear, query.getResumeOrderKey());
+            if (firstYear > lastYear)
+                return new CarView(null);
+            ArrayList<ArrayList<Car>> groupsByYear = getYearGroups(firstYear,
+                    lastYear);
+            if (!query.isAscending())
+                Collections.reverse(groupsByYear);
+            carGroups = groupsByYear;
+        }
+        return new CarView(carGroups,
+                thisCar -> query.matches(thisCar, currentYear));
+    }
+
+    /**
+     * Find cars within a price range from the price index, or by scanning
+     * the prices of the car store in order of slot
+     *
+     * @param  minimumPrice  an integer represents minimum price of car
+     * @param  maximumPrice  an integer represents maximum price of car
+     * @return    a CarView object represents cars within the price range,
+     *            which is empty if no car is found
+     */
+    private CarView findCarsInPriceRange(int minimumPrice, int maximumPrice)
+    {
+        if (minimumPrice > maximumPrice)
+            return new CarView(null);
+        if (carStore != null)
+            return getCarRows(carStore.selectPriceRange(minimumPrice,
+                    maximumPrice));
+        return new CarView(priceIndex.subMap(minimumPrice, true,
+                maximumPrice, true).values());
+    }
+
+    /**
+     * Find cars in the car store which match every criterion of a car
+     * query. The car maker and colour criteria are answered by ANDing and
+     * ORing the compressed bitmaps of slots, the other criteria are scanned
+     * into bitmaps of slots and ANDed, and only a car model criterion
+     * without a car maker is checked on the car rows left.
+     *
+     * @param  query  a CarQuery object represents criteria of cars
+     * @param  currentYear  an integer represents current year to measure
+     *                      age of car
+     * @return    a CarView object represents cars found by the query, which
+     *            is empty if no car is found
+     */
+    private CarView findCarsInStore(CarQuery query, int currentYear)
+    {
+        CarBitmap slotsIndexed = null;
+        if (query.hasCarMaker())
+            slotsIndexed = getCarMakerBitmap(query.getCarMaker());
+        if (query.hasColour())
+        {
+            CarBitmap slotsOfColour = new CarBitmap();
+            for (int thisColourCode: query.getColourCodes())
+            {
+                CarBitmap colourBitmap = colourBitmaps.get(thisColourCode);
+                if (colourBitmap != null)
+                    slotsOfColour = slotsOfColour.or(colourBitmap);
+            }
+            if (slotsIndexed == null)
+                slotsIndexed = slotsOfColour;
+            else
+                slotsIndexed = slotsIndexed.and(slotsOfColour);
+        }
+        if (slotsIndexed != null && slotsIndexed.isEmpty())
+            return new CarView(null);
+        long[] bitmap;
+        if (slotsIndexed == null)
+            bitmap = carStore.selectUsed();
+        else
+            bitmap = slotsIndexed.toBitmap(carStore.getSlotLimit());
+        if (query.hasCarMaker() && query.hasCarModel())
+            CarScanKernel.and(bitmap, selectCarMakerAndModel
+                    (query.getCarMaker(), query.getCarModel()));
+        if (query.hasAgeRange())
+            CarScanKernel.and(bitmap, selectYearRange((long) currentYear -
+                    query.getMaximumAge(), (long) currentYear -
+                    query.getMinimumAge()));
+        if (query.hasPriceRange())
+            CarScanKernel.and(bitmap, carStore.selectPriceRange
+                    (query.getMinimumPrice(), query.getMaximumPrice()));
+        CarView carsFound = getCarRows(bitmap);
+        if ((query.hasCarMaker() || !query.hasCarModel()) &&
+                !(query.hasOrder() && query.hasResumeKey()))
+            return carsFound;
+        return new CarView(Collections.singletonList(carsFound),
+                thisCar -> query.matches(thisCar, currentYear));
+    }
+
+    /**
+     * Find cars made within a range of years from the year made index, or
+     * by scanning the years made of the car store in order of slot
+     *
+     * @param  firstYear  a long represents first year made of car
+     * @param  lastYear  a long represents last year made of car
+     * @return    a CarView object represents cars made within the range of
+     *            years, which is empty if no car is found
+     */
+    private CarView findCarsInYearRange(long firstYear, long lastYear)
+    {
+        if (carStore != null)
+            return getCarRows(selectYearRange(firstYear, lastYear));
+        if (firstYear > lastYear)
+            return new CarView(null);
+        return new CarView(getYearGroups(firstYear, lastYear));
+    }
+
+    /**
+     * Find cars of a car maker and car model from the car maker and car
+     * model index, or from the car maker bitmaps and car model scan of the
+     * car store
+     *
+     * @param  carMaker  a string represents car maker
+     * @param  carModel  a string represents car model, or "ANY" for all
+     *                   models of the car maker
+     * @return    a CarView object represents cars of the car maker and car
+     *            model, which is empty if no car is found
+     */
+    private CarView findCarsOfMakerAndModel(String carMaker, String carModel)
+    {
+        if (carStore != null)
+            return getCarRows(selectCarMakerAndModel(carMaker, carModel));
+        CarSymbolTable symbols = CarSymbolTable.getSharedTable();
+        HashMap<Integer, ArrayList<Car>> modelIndex = makerModelIndex.get
+                (symbols.findCode(carMaker));
+        if (modelIndex == null)
+            return new CarView(null);
+        if (carModel.equalsIgnoreCase("ANY"))
+            return new CarView(modelIndex.values());
+        ArrayList<Car> carGroup = modelIndex.get(symbols.findCode(carModel));
+        if (carGroup == null)
+            return new CarView(null);
+        return new CarView(Collections.singletonList(carGroup));
+    }
+
+    /**
+     * Find the first cars in order of a car query which match every
+     * criterion of the car query. With the secondary indexes, the index of
+     * the order is walked until enough cars are found, and on to the end
+     * of the cars of the same price or year made as the last of them, which
+     * are sorted by registration number. This is unless the car maker or
+     * colour criterion leaves so few cars that keeping the best of them in
+     * a bounded heap visits fewer cars. The cars of a car store are always
+     * selected by a scan and kept in a bounded heap.
+     *
+     * @param  query  a CarQuery object represents criteria and order of
+     *                cars
+     * @param  limit  an integer represents maximum number of cars found
+     * @param  currentYear  an integer represents current year to measure
+     *                      age of car
+     * @return    a CarView object represents cars found in order, which is
+     *            empty if no car is found
+     */
+    private CarView findFirstCars(CarQuery query, int limit, int currentYear)
+    {
+        if (limit <= 0)
+            return new CarView(null);
+        if (carStore != null)
+            return new CarView(Collections.singletonList(selectFirstCars
+                    (findCarsInStore(query, currentYear),
+                    query.getComparator(), limit)));
+        long numberOfCandidate = cars.size();
+        if (query.hasCarMaker())
+        {
+            String carModel = query.hasCarModel() ? query.getCarModel() : "ANY";
+            numberOfCandidate = findCarsOfMakerAndModel(query.getCarMaker(),
+                    carModel).getNumberOfCar();
+        }
+        if (query.hasColour() && query.getColourCodes().length == 1)
+        {
+            ArrayList<Car> carGroup = colourIndex.get(query.getColourCodes()
+                    [0]);
+            numberOfCandidate = Math.min(numberOfCandidate, carGroup == null ?
+                    0 : carGroup.size());
+        }
+        if (numberOfCandidate * numberOfCandidate <= (long) limit *
+                cars.size())
+            return new CarView(Collections.singletonList(selectFirstCars
+                    (findCarsInIndexes(query, currentYear),
+                    query.getComparator(), limit)));
+        ArrayList<Car> carsFound = new ArrayList<>();
+        for (Car thisCar: findCarsInOrder(query, currentYear))
+        {
+            if (carsFound.size() >= limit && query.getOrderKey(thisCar) !=
+                    query.getOrderKey(carsFound.get(carsFound.size() - 1)))
+                break;
+            carsFound.add(thisCar);
+        }
+        carsFound.sort(query.getComparator());
+        return new CarView(Collections.singletonList(carsFound.subList(0,
+                Math.min(limit, carsFound.size()))));
+    }
+
+    /**
+     * Find position of a car in the list of cars, which is kept in the car
+     * unless the car is in the list of another car database too
+     *
+     * @param  car  a Car object represents car to be found
+     * @return    an integer represents position of car, or -1 if it is not
+     *            in the list
+     */
+    private int findListPosition(Car car)
+    {
+        int position = car.getListPosition();
+        if (position >= 0 && position < cars.size() &&
+                cars.get(position) == car)
+            return position;
+        for (int index = 0; index < cars.size(); index++)
+            if (cars.get(index) == car)
+                return index;
+        return -1;
+    }
+
+    /**
+     * Get the error of a change of a batch which is not valid, naming the
+     * change
+     *
+     * @param  index  an integer represents index of change in batch
+     * @param  message  a string represents error of change, which may
+     *                  start with "Error: "
+     * @return    a string represents error of batch
+     */
+    private static String getBatchError(int index, String message)
+    {
+        String prefix = "Error: ";
+        if (message.startsWith(prefix))
+            message = message.substring(prefix.length());
+        return prefix + "change " + (index + 1) + " of batch: " + message;
+    }
+
+    /**
+     * Get a string of a car attributes
+     *
+     * @param  aCar  a Car object represents the car which its attributes
+     *               to be extarcted
+     */
+    public String getCarAttributeString(Car aCar)
+    {
+        StringBuilder carAttributeString = new StringBuilder();
+        CarFileWriter.appendCarAttributes(carAttributeString, aCar);
+        return carAttributeString.toString();
+    }
+
+    /**
+     * Get car by registration number of car
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    a Car object represents car found by registration number
+     * @throws    IllegalArgumentException if car is not found
+     */
+    public Car getCarByRegistrationNumber(String registrationNumber)
+    {
+        Car carFound = findCar(registrationNumber);
+        if (carFound == null)
+            throw new IllegalArgumentException(CarStatus.getMessage
+                    (CarStatus.NO_SUCH_CAR));
+        return carFound;
+    }
+
+    /**
+     * Get cars in car database as a list, which is a list of car rows if
+     * car database keeps its cars in a car store
+     *
+     * @return    a list of Car represents cars in car database
+     */
+    private List<Car> getCarList()
+    {
+        if (carStore == null)
+            return cars;
+        return new CarRowList(this, carStore, CarScanKernel.toSelection
+                (carStore.selectUsed()));
+    }
+
+    /**
+     * Get bitmap of slots of cars of a car maker in the car store. The
+     * bitmap is part of the car maker index, so it must not be changed.
+     *
+     * @param  carMaker  a string represents car maker
+     * @return    a CarBitmap object represents slots of cars of the car
+     *            maker
+     */
+    private CarBitmap getCarMakerBitmap(String carMaker)
+    {
+        CarBitmap bitmap = carMakerBitmaps.get(CarSymbolTable.getSharedTable()
+                .findCode(carMaker));
+        if (bitmap == null)
+            return new CarBitmap();
+        return bitmap;
+    }
+
+    /**
+     * Get car rows of slots of the car store
+     *
+     * @param  bitmap  an array of long represents bitmap of slots of cars
+     * @return    a CarView object represents cars in the slots
+     */
+    private CarView getCarRows(long[] bitmap)
+    {
+        int[] slots = CarScanKernel.toSelection(bitmap);
+        if (slots.length == 0)
+            return new CarView(null);
+        return new CarView(Collections.singletonList(new CarRowList(this,
+                carStore, slots)));
+    }
+
+    /**
+     * Get cars in car database. If car database keeps its cars in a car
+     * store, this is a new list of car rows, and in concurrent mode it is a
+     * copy of the list of cars.
+     *
+     * @return    an array list of Car represents cars in car database
+     */
+    public ArrayList<Car> getCars()
+    {
+        if (carStore == null && !isConcurrent)
+            return cars;
+        lockForReading();
+        try
+        {
+            return new ArrayList<>(getCarList());
+        }
+        finally
+        {
+            unlockForReading();
+        }
+    }
+
+    /**
+     * Get cars by age of car. The cars are found from the year made index,
+     * so only the cars young enough are visited, from the oldest to the
+     * youngest.
+     *
+     * @param  age  an integer represents age of car
+     * @return    a CarView object represents cars found by age of car
+     * @throws    IllegalArgumentException if no car is found
+     */
+    public CarView getCarsByAge(int age)
+    {
+        CarView carsFound = getCarsInAgeRange(Integer.MIN_VALUE, age);
+        if (carsFound.isEmpty())
+            throw new IllegalArgumentException("There is no car younger " +
+                    "than or equal to this age " +
+                    "in the warehouse currently");
+        return carsFound;
+    }
+
+    /**
+     * Get cars by car maker and car model. The cars are found from the car
+     * maker and car model index, so only the matching cars are visited.
+     *
+     * @param  carMaker  a string represents car maker
+     * @param  carModel  a string represents car model, or "ANY" for all
+     *                   models of the car maker
+     * @return    a CarView object represents cars found by car maker and
+     *            car model
+     * @throws    IllegalArgumentException if no car is found
+     */
+    public CarView getCarsByMakerAndModel(String carMaker, String carModel)
+    {
+        CarView carsFound = getCarsOfMakerAndModel(carMaker, carModel);
+        if (carsFound.isEmpty())
+            throw new IllegalArgumentException("There is no car with this " +
+                    "car maker and model in the " +
+                    "warehouse currently");
+        return carsFound;
+    }
+
+    /**
+     * Get cars by price of car. The cars are found from the price index, so
+     * only the cars within the price range are visited, in ascending order
+     * of price.
+     *
+     * @param  minimumPrice  an integer represents minimum price of car
+     * @param  maximumPrice  an integer represents maximum price of car
+     * @return    a CarView object represents cars found by price of car
+     * @throws    IllegalArgumentException if no car is found
+     */
+    public CarView getCarsByPrice(int minimumPrice, int maximumPrice)
+    {
+        CarView carsFound = getCarsInPriceRange(minimumPrice, maximumPrice);
+        if (carsFound.isEmpty())
+            throw new IllegalArgumentException("There is no car within " +
+                    "this price range");
+        return carsFound;
+    }
+
+    /**
+     * Get cars within an age range from the year made index. Age of a car
+     * is measured from the current year of the clock of car database.
+     *
+     * @param  minimumAge  an integer represents minimum age of car
+     * @param  maximumAge  an integer represents maximum age of car
+     * @return    a CarView object represents cars within the age range,
+     *            which is empty if no car is found
+     */
+    public CarView getCarsInAgeRange(int minimumAge, int maximumAge)
+    {
+        long currentYear = getCurrentYear();
+        return searchCars(() -> findCarsInYearRange(currentYear - maximumAge,
+                currentYear - minimumAge));
+    }
+
+    /**
+     * Get cars within a price range from the price index, or by scanning
+     * the prices of the car store in order of slot
+     *
+     * @param  minimumPrice  an integer represents minimum price of car
+     * @param  maximumPrice  an integer represents maximum price of car
+     * @return    a CarView object represents cars within the price range,
+     *            which is empty if no car is found
+     */
+    public CarView getCarsInPriceRange(int minimumPrice, int maximumPrice)
+    {
+        return searchCars(() -> findCarsInPriceRange(minimumPrice,
+                maximumPrice));
+    }
+
+    /**
+     * Get cars of a car maker and car model from the car maker and car
+     * model index, or by scanning the car makers and car models of the car
+     * store in order of slot
+     *
+     * @param  carMaker  a string represents car maker
+     * @param  carModel  a string represents car model, or "ANY" for all
+     *                   models of the car maker
+     * @return    a CarView object represents cars of the car maker and car
+     *            model, which is empty if no car is found
+     */
+    public CarView getCarsOfMakerAndModel(String carMaker, String carModel)
+    {
+        return searchCars(() -> findCarsOfMakerAndModel(carMaker, carModel));
+    }
+
+    /**
+     * Get clock which gives the current year to measure age of cars
+     *
+     * @return    a Clock object represents clock of car database
+     */
+    public Clock getClock()
+    {
+        return clock;
+    }
+
+    /**
+     * Get current year from the clock of car database
+     *
+     * @return    an integer represents current year
+     */
+    public int getCurrentYear()
+    {
+        return Year.now(clock).getValue();
+    }
+
+    /**
+     * Get the model index of a car maker from the car maker and car model
+     * index, creating it if the car maker is not indexed yet
+     *
+     * @param  carMakerCode  an integer represents code of car maker in the
+     *                       shared car symbol table
+     * @return    a map represents cars of the car maker grouped by code of
+     *            model
+     */
+    private HashMap<Integer, ArrayList<Car>> getModelIndex(int carMakerCode)
+    {
+        HashMap<Integer, ArrayList<Car>> modelIndex = makerModelIndex.get
+                (carMakerCode);
+        if (modelIndex == null)
+        {
+            modelIndex = new LinkedHashMap<>();
+            makerModelIndex.put(carMakerCode, modelIndex);
+        }
+        return modelIndex;
+    }
+
+    /**
+     * Get number of cars in car database
+     *
+     * @return    an integer represents number of cars in car database
+     */
+    public int getNumberOfCar()
+    {
+        lockForReading();
+        try
+        {
+            if (carStore != null)
+                return carStore.getNumberOfCar();
+            return cars.size();
+        }
+        finally
+        {
+            unlockForReading();
+        }
+    }
+
+    /**
+     * Get scan which splits full scans of car database into ranges checked
+     * in parallel
+     *
+     * @return    a CarParallelScan object represents parallel scan of car
+     *            database
+     */
+    public CarParallelScan getParallelScan()
+    {
+        return parallelScan;
+    }
+
+    /**
+     * Get a group of the price index for the changes of a batch, looking
+     * it up in the price index only the first time. A group which is not
+     * in the price index is added to it, and is left for the batch to
+     * remove if it is still empty at the end.
+     *
+     * @param  priceGroups  a map represents groups of price index looked up
+     *                      by the batch
+     * @param  price  an integer represents price of group
+     * @return    an array list of Car represents cars of the price
+     */
+    private ArrayList<Car> getPriceGroup
+            (Map<Integer, ArrayList<Car>> priceGroups, int price)
+    {
+        ArrayList<Car> carGroup = priceGroups.get(price);
+        if (carGroup == null)
+        {
+            carGroup = priceIndex.get(price);
+            if (carGroup == null)
+            {
+                carGroup = new ArrayList<>();
+                priceIndex.put(price, carGroup);
+            }
+            priceGroups.put(price, carGroup);
+        }
+        return carGroup;
+    }
+
+    /**
+     * Get the key of a registration number in the registration index.
+     * Registration numbers are compared case insensitively, so the key is
+     * the upper case form of the number.
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    a string represents key of registration number
+     */
+    static String getRegistrationKey(String registrationNumber)
+    {
+        return registrationNumber.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Get a snapshot of the latest version of cars in car database. The
+     * first snapshot is taken under the write lock, and is kept up to date
+     * by every change afterwards, so every later request reads the latest
+     * version without copying any car.
+     *
+     * @return    a CarSnapshot object represents immutable car records of
+     *            the latest version
+     */
+    public CarSnapshot getSnapshot()
+    {
+        CarSnapshot currentSnapshot = snapshot.get();
+        if (currentSnapshot != null)
+            return currentSnapshot;
+        lockForWriting();
+        try
+        {
+            if (snapshot.get() == null)
+                snapshot.set(takeSnapshot());
+            return snapshot.get();
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Get builder of the next version of the snapshot, while the write lock
+     * is held. The next version is published when the write lock is
+     * released.
+     *
+     * @return    a Builder object represents builder of the snapshot, or
+     *            null if no snapshot has been taken
+     */
+    private CarSnapshot.Builder getSnapshotBuilder()
+    {
+        if (snapshotBuilder == null && snapshot.get() != null)
+            snapshotBuilder = new CarSnapshot.Builder(snapshot.get());
+        return snapshotBuilder;
+    }
+
+    /**
+     * Get the lock of the writes of a registration number. Writes of
+     * registration numbers of different stripes may run in parallel.
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    a ReentrantLock object represents lock of the writes
+     */
+    private ReentrantLock getWriteStripe(String registrationNumber)
+    {
+        return writeStripes[getWriteStripeIndex(registrationNumber)];
+    }
+
+    /**
+     * Get the index of the lock of the writes of a registration number
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    an integer represents index of the lock of the writes
+     */
+    private int getWriteStripeIndex(String registrationNumber)
+    {
+        int hash = getRegistrationKey(registrationNumber).hashCode();
+        return (hash ^ (hash >>> 16)) & (NUMBER_OF_WRITE_STRIPE - 1);
+    }
+
+    /**
+     * Get the group of cars made in a year from the year made index. The
+     * index is an array of groups indexed by offset from the minimum year
+     * made, which is extended up to the current year at most, so a year
+     * made outside them is kept in a sorted map of outlying years instead
+     * of growing the array to cover it.
+     *
+     * @param  yearMade  an integer represents year made of car
+     * @return    an array list of Car represents cars made in the year
+     */
+    private ArrayList<Car> getYearGroup(int yearMade)
+    {
+        int offset = yearMade - CarValidator.MINIMUM_YEAR_MADE;
+        if (yearMade < CarValidator.MINIMUM_YEAR_MADE || (offset >=
+                yearIndex.size() && yearMade > getCurrentYear()))
+            return outlyingYearIndex.computeIfAbsent(yearMade,
+                    thisYear -> new ArrayList<>());
+        while (offset >= yearIndex.size())
+        {
+            ArrayList<Car> yearGroup = outlyingYearIndex.remove
+                    (CarValidator.MINIMUM_YEAR_MADE + yearIndex.size());
+            yearIndex.add(yearGroup != null ? yearGroup : new ArrayList<>());
+        }
+        return yearIndex.get(offset);
+    }
+
+    /**
+     * Get the groups of cars made within a range of years from the year
+     * made index, in order of year made
+     *
+     * @param  firstYear  a long represents first year made of car
+     * @param  lastYear  a long represents last year made of car, which is
+     *                   not before the first year
+     * @return    an array list of array list of Car represents groups of
+     *            cars made within the range of years
+     */
+    private ArrayList<ArrayList<Car>> getYearGroups(long firstYear,
+                                                    long lastYear)
+    {
+        ArrayList<ArrayList<Car>> yearGroups = new ArrayList<>();
+        ArrayList<ArrayList<Car>> laterYearGroups = new ArrayList<>();
+        for (Map.Entry<Integer, ArrayList<Car>> thisEntry: outlyingYearIndex
+                .subMap((int) Math.max(firstYear, Integer.MIN_VALUE), true,
+                (int) Math.min(lastYear, Integer.MAX_VALUE), true).entrySet())
+            if (thisEntry.getKey() < CarValidator.MINIMUM_YEAR_MADE)
+                yearGroups.add(thisEntry.getValue());
+            else
+                laterYearGroups.add(thisEntry.getValue());
+        long fromYear = Math.max(firstYear, CarValidator.MINIMUM_YEAR_MADE);
+        long toYear = Math.min(lastYear, (long) CarValidator
+                .MINIMUM_YEAR_MADE + yearIndex.size() - 1);
+        if (fromYear <= toYear)
+            yearGroups.addAll(yearIndex.subList((int) (fromYear - CarValidator
+                    .MINIMUM_YEAR_MADE), (int) (toYear - CarValidator
+                    .MINIMUM_YEAR_MADE) + 1));
+        yearGroups.addAll(laterYearGroups);
+        return yearGroups;
+    }
+
+    /**
+     * Import file which contains cars information in it by memory mapping
+     * the file and parsing it in parallel on the common fork join pool.
+     * This is faster than reading the file line by line when starting with
+     * a large inventory. Malformed lines are reported and skipped.
+     *
+     * @param  filename  a string represents filename of file to be imported
+     */
+    public void importCarFile(String filename)
+    {
+        CarFileLoader loader = new CarFileLoader(filename);
+        try
+        {
+            loader.loadCarsMapped(this, ForkJoinPool.commonPool());
+        }
+        catch (NoSuchFileException exception)
+        {
+            System.out.println(filename + " not found");
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Unexpected I/O exception occurs");
+        }
+        for (String thisError: loader.getErrors())
+            System.out.println(filename + ": " + thisError);
+    }
+
+    /**
+     * Add a car to the secondary indexes of car database
+     *
+     * @param  car  a Car object represents car to be indexed
+     */
+    private void indexCar(Car car)
+    {
+        addToGroup(priceIndex, car.getPrice(), PRICE_GROUP, car);
+        addToGroup(getModelIndex(car.getCarMakerCode()),
+                car.getCarModelCode(), MODEL_GROUP, car);
+        addToGroup(getYearGroup(car.getYearMade()), YEAR_GROUP, car);
+        int[] colourCodeSet = Car.getColourCodeSet(car.getColourCodes());
+        for (int index = 0; index < colourCodeSet.length; index++)
+            addToGroup(colourIndex, colourCodeSet[index], COLOUR_GROUP + index,
+                    car);
+    }
+
+    /**
+     * Add car makers and their available models to the shared car symbol
+     * table and to the car maker and car model index, so that the index is
+     * sized for the known car makers before cars are added
+     *
+     * @param  carMakerDatabase  a CarMakerDatabase object represents car
+     *                           makers to be indexed
+     */
+    public void indexCarMakers(CarMakerDatabase carMakerDatabase)
+    {
+        lockForWriting();
+        try
+        {
+            CarSymbolTable symbols = CarSymbolTable.getSharedTable();
+            symbols.addCarMakers(carMakerDatabase);
+            for (CarMaker thisCarMaker: carMakerDatabase.getCarMakers())
+            {
+                HashMap<Integer, ArrayList<Car>> modelIndex = getModelIndex
+                        (symbols.getCode(thisCarMaker.getName()));
+                for (String thisCarModel: thisCarMaker.getAvailableModels())
+                {
+                    int carModelCode = symbols.getCode(thisCarModel);
+                    if (!modelIndex.containsKey(carModelCode))
+                        modelIndex.put(carModelCode, new ArrayList<>());
+                }
+            }
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Add a slot of the car store to the car maker and colour bitmaps
+     *
+     * @param  slot  an integer represents slot to be indexed
+     */
+    private void indexSlot(int slot)
+    {
+        addToBitmap(carMakerBitmaps, carStore.getCarMakerCode(slot), slot);
+        for (int thisColourCode: Car.getColourCodeSet(carStore.getColourCodes
+                (slot)))
+            addToBitmap(colourBitmaps, thisColourCode, slot);
+    }
+
+    /**
+     * Check whether car database is in concurrent mode
+     *
+     * @return    a boolean represents whether car database is in
+     *            concurrent mode or not
+     */
+    public boolean isConcurrent()
+    {
+        return isConcurrent;
+    }
+
+    /**
+     * Check whether a registration number is registered in car database
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    a boolean represents whether a car has the registration
+     *            number or not
+     */
+    private boolean isRegistered(String registrationNumber)
+    {
+        if (carStore == null)
+            return registrationIndex.containsKey(getRegistrationKey
+                    (registrationNumber));
+        lockForReading();
+        try
+        {
+            return carStore.findCar(registrationNumber) >= 0;
+        }
+        finally
+        {
+            unlockForReading();
+        }
+    }
+
+    /**
+     * Lock the indexes of car database for reading in concurrent mode
+     */
+    private void lockForReading()
+    {
+        if (isConcurrent)
+            indexLock.readLock().lock();
+    }
+
+    /**
+     * Lock the indexes of car database for writing in concurrent mode. The
+     * lock is reentrant, since the setters of Car lock again when they are
+     * called by an edit of car database.
+     */
+    private void lockForWriting()
+    {
+        if (isConcurrent)
+            indexLock.writeLock().lock();
+        writeHoldCount++;
+    }
+
+    /**
+     * Lock the write stripe of a car. A rename may change the registration
+     * number of the car before the stripe is locked, so the stripe is
+     * locked again until it is still the stripe of the car once held.
+     *
+     * @param  car  a Car object represents car to be written
+     * @return    a ReentrantLock object represents write stripe locked
+     */
+    private ReentrantLock lockWriteStripe(Car car)
+    {
+        while (true)
+        {
+            ReentrantLock writeStripe = getWriteStripe(car
+                    .getRegistrationNumber());
+            writeStripe.lock();
+            if (writeStripe == getWriteStripe(car.getRegistrationNumber()))
+                return writeStripe;
+            writeStripe.unlock();
+        }
+    }
+
+    /**
+     * Lock the write stripes of the old and the new registration number of
+     * a car to be renamed. They are locked in the order of the stripes, as
+     * a batch locks every stripe, so that two renames cannot deadlock.
+     *
+     * @param  car  a Car object represents car to be renamed
+     * @param  newRegistrationNumber  a string represents new registration
+     *                                number of car
+     * @return    an array of ReentrantLock represents write stripes locked
+     */
+    private ReentrantLock[] lockWriteStripes(Car car,
+                                             String newRegistrationNumber)
+    {
+        int newIndex = getWriteStripeIndex(newRegistrationNumber);
+        while (true)
+        {
+            int oldIndex = getWriteStripeIndex(car.getRegistrationNumber());
+            ReentrantLock[] renameStripes;
+            if (oldIndex == newIndex)
+                renameStripes = new ReentrantLock[] {writeStripes[oldIndex]};
+            else
+                renameStripes = new ReentrantLock[] {writeStripes[Math.min
+                        (oldIndex, newIndex)], writeStripes[Math.max
+                        (oldIndex, newIndex)]};
+            for (ReentrantLock thisWriteStripe: renameStripes)
+                thisWriteStripe.lock();
+            if (oldIndex == getWriteStripeIndex(car.getRegistrationNumber()))
+                return renameStripes;
+            for (ReentrantLock thisWriteStripe: renameStripes)
+                thisWriteStripe.unlock();
+        }
+    }
+
+    /**
+     * Make an empty registration index, which can be read without locking
+     * in concurrent mode
+     *
+     * @return    a map represents empty registration index
+     */
+    private Map<String, Car> newRegistrationIndex()
+    {
+        if (isConcurrent)
+            return new ConcurrentHashMap<>();
+        return new HashMap<>();
+    }
+
+    /**
+     * Open a journal for car database. The journal is first replayed on top
+     * of the cars already read from the car file, then every later add,
+     * delete and edit is appended to it, so no change is lost if the
+     * program stops before the car file is written again.
+     *
+     * @param  journalFilename  a string represents filename of journal
+     * @param  carFilename  a string represents filename of car file which
+     *                      the journal is compacted into
+     */
+    public void openJournal(String journalFilename, String carFilename)
+    {
+        openJournal(journalFilename, carFilename, true);
+    }
+
+    /**
+     * Open a journal for car database, which forces every change to disk
+     * before it returns only if it is synchronous
+     *
+     * @param  journalFilename  a string represents filename of journal
+     * @param  carFilename  a string represents filename of car file which
+     *                      the journal is compacted into
+     * @param  isSynchronous  a boolean represents whether journal is
+     *                        synchronous or not
+     */
+    public void openJournal(String journalFilename, String carFilename,
+                            boolean isSynchronous)
+    {
+        closeJournal();
+        CarJournal newJournal = new CarJournal(journalFilename);
+        newJournal.setSynchronous(isSynchronous);
+        try
+        {
+            for (String thisError: newJournal.replay(this))
+                System.out.println(thisError);
+            newJournal.open();
+            journal = newJournal;
+            journalCarFilename = carFilename;
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error: " + journalFilename + " cannot be " +
+                    "opened (" + exception + ")");
+        }
+    }
+
+    /**
+     * Read file which contains cars information in it. Malformed lines are
+     * reported and skipped.
+     *
+     * @param  filename  a string represents filename of file to be read
+     */
+    public void readCarFile(String filename)
+    {
+        CarFileLoader loader = new CarFileLoader(filename);
+        try
+        {
+            loader.loadCars(this);
+        }
+        catch (NoSuchFileException exception)
+        {
+            System.out.println(filename + " not found");
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Unexpected I/O exception occurs");
+        }
+        for (String thisError: loader.getErrors())
+            System.out.println(filename + ": " + thisError);
+    }
+
+    /**
+     * Get cars in car database as a list to be read through, such as to
+     * display or write them. In concurrent mode these are the car records
+     * of a snapshot, so that they are not changed while they are read.
+     *
+     * @return    a list of Car represents cars in car database
+     */
+    private List<Car> readCarList()
+    {
+        if (isConcurrent)
+            return getSnapshot().getCars();
+        return getCarList();
+    }
+
+    /**
+     * Read binary snapshot which contains cars information in it. The
+     * snapshot is written by writeCarSnapshot and loads faster than the car
+     * file.
+     *
+     * @param  filename  a string represents filename of snapshot to be read
+     * @return    a boolean represents whether the snapshot is read or not
+     */
+    public boolean readCarSnapshot(String filename)
+    {
+        try
+        {
+            new CarSnapshotFile(filename).loadCars(this);
+            return true;
+        }
+        catch (NoSuchFileException exception)
+        {
+            System.out.println(filename + " not found");
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error: " + filename + " cannot be read (" +
+                    exception + ")");
+        }
+        return false;
+    }
+
+    /**
+     * Remove a car and its index entries from car database
+     *
+     * @param  car  a Car object represents car to be removed
+     * @return    a boolean represents whether the car is removed or not,
+     *            which is false if it is not in car database
+     */
+    boolean removeCar(Car car)
+    {
+        lockForWriting();
+        try
+        {
+            if (carStore != null)
+            {
+                if (!(car instanceof CarRow) || car.getCarDatabase() != this)
+                    return false;
+                CarRow carRow = (CarRow) car;
+                carRow.detach();
+                unindexSlot(carRow.getSlot());
+                removeSlotFromSnapshot(carRow.getSlot());
+                carStore.removeCar(carRow.getSlot());
+                return true;
+            }
+            if (!removeFromCarList(car))
+                return false;
+            String registrationKey = getRegistrationKey
+                    (car.getRegistrationNumber());
+            if (registrationIndex.get(registrationKey) == car)
+                registrationIndex.remove(registrationKey);
+            unindexCar(car);
+            if (car.getCarDatabase() == this)
+                car.setCarDatabase(null);
+            return true;
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Remove a slot from a bitmap of slots in an index
+     *
+     * @param  index  a map represents index of slots
+     * @param  code  an integer represents code of bitmap in index
+     * @param  slot  an integer represents slot to be removed
+     */
+    private static void removeFromBitmap(Map<Integer, CarBitmap> index,
+                                         int code, int slot)
+    {
+        CarBitmap bitmap = index.get(code);
+        if (bitmap != null)
+        {
+            bitmap.remove(slot);
+            if (bitmap.isEmpty())
+                index.remove(code);
+        }
+    }
+
+    /**
+     * Remove a car from the list of cars by moving the last car of the list
+     * into its position, so a deletion takes the same time however many
+     * cars there are. The snapshot moves its car records the same way.
+     *
+     * @param  car  a Car object represents car to be removed
+     * @return    a boolean represents whether the car is removed or not,
+     *            which is false if it is not in the list
+     */
+    private boolean removeFromCarList(Car car)
+    {
+        int position = findListPosition(car);
+        if (position < 0)
+            return false;
+        Car lastCar = cars.remove(cars.size() - 1);
+        if (lastCar != car)
+        {
+            cars.set(position, lastCar);
+            lastCar.setListPosition(position);
+        }
+        car.setListPosition(-1);
+        CarSnapshot.Builder builder = getSnapshotBuilder();
+        if (builder != null)
+            builder.removeCar(position);
+        return true;
+    }
+
+    /**
+     * Remove a car from a group of cars by moving the last car of the group
+     * into its position, so a removal takes the same time however many
+     * cars there are in the group. The position is kept in the car, unless
+     * the car is in a group of another car database too.
+     *
+     * @param  carGroup  an array list of Car represents group of cars
+     * @param  group  an integer represents which group of the car it is,
+     *                such as PRICE_GROUP
+     * @param  car  a Car object represents car to be removed
+     */
+    private static void removeFromGroup(ArrayList<Car> carGroup, int group,
+                                        Car car)
+    {
+        int position = car.getGroupPosition(group);
+        if (position < 0 || position >= carGroup.size() ||
+                carGroup.get(position) != car)
+        {
+            position = -1;
+            for (int index = 0; index < carGroup.size(); index++)
+                if (carGroup.get(index) == car)
+                    position = index;
+            if (position < 0)
+                return;
+        }
+        Car lastCar = carGroup.remove(carGroup.size() - 1);
+        if (lastCar != car)
+        {
+            carGroup.set(position, lastCar);
+            lastCar.setGroupPosition(group, position);
+        }
+        car.setGroupPosition(group, -1);
+    }
+
+    /**
+     * Remove a car from a group of cars in an index
+     *
+     * @param  index  a map represents index of cars
+     * @param  key  a key represents group of cars in index
+     * @param  group  an integer represents which group of the car it is,
+     *                such as PRICE_GROUP
+     * @param  car  a Car object represents car to be removed
+     */
+    private static <K> void removeFromGroup(Map<K, ArrayList<Car>> index,
+                                            K key, int group, Car car)
+    {
+        ArrayList<Car> carGroup = index.get(key);
+        if (carGroup != null)
+        {
+            removeFromGroup(carGroup, group, car);
+            if (carGroup.isEmpty())
+                index.remove(key);
+        }
+    }
+
+    /**
+     * Remove the car in a slot of the car store from the snapshot, by
+     * moving the last car record into its position
+     *
+     * @param  slot  an integer represents slot of car
+     */
+    private void removeSlotFromSnapshot(int slot)
+    {
+        CarSnapshot.Builder builder = getSnapshotBuilder();
+        if (builder == null)
+            return;
+        int position = snapshotPositions[slot];
+        int lastPosition = builder.getNumberOfCar() - 1;
+        if (position != lastPosition)
+            setSnapshotPosition(carStore.findCar(builder.getCar(lastPosition)
+                    .getRegistrationNumber()), position);
+        builder.removeCar(position);
+    }
+
+    /**
+     * Replace the cars of car database and rebuild its indexes. A snapshot
+     * which has been taken is taken again of the new cars.
+     *
+     * @param  newCars  an array list of Car represents cars in car database
+     * @param  newRegistrationIndex  a map represents registration index of
+     *                               new cars
+     */
+    private void replaceCars(ArrayList<Car> newCars,
+                             Map<String, Car> newRegistrationIndex)
+    {
+        boolean isSnapshotTaken = snapshot.get() != null;
+        snapshot.set(null);
+        snapshotBuilder = null;
+        try
+        {
+            replaceIndexedCars(newCars, newRegistrationIndex);
+        }
+        finally
+        {
+            if (isSnapshotTaken)
+                snapshot.set(takeSnapshot());
+        }
+    }
+
+    /**
+     * Replace the cars of car database and rebuild its indexes, leaving
+     * out the snapshot
+     *
+     * @param  newCars  an array list of Car represents cars in car database
+     * @param  newRegistrationIndex  a map represents registration index of
+     *                               new cars
+     */
+    private void replaceIndexedCars(ArrayList<Car> newCars,
+                                    Map<String, Car> newRegistrationIndex)
+    {
+        if (carStore != null)
+        {
+            carStore.clear();
+            carMakerBitmaps = new HashMap<>();
+            colourBitmaps = new HashMap<>();
+            for (Car thisCar: newCars)
+                indexSlot(carStore.addCar(thisCar));
+            return;
+        }
+        for (Car thisCar: cars)
+            if (thisCar.getCarDatabase() == this)
+                thisCar.setCarDatabase(null);
+        cars = newCars;
+        registrationIndex = newRegistrationIndex;
+        priceIndex = new TreeMap<>();
+        for (HashMap<Integer, ArrayList<Car>> thisModelIndex:
+                makerModelIndex.values())
+            for (ArrayList<Car> thisCarGroup: thisModelIndex.values())
+                thisCarGroup.clear();
+        yearIndex = new ArrayList<>();
+        outlyingYearIndex = new TreeMap<>();
+        colourIndex = new HashMap<>();
+        for (int index = 0; index < cars.size(); index++)
+        {
+            Car thisCar = cars.get(index);
+            thisCar.setListPosition(index);
+            indexCar(thisCar);
+            if (thisCar.getCarDatabase() == null)
+                thisCar.setCarDatabase(this);
+        }
+    }
+
+    /**
+     * Run a search of car database. In concurrent mode the search holds the
+     * read lock and the cars found are copied, so the result is not changed
+     * by later changes of car database. The cars of a car store are copied
+     * into car records, since a car row reads its slot whenever it is
+     * asked.
+     *
+     * @param  search  a Supplier object represents search to be run
+     * @return    a CarView object represents cars found by the search
+     */
+    private CarView searchCars(Supplier<CarView> search)
+    {
+        if (!isConcurrent)
+            return search.get();
+        indexLock.readLock().lock();
+        try
+        {
+            CarView carsFound = search.get();
+            if (carsFound.isEmpty())
+                return new CarView(null);
+            ArrayList<Car> copyOfCarsFound = new ArrayList<>();
+            for (Car thisCar: carsFound)
+                if (carStore != null)
+                    copyOfCarsFound.add(new CarRecord(thisCar));
+                else
+                    copyOfCarsFound.add(thisCar);
+            return new CarView(Collections.singletonList(copyOfCarsFound));
+        }
+        finally
+        {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Select slots of cars of a car maker and car model from the car store
+     *
+     * @param  carMaker  a string represents car maker
+     * @param  carModel  a string represents car model, or "ANY" for all
+     *                   models of the car maker
+     * @return    an array of long represents bitmap of slots selected
+     */
+    private long[] selectCarMakerAndModel(String carMaker, String carModel)
+    {
+        if (carModel.equalsIgnoreCase("ANY"))
+            return getCarMakerBitmap(carMaker).toBitmap
+                    (carStore.getSlotLimit());
+        CarSymbolTable symbols = CarSymbolTable.getSharedTable();
+        int carMakerCode = symbols.findCode(carMaker);
+        int carModelCode = symbols.findCode(carModel);
+        if (carModelCode == CarSymbolTable.NO_CODE)
+            carMakerCode = CarSymbolTable.NO_CODE;
+        return carStore.selectCarMakerAndModel(carMakerCode, carModelCode);
+    }
+
+    /**
+     * Select the first cars in an order, keeping no more than a limit of
+     * cars in a heap whose top is the last of the cars kept
+     *
+     * @param  carsFound  a collection of Car represents cars to be selected
+     *                    from
+     * @param  order  a Comparator of Car represents order of cars
+     * @param  limit  an integer represents maximum number of cars selected
+     * @return    an array list of Car represents cars selected in order
+     */
+    private static ArrayList<Car> selectFirstCars(Collection<Car> carsFound,
+                                                  Comparator<Car> order,
+                                                  int limit)
+    {
+        PriorityQueue<Car> carsKept = new PriorityQueue<>(order.reversed());
+        for (Car thisCar: carsFound)
+        {
+            if (carsKept.size() < limit)
+                carsKept.add(thisCar);
+            else if (order.compare(thisCar, carsKept.peek()) < 0)
+            {
+                carsKept.poll();
+                carsKept.add(thisCar);
+            }
+        }
+        Car[] carsSelected = new Car[carsKept.size()];
+        for (int index = carsSelected.length - 1; index >= 0; index--)
+            carsSelected[index] = carsKept.poll();
+        return new ArrayList<>(Arrays.asList(carsSelected));
+    }
+
+    /**
+     * Select slots of cars made within a range of years from the car store
+     *
+     * @param  firstYear  a long represents first year made of car
+     * @param  lastYear  a long represents last year made of car
+     * @return    an array of long represents bitmap of slots selected
+     */
+    private long[] selectYearRange(long firstYear, long lastYear)
+    {
+        long fromYear = Math.max(firstYear, Integer.MIN_VALUE);
+        long toYear = Math.min(lastYear, Integer.MAX_VALUE);
+        if (fromYear > toYear)
+            return CarScanKernel.newBitmap(carStore.getSlotLimit());
+        return carStore.selectYearRange((int) fromYear, (int) toYear);
+    }
+
+    /**
+     * Set cars in car database
+     *
+     * @param  newCars  an array list of Car represents cars in car database
+     * @throws    IllegalArgumentException if registration numbers of new
+     *                                     cars are not unique
+     */
+    public void setCars(ArrayList<Car> newCars)
+    {
+        Map<String, Car> newRegistrationIndex = newRegistrationIndex();
+        for (Car thisCar: newCars)
+        {
+            String registrationKey = getRegistrationKey
+                    (thisCar.getRegistrationNumber());
+            if (newRegistrationIndex.put(registrationKey, thisCar) != null)
+                throw new IllegalArgumentException("Error: registration " +
+                        "number must be unique. " +
+                        thisCar.getRegistrationNumber() +
+                        " is registered more than once");
+        }
+
+        lockForWriting();
+        try
+        {
+            replaceCars(newCars, newRegistrationIndex);
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Set clock which gives the current year to measure age of cars
+     *
+     * @param  newClock  a Clock object represents clock of car database
+     */
+    public void setClock(Clock newClock)
+    {
+        if (newClock == null)
+            System.out.println("Error: clock must not be blank");
+        else
+            clock = newClock;
+    }
+
+    /**
+     * Set scan which splits full scans of car database into ranges checked
+     * in parallel. Scans of no more cars than its threshold are run by the
+     * searching thread alone.
+     *
+     * @param  newParallelScan  a CarParallelScan object represents parallel
+     *                          scan of car database
+     */
+    public void setParallelScan(CarParallelScan newParallelScan)
+    {
+        if (newParallelScan == null)
+            System.out.println("Error: parallel scan must not be blank");
+        else
+        {
+            lockForWriting();
+            try
+            {
+                parallelScan = newParallelScan;
+                if (carStore != null)
+                    carStore.setParallelScan(parallelScan);
+            }
+            finally
+            {
+                unlockForWriting();
+            }
+        }
+    }
+
+    /**
+     * Set position of the car record of a slot of the car store in the
+     * snapshot
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  position  an integer represents position of car record
+     */
+    private void setSnapshotPosition(int slot, int position)
+    {
+        if (slot >= snapshotPositions.length)
+            snapshotPositions = Arrays.copyOf(snapshotPositions, Math.max
+                    (slot + 1, snapshotPositions.length * 2));
+        snapshotPositions[slot] = position;
+    }
+
+    /**
+     * Take a snapshot of every car in car database, while the write lock is
+     * held. The car records of a car store are in the order of the slots,
+     * and the position of each is kept for the changes afterwards.
+     *
+     * @return    a CarSnapshot object represents snapshot of cars
+     */
+    private CarSnapshot takeSnapshot()
+    {
+        if (carStore == null)
+            return new CarSnapshot(version.get(), cars);
+        int[] slots = CarScanKernel.toSelection(carStore.selectUsed());
+        snapshotPositions = new int[0];
+        for (int index = 0; index < slots.length; index++)
+            setSnapshotPosition(slots[index], index);
+        return new CarSnapshot(version.get(), new CarRowList(this, carStore,
+                slots));
+    }
+
+    /**
+     * Add a car to car database unless it is duplicate, without throwing,
+     * so a bulk load of many cars costs no exceptions for its duplicates
+     *
+     * @param  newCar  a Car object represents car to be added
+     * @return    an integer represents status code of CarStatus, which is
+     *            DUPLICATE_CAR if the car is duplicate
+     * @throws    UncheckedIOException if the car cannot be journaled
+     */
+    public int tryAddCar(Car newCar)
+    {
+        String registrationNumber = newCar.getRegistrationNumber();
+        ReentrantLock writeStripe = getWriteStripe(registrationNumber);
+        writeStripe.lock();
+        try
+        {
+            if (isRegistered(registrationNumber))
+                return CarStatus.DUPLICATE_CAR;
+            if (journal != null)
+            {
+                try
+                {
+                    journal.recordAddCar(newCar);
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            lockForWriting();
+            try
+            {
+                if (carStore != null)
+                {
+                    int slot = carStore.addCar(newCar);
+                    indexSlot(slot);
+                    addSlotToSnapshot(slot);
+                }
+                else
+                {
+                    appendCar(newCar);
+                    registrationIndex.put(getRegistrationKey
+                            (registrationNumber), newCar);
+                    indexCar(newCar);
+                    if (newCar.getCarDatabase() == null)
+                        newCar.setCarDatabase(this);
+                }
+            }
+            finally
+            {
+                unlockForWriting();
+            }
+        }
+        finally
+        {
+            writeStripe.unlock();
+        }
+        compactJournalIfFull();
+        return CarStatus.OK;
+    }
+
+    /**
+     * Remove a car from the secondary indexes of car database
+     *
+     * @param  car  a Car object represents car to be unindexed
+     */
+    private void unindexCar(Car car)
+    {
+        removeFromGroup(priceIndex, car.getPrice(), PRICE_GROUP, car);
+        unindexCarMakerAndModel(car);
+        removeFromGroup(getYearGroup(car.getYearMade()), YEAR_GROUP, car);
+        int[] colourCodeSet = Car.getColourCodeSet(car.getColourCodes());
+        for (int index = 0; index < colourCodeSet.length; index++)
+            removeFromGroup(colourIndex, colourCodeSet[index], COLOUR_GROUP +
+                    index, car);
+    }
+
+    /**
+     * Remove a car from the car maker and car model index. Empty groups are
+     * kept, since car models of known car makers are indexed in advance.
+     *
+     * @param  car  a Car object represents car to be unindexed
+     */
+    private void unindexCarMakerAndModel(Car car)
+    {
+        HashMap<Integer, ArrayList<Car>> modelIndex = makerModelIndex.get
+                (car.getCarMakerCode());
+        if (modelIndex != null)
+        {
+            ArrayList<Car> carGroup = modelIndex.get(car.getCarModelCode());
+            if (carGroup != null)
+                removeFromGroup(carGroup, MODEL_GROUP, car);
+        }
+    }
+
+    /**
+     * Remove a slot of the car store from the car maker and colour bitmaps
+     *
+     * @param  slot  an integer represents slot to be unindexed
+     */
+    private void unindexSlot(int slot)
+    {
+        removeFromBitmap(carMakerBitmaps, carStore.getCarMakerCode(slot),
+                slot);
+        for (int thisColourCode: Car.getColourCodeSet(carStore.getColourCodes
+                (slot)))
+            removeFromBitmap(colourBitmaps, thisColourCode, slot);
+    }
+
+    /**
+     * Unlock the indexes of car database for reading in concurrent mode
+     */
+    private void unlockForReading()
+    {
+        if (isConcurrent)
+            indexLock.readLock().unlock();
+    }
+
+    /**
+     * Unlock the indexes of car database for writing in concurrent mode.
+     * The cars may have changed, so they are given a new version once the
+     * outermost hold is released, and the snapshot changed meanwhile is
+     * published, so no reader sees half of a batch.
+     */
+    private void unlockForWriting()
+    {
+        writeHoldCount--;
+        if (writeHoldCount == 0)
+        {
+            long newVersion = version.incrementAndGet();
+            if (snapshotBuilder != null)
+            {
+                snapshot.set(snapshotBuilder.build(newVersion));
+                snapshotBuilder = null;
+            }
+        }
+        if (isConcurrent)
+            indexLock.writeLock().unlock();
+    }
+
+    /**
+     * Update car maker and car model index, and car maker and car model of
+     * a car owned by this car database, under one hold of the write lock
+     *
+     * @param  car  a Car object represents car to be edited
+     * @param  newCarMakerCode  an integer represents code of new car maker
+     *                          of car
+     * @param  newCarModelCode  an integer represents code of new car model
+     *                          of car
+     */
+    void updateCarMakerAndModel(Car car, int newCarMakerCode,
+                                int newCarModelCode)
+    {
+        lockForWriting();
+        try
+        {
+            if (carStore != null)
+            {
+                int slot = ((CarRow) car).getSlot();
+                removeFromBitmap(carMakerBitmaps, carStore.getCarMakerCode
+                        (slot), slot);
+                carStore.setCarMakerAndModel(slot, newCarMakerCode,
+                        newCarModelCode);
+                addToBitmap(carMakerBitmaps, newCarMakerCode, slot);
+            }
+            else
+            {
+                unindexCarMakerAndModel(car);
+                addToGroup(getModelIndex(newCarMakerCode), newCarModelCode,
+                        MODEL_GROUP, car);
+            }
+            car.assignCarMakerAndModel(newCarMakerCode, newCarModelCode);
+            updateSnapshot(car);
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Update colour index, and colours of a car owned by this car database,
+     * under one hold of the write lock
+     *
+     * @param  car  a Car object represents car to be edited
+     * @param  newColourCodes  a long represents packed codes of new colours
+     *                         of car
+     */
+    void updateColours(Car car, long newColourCodes)
+    {
+        lockForWriting();
+        try
+        {
+            int[] oldColourCodeSet = Car.getColourCodeSet(car.getColourCodes());
+            int[] newColourCodeSet = Car.getColourCodeSet(newColourCodes);
+            if (carStore != null)
+            {
+                int slot = ((CarRow) car).getSlot();
+                for (int thisColourCode: oldColourCodeSet)
+                    removeFromBitmap(colourBitmaps, thisColourCode, slot);
+                carStore.setColourCodes(slot, newColourCodes);
+                for (int thisColourCode: newColourCodeSet)
+                    addToBitmap(colourBitmaps, thisColourCode, slot);
+            }
+            else
+            {
+                for (int index = 0; index < oldColourCodeSet.length; index++)
+                    removeFromGroup(colourIndex, oldColourCodeSet[index],
+                            COLOUR_GROUP + index, car);
+                for (int index = 0; index < newColourCodeSet.length; index++)
+                    addToGroup(colourIndex, newColourCodeSet[index],
+                            COLOUR_GROUP + index, car);
+            }
+            car.assignColourCodes(newColourCodes);
+            updateSnapshot(car);
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Update price index, and price of a car owned by this car database,
+     * under one hold of the write lock
+     *
+     * @param  car  a Car object represents car to be repriced
+     * @param  newPrice  an integer represents new price of car
+     */
+    void updatePrice(Car car, int newPrice)
+    {
+        lockForWriting();
+        try
+        {
+            if (carStore != null)
+                carStore.setPrice(((CarRow) car).getSlot(), newPrice);
+            else
+            {
+                removeFromGroup(priceIndex, car.getPrice(), PRICE_GROUP, car);
+                addToGroup(priceIndex, newPrice, PRICE_GROUP, car);
+            }
+            car.assignPrice(newPrice);
+            updateSnapshot(car);
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Update registration index, and registration number of a car owned by
+     * this car database, under one hold of the write lock. No other car
+     * may have the new registration number.
+     *
+     * @param  car  a Car object represents car to be renamed
+     * @param  newRegistrationNumber  a string represents new registration
+     *                                number of car
+     */
+    void updateRegistrationNumber(Car car, String newRegistrationNumber)
+    {
+        String oldKey = getRegistrationKey(car.getRegistrationNumber());
+        String newKey = getRegistrationKey(newRegistrationNumber);
+        lockForWriting();
+        try
+        {
+            if (carStore != null)
+                carStore.setRegistrationNumber(((CarRow) car).getSlot(),
+                        newRegistrationNumber);
+            else if (!oldKey.equals(newKey))
+            {
+                if (registrationIndex.get(oldKey) == car)
+                    registrationIndex.remove(oldKey);
+                registrationIndex.put(newKey, car);
+            }
+            car.assignRegistrationNumber(newRegistrationNumber);
+            updateSnapshot(car);
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Update the car record of a car in the next version of the snapshot,
+     * after the car is changed
+     *
+     * @param  car  a Car object represents car changed
+     */
+    private void updateSnapshot(Car car)
+    {
+        CarSnapshot.Builder builder = getSnapshotBuilder();
+        if (builder == null)
+            return;
+        if (carStore != null)
+            builder.setCar(snapshotPositions[((CarRow) car).getSlot()], car);
+        else
+        {
+            int position = findListPosition(car);
+            if (position >= 0)
+                builder.setCar(position, car);
+        }
+    }
+
+    /**
+     * Update year made index, and year made of a car owned by this car
+     * database, under one hold of the write lock
+     *
+     * @param  car  a Car object represents car to be edited
+     * @param  newYearMade  an integer represents new year made of car
+     */
+    void updateYearMade(Car car, int newYearMade)
+    {
+        lockForWriting();
+        try
+        {
+            if (carStore != null)
+                carStore.setYearMade(((CarRow) car).getSlot(), newYearMade);
+            else
+            {
+                removeFromGroup(getYearGroup(car.getYearMade()), YEAR_GROUP,
+                        car);
+                addToGroup(getYearGroup(newYearMade), YEAR_GROUP, car);
+            }
+            car.assignYearMade(newYearMade);
+            updateSnapshot(car);
+        }
+        finally
+        {
+            unlockForWriting();
+        }
+    }
+
+    /**
+     * Write cars information in car database to file. The file is replaced
+     * atomically, so it is never left half written.
+     *
+     * @param  filename  a string represents filename of file to be writed
+     * @return    a boolean represents whether the file is written or not
+     */
+    public boolean writeCarFile(String filename)
+    {
+        CarFileWriter writer = new CarFileWriter(filename);
+        try
+        {
+            writer.writeCars(readCarList());
+            return true;
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error: " + filename + " cannot be saved (" +
+                    exception + ")");
+            return false;
+        }
+    }
+
+    /**
+     * Write cars information in car database to a binary snapshot. The
+     * snapshot is replaced atomically, so it is never left half written.
+     *
+     * @param  filename  a string represents filename of snapshot to be
+     *                   written
+     * @return    a boolean represents whether the snapshot is written or not
+     */
+    public boolean writeCarSnapshot(String filename)
+    {
+        try
+        {
+            new CarSnapshotFile(filename).writeCars(readCarList());
+            return true;
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error: " + filename + " cannot be saved (" +
+                    exception + ")");
+            return false;
+        }
+    }
+
+    /**
+     * The CarRowList class represents a read only list of car rows of
+     * slots of a car store. Car rows are made as the list is read.
+     */
+    private static class CarRowList extends AbstractList<Car>
+    {
+        private CarDatabase carDatabase;
+        private CarStore carStore;
+        private int[] slots;
+        private int[] generations;
+
+        /**
+         * Constructor for objects of class CarRowList, which keeps the
+         * generations of the slots so that a car deleted after the list is
+         * made is not read from the slot of a later car
+         *
+         * @param  newCarDatabase  a CarDatabase object represents owning
+         *                         car database of car rows
+         * @param  newCarStore  a CarStore object represents car store of
+         *                      car rows
+         * @param  newSlots  an array of integer represents slots of cars
+         */
+        private CarRowList(CarDatabase newCarDatabase, CarStore newCarStore,
+                           int[] newSlots)
+        {
+            carDatabase = newCarDatabase;
+            carStore = newCarStore;
+            slots = newSlots;
+            generations = new int[newSlots.length];
+            for (int index = 0; index < newSlots.length; index++)
+                generations[index] = newCarStore.getGeneration
+                        (newSlots[index]);
+        }
+
+        /**
+         * Get car row at a position in the list
+         *
+         * @param  index  an integer represents position in the list
+         * @return    a Car object represents car row at the position
+         */
+        @Override
+        public Car get(int index)
+        {
+            return new CarRow(carDatabase, carStore, slots[index],
+                    generations[index]);
+        }
+
+        /**
+         * Get number of car rows in the list
+         *
+         * @return    an integer represents number of car rows
+         */
+        @Override
+        public int size()
+        {
+            return slots.length;
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.mypackage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The CarFileLoader class represents a car file loader object generator. It
+ * is used to generate a loader which streams cars or car makers from a comma
+ * separated file into a database. Lines are read through a large buffer and
+ * split into fields in a single pass, and a malformed line is recorded as an
+ * error instead of stopping the load. Large files can also be memory
+ * mapped and parsed in parallel chunks.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarFileLoader
+{
+    public static final int BUFFER_SIZE = 1 << 16;
+    public static final int NUMBER_OF_CAR_FIELDS = 8;
+    public static final int MINIMUM_CHUNK_SIZE = 1 << 16;
+    public static final int MAXIMUM_CHUNK_SIZE = 1 << 24;
+    public static final int MAXIMUM_LINE_LENGTH = 1 << 16;
+
+    private String filename;
+    private ArrayList<String> errors;
+
+    /**
+     * Constructor for objects of class CarFileLoader
+     *
+     * @param  newFilename  a string represents filename of file to be loaded
+     */
+    public CarFileLoader(String newFilename)
+    {
+        if (newFilename == null)
+            filename = "";
+        else
+            filename = newFilename;
+        errors = new ArrayList<>();
+    }
+
+    /**
+     * Get errors of malformed lines found by the last load
+     *
+     * @return    an array list of string represents errors of the last load
+     */
+    public ArrayList<String> getErrors()
+    {
+        return errors;
+    }
+
+    /**
+     * Get filename of file to be loaded
+     *
+     * @return    a string represents filename of file to be loaded
+     */
+    public String getFilename()
+    {
+        return filename;
+    }
+
+    /**
+     * Load car makers from file into a car maker database
+     *
+     * @param  carMakerDatabase  a CarMakerDatabase object represents car
+     *                           maker database to be loaded
+     * @return    an integer represents number of car makers loaded
+     * @throws    IOException if the file cannot be read
+     */
+    public int loadCarMakers(CarMakerDatabase carMakerDatabase)
+            throws IOException
+    {
+        errors = new ArrayList<>();
+        int numberOfCarMaker = 0;
+        try (BufferedReader reader = openReader())
+        {
+            String[] fields = new String[16];
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while (line != null)
+            {
+                lineNumber++;
+                if (line.trim().length() > 0)
+                {
+                    int numberOfField = splitFields(line, fields);
+                    if (numberOfField > fields.length)
+                    {
+                        fields = new String[numberOfField];
+                        splitFields(line, fields);
+                    }
+                    String name = fields[0].trim();
+                    if (name.length() == 0)
+                        errors.add("Line " + lineNumber + ": Error: car " +
+                                "maker name must not be blank");
+                    else
+                    {
+                        ArrayList<String> models = new ArrayList<>();
+                        for (int index = 1; index < numberOfField; index++)
+                            if (fields[index].trim().length() > 0)
+                                models.add(fields[index].trim());
+                        carMakerDatabase.addCarMaker(name, models);
+                        numberOfCarMaker++;
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+        return numberOfCarMaker;
+    }
+
+    /**
+     * Load cars from file into a car database. Each line is parsed and added
+     * as soon as it is read, so the file is never held in memory.
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be loaded
+     * @return    an integer represents number of cars loaded
+     * @throws    IOException if the file cannot be read
+     */
+    public int loadCars(CarDatabase carDatabase) throws IOException
+    {
+        errors = new ArrayList<>();
+        int numberOfCar = 0;
+        try (BufferedReader reader = openReader())
+        {
+            String[] fields = new String[NUMBER_OF_CAR_FIELDS];
+            CarValidator validator = new CarValidator();
+            int currentYear = carDatabase.getCurrentYear();
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while (line != null)
+            {
+                lineNumber++;
+                if (line.trim().length() > 0)
+                {
+                    Car newCar = parseCar(line, fields, validator,
+                            currentYear);
+                    int status = newCar == null ? validator.getStatus() :
+                            carDatabase.tryAddCar(newCar);
+                    if (status == CarStatus.OK)
+                        numberOfCar++;
+                    else if (newCar == null)
+                        errors.add("Line " + lineNumber + ": " +
+                                validator.getMessage());
+                    else
+                        errors.add("Line " + lineNumber + ": " +
+                                CarStatus.getMessage(status));
+                }
+                line = reader.readLine();
+            }
+        }
+        return numberOfCar;
+    }
+
+    /**
+     * Load cars from file into a car database by memory mapping the file.
+     * The file is cut into chunks which are parsed in parallel on a fork
+     * join pool, and the cars of each chunk are then added to the car
+     * database in file order so that errors keep their line numbers.
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be loaded
+     * @param  pool  a ForkJoinPool object represents pool to parse chunks
+     * @return    an integer represents number of cars loaded
+     * @throws    IOException if the file cannot be read
+     */
+    public int loadCarsMapped(CarDatabase carDatabase, ForkJoinPool pool)
+            throws IOException
+    {
+        errors = new ArrayList<>();
+        ChunkResult[] results;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+            long chunkSize = fileSize / (pool.getParallelism() * 4L);
+            chunkSize = Math.max(MINIMUM_CHUNK_SIZE,
+                    Math.min(MAXIMUM_CHUNK_SIZE, chunkSize));
+            int numberOfChunk = (int) ((fileSize + chunkSize - 1) / chunkSize);
+            results = new ChunkResult[numberOfChunk];
+            pool.invoke(new ChunkParser(channel, fileSize, chunkSize,
+                    results, 0, numberOfChunk, carDatabase.getCurrentYear()));
+        }
+        catch (UncheckedIOException exception)
+        {
+            throw exception.getCause();
+        }
+
+        int numberOfCar = 0;
+        int firstLineNumber = 1;
+        for (ChunkResult thisResult: results)
+        {
+            for (int index = 0; index < thisResult.cars.size(); index++)
+            {
+                int status = carDatabase.tryAddCar(thisResult.cars.get(index));
+                if (status == CarStatus.OK)
+                    numberOfCar++;
+                else
+                {
+                    int lineNumber = firstLineNumber +
+                            thisResult.carLines.get(index);
+                    errors.add("Line " + lineNumber + ": " +
+                            CarStatus.getMessage(status));
+                }
+            }
+            for (int index = 0; index < thisResult.errors.size(); index++)
+            {
+                int lineNumber = firstLineNumber +
+                        thisResult.errorLines.get(index);
+                errors.add("Line " + lineNumber + ": " +
+                        thisResult.errors.get(index));
+            }
+            firstLineNumber = firstLineNumber + thisResult.numberOfLine;
+        }
+        return numberOfCar;
+    }
+
+    /**
+     * Open file to be loaded through a large buffer
+     *
+     * @return    a BufferedReader object represents reader of the file
+     * @throws    IOException if the file cannot be opened
+     */
+    private BufferedReader openReader() throws IOException
+    {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream
+                (Paths.get(filename)), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Parse a car from a line of its attributes
+     *
+     * @param  line  a string represents the attributes of a car
+     * @param  fields  an array of string represents fields to be reused
+     *                 while parsing, with at least 8 elements
+     * @return    a Car object represents car parsed from the line
+     * @throws    IllegalArgumentException if the line is malformed
+     */
+    public static Car parseCar(String line, String[] fields)
+    {
+        int numberOfField = splitFields(line, fields);
+        if (numberOfField != NUMBER_OF_CAR_FIELDS)
+            throw new IllegalArgumentException("Error: a car must have " +
+                    NUMBER_OF_CAR_FIELDS + " attributes but " +
+                    numberOfField + " are found");
+        String registrationNumber = fields[0].trim();
+        if (registrationNumber.length() == 0)
+            throw new IllegalArgumentException("Error: registration number " +
+                    "must not be blank");
+        int yearMade = parseNumber(fields[1], "year made");
+        String[] colours = {fields[2], fields[3], fields[4]};
+        int price = parseNumber(fields[7], "price");
+        return new Car(registrationNumber, yearMade, colours, fields[5],
+                fields[6], price);
+    }
+
+    /**
+     * Parse a car from a line of its attributes and check it against the
+     * rules of the car warehouse without throwing, so a dirty file of many
+     * bad lines costs no exceptions
+     *
+     * @param  line  a string represents the attributes of a car
+     * @param  fields  an array of string represents fields to be reused
+     *                 while parsing, with at least 8 elements
+     * @param  validator  a CarValidator object represents validator of the
+     *                    attributes, which keeps the status of the line
+     * @param  currentYear  an integer represents current year
+     * @return    a Car object represents car parsed from the line, or null
+     *            if the line is not valid
+     */
+    public static Car parseCar(String line, String[] fields,
+                               CarValidator validator, int currentYear)
+    {
+        if (validator.checkNumberOfAttribute(splitFields(line, fields)) !=
+                CarStatus.OK)
+            return null;
+        String registrationNumber = fields[0].trim();
+        String[] colours = {fields[2], fields[3], fields[4]};
+        if (validator.checkCar(registrationNumber, fields[1], colours,
+                fields[5], fields[6], fields[7], currentYear) !=
+                CarStatus.OK)
+            return null;
+        return new Car(registrationNumber, validator.getYearMade(),
+                validator.getColours(), fields[5], fields[6],
+                validator.getPrice());
+    }
+
+    /**
+     * Parse a non negative number from a field
+     *
+     * @param  field  a string represents field to be parsed
+     * @param  fieldName  a string represents name of field for errors
+     * @return    an integer represents number parsed from the field
+     * @throws    IllegalArgumentException if the field is not a number
+     */
+    private static int parseNumber(String field, String fieldName)
+    {
+        int length = field.length();
+        if (length == 0 || length > 9)
+            throw new IllegalArgumentException("Error: " + fieldName +
+                    " must be a valid number");
+        int number = 0;
+        for (int index = 0; index < length; index++)
+        {
+            char thisCharacter = field.charAt(index);
+            if (thisCharacter < '0' || thisCharacter > '9')
+                throw new IllegalArgumentException("Error: " + fieldName +
+                        " must be a valid number");
+            number = number * 10 + (thisCharacter - '0');
+        }
+        return number;
+    }
+
+    /**
+     * Split a line into comma separated fields without regular expressions
+     *
+     * @param  line  a string represents line to be split
+     * @param  fields  an array of string represents fields to be filled
+     * @return    an integer represents number of fields in the line, which
+     *            may be more than the length of the array of fields
+     */
+    public static int splitFields(String line, String[] fields)
+    {
+        int numberOfField = 0;
+        int start = 0;
+        while (true)
+        {
+            int end = line.indexOf(',', start);
+            if (end < 0)
+                end = line.length();
+            if (numberOfField < fields.length)
+                fields[numberOfField] = line.substring(start, end);
+            numberOfField++;
+            if (end == line.length())
+                return numberOfField;
+            start = end + 1;
+        }
+    }
+
+    /**
+     * The ChunkResult class represents cars and errors parsed from a chunk
+     * of a file. Line numbers are counted from the start of the chunk.
+     */
+    private static class ChunkResult
+    {
+        private ArrayList<Car> cars = new ArrayList<>();
+        private ArrayList<Integer> carLines = new ArrayList<>();
+        private ArrayList<String> errors = new ArrayList<>();
+        private ArrayList<Integer> errorLines = new ArrayList<>();
+        private int numberOfLine = 0;
+    }
+
+    /**
+     * The ChunkParser class represents a task which parses a range of
+     * chunks of a memory mapped file. A range of more than one chunk is
+     * split in half and parsed in parallel.
+     */
+    private static class ChunkParser extends RecursiveTask<Void>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private FileChannel channel;
+        private long fileSize;
+        private long chunkSize;
+        private ChunkResult[] results;
+        private int firstChunk;
+        private int lastChunk;
+        private int currentYear;
+
+        /**
+         * Constructor for objects of class ChunkParser
+         *
+         * @param  newChannel  a FileChannel object represents file to parse
+         * @param  newFileSize  a long represents size of file
+         * @param  newChunkSize  a long represents size of a chunk
+         * @param  newResults  an array of ChunkResult represents results of
+         *                     every chunk of file
+         * @param  newFirstChunk  an integer represents first chunk to parse
+         * @param  newLastChunk  an integer represents chunk after the last
+         *                       chunk to parse
+         * @param  newCurrentYear  an integer represents current year to
+         *                         check year made of cars
+         */
+        private ChunkParser(FileChannel newChannel, long newFileSize,
+                            long newChunkSize, ChunkResult[] newResults,
+                            int newFirstChunk, int newLastChunk,
+                            int newCurrentYear)
+        {
+            channel = newChannel;
+            fileSize = newFileSize;
+            chunkSize = newChunkSize;
+            results = newResults;
+            firstChunk = newFirstChunk;
+            lastChunk = newLastChunk;
+            currentYear = newCurrentYear;
+        }
+
+        /**
+         * Parse the range of chunks
+         *
+         * @return    null since results are stored in the array of results
+         */
+        @Override
+        protected Void compute()
+        {
+            if (lastChunk - firstChunk > 1)
+            {
+                int middleChunk = (firstChunk + lastChunk) >>> 1;
+                invokeAll(new ChunkParser(channel, fileSize, chunkSize,
+                                results, firstChunk, middleChunk,
+                                currentYear),
+                        new ChunkParser(channel, fileSize, chunkSize,
+                                results, middleChunk, lastChunk,
+                                currentYear));
+            }
+            else if (lastChunk - firstChunk == 1)
+            {
+                try
+                {
+                    results[firstChunk] = parseChunk(firstChunk);
+                }
+                catch (IOException exception)
+                {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Parse a chunk of file. A chunk owns every line which starts inside
+         * it, so a line which crosses the end of the chunk is read from the
+         * next chunk, and the partial line at its start is left to the
+         * previous chunk. A line longer than the maximum line length is
+         * recorded as an error and skipped, and parsing goes on from the
+         * next line.
+         *
+         * @param  chunk  an integer represents chunk to parse
+         * @return    a ChunkResult object represents cars and errors parsed
+         * @throws    IOException if the file cannot be mapped
+         */
+        private ChunkResult parseChunk(int chunk) throws IOException
+        {
+            ChunkResult result = new ChunkResult();
+            long chunkStart = chunk * chunkSize;
+            long chunkEnd = Math.min(fileSize, chunkStart + chunkSize);
+            long mapStart = Math.max(0, chunkStart - 1);
+            long mapEnd = Math.min(fileSize, chunkEnd + MAXIMUM_LINE_LENGTH);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    mapStart, mapEnd - mapStart);
+            int limit = (int) (chunkEnd - mapStart);
+            int position = 0;
+            if (chunkStart > 0)
+            {
+                while (position < buffer.limit() &&
+                        buffer.get(position) != '\n')
+                    position++;
+                position++;
+            }
+
+            byte[] lineBytes = new byte[256];
+            String[] fields = new String[NUMBER_OF_CAR_FIELDS];
+            CarValidator validator = new CarValidator();
+            while (position < limit)
+            {
+                int lineEnd = position;
+                while (lineEnd < buffer.limit() && buffer.get(lineEnd) != '\n')
+                    lineEnd++;
+                int lineNumber = result.numberOfLine;
+                result.numberOfLine++;
+                int length = lineEnd - position;
+                // a line which runs past the mapped bytes ends beyond this
+                // chunk, so skipping it ends the loop and the next chunk
+                // goes on from the end of the line
+                if (length > MAXIMUM_LINE_LENGTH ||
+                        (lineEnd == buffer.limit() && mapEnd < fileSize))
+                {
+                    result.errors.add("Error: line is longer than " +
+                            MAXIMUM_LINE_LENGTH + " bytes");
+                    result.errorLines.add(lineNumber);
+                    position = lineEnd + 1;
+                    continue;
+                }
+                if (length > 0 && buffer.get(lineEnd - 1) == '\r')
+                    length--;
+                if (length > lineBytes.length)
+                    lineBytes = new byte[Math.max(length,
+                            lineBytes.length * 2)];
+                buffer.get(position, lineBytes, 0, length);
+                String line = new String(lineBytes, 0, length,
+                        StandardCharsets.UTF_8);
+                if (line.trim().length() > 0)
+                {
+                    Car newCar = parseCar(line, fields, validator,
+                            currentYear);
+                    if (newCar != null)
+                    {
+                        result.cars.add(newCar);
+                        result.carLines.add(lineNumber);
+                    }
+                    else
+                    {
+                        result.errors.add(validator.getMessage());
+                        result.errorLines.add(lineNumber);
+                    }
+                }
+                position = lineEnd + 1;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.mypackage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The CarFileWriter class represents a car file writer object generator. It
+ * is used to generate a writer which saves cars to a comma separated file
+ * safely. Cars are written to a temporary file next to the file, which is
+ * forced to disk and then renamed over the file, so a crash while saving
+ * leaves either the old or the new file but never a truncated one.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarFileWriter
+{
+    public static final int BUFFER_SIZE = 1 << 16;
+    public static final int NUMBER_OF_COLOUR = 3;
+
+    private String filename;
+
+    /**
+     * Constructor for objects of class CarFileWriter
+     *
+     * @param  newFilename  a string represents filename of file to be saved
+     */
+    public CarFileWriter(String newFilename)
+    {
+        if (newFilename == null)
+            filename = "";
+        else
+            filename = newFilename;
+    }
+
+    /**
+     * Append the attributes of a car to a string builder, separated by
+     * commas in the order they are read by CarFileLoader
+     *
+     * @param  text  a StringBuilder object represents text to be appended
+     * @param  car  a Car object represents car to be appended
+     */
+    public static void appendCarAttributes(StringBuilder text, Car car)
+    {
+        text.append(car.getRegistrationNumber()).append(',');
+        text.append(car.getYearMade()).append(',');
+        String[] colours = car.getColours();
+        for (int index = 0; index < NUMBER_OF_COLOUR; index++)
+        {
+            if (index < colours.length && colours[index] != null)
+                text.append(colours[index]);
+            text.append(',');
+        }
+        text.append(car.getCarMaker()).append(',');
+        text.append(car.getCarModel()).append(',');
+        text.append(car.getPrice());
+    }
+
+    /**
+     * Force the directory of a file to disk so that a rename in it is
+     * durable. Not every platform can open a directory, in which case the
+     * rename is left to the file system.
+     *
+     * @param  directory  a Path object represents directory to be forced
+     */
+    private static void forceDirectory(Path directory)
+    {
+        try (FileChannel channel = FileChannel.open(directory,
+                StandardOpenOption.READ))
+        {
+            channel.force(true);
+        }
+        catch (IOException exception)
+        {
+            // the rename itself has already succeeded
+        }
+    }
+
+    /**
+     * Get filename of file to be saved
+     *
+     * @return    a string represents filename of file to be saved
+     */
+    public String getFilename()
+    {
+        return filename;
+    }
+
+    /**
+     * Get a unique path for a temporary file next to a file
+     *
+     * @param  target  a Path object represents absolute path of file
+     * @return    a Path object represents path of temporary file
+     */
+    static Path getTemporaryPath(Path target)
+    {
+        return target.resolveSibling(target.getFileName() + "." +
+                ProcessHandle.current().pid() + "." + System.nanoTime() +
+                ".tmp");
+    }
+
+    /**
+     * Rename a temporary file which is forced to disk over a file, and
+     * force the rename to disk
+     *
+     * @param  temporary  a Path object represents path of temporary file
+     * @param  target  a Path object represents absolute path of file
+     * @throws    IOException if the temporary file cannot be renamed
+     */
+    static void moveIntoPlace(Path temporary, Path target) throws IOException
+    {
+        try
+        {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException exception)
+        {
+            Files.move(temporary, target,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(target.getParent());
+    }
+
+    /**
+     * Write cars to file atomically
+     *
+     * @param  cars  an iterable of Car represents cars to be saved
+     * @return    an integer represents number of cars saved
+     * @throws    IOException if the cars cannot be saved, in which case the
+     *                        file is left unchanged
+     */
+    public int writeCars(Iterable<Car> cars) throws IOException
+    {
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temporary = getTemporaryPath(target);
+        boolean saved = false;
+        int numberOfCar = 0;
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+            {
+                StringBuilder text = new StringBuilder(BUFFER_SIZE + 256);
+                for (Car thisCar: cars)
+                {
+                    appendCarAttributes(text, thisCar);
+                    text.append('\n');
+                    numberOfCar++;
+                    if (text.length() >= BUFFER_SIZE)
+                        writeText(channel, text);
+                }
+                writeText(channel, text);
+                channel.force(true);
+            }
+            moveIntoPlace(temporary, target);
+            saved = true;
+        }
+        finally
+        {
+            if (!saved)
+                Files.deleteIfExists(temporary);
+        }
+        return numberOfCar;
+    }
+
+    /**
+     * Write the encoded text to a channel and clear the text
+     *
+     * @param  channel  a FileChannel object represents channel to write to
+     * @param  text  a StringBuilder object represents text to be written
+     * @throws    IOException if the text cannot be written
+     */
+    private static void writeText(FileChannel channel, StringBuilder text)
+            throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes
+                (StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        text.setLength(0);
+    }
+}
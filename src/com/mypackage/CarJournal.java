@@ -0,0 +1,790 @@
+package com.mypackage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CarJournal class represents a car journal object generator. It is used
+ * to generate an append only journal of the changes made to a car database
+ * since its car file was last written. Every add, delete and edit appends
+ * one short line, and on start the journal is replayed on top of the car
+ * file. Compaction writes the car file again and starts an empty journal.
+ *
+ * A journal line is one of
+ * <pre>
+ *     A,registration,year,colour,colour,colour,maker,model,price
+ *     D,registration
+ *     C,registration,colour,colour,colour
+ *     P,registration,price
+ *     M,registration,maker,model
+ *     R,registration,new registration
+ *     Y,registration,year
+ *     B,number of lines
+ * </pre>
+ * Replaying a line sets the state it records, so a line may be replayed on
+ * top of a car file which already has it. A line of a car which is not
+ * found is reported, unless it is in the journal set aside by an
+ * unfinished compaction, which may already be in the car file. A last
+ * line without a line end was cut short by a crash, and is cut off the
+ * journal when it is replayed. A B line starts a CarBatch and is followed
+ * by the lines of its changes, which are appended and forced to disk
+ * together and replayed only if every one of them was written, or else
+ * cut off the journal.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarJournal
+{
+    public static final int COMPACTION_THRESHOLD = 10000;
+
+    private String filename;
+    private FileChannel channel;
+    private int numberOfRecord;
+    private boolean synchronous;
+    private Thread compaction;
+
+    /**
+     * Constructor for objects of class CarJournal
+     *
+     * @param  newFilename  a string represents filename of journal
+     */
+    public CarJournal(String newFilename)
+    {
+        if (newFilename == null)
+            filename = "";
+        else
+            filename = newFilename;
+        channel = null;
+        numberOfRecord = 0;
+        synchronous = true;
+        compaction = null;
+    }
+
+    /**
+     * Append a line to the journal, forcing it to disk when the journal is
+     * synchronous
+     *
+     * @param  line  a StringBuilder object represents line to be appended
+     * @throws    IOException if the line cannot be appended
+     */
+    private void append(StringBuilder line) throws IOException
+    {
+        append(line, 1);
+    }
+
+    /**
+     * Append lines to the journal in one write, forcing them to disk when
+     * the journal is synchronous
+     *
+     * @param  lines  a StringBuilder object represents lines to be
+     *                appended, without the line end of the last line
+     * @param  newNumberOfRecord  an integer represents number of records
+     *                            in lines
+     * @throws    IOException if the lines cannot be appended
+     */
+    private synchronized void append(StringBuilder lines,
+                                     int newNumberOfRecord) throws IOException
+    {
+        if (channel == null)
+            throw new IOException(filename + " is not open");
+        lines.append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes
+                (StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        if (synchronous)
+            channel.force(false);
+        numberOfRecord = numberOfRecord + newNumberOfRecord;
+    }
+
+    /**
+     * Append the line of an added car
+     *
+     * @param  line  a StringBuilder object represents line to be appended to
+     * @param  car  a Car object represents car added
+     */
+    private static void appendAddCar(StringBuilder line, Car car)
+    {
+        line.append("A,");
+        CarFileWriter.appendCarAttributes(line, car);
+    }
+
+    /**
+     * Append the line of a deleted car
+     *
+     * @param  line  a StringBuilder object represents line to be appended to
+     * @param  registrationNumber  a string represents registration number
+     *                             of car deleted
+     */
+    private static void appendDeleteCar(StringBuilder line,
+                                        String registrationNumber)
+    {
+        line.append("D,").append(registrationNumber);
+    }
+
+    /**
+     * Append the line of edited colours of a car
+     *
+     * @param  line  a StringBuilder object represents line to be appended to
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newColours  an array of string represents new colours of car
+     */
+    private static void appendEditCarColour(StringBuilder line,
+                                            String registrationNumber,
+                                            String[] newColours)
+    {
+        line.append("C,").append(registrationNumber);
+        for (int index = 0; index < CarFileWriter.NUMBER_OF_COLOUR; index++)
+        {
+            line.append(',');
+            if (index < newColours.length && newColours[index] != null)
+                line.append(newColours[index]);
+        }
+    }
+
+    /**
+     * Append the line of an edited car maker and car model of a car
+     *
+     * @param  line  a StringBuilder object represents line to be appended to
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newCarMaker  a string represents new car maker of car
+     * @param  newCarModel  a string represents new car model of car
+     */
+    private static void appendEditCarMakerAndModel(StringBuilder line,
+                                                   String registrationNumber,
+                                                   String newCarMaker,
+                                                   String newCarModel)
+    {
+        line.append("M,").append(registrationNumber).append(',')
+                .append(newCarMaker).append(',').append(newCarModel);
+    }
+
+    /**
+     * Append the line of an edited price of a car
+     *
+     * @param  line  a StringBuilder object represents line to be appended to
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newPrice  an integer represents new price of car
+     */
+    private static void appendEditCarPrice(StringBuilder line,
+                                           String registrationNumber,
+                                           int newPrice)
+    {
+        line.append("P,").append(registrationNumber).append(',')
+                .append(newPrice);
+    }
+
+    /**
+     * Append the line of an edited registration number of a car
+     *
+     * @param  line  a StringBuilder object represents line to be appended to
+     * @param  registrationNumber  a string represents registration number
+     *                             of car before it is edited
+     * @param  newRegistrationNumber  a string represents new registration
+     *                                number of car
+     */
+    private static void appendEditCarRegistrationNumber
+            (StringBuilder line, String registrationNumber,
+             String newRegistrationNumber)
+    {
+        line.append("R,").append(registrationNumber).append(',')
+                .append(newRegistrationNumber);
+    }
+
+    /**
+     * Append the line of an edited year made of a car
+     *
+     * @param  line  a StringBuilder object represents line to be appended to
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newYearMade  an integer represents new year made of car
+     */
+    private static void appendEditCarYearMade(StringBuilder line,
+                                              String registrationNumber,
+                                              int newYearMade)
+    {
+        line.append("Y,").append(registrationNumber).append(',')
+                .append(newYearMade);
+    }
+
+    /**
+     * Apply a journal line to a car database. A line of a car which is not
+     * found is an error, unless the journal may already be in the car
+     * file, when the line is skipped as it was applied before.
+     *
+     * @param  line  a string represents journal line
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be changed
+     * @param  fields  an array of string represents fields to be reused
+     * @param  isInCarFile  a boolean represents whether the journal may
+     *                      already be in the car file or not
+     * @throws    IllegalArgumentException if the line is malformed, or the
+     *                                     car of the line is not found
+     */
+    private static void apply(String line, CarDatabase carDatabase,
+                              String[] fields, boolean isInCarFile)
+    {
+        if (line.length() < 2 || line.charAt(1) != ',')
+            throw new IllegalArgumentException("Error: unknown journal " +
+                    "record");
+        char type = line.charAt(0);
+        String record = line.substring(2);
+        if (type == 'A')
+        {
+            Car newCar = CarFileLoader.parseCar(record, fields);
+            Car oldCar = carDatabase.findCar(newCar.getRegistrationNumber());
+            if (oldCar != null)
+                carDatabase.removeCar(oldCar);
+            carDatabase.addCar(newCar);
+            return;
+        }
+
+        int numberOfField = CarFileLoader.splitFields(record, fields);
+        Car car = carDatabase.findCar(fields[0]);
+        if (car == null && isInCarFile)
+            return;
+        if (car == null)
+            throw new IllegalArgumentException("Error: no car with " +
+                    "registration number " + fields[0]);
+        int status;
+        if (type == 'D' && numberOfField == 1)
+            status = carDatabase.deleteCar(car);
+        else if (type == 'C' && numberOfField == 4)
+            status = carDatabase.editCarColour(car, new String[] {fields[1],
+                    fields[2], fields[3]});
+        else if (type == 'P' && numberOfField == 2)
+            status = carDatabase.editCarPrice(car, Integer.parseInt
+                    (fields[1]));
+        else if (type == 'M' && numberOfField == 3)
+            status = carDatabase.editCarMakerAndModel(car, fields[1],
+                    fields[2]);
+        else if (type == 'R' && numberOfField == 2)
+        {
+            Car renamedCar = carDatabase.findCar(fields[1]);
+            if (isInCarFile && renamedCar != null && renamedCar != car)
+                carDatabase.removeCar(renamedCar);
+            status = carDatabase.editCarRegistrationNumber(car, fields[1]);
+        }
+        else if (type == 'Y' && numberOfField == 2)
+            status = carDatabase.editCarYearMade(car, Integer.parseInt
+                    (fields[1]));
+        else
+            throw new IllegalArgumentException("Error: unknown journal " +
+                    "record");
+        if (status != CarStatus.OK)
+            throw new IllegalArgumentException(CarStatus.getMessage(status));
+    }
+
+    /**
+     * Close the journal, waiting for a compaction in progress to finish
+     *
+     * @throws    IOException if the journal cannot be closed
+     */
+    public void close() throws IOException
+    {
+        waitForCompaction();
+        synchronized (this)
+        {
+            if (channel != null)
+                channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Compact the journal. The current journal is set aside and a new one
+     * started, then the cars are written to the car file and the old
+     * journal is deleted. Until then a restart replays the old journal too,
+     * so no change is lost if the compaction does not finish.
+     *
+     * @param  cars  a list of Car represents cars in the car database
+     *               when the journal is set aside, which must not change
+     * @param  carFilename  a string represents filename of car file
+     * @param  inBackground  a boolean represents whether the car file is
+     *                       written on a background thread or not
+     * @return    a boolean represents whether the compaction is done or
+     *            started, which is false if it fails or if another
+     *            compaction is still in progress
+     */
+    public synchronized boolean compact(List<Car> cars,
+                                        String carFilename,
+                                        boolean inBackground)
+    {
+        if (compaction != null && compaction.isAlive())
+            return false;
+        final Path oldJournal;
+        try
+        {
+            oldJournal = rotate();
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error: " + filename + " cannot be " +
+                    "compacted (" + exception + ")");
+            return false;
+        }
+
+        Runnable writeCarFile = () ->
+        {
+            try
+            {
+                new CarFileWriter(carFilename).writeCars(cars);
+                Files.deleteIfExists(oldJournal);
+            }
+            catch (IOException exception)
+            {
+                System.out.println("Error: " + carFilename + " cannot be " +
+                        "saved (" + exception + ")");
+            }
+        };
+        if (inBackground)
+        {
+            compaction = new Thread(writeCarFile, "car-journal-compaction");
+            compaction.start();
+            return true;
+        }
+        writeCarFile.run();
+        return !Files.exists(oldJournal);
+    }
+
+    /**
+     * Get filename of journal
+     *
+     * @return    a string represents filename of journal
+     */
+    public String getFilename()
+    {
+        return filename;
+    }
+
+    /**
+     * Get number of records appended since the journal was opened or last
+     * compacted
+     *
+     * @return    an integer represents number of records
+     */
+    public synchronized int getNumberOfRecord()
+    {
+        return numberOfRecord;
+    }
+
+    /**
+     * Get path of the journal set aside by a compaction
+     *
+     * @return    a Path object represents path of old journal
+     */
+    private Path getOldJournal()
+    {
+        return Paths.get(filename + ".old");
+    }
+
+    /**
+     * Check whether every record is forced to disk before it returns
+     *
+     * @return    a boolean represents whether journal is synchronous or not
+     */
+    public boolean isSynchronous()
+    {
+        return synchronous;
+    }
+
+    /**
+     * Open the journal for appending, creating it if it does not exist
+     *
+     * @throws    IOException if the journal cannot be opened
+     */
+    public synchronized void open() throws IOException
+    {
+        if (channel == null)
+            channel = FileChannel.open(Paths.get(filename),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Record that a car is added
+     *
+     * @param  car  a Car object represents car added
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordAddCar(Car car) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        appendAddCar(line, car);
+        append(line);
+    }
+
+    /**
+     * Record that a batch of changes is applied. The B line and the lines
+     * of the changes are appended in one write.
+     *
+     * @param  batch  a CarBatch object represents batch applied
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordBatch(CarBatch batch) throws IOException
+    {
+        List<CarBatch.Change> changes = batch.getChanges();
+        StringBuilder lines = new StringBuilder("B,").append(changes.size());
+        for (CarBatch.Change thisChange: changes)
+        {
+            lines.append('\n');
+            switch (thisChange.getType())
+            {
+                case CarBatch.Change.ADD_CAR:
+                    appendAddCar(lines, thisChange.getCar());
+                    break;
+                case CarBatch.Change.DELETE_CAR:
+                    appendDeleteCar(lines, thisChange.getRegistrationNumber());
+                    break;
+                case CarBatch.Change.EDIT_CAR_COLOUR:
+                    appendEditCarColour(lines, thisChange
+                            .getRegistrationNumber(), thisChange.getColours());
+                    break;
+                default:
+                    appendEditCarPrice(lines, thisChange
+                            .getRegistrationNumber(), thisChange.getPrice());
+                    break;
+            }
+        }
+        append(lines, changes.size());
+    }
+
+    /**
+     * Record that a car is deleted
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car deleted
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordDeleteCar(String registrationNumber) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        appendDeleteCar(line, registrationNumber);
+        append(line);
+    }
+
+    /**
+     * Record that colours of a car are edited
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newColours  an array of string represents new colours of car
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordEditCarColour(String registrationNumber,
+                                    String[] newColours) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        appendEditCarColour(line, registrationNumber, newColours);
+        append(line);
+    }
+
+    /**
+     * Record that car maker and car model of a car are edited
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newCarMaker  a string represents new car maker of car
+     * @param  newCarModel  a string represents new car model of car
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordEditCarMakerAndModel(String registrationNumber,
+                                           String newCarMaker,
+                                           String newCarModel)
+            throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        appendEditCarMakerAndModel(line, registrationNumber, newCarMaker,
+                newCarModel);
+        append(line);
+    }
+
+    /**
+     * Record that price of a car is edited
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newPrice  an integer represents new price of car
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordEditCarPrice(String registrationNumber, int newPrice)
+            throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        appendEditCarPrice(line, registrationNumber, newPrice);
+        append(line);
+    }
+
+    /**
+     * Record that registration number of a car is edited
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car before it is edited
+     * @param  newRegistrationNumber  a string represents new registration
+     *                                number of car
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordEditCarRegistrationNumber(String registrationNumber,
+                                                String newRegistrationNumber)
+            throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        appendEditCarRegistrationNumber(line, registrationNumber,
+                newRegistrationNumber);
+        append(line);
+    }
+
+    /**
+     * Record that year made of a car is edited
+     *
+     * @param  registrationNumber  a string represents registration number
+     *                             of car edited
+     * @param  newYearMade  an integer represents new year made of car
+     * @throws    IOException if the record cannot be appended
+     */
+    public void recordEditCarYearMade(String registrationNumber,
+                                      int newYearMade) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        appendEditCarYearMade(line, registrationNumber, newYearMade);
+        append(line);
+    }
+
+    /**
+     * Replay the journal, and the journal set aside by an unfinished
+     * compaction, on top of a car database. A last line without a line end
+     * was cut short by a crash and is ignored and cut off, and so is a
+     * last batch without all of its lines.
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be changed
+     * @return    an array list of string represents errors of malformed
+     *            records, which are skipped
+     * @throws    IOException if the journal cannot be read
+     */
+    public ArrayList<String> replay(CarDatabase carDatabase) throws IOException
+    {
+        ArrayList<String> errors = new ArrayList<>();
+        replay(getOldJournal(), carDatabase, errors, true);
+        replay(Paths.get(filename), carDatabase, errors, false);
+        return errors;
+    }
+
+    /**
+     * Replay a journal file on top of a car database. A last line cut
+     * short by a crash, and a last batch without all of its lines from its
+     * B line on, are cut off the file too, so the next record appended
+     * starts a line of its own instead of being glued onto them or taken
+     * as a line of the batch.
+     *
+     * @param  journal  a Path object represents journal file
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be changed
+     * @param  errors  an array list of string represents errors of
+     *                 malformed records
+     * @param  isInCarFile  a boolean represents whether the journal may
+     *                      already be in the car file or not
+     * @throws    IOException if the journal cannot be read or cut
+     */
+    private static void replay(Path journal, CarDatabase carDatabase,
+                               ArrayList<String> errors, boolean isInCarFile)
+            throws IOException
+    {
+        if (!Files.exists(journal))
+            return;
+        long size = Files.size(journal);
+        long position = 0;
+        long completeSize = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader
+                (Files.newInputStream(journal), StandardCharsets.UTF_8),
+                CarFileLoader.BUFFER_SIZE))
+        {
+            String[] fields = new String[CarFileLoader.NUMBER_OF_CAR_FIELDS];
+            ArrayList<String> batchLines = new ArrayList<>();
+            int numberOfBatchLine = 0;
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while (line != null)
+            {
+                lineNumber++;
+                position = position + line.getBytes(StandardCharsets.UTF_8)
+                        .length + 1;
+                if (position > size)
+                    break;
+                if (batchLines.size() < numberOfBatchLine)
+                {
+                    batchLines.add(line);
+                    if (batchLines.size() == numberOfBatchLine)
+                    {
+                        int batchLineNumber = lineNumber - numberOfBatchLine;
+                        for (String thisBatchLine: batchLines)
+                        {
+                            batchLineNumber++;
+                            replayLine(journal, thisBatchLine, batchLineNumber,
+                                    carDatabase, fields, errors, isInCarFile);
+                        }
+                        batchLines.clear();
+                        numberOfBatchLine = 0;
+                    }
+                }
+                else if (line.startsWith("B,"))
+                {
+                    try
+                    {
+                        numberOfBatchLine = Integer.parseInt(line.substring
+                                (2));
+                    }
+                    catch (NumberFormatException exception)
+                    {
+                        errors.add(journal.getFileName() + ": Line " +
+                                lineNumber + ": Error: unknown journal " +
+                                "record");
+                    }
+                }
+                else
+                    replayLine(journal, line, lineNumber, carDatabase, fields,
+                            errors, isInCarFile);
+                if (batchLines.size() == numberOfBatchLine)
+                    completeSize = position;
+                line = reader.readLine();
+            }
+        }
+        if (completeSize < size)
+            truncate(journal, completeSize);
+    }
+
+    /**
+     * Replay a journal line on top of a car database, adding an error if
+     * the line is malformed
+     *
+     * @param  journal  a Path object represents journal file
+     * @param  line  a string represents journal line
+     * @param  lineNumber  an integer represents number of line in journal
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be changed
+     * @param  fields  an array of string represents fields to be reused
+     * @param  errors  an array list of string represents errors of
+     *                 malformed records
+     * @param  isInCarFile  a boolean represents whether the journal may
+     *                      already be in the car file or not
+     */
+    private static void replayLine(Path journal, String line, int lineNumber,
+                                   CarDatabase carDatabase, String[] fields,
+                                   ArrayList<String> errors,
+                                   boolean isInCarFile)
+    {
+        try
+        {
+            if (line.length() > 0)
+                apply(line, carDatabase, fields, isInCarFile);
+        }
+        catch (IllegalArgumentException exception)
+        {
+            errors.add(journal.getFileName() + ": Line " + lineNumber +
+                    ": " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Set the current journal aside as the old journal and open a new
+     * empty journal. If an old journal is still there because an earlier
+     * compaction failed, the current journal is appended to it instead.
+     *
+     * @return    a Path object represents path of old journal
+     * @throws    IOException if the journal cannot be set aside
+     */
+    private synchronized Path rotate() throws IOException
+    {
+        Path journal = Paths.get(filename);
+        Path oldJournal = getOldJournal();
+        boolean wasOpen = channel != null;
+        if (wasOpen)
+        {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+        if (Files.exists(journal))
+        {
+            if (Files.exists(oldJournal))
+            {
+                Files.write(oldJournal, Files.readAllBytes(journal),
+                        StandardOpenOption.APPEND);
+                Files.delete(journal);
+            }
+            else
+                Files.move(journal, oldJournal);
+        }
+        numberOfRecord = 0;
+        if (wasOpen)
+            open();
+        return oldJournal;
+    }
+
+    /**
+     * Set whether every record is forced to disk before it returns. A
+     * journal which is not synchronous is faster but may lose its last
+     * records if the machine, rather than the program, crashes.
+     *
+     * @param  newSynchronous  a boolean represents whether journal is
+     *                         synchronous or not
+     */
+    public void setSynchronous(boolean newSynchronous)
+    {
+        synchronous = newSynchronous;
+    }
+
+    /**
+     * Cut a journal file to a size, dropping the records after it
+     *
+     * @param  journal  a Path object represents journal file
+     * @param  newSize  a long represents size of journal to be kept
+     * @throws    IOException if the journal cannot be cut
+     */
+    private static void truncate(Path journal, long newSize)
+            throws IOException
+    {
+        try (FileChannel journalChannel = FileChannel.open(journal,
+                StandardOpenOption.WRITE))
+        {
+            journalChannel.truncate(newSize);
+            journalChannel.force(true);
+        }
+    }
+
+    /**
+     * Wait for a compaction in progress to finish
+     */
+    public void waitForCompaction()
+    {
+        Thread thisCompaction;
+        synchronized (this)
+        {
+            thisCompaction = compaction;
+        }
+        if (thisCompaction == null)
+            return;
+        try
+        {
+            thisCompaction.join();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
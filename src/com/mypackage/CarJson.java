@@ -0,0 +1,401 @@
+package com.mypackage;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The CarJson class represents a car JSON object generator. It is used to
+ * write cars and car makers as JSON straight to a writer, one value at a
+ * time, so a long list of cars is streamed without building a string of
+ * the whole list. It also reads the flat JSON objects sent to a
+ * CarWarehouseServer, whose values are strings, whole numbers, booleans,
+ * null or arrays of these.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarJson
+{
+    /**
+     * Constructor for objects of class CarJson
+     */
+    public CarJson()
+    {
+    }
+
+    /**
+     * Read a JSON object of text
+     *
+     * @param  text  a string represents JSON object
+     * @return    a map represents names and values of object, where a value
+     *            is a String, Long, Boolean, null or List of these
+     * @throws    IllegalArgumentException if the text is not a JSON object
+     *            of such values
+     */
+    public static Map<String, Object> readObject(String text)
+    {
+        Parser parser = new Parser(text);
+        Map<String, Object> object = parser.readObject();
+        parser.skipWhitespace();
+        if (!parser.isAtEnd())
+            throw parser.error("end of text");
+        return object;
+    }
+
+    /**
+     * Write a car as a JSON object
+     *
+     * @param  out  a Writer object represents writer of JSON
+     * @param  car  a Car object represents car to be written
+     * @throws    IOException if the JSON cannot be written
+     */
+    public static void writeCar(Writer out, Car car) throws IOException
+    {
+        out.write("{\"registrationNumber\":");
+        writeString(out, car.getRegistrationNumber());
+        out.write(",\"yearMade\":");
+        out.write(Integer.toString(car.getYearMade()));
+        out.write(",\"colours\":[");
+        boolean isFirst = true;
+        for (String thisColour: car.getColours())
+        {
+            if (thisColour.length() == 0)
+                continue;
+            if (!isFirst)
+                out.write(',');
+            writeString(out, thisColour);
+            isFirst = false;
+        }
+        out.write("],\"carMaker\":");
+        writeString(out, car.getCarMaker());
+        out.write(",\"carModel\":");
+        writeString(out, car.getCarModel());
+        out.write(",\"price\":");
+        out.write(Integer.toString(car.getPrice()));
+        out.write('}');
+    }
+
+    /**
+     * Write a car maker and its available models as a JSON object
+     *
+     * @param  out  a Writer object represents writer of JSON
+     * @param  carMaker  a CarMaker object represents car maker to be
+     *                   written
+     * @throws    IOException if the JSON cannot be written
+     */
+    public static void writeCarMaker(Writer out, CarMaker carMaker)
+            throws IOException
+    {
+        out.write("{\"name\":");
+        writeString(out, carMaker.getName());
+        out.write(",\"models\":[");
+        ArrayList<String> models = carMaker.getAvailableModels();
+        for (int index = 0; index < models.size(); index++)
+        {
+            if (index > 0)
+                out.write(',');
+            writeString(out, models.get(index));
+        }
+        out.write("]}");
+    }
+
+    /**
+     * Write a string as a JSON string, escaping quotes, backslashes and
+     * control characters
+     *
+     * @param  out  a Writer object represents writer of JSON
+     * @param  value  a string represents string to be written, or null
+     * @throws    IOException if the JSON cannot be written
+     */
+    public static void writeString(Writer out, String value)
+            throws IOException
+    {
+        if (value == null)
+        {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int index = 0; index < value.length(); index++)
+        {
+            char thisCharacter = value.charAt(index);
+            if (thisCharacter == '"' || thisCharacter == '\\')
+            {
+                out.write('\\');
+                out.write(thisCharacter);
+            }
+            else if (thisCharacter < 0x20)
+                out.write(String.format("\\u%04x", (int) thisCharacter));
+            else
+                out.write(thisCharacter);
+        }
+        out.write('"');
+    }
+
+    /**
+     * The Parser class represents a parser of JSON text, which reads values
+     * from its position onwards
+     */
+    private static class Parser
+    {
+        private final String text;
+        private int position;
+
+        /**
+         * Constructor for objects of class Parser
+         *
+         * @param  newText  a string represents JSON text to be parsed
+         */
+        Parser(String newText)
+        {
+            text = newText;
+            position = 0;
+        }
+
+        /**
+         * Make an error of text which is not as expected at the position
+         *
+         * @param  expected  a string represents what is expected
+         * @return    an IllegalArgumentException object represents error
+         */
+        IllegalArgumentException error(String expected)
+        {
+            return new IllegalArgumentException("Error: JSON " + expected +
+                    " is expected at character " + (position + 1));
+        }
+
+        /**
+         * Read an expected character, after skipping whitespace
+         *
+         * @param  expected  a char represents character expected
+         * @throws    IllegalArgumentException if the character is not found
+         */
+        void expect(char expected)
+        {
+            skipWhitespace();
+            if (isAtEnd() || text.charAt(position) != expected)
+                throw error("'" + expected + "'");
+            position++;
+        }
+
+        /**
+         * Check whether parser has read the whole text
+         *
+         * @return    a boolean represents whether parser is at the end or
+         *            not
+         */
+        boolean isAtEnd()
+        {
+            return position >= text.length();
+        }
+
+        /**
+         * Read an array of values
+         *
+         * @return    a list represents values of array
+         */
+        List<Object> readArray()
+        {
+            expect('[');
+            ArrayList<Object> values = new ArrayList<>();
+            skipWhitespace();
+            if (!isAtEnd() && text.charAt(position) == ']')
+            {
+                position++;
+                return values;
+            }
+            do
+            {
+                values.add(readValue());
+            }
+            while (tryRead(','));
+            expect(']');
+            return values;
+        }
+
+        /**
+         * Read a literal word such as true, false or null
+         *
+         * @param  word  a string represents word to be read
+         * @param  value  an Object represents value of word
+         * @return    an Object represents value of word
+         */
+        Object readLiteral(String word, Object value)
+        {
+            if (!text.startsWith(word, position))
+                throw error(word);
+            position = position + word.length();
+            return value;
+        }
+
+        /**
+         * Read a whole number
+         *
+         * @return    a Long object represents number
+         */
+        Long readNumber()
+        {
+            int start = position;
+            if (!isAtEnd() && text.charAt(position) == '-')
+                position++;
+            while (!isAtEnd() && Character.isDigit(text.charAt(position)))
+                position++;
+            try
+            {
+                return Long.parseLong(text.substring(start, position));
+            }
+            catch (NumberFormatException exception)
+            {
+                position = start;
+                throw error("whole number");
+            }
+        }
+
+        /**
+         * Read an object of names and values
+         *
+         * @return    a map represents names and values of object
+         */
+        Map<String, Object> readObject()
+        {
+            expect('{');
+            LinkedHashMap<String, Object> object = new LinkedHashMap<>();
+            skipWhitespace();
+            if (!isAtEnd() && text.charAt(position) == '}')
+            {
+                position++;
+                return object;
+            }
+            do
+            {
+                skipWhitespace();
+                String name = readString();
+                expect(':');
+                object.put(name, readValue());
+            }
+            while (tryRead(','));
+            expect('}');
+            return object;
+        }
+
+        /**
+         * Read a string, replacing its escapes
+         *
+         * @return    a string represents string read
+         */
+        String readString()
+        {
+            if (isAtEnd() || text.charAt(position) != '"')
+                throw error("string");
+            position++;
+            StringBuilder value = new StringBuilder();
+            while (!isAtEnd() && text.charAt(position) != '"')
+            {
+                char thisCharacter = text.charAt(position);
+                position++;
+                if (thisCharacter != '\\')
+                    value.append(thisCharacter);
+                else if (isAtEnd())
+                    throw error("escape");
+                else
+                {
+                    char escape = text.charAt(position);
+                    position++;
+                    switch (escape)
+                    {
+                        case 'b':
+                            value.append('\b');
+                            break;
+                        case 'f':
+                            value.append('\f');
+                            break;
+                        case 'n':
+                            value.append('\n');
+                            break;
+                        case 'r':
+                            value.append('\r');
+                            break;
+                        case 't':
+                            value.append('\t');
+                            break;
+                        case 'u':
+                            if (position + 4 > text.length())
+                                throw error("unicode escape");
+                            try
+                            {
+                                value.append((char) Integer.parseInt
+                                        (text.substring(position,
+                                        position + 4), 16));
+                            }
+                            catch (NumberFormatException exception)
+                            {
+                                throw error("unicode escape");
+                            }
+                            position = position + 4;
+                            break;
+                        default:
+                            value.append(escape);
+                            break;
+                    }
+                }
+            }
+            if (isAtEnd())
+                throw error("'\"'");
+            position++;
+            return value.toString();
+        }
+
+        /**
+         * Read a value, after skipping whitespace
+         *
+         * @return    an Object represents value read
+         */
+        Object readValue()
+        {
+            skipWhitespace();
+            if (isAtEnd())
+                throw error("value");
+            char thisCharacter = text.charAt(position);
+            if (thisCharacter == '"')
+                return readString();
+            if (thisCharacter == '[')
+                return readArray();
+            if (thisCharacter == 't')
+                return readLiteral("true", Boolean.TRUE);
+            if (thisCharacter == 'f')
+                return readLiteral("false", Boolean.FALSE);
+            if (thisCharacter == 'n')
+                return readLiteral("null", null);
+            return readNumber();
+        }
+
+        /**
+         * Skip whitespace from the position
+         */
+        void skipWhitespace()
+        {
+            while (!isAtEnd() && Character.isWhitespace(text.charAt(position)))
+                position++;
+        }
+
+        /**
+         * Read a character if it is next, after skipping whitespace
+         *
+         * @param  expected  a char represents character to be read
+         * @return    a boolean represents whether the character is read or
+         *            not
+         */
+        boolean tryRead(char expected)
+        {
+            skipWhitespace();
+            if (isAtEnd() || text.charAt(position) != expected)
+                return false;
+            position++;
+            return true;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mypackage;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 
 /**
@@ -67,25 +68,29 @@ public class CarMaker
 
     /**
      * Display available models of car maker
+     *
+     * @param  output  a PrintWriter object represents output of models
      */
-    public void displayAvailableModels()
+    public void displayAvailableModels(PrintWriter output)
     {
-        System.out.println("Available Car Models:");
+        output.println("Available Car Models:");
         for (int index = 0; index < availableModels.size(); index++)
         {
             int thisNumber = index + 1;
             String thisCarModel = availableModels.get(index);
-            System.out.println("(" + thisNumber + ") " + thisCarModel);
+            output.println("(" + thisNumber + ") " + thisCarModel);
         }
     }
 
     /**
      * Display car maker attributes
+     *
+     * @param  output  a PrintWriter object represents output of car maker
      */
-    public void displayCarMaker()
+    public void displayCarMaker(PrintWriter output)
     {
-        System.out.println("Car Maker Name: " + name);
-        System.out.println("Available Models: "+
+        output.println("Car Maker Name: " + name);
+        output.println("Available Models: "+
                 String.join(", " , availableModels));
     }
 
@@ -1,20 +1,21 @@
 package com.mypackage;
 
 import java.io.*;
-import java.util.Scanner;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 
 /**
  * The CarMakerDatabase class represents a car maker database object
  * generator. It is used to generate a car maker database which stores
- * Car Maker objects.
+ * Car Maker objects. The list of car makers is copied on write, so it may
+ * be read by many threads while a car maker is added.
  *
  * @author  Zi Sing Lim
  * @version 1.0 (29.Apr.2021)
  */
 public class CarMakerDatabase
 {
-    private ArrayList<CarMaker> carMakers;
+    private volatile ArrayList<CarMaker> carMakers;
 
     /**
      * Constructor for objects of class CarMakerDatabase
@@ -31,10 +32,13 @@ public class CarMakerDatabase
      * @param  models  an array list of string represents available models
      *                 of the car maker
      */
-    public void addCarMaker(String name, ArrayList<String> models)
+    public synchronized void addCarMaker(String name,
+                                         ArrayList<String> models)
     {
         CarMaker newCarMaker = new CarMaker(name, models);
-        carMakers.add(newCarMaker);
+        ArrayList<CarMaker> newCarMakers = new ArrayList<>(carMakers);
+        newCarMakers.add(newCarMaker);
+        carMakers = newCarMakers;
     }
 
     /**
@@ -57,16 +61,19 @@ public class CarMakerDatabase
 
     /**
      * Display car makers in car maker database
+     *
+     * @param  output  a PrintWriter object represents output of car makers
      */
-    public void displayCarMakers()
+    public void displayCarMakers(PrintWriter output)
     {
-        System.out.println("Available Car Makers:");
-        for (int index = 0; index < carMakers.size(); index++)
+        output.println("Available Car Makers:");
+        ArrayList<CarMaker> currentCarMakers = carMakers;
+        for (int index = 0; index < currentCarMakers.size(); index++)
         {
-            CarMaker thisCarMaker = carMakers.get(index);
+            CarMaker thisCarMaker = currentCarMakers.get(index);
             int thisNumber = index + 1;
             String carMaker = thisCarMaker.getName();
-            System.out.println("(" + thisNumber + ") " + carMaker);
+            output.println("(" + thisNumber + ") " + carMaker);
         }
     }
 
@@ -82,21 +89,22 @@ public class CarMakerDatabase
     public CarMaker getCarMaker(int carMakerNumber)
     {
         int index = carMakerNumber - 1;
-        if (index >= 0 && index < carMakers.size())
+        ArrayList<CarMaker> currentCarMakers = carMakers;
+        if (index >= 0 && index < currentCarMakers.size())
         {
-            CarMaker carMaker = carMakers.get(index);
+            CarMaker carMaker = currentCarMakers.get(index);
             return carMaker;
         }
         else
             throw new IllegalArgumentException("Error: your choice must be " +
-                    "between 1-" + carMakers.size());
+                    "between 1-" + currentCarMakers.size());
     }
 
     /**
      * Get car makers in car maker database
      *
      * @return    an array list of Car Maker represents car makers in
-     *            car maker database
+     *            car maker database, which must not be changed
      */
     public ArrayList<CarMaker> getCarMakers()
     {
@@ -115,31 +123,19 @@ public class CarMakerDatabase
     }
 
     /**
-     * Read file which contains car makers information in it
+     * Read file which contains car makers information in it. Malformed
+     * lines are reported and skipped.
      *
      * @param  filename  a string represents filename of file to be read
      */
     public void readCarMakerFile(String filename)
     {
+        CarFileLoader loader = new CarFileLoader(filename);
         try
         {
-            FileReader inputFile = new FileReader(filename);
-            try
-            {
-                Scanner parser = new Scanner(inputFile);
-                String carMakerAttributeString = "";
-                while (parser.hasNextLine())
-                {
-                    carMakerAttributeString = parser.nextLine();
-                    addCarMakerFromFile(carMakerAttributeString);
-                }
-            }
-            finally
-            {
-                inputFile.close();
-            }
+            loader.loadCarMakers(this);
         }
-        catch (FileNotFoundException exception)
+        catch (NoSuchFileException exception)
         {
             System.out.println(filename + " not found");
         }
@@ -147,6 +143,8 @@ public class CarMakerDatabase
         {
             System.out.println("Unexpected I/O exception occurs");
         }
+        for (String thisError: loader.getErrors())
+            System.out.println(filename + ": " + thisError);
     }
 
     /**
@@ -0,0 +1,729 @@
+package com.mypackage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The CarOffHeapStore class represents a car off-heap store object
+ * generator. It is used to generate a car store which keeps cars outside
+ * the Java heap, in direct byte buffers, so that a very large inventory
+ * adds almost nothing for the garbage collector to trace. Only the buffer
+ * objects themselves and a few counters live on the heap.
+ *
+ * Each car takes a fixed width slot of
+ * <pre>
+ *     int    year made
+ *     int    price
+ *     int    car maker code
+ *     int    car model code
+ *     long   colour codes
+ *     byte   length of registration number
+ *     byte[] registration number, up to 15 UTF-8 bytes
+ *     int    generation of slot
+ *     int    unused, to keep slots 8 byte aligned
+ * </pre>
+ * where car maker, car model and colours are codes of the shared
+ * CarSymbolTable. Slots are allocated a page at a time. A longer
+ * registration number is kept on the heap instead, which never happens for
+ * registration numbers accepted by the warehouse.
+ *
+ * Registration numbers are found through an open addressing hash table,
+ * also kept in a direct byte buffer, whose entries hold the hash of the
+ * registration key and the slot of the car. Large scans are split into
+ * ranges of slots scanned in parallel by a CarParallelScan.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarOffHeapStore implements CarStore
+{
+    public static final int SLOT_SIZE = 48;
+    public static final int MAXIMUM_REGISTRATION_LENGTH = 15;
+    public static final int PAGE_SHIFT = 16;
+    public static final int SLOTS_PER_PAGE = 1 << PAGE_SHIFT;
+    public static final int INITIAL_TABLE_CAPACITY = 1024;
+    public static final int MAXIMUM_NUMBER_OF_CAR = 1 << 26;
+
+    private static final int YEAR_MADE_OFFSET = 0;
+    private static final int PRICE_OFFSET = 4;
+    private static final int CAR_MAKER_OFFSET = 8;
+    private static final int CAR_MODEL_OFFSET = 12;
+    private static final int COLOUR_OFFSET = 16;
+    private static final int REGISTRATION_OFFSET = 24;
+    private static final int GENERATION_OFFSET = 40;
+    private static final int REMOVED = Integer.MIN_VALUE;
+    private static final int LONG_REGISTRATION = 0xFF;
+    private static final int NO_SLOT = -1;
+
+    private ByteBuffer[] pages;
+    private int slotLimit;
+    private int numberOfCar;
+    private int firstFreeSlot;
+    private ByteBuffer table;
+    private int tableCapacity;
+    private HashMap<Integer, String> longRegistrationNumbers;
+    private CarParallelScan parallelScan;
+
+    /**
+     * Constructor for objects of class CarOffHeapStore
+     */
+    public CarOffHeapStore()
+    {
+        pages = new ByteBuffer[0];
+        slotLimit = 0;
+        numberOfCar = 0;
+        firstFreeSlot = NO_SLOT;
+        tableCapacity = INITIAL_TABLE_CAPACITY;
+        table = allocate(tableCapacity * 8);
+        longRegistrationNumbers = new HashMap<>();
+        parallelScan = CarParallelScan.getSharedScan();
+    }
+
+    /**
+     * Add the attributes of a car to a free slot
+     *
+     * @param  car  a Car object represents car to be added
+     * @return    an integer represents slot of car
+     * @throws    IllegalArgumentException if the car store is full
+     */
+    @Override
+    public int addCar(Car car)
+    {
+        if (numberOfCar == MAXIMUM_NUMBER_OF_CAR)
+            throw new IllegalArgumentException("Error: no more than " +
+                    MAXIMUM_NUMBER_OF_CAR + " cars can be stored");
+        int slot;
+        if (firstFreeSlot != NO_SLOT)
+        {
+            slot = firstFreeSlot;
+            firstFreeSlot = getPage(slot).getInt(getOffset(slot) +
+                    CAR_MODEL_OFFSET);
+        }
+        else
+        {
+            if (slotLimit >> PAGE_SHIFT == pages.length)
+            {
+                pages = Arrays.copyOf(pages, pages.length + 1);
+                pages[pages.length - 1] = allocate(SLOTS_PER_PAGE *
+                        SLOT_SIZE);
+            }
+            slot = slotLimit;
+            slotLimit++;
+        }
+        ByteBuffer page = getPage(slot);
+        int offset = getOffset(slot);
+        page.putInt(offset + YEAR_MADE_OFFSET, car.getYearMade());
+        page.putInt(offset + PRICE_OFFSET, car.getPrice());
+        page.putInt(offset + CAR_MAKER_OFFSET, car.getCarMakerCode());
+        page.putInt(offset + CAR_MODEL_OFFSET, car.getCarModelCode());
+        page.putLong(offset + COLOUR_OFFSET, car.getColourCodes());
+        putRegistrationNumber(slot, car.getRegistrationNumber());
+        numberOfCar++;
+        if ((long) numberOfCar * 2 > tableCapacity)
+            resizeTable(tableCapacity * 2);
+        putEntry(slot, CarDatabase.getRegistrationKey
+                (car.getRegistrationNumber()).hashCode());
+        return slot;
+    }
+
+    /**
+     * Allocate a direct byte buffer in native byte order
+     *
+     * @param  capacity  an integer represents capacity in bytes
+     * @return    a ByteBuffer object represents buffer allocated
+     */
+    private static ByteBuffer allocate(int capacity)
+    {
+        return ByteBuffer.allocateDirect(capacity).order
+                (ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Remove every car from car store. Pages already allocated are kept
+     * for later cars.
+     */
+    @Override
+    public void clear()
+    {
+        for (int slot = 0; slot < slotLimit; slot++)
+            nextGeneration(slot);
+        slotLimit = 0;
+        numberOfCar = 0;
+        firstFreeSlot = NO_SLOT;
+        tableCapacity = INITIAL_TABLE_CAPACITY;
+        table = allocate(tableCapacity * 8);
+        longRegistrationNumbers.clear();
+    }
+
+    /**
+     * Copy car store, so that the copy is not changed by later changes of
+     * this car store
+     *
+     * @return    a CarOffHeapStore object represents copy of car store
+     */
+    @Override
+    public CarOffHeapStore copy()
+    {
+        CarOffHeapStore copy = new CarOffHeapStore();
+        copy.pages = new ByteBuffer[pages.length];
+        for (int index = 0; index < pages.length; index++)
+            copy.pages[index] = copyBuffer(pages[index]);
+        copy.slotLimit = slotLimit;
+        copy.numberOfCar = numberOfCar;
+        copy.firstFreeSlot = firstFreeSlot;
+        copy.table = copyBuffer(table);
+        copy.tableCapacity = tableCapacity;
+        copy.longRegistrationNumbers = new HashMap<>(longRegistrationNumbers);
+        copy.parallelScan = parallelScan;
+        return copy;
+    }
+
+    /**
+     * Copy a direct byte buffer into a new direct byte buffer
+     *
+     * @param  buffer  a ByteBuffer object represents buffer to be copied
+     * @return    a ByteBuffer object represents copy of buffer
+     */
+    private static ByteBuffer copyBuffer(ByteBuffer buffer)
+    {
+        ByteBuffer copy = allocate(buffer.capacity());
+        copy.put(0, buffer, 0, buffer.capacity());
+        return copy;
+    }
+
+    /**
+     * Find slot of a car by registration number, which is compared case
+     * insensitively
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    an integer represents slot of car, or -1 if not found
+     */
+    @Override
+    public int findCar(String registrationNumber)
+    {
+        String registrationKey = CarDatabase.getRegistrationKey
+                (registrationNumber);
+        int hash = registrationKey.hashCode();
+        int mask = tableCapacity - 1;
+        int position = mix(hash) & mask;
+        long entry = table.getLong(position * 8);
+        while (entry != 0)
+        {
+            int slot = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && CarDatabase.getRegistrationKey
+                    (getRegistrationNumber(slot)).equals(registrationKey))
+                return slot;
+            position = (position + 1) & mask;
+            entry = table.getLong(position * 8);
+        }
+        return NO_SLOT;
+    }
+
+    /**
+     * Find position of the hash table entry of a slot
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents position of entry
+     */
+    private int findEntry(int slot)
+    {
+        int hash = CarDatabase.getRegistrationKey(getRegistrationNumber
+                (slot)).hashCode();
+        int mask = tableCapacity - 1;
+        int position = mix(hash) & mask;
+        while ((int) table.getLong(position * 8) - 1 != slot)
+            position = (position + 1) & mask;
+        return position;
+    }
+
+    /**
+     * Get code of car maker of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents code of car maker
+     */
+    @Override
+    public int getCarMakerCode(int slot)
+    {
+        return getPage(slot).getInt(getOffset(slot) + CAR_MAKER_OFFSET);
+    }
+
+    /**
+     * Get code of car model of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents code of car model
+     */
+    @Override
+    public int getCarModelCode(int slot)
+    {
+        return getPage(slot).getInt(getOffset(slot) + CAR_MODEL_OFFSET);
+    }
+
+    /**
+     * Get packed codes of colours of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    a long represents packed codes of colours
+     */
+    @Override
+    public long getColourCodes(int slot)
+    {
+        return getPage(slot).getLong(getOffset(slot) + COLOUR_OFFSET);
+    }
+
+    /**
+     * Get generation of a slot, which changes whenever the car in the slot
+     * is removed. Any slot below the slot limit may be checked.
+     *
+     * @param  slot  an integer represents slot
+     * @return    an integer represents generation of slot
+     */
+    @Override
+    public int getGeneration(int slot)
+    {
+        return getPage(slot).getInt(getOffset(slot) + GENERATION_OFFSET);
+    }
+
+    /**
+     * Get maximum number of cars which can be kept in car store at once
+     *
+     * @return    an integer represents maximum number of cars
+     */
+    @Override
+    public int getMaximumNumberOfCar()
+    {
+        return MAXIMUM_NUMBER_OF_CAR;
+    }
+
+    /**
+     * Get number of cars in car store
+     *
+     * @return    an integer represents number of cars
+     */
+    @Override
+    public int getNumberOfCar()
+    {
+        return numberOfCar;
+    }
+
+    /**
+     * Get byte offset of a slot in its page
+     *
+     * @param  slot  an integer represents slot
+     * @return    an integer represents byte offset of slot
+     */
+    private static int getOffset(int slot)
+    {
+        return (slot & (SLOTS_PER_PAGE - 1)) * SLOT_SIZE;
+    }
+
+    /**
+     * Get page of a slot
+     *
+     * @param  slot  an integer represents slot
+     * @return    a ByteBuffer object represents page of slot
+     */
+    private ByteBuffer getPage(int slot)
+    {
+        return pages[slot >> PAGE_SHIFT];
+    }
+
+    /**
+     * Get price of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents price of car
+     */
+    @Override
+    public int getPrice(int slot)
+    {
+        return getPage(slot).getInt(getOffset(slot) + PRICE_OFFSET);
+    }
+
+    /**
+     * Get registration number of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    a string represents registration number of car
+     */
+    @Override
+    public String getRegistrationNumber(int slot)
+    {
+        ByteBuffer page = getPage(slot);
+        int offset = getOffset(slot) + REGISTRATION_OFFSET;
+        int length = page.get(offset) & 0xFF;
+        if (length == LONG_REGISTRATION)
+            return longRegistrationNumbers.get(slot);
+        byte[] bytes = new byte[length];
+        page.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get number of slots which may be in use. Every car is in a slot
+     * below this number.
+     *
+     * @return    an integer represents number of slots
+     */
+    @Override
+    public int getSlotLimit()
+    {
+        return slotLimit;
+    }
+
+    /**
+     * Get year made of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents year made of car
+     */
+    @Override
+    public int getYearMade(int slot)
+    {
+        return getPage(slot).getInt(getOffset(slot) + YEAR_MADE_OFFSET);
+    }
+
+    /**
+     * Check whether a slot is in use. Any slot number may be checked.
+     *
+     * @param  slot  an integer represents slot
+     * @return    a boolean represents whether slot is in use or not
+     */
+    @Override
+    public boolean isUsed(int slot)
+    {
+        return slot >= 0 && slot < slotLimit && getPage(slot).getInt
+                (getOffset(slot) + CAR_MAKER_OFFSET) != CarSymbolTable.NO_CODE;
+    }
+
+    /**
+     * Spread the bits of a hash over the low bits used to place an entry
+     *
+     * @param  hash  an integer represents hash of registration key
+     * @return    an integer represents spread hash
+     */
+    private static int mix(int hash)
+    {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    /**
+     * Change generation of a slot, since its car is removed
+     *
+     * @param  slot  an integer represents slot
+     */
+    private void nextGeneration(int slot)
+    {
+        ByteBuffer page = getPage(slot);
+        int offset = getOffset(slot) + GENERATION_OFFSET;
+        page.putInt(offset, page.getInt(offset) + 1);
+    }
+
+    /**
+     * Put the hash table entry of a slot
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  hash  an integer represents hash of registration key
+     */
+    private void putEntry(int slot, int hash)
+    {
+        int mask = tableCapacity - 1;
+        int position = mix(hash) & mask;
+        while (table.getLong(position * 8) != 0)
+            position = (position + 1) & mask;
+        table.putLong(position * 8, (long) hash << 32 | (slot + 1L));
+    }
+
+    /**
+     * Put registration number of a car into its slot, or on the heap if it
+     * is too long for the slot
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     */
+    private void putRegistrationNumber(int slot, String registrationNumber)
+    {
+        ByteBuffer page = getPage(slot);
+        int offset = getOffset(slot) + REGISTRATION_OFFSET;
+        byte[] bytes = registrationNumber.getBytes(StandardCharsets.UTF_8);
+        longRegistrationNumbers.remove(slot);
+        if (bytes.length > MAXIMUM_REGISTRATION_LENGTH)
+        {
+            page.put(offset, (byte) LONG_REGISTRATION);
+            longRegistrationNumbers.put(slot, registrationNumber);
+        }
+        else
+        {
+            page.put(offset, (byte) bytes.length);
+            page.put(offset + 1, bytes);
+        }
+    }
+
+    /**
+     * Remove a car from its slot
+     *
+     * @param  slot  an integer represents slot of car
+     */
+    @Override
+    public void removeCar(int slot)
+    {
+        removeEntry(findEntry(slot));
+        longRegistrationNumbers.remove(slot);
+        ByteBuffer page = getPage(slot);
+        int offset = getOffset(slot);
+        page.putInt(offset + YEAR_MADE_OFFSET, REMOVED);
+        page.putInt(offset + PRICE_OFFSET, REMOVED);
+        page.putInt(offset + CAR_MAKER_OFFSET, CarSymbolTable.NO_CODE);
+        page.putInt(offset + CAR_MODEL_OFFSET, firstFreeSlot);
+        page.putLong(offset + COLOUR_OFFSET, 0);
+        page.put(offset + REGISTRATION_OFFSET, (byte) 0);
+        nextGeneration(slot);
+        firstFreeSlot = slot;
+        numberOfCar--;
+    }
+
+    /**
+     * Remove a hash table entry, shifting later entries of its run back so
+     * that no entry is left behind an empty position
+     *
+     * @param  position  an integer represents position of entry
+     */
+    private void removeEntry(int position)
+    {
+        int mask = tableCapacity - 1;
+        int empty = position;
+        int next = (position + 1) & mask;
+        long entry = table.getLong(next * 8);
+        while (entry != 0)
+        {
+            int home = mix((int) (entry >>> 32)) & mask;
+            if (((next - home) & mask) >= ((next - empty) & mask))
+            {
+                table.putLong(empty * 8, entry);
+                empty = next;
+            }
+            next = (next + 1) & mask;
+            entry = table.getLong(next * 8);
+        }
+        table.putLong(empty * 8, 0);
+    }
+
+    /**
+     * Move every hash table entry into a new hash table
+     *
+     * @param  newCapacity  an integer represents capacity of new table,
+     *                      which is a power of two
+     */
+    private void resizeTable(int newCapacity)
+    {
+        ByteBuffer oldTable = table;
+        int oldCapacity = tableCapacity;
+        table = allocate(newCapacity * 8);
+        tableCapacity = newCapacity;
+        for (int position = 0; position < oldCapacity; position++)
+        {
+            long entry = oldTable.getLong(position * 8);
+            if (entry != 0)
+                putEntry((int) entry - 1, (int) (entry >>> 32));
+        }
+    }
+
+    /**
+     * Select slots of cars whose car maker and car model match
+     *
+     * @param  carMakerCode  an integer represents code of car maker
+     * @param  carModelCode  an integer represents code of car model, or
+     *                       CarSymbolTable.NO_CODE for every model
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectCarMakerAndModel(int carMakerCode, int carModelCode)
+    {
+        long[] bitmap = CarScanKernel.newBitmap(slotLimit);
+        if (carMakerCode == CarSymbolTable.NO_CODE)
+            return bitmap;
+        parallelScan.scan(slotLimit, (fromSlot, toSlot) ->
+        {
+            for (int slot = fromSlot; slot < toSlot; slot++)
+            {
+                ByteBuffer page = getPage(slot);
+                int offset = getOffset(slot);
+                if (page.getInt(offset + CAR_MAKER_OFFSET) == carMakerCode &&
+                        (carModelCode == CarSymbolTable.NO_CODE ||
+                        page.getInt(offset + CAR_MODEL_OFFSET) ==
+                        carModelCode))
+                    bitmap[slot >>> 6] = bitmap[slot >>> 6] |
+                            1L << (slot & 63);
+            }
+        });
+        return bitmap;
+    }
+
+    /**
+     * Select slots of cars whose price is within a range
+     *
+     * @param  minimumPrice  an integer represents minimum price of car
+     * @param  maximumPrice  an integer represents maximum price of car
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectPriceRange(int minimumPrice, int maximumPrice)
+    {
+        return selectRange(PRICE_OFFSET, minimumPrice, maximumPrice);
+    }
+
+    /**
+     * Select slots whose int field is within a range. Removed slots hold
+     * the smallest int, which is never in the range.
+     *
+     * @param  fieldOffset  an integer represents byte offset of field in a
+     *                      slot
+     * @param  minimum  an integer represents minimum value
+     * @param  maximum  an integer represents maximum value
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    private long[] selectRange(int fieldOffset, int minimum, int maximum)
+    {
+        long[] bitmap = CarScanKernel.newBitmap(slotLimit);
+        long from = Math.max(minimum, REMOVED + 1);
+        parallelScan.scan(slotLimit, (fromSlot, toSlot) ->
+        {
+            int firstSlot = fromSlot;
+            while (firstSlot < toSlot)
+            {
+                ByteBuffer page = getPage(firstSlot);
+                int lastSlot = Math.min(toSlot, ((firstSlot >> PAGE_SHIFT) +
+                        1) << PAGE_SHIFT);
+                for (int slot = firstSlot; slot < lastSlot; slot++)
+                {
+                    long value = page.getInt(getOffset(slot) + fieldOffset);
+                    long match = 1 - (((value - from) | (maximum - value)) >>>
+                            63);
+                    bitmap[slot >>> 6] = bitmap[slot >>> 6] | match <<
+                            (slot & 63);
+                }
+                firstSlot = lastSlot;
+            }
+        });
+        return bitmap;
+    }
+
+    /**
+     * Select slots of every car
+     *
+     * @return    an array of long represents bitmap of slots in use,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectUsed()
+    {
+        return selectRange(PRICE_OFFSET, REMOVED + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Select slots of cars whose year made is within a range
+     *
+     * @param  fromYear  an integer represents earliest year made of car
+     * @param  toYear  an integer represents latest year made of car
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    @Override
+    public long[] selectYearRange(int fromYear, int toYear)
+    {
+        return selectRange(YEAR_MADE_OFFSET, fromYear, toYear);
+    }
+
+    /**
+     * Set codes of car maker and car model of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  carMakerCode  an integer represents code of car maker
+     * @param  carModelCode  an integer represents code of car model
+     */
+    @Override
+    public void setCarMakerAndModel(int slot, int carMakerCode,
+                                    int carModelCode)
+    {
+        ByteBuffer page = getPage(slot);
+        int offset = getOffset(slot);
+        page.putInt(offset + CAR_MAKER_OFFSET, carMakerCode);
+        page.putInt(offset + CAR_MODEL_OFFSET, carModelCode);
+    }
+
+    /**
+     * Set packed codes of colours of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  colourCodes  a long represents packed codes of colours
+     */
+    @Override
+    public void setColourCodes(int slot, long colourCodes)
+    {
+        getPage(slot).putLong(getOffset(slot) + COLOUR_OFFSET, colourCodes);
+    }
+
+    /**
+     * Set scan which splits large scans of car store into ranges scanned
+     * in parallel
+     *
+     * @param  newParallelScan  a CarParallelScan object represents parallel
+     *                          scan of car store
+     */
+    @Override
+    public void setParallelScan(CarParallelScan newParallelScan)
+    {
+        parallelScan = newParallelScan;
+    }
+
+    /**
+     * Set price of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  price  an integer represents price of car
+     */
+    @Override
+    public void setPrice(int slot, int price)
+    {
+        getPage(slot).putInt(getOffset(slot) + PRICE_OFFSET, price);
+    }
+
+    /**
+     * Set registration number of a car. The caller checks that no other
+     * car has the registration number.
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     */
+    @Override
+    public void setRegistrationNumber(int slot, String registrationNumber)
+    {
+        removeEntry(findEntry(slot));
+        putRegistrationNumber(slot, registrationNumber);
+        putEntry(slot, CarDatabase.getRegistrationKey(registrationNumber)
+                .hashCode());
+    }
+
+    /**
+     * Set year made of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  yearMade  an integer represents year made of car
+     */
+    @Override
+    public void setYearMade(int slot, int yearMade)
+    {
+        getPage(slot).putInt(getOffset(slot) + YEAR_MADE_OFFSET, yearMade);
+    }
+}
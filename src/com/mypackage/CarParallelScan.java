@@ -0,0 +1,300 @@
+package com.mypackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * The CarParallelScan class represents a car parallel scan object
+ * generator. It is used to generate a scan which splits the rows of a full
+ * scan of a car database into ranges and scans the ranges in parallel on a
+ * fork join pool. Rows are split at multiples of 64, so the ranges mark
+ * different words of a bitmap and need no locking, and the cars found in
+ * each range are merged in order of row.
+ *
+ * A scan of no more rows than the threshold, or on a pool of one thread,
+ * is run sequentially by the calling thread, so small searches do not pay
+ * for forking.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarParallelScan
+{
+    public static final int DEFAULT_THRESHOLD = 65536;
+
+    private static final CarParallelScan SHARED_SCAN = new CarParallelScan
+            (ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Constructor for objects of class CarParallelScan
+     *
+     * @param  newPool  a ForkJoinPool object represents pool to scan ranges
+     * @param  newThreshold  an integer represents largest number of rows
+     *                       scanned by a single thread, which is rounded up
+     *                       to a multiple of 64
+     * @throws    IllegalArgumentException if the threshold is not positive
+     */
+    public CarParallelScan(ForkJoinPool newPool, int newThreshold)
+    {
+        if (newThreshold <= 0)
+            throw new IllegalArgumentException("Error: threshold of a " +
+                    "parallel scan must be positive");
+        pool = newPool;
+        threshold = (int) Math.min(Integer.MAX_VALUE - 63,
+                ((long) newThreshold + 63) & ~63L);
+    }
+
+    /**
+     * Find items of a list which match a predicate, keeping their order.
+     * The rows are split into ranges of the threshold, the items found in
+     * each range are kept apart, and they are joined once every range is
+     * checked, so no item is copied more than once.
+     *
+     * @param  items  a list of T represents items to be checked
+     * @param  predicate  a predicate of T represents criteria of items
+     * @return    an array list of T represents items which match
+     */
+    public <T> ArrayList<T> filter(List<T> items, Predicate<T> predicate)
+    {
+        if (!isParallel(items.size()))
+            return filterRows(items, predicate, 0, items.size());
+        int numberOfRange = (int) (((long) items.size() + threshold - 1) /
+                threshold);
+        List<ArrayList<T>> itemsOfRanges = new ArrayList<>
+                (Collections.nCopies(numberOfRange, null));
+        pool.invoke(new FilterTask<>(items, predicate, itemsOfRanges, 0,
+                numberOfRange));
+        int numberOfItemFound = 0;
+        for (ArrayList<T> thisItemsFound: itemsOfRanges)
+            numberOfItemFound = numberOfItemFound + thisItemsFound.size();
+        ArrayList<T> itemsFound = new ArrayList<>(numberOfItemFound);
+        for (ArrayList<T> thisItemsFound: itemsOfRanges)
+            itemsFound.addAll(thisItemsFound);
+        return itemsFound;
+    }
+
+    /**
+     * Find items within a range of rows of a list which match a predicate
+     *
+     * @param  items  a list of T represents items to be checked
+     * @param  predicate  a predicate of T represents criteria of items
+     * @param  fromRow  an integer represents first row to be checked
+     * @param  toRow  an integer represents row after the last to be checked
+     * @return    an array list of T represents items which match
+     */
+    private static <T> ArrayList<T> filterRows(List<T> items,
+                                               Predicate<T> predicate,
+                                               int fromRow, int toRow)
+    {
+        ArrayList<T> itemsFound = new ArrayList<>();
+        for (int row = fromRow; row < toRow; row++)
+        {
+            T thisItem = items.get(row);
+            if (predicate.test(thisItem))
+                itemsFound.add(thisItem);
+        }
+        return itemsFound;
+    }
+
+    /**
+     * Get pool which scans ranges
+     *
+     * @return    a ForkJoinPool object represents pool of scan
+     */
+    public ForkJoinPool getPool()
+    {
+        return pool;
+    }
+
+    /**
+     * Get the scan shared by default, which runs on the common fork join
+     * pool with the default threshold
+     *
+     * @return    a CarParallelScan object represents shared scan
+     */
+    public static CarParallelScan getSharedScan()
+    {
+        return SHARED_SCAN;
+    }
+
+    /**
+     * Get largest number of rows scanned by a single thread
+     *
+     * @return    an integer represents threshold of scan
+     */
+    public int getThreshold()
+    {
+        return threshold;
+    }
+
+    /**
+     * Check whether a number of rows is worth scanning in parallel
+     *
+     * @param  numberOfRow  an integer represents number of rows
+     * @return    a boolean represents whether rows are scanned in parallel
+     *            or not
+     */
+    public boolean isParallel(int numberOfRow)
+    {
+        return numberOfRow > threshold && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Scan rows of a car store, splitting them into ranges of whole words
+     * of a bitmap
+     *
+     * @param  numberOfRow  an integer represents number of rows to be
+     *                      scanned from the first row
+     * @param  scanner  a RowScanner object represents scanner of a range
+     */
+    public void scan(int numberOfRow, RowScanner scanner)
+    {
+        if (isParallel(numberOfRow))
+            pool.invoke(new ScanTask(scanner, 0, numberOfRow));
+        else
+            scanner.scanRows(0, numberOfRow);
+    }
+
+    /**
+     * Get the row which splits a range of rows into halves, rounded up to
+     * a multiple of 64
+     *
+     * @param  fromRow  an integer represents first row of range
+     * @param  toRow  an integer represents row after the last of range
+     * @return    an integer represents first row of the second half
+     */
+    private static int split(int fromRow, int toRow)
+    {
+        return (fromRow + ((toRow - fromRow) >>> 1) + 63) & ~63;
+    }
+
+    /**
+     * The FilterTask class represents a task which finds the items of a
+     * run of ranges of rows which match a predicate, keeping the items
+     * found in each range apart
+     */
+    private class FilterTask<T> extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> items;
+        private final Predicate<T> predicate;
+        private final List<ArrayList<T>> itemsOfRanges;
+        private final int fromRange;
+        private final int toRange;
+
+        /**
+         * Constructor for objects of class FilterTask
+         *
+         * @param  newItems  a list of T represents items to be checked
+         * @param  newPredicate  a predicate of T represents criteria of
+         *                       items
+         * @param  newItemsOfRanges  a list of array list of T represents
+         *                           items found in each range
+         * @param  newFromRange  an integer represents first range of task
+         * @param  newToRange  an integer represents range after the last
+         *                     of task
+         */
+        FilterTask(List<T> newItems, Predicate<T> newPredicate,
+                   List<ArrayList<T>> newItemsOfRanges, int newFromRange,
+                   int newToRange)
+        {
+            items = newItems;
+            predicate = newPredicate;
+            itemsOfRanges = newItemsOfRanges;
+            fromRange = newFromRange;
+            toRange = newToRange;
+        }
+
+        /**
+         * Find the items which match, splitting the run of ranges until
+         * each task checks a single range
+         */
+        @Override
+        protected void compute()
+        {
+            if (toRange - fromRange == 1)
+            {
+                int fromRow = fromRange * threshold;
+                int toRow = (int) Math.min(items.size(), (long) fromRow +
+                        threshold);
+                itemsOfRanges.set(fromRange, filterRows(items, predicate,
+                        fromRow, toRow));
+                return;
+            }
+            int middleRange = fromRange + ((toRange - fromRange) >>> 1);
+            invokeAll(new FilterTask<>(items, predicate, itemsOfRanges,
+                    fromRange, middleRange), new FilterTask<>(items,
+                    predicate, itemsOfRanges, middleRange, toRange));
+        }
+    }
+
+    /**
+     * The RowScanner interface represents a scanner of a range of rows,
+     * which marks the rows found in the words of a bitmap of the range
+     */
+    public interface RowScanner
+    {
+        /**
+         * Scan a range of rows
+         *
+         * @param  fromRow  an integer represents first row to be scanned,
+         *                  which is a multiple of 64
+         * @param  toRow  an integer represents row after the last to be
+         *                scanned
+         */
+        void scanRows(int fromRow, int toRow);
+    }
+
+    /**
+     * The ScanTask class represents a task which scans a range of rows
+     */
+    private class ScanTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final RowScanner scanner;
+        private final int fromRow;
+        private final int toRow;
+
+        /**
+         * Constructor for objects of class ScanTask
+         *
+         * @param  newScanner  a RowScanner object represents scanner of a
+         *                     range
+         * @param  newFromRow  an integer represents first row of task
+         * @param  newToRow  an integer represents row after the last of
+         *                   task
+         */
+        ScanTask(RowScanner newScanner, int newFromRow, int newToRow)
+        {
+            scanner = newScanner;
+            fromRow = newFromRow;
+            toRow = newToRow;
+        }
+
+        /**
+         * Scan the range, splitting it while it is larger than the
+         * threshold
+         */
+        @Override
+        protected void compute()
+        {
+            if (toRow - fromRow <= threshold)
+            {
+                scanner.scanRows(fromRow, toRow);
+                return;
+            }
+            int middleRow = split(fromRow, toRow);
+            invokeAll(new ScanTask(scanner, fromRow, middleRow),
+                    new ScanTask(scanner, middleRow, toRow));
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.mypackage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * The CarQuery class represents a car query object generator. It is used to
+ * generate a query which combines any of car maker, car model, price range,
+ * age range and colour criteria to search cars in a car database. A
+ * criterion which is not set matches every car. The colour criterion may
+ * list several colours, of which a car must have any. Car maker, car model and
+ * colour criteria are looked up once in the shared CarSymbolTable, so
+ * checking a car compares codes instead of names. A query may also order
+ * cars by price or by year made, so that the first cars in order can be
+ * found without sorting every car which matches. Cars of the same price or
+ * year made are ordered by registration number, so an ordered query may
+ * resume after the last car of a page, given by its price or year made and
+ * its registration number, without reading the cars before it.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarQuery
+{
+    public static final String ORDER_BY_PRICE = "Price";
+    public static final String ORDER_BY_YEAR_MADE = "Year Made";
+
+    private String carMaker;
+    private int carMakerCode;
+    private String carModel;
+    private int carModelCode;
+    private boolean hasPriceRange;
+    private int minimumPrice;
+    private int maximumPrice;
+    private boolean hasAgeRange;
+    private int minimumAge;
+    private int maximumAge;
+    private String[] colours;
+    private int[] colourCodes;
+    private String orderBy;
+    private boolean isAscending;
+    private boolean hasResumeKey;
+    private int resumeOrderKey;
+    private String resumeRegistrationKey;
+
+    /**
+     * Constructor for objects of class CarQuery
+     */
+    public CarQuery()
+    {
+        carMaker = null;
+        carMakerCode = CarSymbolTable.NO_CODE;
+        carModel = null;
+        carModelCode = CarSymbolTable.NO_CODE;
+        hasPriceRange = false;
+        minimumPrice = 0;
+        maximumPrice = 0;
+        hasAgeRange = false;
+        minimumAge = 0;
+        maximumAge = 0;
+        colours = null;
+        colourCodes = null;
+        orderBy = null;
+        isAscending = true;
+        hasResumeKey = false;
+        resumeOrderKey = 0;
+        resumeRegistrationKey = null;
+    }
+
+    /**
+     * Compare a car with the resume key in order of car query
+     *
+     * @param  car  a Car object represents car to be compared
+     * @return    an integer represents whether car is before, equal to or
+     *            after the resume key, as a negative number, zero or a
+     *            positive number
+     */
+    private int compareWithResumeKey(Car car)
+    {
+        int comparison = Integer.compare(getOrderKey(car), resumeOrderKey);
+        if (comparison == 0)
+            comparison = CarDatabase.getRegistrationKey(car
+                    .getRegistrationNumber()).compareTo(resumeRegistrationKey);
+        if (isAscending)
+            return comparison;
+        return -comparison;
+    }
+
+    /**
+     * Get car maker criterion
+     *
+     * @return    a string represents car maker, or null if not set
+     */
+    public String getCarMaker()
+    {
+        return carMaker;
+    }
+
+    /**
+     * Get car model criterion
+     *
+     * @return    a string represents car model, or null if not set
+     */
+    public String getCarModel()
+    {
+        return carModel;
+    }
+
+    /**
+     * Get colour criterion
+     *
+     * @return    a string represents colours separated by commas, or null if
+     *            not set
+     */
+    public String getColour()
+    {
+        if (colours == null)
+            return null;
+        return String.join(",", colours);
+    }
+
+    /**
+     * Get codes of colours of colour criterion in the shared car symbol
+     * table. A colour which is not in the table has no code.
+     *
+     * @return    an array of integer represents codes of colours, or
+     *            CarSymbolTable.NO_CODE for a colour which no car has
+     */
+    int[] getColourCodes()
+    {
+        if (colourCodes == null)
+        {
+            CarSymbolTable symbols = CarSymbolTable.getSharedTable();
+            int[] newColourCodes = new int[colours.length];
+            for (int index = 0; index < colours.length; index++)
+                newColourCodes[index] = symbols.findCode(colours[index]);
+            colourCodes = newColourCodes;
+        }
+        return colourCodes;
+    }
+
+    /**
+     * Get colours of colour criterion
+     *
+     * @return    an array of string represents colours, or null if not set
+     */
+    public String[] getColours()
+    {
+        if (colours == null)
+            return null;
+        return colours.clone();
+    }
+
+    /**
+     * Get comparator of cars in order of car query, where cars of the same
+     * price or year made are in order of registration number
+     *
+     * @return    a Comparator of Car represents order of cars
+     */
+    Comparator<Car> getComparator()
+    {
+        Comparator<Car> comparator = Comparator.comparingInt(this::getOrderKey)
+                .thenComparing(thisCar -> CarDatabase.getRegistrationKey
+                (thisCar.getRegistrationNumber()));
+        if (isAscending)
+            return comparator;
+        return comparator.reversed();
+    }
+
+    /**
+     * Get maximum age of age range criterion
+     *
+     * @return    an integer represents maximum age of car
+     */
+    public int getMaximumAge()
+    {
+        return maximumAge;
+    }
+
+    /**
+     * Get maximum price of price range criterion
+     *
+     * @return    an integer represents maximum price of car
+     */
+    public int getMaximumPrice()
+    {
+        return maximumPrice;
+    }
+
+    /**
+     * Get minimum age of age range criterion
+     *
+     * @return    an integer represents minimum age of car
+     */
+    public int getMinimumAge()
+    {
+        return minimumAge;
+    }
+
+    /**
+     * Get minimum price of price range criterion
+     *
+     * @return    an integer represents minimum price of car
+     */
+    public int getMinimumPrice()
+    {
+        return minimumPrice;
+    }
+
+    /**
+     * Get attribute which cars are ordered by
+     *
+     * @return    a string represents ORDER_BY_PRICE or ORDER_BY_YEAR_MADE,
+     *            or null if not set
+     */
+    public String getOrderBy()
+    {
+        return orderBy;
+    }
+
+    /**
+     * Get the price or year made of a car, whichever car query is ordered
+     * by
+     *
+     * @param  car  a Car object represents car
+     * @return    an integer represents price or year made of car
+     */
+    int getOrderKey(Car car)
+    {
+        if (orderBy.equals(ORDER_BY_PRICE))
+            return car.getPrice();
+        return car.getYearMade();
+    }
+
+    /**
+     * Get price or year made of resume key
+     *
+     * @return    an integer represents price or year made of the last car
+     *            before the cars to be found
+     */
+    public int getResumeOrderKey()
+    {
+        return resumeOrderKey;
+    }
+
+    /**
+     * Get registration number of resume key
+     *
+     * @return    a string represents registration number of the last car
+     *            before the cars to be found in upper case, as it is
+     *            compared, or null if not set
+     */
+    public String getResumeRegistrationNumber()
+    {
+        return resumeRegistrationKey;
+    }
+
+    /**
+     * Check whether age range criterion is set
+     *
+     * @return    a boolean represents whether age range is set or not
+     */
+    public boolean hasAgeRange()
+    {
+        return hasAgeRange;
+    }
+
+    /**
+     * Check whether car maker criterion is set
+     *
+     * @return    a boolean represents whether car maker is set or not
+     */
+    public boolean hasCarMaker()
+    {
+        return carMaker != null;
+    }
+
+    /**
+     * Check whether car model criterion is set. The "ANY" model matches
+     * every model of the car maker, so it is treated as not set.
+     *
+     * @return    a boolean represents whether car model is set or not
+     */
+    public boolean hasCarModel()
+    {
+        return carModel != null && !carModel.equalsIgnoreCase("ANY");
+    }
+
+    /**
+     * Check whether colour criterion is set
+     *
+     * @return    a boolean represents whether colour is set or not
+     */
+    public boolean hasColour()
+    {
+        return colours != null;
+    }
+
+    /**
+     * Check whether order of cars is set
+     *
+     * @return    a boolean represents whether order is set or not
+     */
+    public boolean hasOrder()
+    {
+        return orderBy != null;
+    }
+
+    /**
+     * Check whether price range criterion is set
+     *
+     * @return    a boolean represents whether price range is set or not
+     */
+    public boolean hasPriceRange()
+    {
+        return hasPriceRange;
+    }
+
+    /**
+     * Check whether resume key is set
+     *
+     * @return    a boolean represents whether resume key is set or not
+     */
+    public boolean hasResumeKey()
+    {
+        return hasResumeKey;
+    }
+
+    /**
+     * Check whether cars are ordered from the smallest price or year made
+     *
+     * @return    a boolean represents whether order is ascending or not
+     */
+    public boolean isAscending()
+    {
+        return isAscending;
+    }
+
+    /**
+     * Check whether a car matches every criterion of car query. With an
+     * order and a resume key, only a car after the resume key matches.
+     *
+     * @param  car  a Car object represents car to be checked
+     * @param  currentYear  an integer represents current year to measure
+     *                      age of car
+     * @return    a boolean represents whether car matches or not
+     */
+    public boolean matches(Car car, int currentYear)
+    {
+        CarSymbolTable symbols = CarSymbolTable.getSharedTable();
+        if (hasCarMaker())
+        {
+            if (carMakerCode == CarSymbolTable.NO_CODE)
+                carMakerCode = symbols.findCode(carMaker);
+            if (car.getCarMakerCode() != carMakerCode)
+                return false;
+        }
+        if (hasCarModel())
+        {
+            if (carModelCode == CarSymbolTable.NO_CODE)
+                carModelCode = symbols.findCode(carModel);
+            if (car.getCarModelCode() != carModelCode)
+                return false;
+        }
+        if (hasPriceRange && (car.getPrice() < minimumPrice ||
+                car.getPrice() > maximumPrice))
+            return false;
+        if (hasAgeRange)
+        {
+            long age = (long) currentYear - car.getYearMade();
+            if (age < minimumAge || age > maximumAge)
+                return false;
+        }
+        if (hasResumeKey && hasOrder() && compareWithResumeKey(car) <= 0)
+            return false;
+        if (hasColour())
+        {
+            for (int thisColourCode: getColourCodes())
+                if (thisColourCode != CarSymbolTable.NO_CODE &&
+                        car.hasColourCode(thisColourCode))
+                    return true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Set age range criterion
+     *
+     * @param  newMinimumAge  an integer represents minimum age of car
+     * @param  newMaximumAge  an integer represents maximum age of car
+     */
+    public void setAgeRange(int newMinimumAge, int newMaximumAge)
+    {
+        if (newMinimumAge > newMaximumAge)
+            System.out.println("Error: minimum age must not be greater " +
+                    "than maximum age");
+        else
+        {
+            hasAgeRange = true;
+            minimumAge = newMinimumAge;
+            maximumAge = newMaximumAge;
+        }
+    }
+
+    /**
+     * Set car maker criterion
+     *
+     * @param  aCarMaker  a string represents car maker, or null for any
+     *                    car maker
+     */
+    public void setCarMaker(String aCarMaker)
+    {
+        if (aCarMaker == null || aCarMaker.trim().length() == 0)
+            carMaker = null;
+        else
+            carMaker = aCarMaker.trim();
+        carMakerCode = CarSymbolTable.NO_CODE;
+    }
+
+    /**
+     * Set car model criterion
+     *
+     * @param  aCarModel  a string represents car model, or null for any
+     *                    car model
+     */
+    public void setCarModel(String aCarModel)
+    {
+        if (aCarModel == null || aCarModel.trim().length() == 0)
+            carModel = null;
+        else
+            carModel = aCarModel.trim();
+        carModelCode = CarSymbolTable.NO_CODE;
+    }
+
+    /**
+     * Set colour criterion
+     *
+     * @param  aColour  a string represents colour, or colours separated by
+     *                  commas of which a car must have any, or null for any
+     *                  colour
+     */
+    public void setColour(String aColour)
+    {
+        if (aColour == null)
+            setColours(null);
+        else
+            setColours(aColour.split(","));
+    }
+
+    /**
+     * Set colour criterion to several colours, of which a car must have any
+     *
+     * @param  newColours  an array of string represents colours, or null for
+     *                     any colour
+     */
+    public void setColours(String[] newColours)
+    {
+        colours = null;
+        colourCodes = null;
+        if (newColours == null)
+            return;
+        ArrayList<String> coloursFound = new ArrayList<>();
+        for (String thisColour: newColours)
+            if (thisColour != null && thisColour.trim().length() > 0)
+                coloursFound.add(thisColour.trim());
+        if (!coloursFound.isEmpty())
+            colours = coloursFound.toArray(new String[0]);
+    }
+
+    /**
+     * Set order of cars, such as from the cheapest or from the newest
+     *
+     * @param  newOrderBy  a string represents ORDER_BY_PRICE or
+     *                     ORDER_BY_YEAR_MADE, or null for no order
+     * @param  newIsAscending  a boolean represents whether cars are ordered
+     *                         from the smallest price or year made or not
+     */
+    public void setOrder(String newOrderBy, boolean newIsAscending)
+    {
+        if (newOrderBy == null)
+            orderBy = null;
+        else if (newOrderBy.equalsIgnoreCase(ORDER_BY_PRICE))
+            orderBy = ORDER_BY_PRICE;
+        else if (newOrderBy.equalsIgnoreCase(ORDER_BY_YEAR_MADE))
+            orderBy = ORDER_BY_YEAR_MADE;
+        else
+        {
+            System.out.println("Error: cars can only be ordered by " +
+                    ORDER_BY_PRICE + " or " + ORDER_BY_YEAR_MADE);
+            return;
+        }
+        isAscending = newIsAscending;
+    }
+
+    /**
+     * Set price range criterion
+     *
+     * @param  newMinimumPrice  an integer represents minimum price of car
+     * @param  newMaximumPrice  an integer represents maximum price of car
+     */
+    public void setPriceRange(int newMinimumPrice, int newMaximumPrice)
+    {
+        if (newMinimumPrice > newMaximumPrice)
+            System.out.println("Error: minimum price must not be greater " +
+                    "than maximum price");
+        else
+        {
+            hasPriceRange = true;
+            minimumPrice = newMinimumPrice;
+            maximumPrice = newMaximumPrice;
+        }
+    }
+
+    /**
+     * Set resume key, so that an ordered car query finds only the cars
+     * after the last car of a page
+     *
+     * @param  newResumeOrderKey  an integer represents price or year made of
+     *                            the last car, whichever car query is
+     *                            ordered by
+     * @param  newResumeRegistrationNumber  a string represents registration
+     *                                      number of the last car, or null
+     *                                      for no resume key
+     */
+    public void setResumeKey(int newResumeOrderKey,
+                             String newResumeRegistrationNumber)
+    {
+        hasResumeKey = newResumeRegistrationNumber != null;
+        resumeOrderKey = newResumeOrderKey;
+        if (hasResumeKey)
+            resumeRegistrationKey = CarDatabase.getRegistrationKey
+                    (newResumeRegistrationNumber.trim());
+        else
+            resumeRegistrationKey = null;
+    }
+}
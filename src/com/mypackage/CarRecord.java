@@ -0,0 +1,104 @@
+package com.mypackage;
+
+/**
+ * The CarRecord class represents a car record object generator. It is used
+ * to generate an immutable copy of the attributes of a car, as kept in a
+ * CarSnapshot. A car record can be read, displayed, written and searched
+ * like any other car, but its setters refuse every change, and it is never
+ * owned by a car database.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public final class CarRecord extends Car
+{
+    /**
+     * Constructor for objects of class CarRecord
+     *
+     * @param  car  a Car object represents car to be copied
+     */
+    public CarRecord(Car car)
+    {
+        copyAttributes(car);
+    }
+
+    /**
+     * Refuse to be owned by a car database, since a car record cannot be
+     * changed
+     *
+     * @param  newCarDatabase  a CarDatabase object represents owning car
+     *                         database, which is ignored
+     */
+    @Override
+    void setCarDatabase(CarDatabase newCarDatabase)
+    {
+    }
+
+    /**
+     * Refuse to set car maker, since a car record cannot be changed
+     *
+     * @param  aCarMaker  a string represents car maker
+     */
+    @Override
+    public void setCarMaker(String aCarMaker)
+    {
+        System.out.println("Error: car record cannot be changed");
+    }
+
+    /**
+     * Refuse to set car model, since a car record cannot be changed
+     *
+     * @param  aCarModel  a string represents car model
+     */
+    @Override
+    public void setCarModel(String aCarModel)
+    {
+        System.out.println("Error: car record cannot be changed");
+    }
+
+    /**
+     * Refuse to set colours, since a car record cannot be changed
+     *
+     * @param  newColours  an array of string represents colours of car
+     */
+    @Override
+    public void setColours(String[] newColours)
+    {
+        System.out.println("Error: car record cannot be changed");
+    }
+
+    /**
+     * Refuse to set price, since a car record cannot be changed
+     *
+     * @param  newPrice  an integer represents price of car
+     */
+    @Override
+    public void setPrice(int newPrice)
+    {
+        System.out.println("Error: car record cannot be changed");
+    }
+
+    /**
+     * Refuse to set registration number, since a car record cannot be
+     * changed
+     *
+     * @param  aRegistrationNumber  a string represents registration
+     *                              number of car
+     */
+    @Override
+    public void setRegistrationNumber(String aRegistrationNumber)
+    {
+        System.out.println("Error: car record cannot be changed");
+    }
+
+    /**
+     * Refuse to set year made, since a car record cannot be changed
+     *
+     * @param  newYearMade  an integer represents year made of car
+     */
+    @Override
+    public void setYearMade(int newYearMade)
+    {
+        System.out.println("Error: car record cannot be changed");
+    }
+}
@@ -0,0 +1,206 @@
+package com.mypackage;
+
+/**
+ * The CarRow class represents a car row object generator. It is used to
+ * generate a lightweight view of a car kept in a slot of a car store. The
+ * attributes are read from the car store whenever they are asked for, and
+ * edits go through the owning car database into the car store, so a car
+ * row never holds a copy of them while its car is stored.
+ *
+ * When the car is deleted through a car row, its attributes are copied
+ * into the car row first, so it can still be displayed afterwards. A car
+ * row keeps the generation of its slot when it is made, so any other car
+ * row of a deleted car knows its car is gone even if the slot holds a
+ * later car: it is no longer owned by the car database, so it cannot be
+ * edited or deleted, and reading it throws.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarRow extends Car
+{
+    private CarStore carStore;
+    private int slot;
+    private int generation;
+
+    /**
+     * Constructor for objects of class CarRow of the car which is in a
+     * slot now
+     *
+     * @param  newCarDatabase  a CarDatabase object represents owning car
+     *                         database, or null if the car store is a copy
+     * @param  newCarStore  a CarStore object represents car store of car
+     * @param  newSlot  an integer represents slot of car in car store
+     */
+    CarRow(CarDatabase newCarDatabase, CarStore newCarStore, int newSlot)
+    {
+        this(newCarDatabase, newCarStore, newSlot, newCarStore.getGeneration
+                (newSlot));
+    }
+
+    /**
+     * Constructor for objects of class CarRow of the car which was in a
+     * slot when the slot had a generation
+     *
+     * @param  newCarDatabase  a CarDatabase object represents owning car
+     *                         database, or null if the car store is a copy
+     * @param  newCarStore  a CarStore object represents car store of car
+     * @param  newSlot  an integer represents slot of car in car store
+     * @param  newGeneration  an integer represents generation of slot
+     */
+    CarRow(CarDatabase newCarDatabase, CarStore newCarStore, int newSlot,
+           int newGeneration)
+    {
+        carStore = newCarStore;
+        slot = newSlot;
+        generation = newGeneration;
+        setCarDatabase(newCarDatabase);
+    }
+
+    /**
+     * Copy the attributes of car from the car store into this car row and
+     * stop reading the car store, since the car is about to be removed
+     */
+    void detach()
+    {
+        if (carStore != null)
+        {
+            copyAttributes(this);
+            carStore = null;
+            setCarDatabase(null);
+        }
+    }
+
+    /**
+     * Get owning car database of car, which is null once the car is
+     * deleted through this or another car row
+     *
+     * @return    a CarDatabase object represents owning car database, or
+     *            null if there is none
+     */
+    @Override
+    CarDatabase getCarDatabase()
+    {
+        if (carStore != null && carStore.getGeneration(slot) != generation)
+            return null;
+        return super.getCarDatabase();
+    }
+
+    /**
+     * Get code of car maker in the shared car symbol table
+     *
+     * @return    an integer represents code of car maker
+     */
+    @Override
+    int getCarMakerCode()
+    {
+        if (!isInStore())
+            return super.getCarMakerCode();
+        return carStore.getCarMakerCode(slot);
+    }
+
+    /**
+     * Get code of car model in the shared car symbol table
+     *
+     * @return    an integer represents code of car model
+     */
+    @Override
+    int getCarModelCode()
+    {
+        if (!isInStore())
+            return super.getCarModelCode();
+        return carStore.getCarModelCode(slot);
+    }
+
+    /**
+     * Get car store of car
+     *
+     * @return    a CarStore object represents car store of car, or null if
+     *            the car is detached
+     */
+    CarStore getCarStore()
+    {
+        return carStore;
+    }
+
+    /**
+     * Get codes of colours in the shared car symbol table, packed into a
+     * long
+     *
+     * @return    a long represents packed codes of colours
+     */
+    @Override
+    long getColourCodes()
+    {
+        if (!isInStore())
+            return super.getColourCodes();
+        return carStore.getColourCodes(slot);
+    }
+
+    /**
+     * Get price of car
+     *
+     * @return    an integer represents price of car
+     */
+    @Override
+    public int getPrice()
+    {
+        if (!isInStore())
+            return super.getPrice();
+        return carStore.getPrice(slot);
+    }
+
+    /**
+     * Get registration number of car
+     *
+     * @return    a string represents registration number of car
+     */
+    @Override
+    public String getRegistrationNumber()
+    {
+        if (!isInStore())
+            return super.getRegistrationNumber();
+        return carStore.getRegistrationNumber(slot);
+    }
+
+    /**
+     * Get slot of car in car store
+     *
+     * @return    an integer represents slot of car
+     */
+    int getSlot()
+    {
+        return slot;
+    }
+
+    /**
+     * Get year made of car
+     *
+     * @return    an integer represents year made of car
+     */
+    @Override
+    public int getYearMade()
+    {
+        if (!isInStore())
+            return super.getYearMade();
+        return carStore.getYearMade(slot);
+    }
+
+    /**
+     * Check whether the car of car row is still in its slot
+     *
+     * @return    a boolean represents whether the car is read from the car
+     *            store or not, which is false if the car row is detached
+     * @throws    IllegalStateException if the car is deleted through
+     *                                  another car row
+     */
+    private boolean isInStore()
+    {
+        if (carStore == null)
+            return false;
+        if (carStore.getGeneration(slot) != generation)
+            throw new IllegalStateException("Error: this car is no longer " +
+                    "in the car database");
+        return true;
+    }
+}
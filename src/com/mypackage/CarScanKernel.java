@@ -0,0 +1,203 @@
+package com.mypackage;
+
+/**
+ * The CarScanKernel class represents a car scan kernel object generator. It
+ * is used to generate a kernel which scans a column of ints of a car store
+ * and marks the rows which match a predicate in a bitmap. Bit i of word
+ * i / 64 of a bitmap stands for row i, so bitmaps of several criteria over
+ * the same rows are combined by ANDing their words.
+ *
+ * This kernel checks one row at a time, without branching on the value of
+ * the row, so rows are checked at the same speed however they are mixed.
+ * When CarVectorScanKernel has been compiled from the vector source root
+ * and the program is run with --add-modules jdk.incubator.vector, the
+ * shared kernel is a CarVectorScanKernel instead, which checks a whole
+ * vector of rows at once.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarScanKernel
+{
+    public static final String VECTOR_MODULE = "jdk.incubator.vector";
+    public static final String VECTOR_KERNEL =
+            "com.mypackage.CarVectorScanKernel";
+
+    private static final CarScanKernel SHARED_KERNEL = createKernel();
+
+    /**
+     * Constructor for objects of class CarScanKernel
+     */
+    public CarScanKernel()
+    {
+    }
+
+    /**
+     * AND a bitmap into another bitmap of the same rows
+     *
+     * @param  bitmap  an array of long represents bitmap to be changed
+     * @param  otherBitmap  an array of long represents bitmap to be ANDed
+     */
+    public static void and(long[] bitmap, long[] otherBitmap)
+    {
+        for (int index = 0; index < bitmap.length; index++)
+            bitmap[index] = bitmap[index] & otherBitmap[index];
+    }
+
+    /**
+     * Count rows marked in a bitmap
+     *
+     * @param  bitmap  an array of long represents bitmap of rows
+     * @return    an integer represents number of rows marked
+     */
+    public static int countRows(long[] bitmap)
+    {
+        int numberOfRow = 0;
+        for (long thisWord: bitmap)
+            numberOfRow = numberOfRow + Long.bitCount(thisWord);
+        return numberOfRow;
+    }
+
+    /**
+     * Create the kernel to be shared, which is a vector kernel if the
+     * vector module is present and the vector kernel can be loaded
+     *
+     * @return    a CarScanKernel object represents kernel to be shared
+     */
+    private static CarScanKernel createKernel()
+    {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent())
+        {
+            try
+            {
+                return (CarScanKernel) Class.forName(VECTOR_KERNEL)
+                        .getDeclaredConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException | LinkageError exception)
+            {
+                // fall back to checking one row at a time
+            }
+        }
+        return new CarScanKernel();
+    }
+
+    /**
+     * Get the kernel shared by every car store
+     *
+     * @return    a CarScanKernel object represents shared kernel
+     */
+    public static CarScanKernel getSharedKernel()
+    {
+        return SHARED_KERNEL;
+    }
+
+    /**
+     * Check whether kernel checks a whole vector of rows at once
+     *
+     * @return    a boolean represents whether kernel is vectorized or not
+     */
+    public boolean isVectorized()
+    {
+        return false;
+    }
+
+    /**
+     * Create an empty bitmap of a number of rows
+     *
+     * @param  numberOfRow  an integer represents number of rows
+     * @return    an array of long represents bitmap with no row marked
+     */
+    public static long[] newBitmap(int numberOfRow)
+    {
+        return new long[(numberOfRow + 63) >>> 6];
+    }
+
+    /**
+     * Mark rows of a column which equal a value in a bitmap
+     *
+     * @param  column  an array of integer represents column to be scanned
+     * @param  fromRow  an integer represents first row to be scanned,
+     *                  which is a multiple of 64
+     * @param  toRow  an integer represents row after the last to be
+     *                scanned
+     * @param  value  an integer represents value to be matched
+     * @param  bitmap  an array of long represents bitmap of rows, whose
+     *                 marks of the words of the rows scanned are replaced
+     */
+    public void selectEqual(int[] column, int fromRow, int toRow, int value,
+                            long[] bitmap)
+    {
+        int lastWord = (toRow + 63) >>> 6;
+        for (int wordIndex = fromRow >>> 6; wordIndex < lastWord; wordIndex++)
+        {
+            int firstRow = wordIndex << 6;
+            int lastRow = Math.min(toRow, firstRow + 64);
+            long word = 0;
+            for (int row = firstRow; row < lastRow; row++)
+            {
+                long difference = column[row] ^ value;
+                long match = ((difference | -difference) >>> 63) ^ 1;
+                word = word | match << (row - firstRow);
+            }
+            bitmap[wordIndex] = word;
+        }
+    }
+
+    /**
+     * Mark rows of a column within a range in a bitmap
+     *
+     * @param  column  an array of integer represents column to be scanned
+     * @param  fromRow  an integer represents first row to be scanned,
+     *                  which is a multiple of 64
+     * @param  toRow  an integer represents row after the last to be
+     *                scanned
+     * @param  minimum  an integer represents minimum value
+     * @param  maximum  an integer represents maximum value
+     * @param  bitmap  an array of long represents bitmap of rows, whose
+     *                 marks of the words of the rows scanned are replaced
+     */
+    public void selectRange(int[] column, int fromRow, int toRow,
+                            int minimum, int maximum, long[] bitmap)
+    {
+        int lastWord = (toRow + 63) >>> 6;
+        for (int wordIndex = fromRow >>> 6; wordIndex < lastWord; wordIndex++)
+        {
+            int firstRow = wordIndex << 6;
+            int lastRow = Math.min(toRow, firstRow + 64);
+            long word = 0;
+            for (int row = firstRow; row < lastRow; row++)
+            {
+                long value = column[row];
+                long match = 1 - (((value - minimum) | (maximum - value))
+                        >>> 63);
+                word = word | match << (row - firstRow);
+            }
+            bitmap[wordIndex] = word;
+        }
+    }
+
+    /**
+     * Get rows marked in a bitmap as a selection vector
+     *
+     * @param  bitmap  an array of long represents bitmap of rows
+     * @return    an array of integer represents rows marked in ascending
+     *            order
+     */
+    public static int[] toSelection(long[] bitmap)
+    {
+        int[] selection = new int[countRows(bitmap)];
+        int numberOfRow = 0;
+        for (int wordIndex = 0; wordIndex < bitmap.length; wordIndex++)
+        {
+            long word = bitmap[wordIndex];
+            while (word != 0)
+            {
+                selection[numberOfRow] = (wordIndex << 6) +
+                        Long.numberOfTrailingZeros(word);
+                numberOfRow++;
+                word = word & (word - 1);
+            }
+        }
+        return selection;
+    }
+}
@@ -0,0 +1,281 @@
+package com.mypackage;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The CarSnapshot class represents a car snapshot object generator. It is
+ * used to generate an immutable version of every car in a car database at
+ * one moment, kept as CarRecord objects. A snapshot never changes, so long
+ * queries and reports can read it without locking while the car database
+ * goes on changing, and every car read belongs to the same version.
+ *
+ * The car records are kept in chunks of a fixed size. A later version is
+ * made by a Builder, which copies only the chunks of the cars changed and
+ * shares every other chunk with the version before it, so a change of one
+ * car costs the same however many cars there are.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarSnapshot
+{
+    private static final int CHUNK_SIZE = 1024;
+
+    private final long version;
+    private final Car[][] chunks;
+    private final int numberOfCar;
+    private final List<Car> cars;
+
+    /**
+     * Constructor for objects of class CarSnapshot, which copies cars into
+     * car records
+     *
+     * @param  newVersion  a long represents version of cars in car database
+     * @param  newCars  a list of Car represents cars to be copied
+     */
+    CarSnapshot(long newVersion, List<Car> newCars)
+    {
+        Car[][] newChunks = new Car[(newCars.size() + CHUNK_SIZE - 1) /
+                CHUNK_SIZE][];
+        int position = 0;
+        for (Car thisCar: newCars)
+        {
+            if (position % CHUNK_SIZE == 0)
+                newChunks[position / CHUNK_SIZE] = new Car[CHUNK_SIZE];
+            newChunks[position / CHUNK_SIZE][position % CHUNK_SIZE] =
+                    new CarRecord(thisCar);
+            position++;
+        }
+        version = newVersion;
+        chunks = newChunks;
+        numberOfCar = position;
+        cars = new CarRecordList();
+    }
+
+    /**
+     * Constructor for objects of class CarSnapshot of chunks of car
+     * records made by a builder
+     *
+     * @param  newVersion  a long represents version of cars in car database
+     * @param  newChunks  an array of array of Car represents chunks of car
+     *                    records, which are never changed afterwards
+     * @param  newNumberOfCar  an integer represents number of car records
+     */
+    private CarSnapshot(long newVersion, Car[][] newChunks,
+                        int newNumberOfCar)
+    {
+        version = newVersion;
+        chunks = newChunks;
+        numberOfCar = newNumberOfCar;
+        cars = new CarRecordList();
+    }
+
+    /**
+     * Find car records which match every criterion of a car query
+     *
+     * @param  query  a CarQuery object represents criteria of cars
+     * @param  currentYear  an integer represents current year to measure
+     *                      age of car
+     * @return    a CarView object represents car records found by the
+     *            query, which is empty if no car is found
+     */
+    public CarView findCars(CarQuery query, int currentYear)
+    {
+        return new CarView(Collections.singletonList(cars),
+                thisCar -> query.matches(thisCar, currentYear));
+    }
+
+    /**
+     * Get car records in snapshot
+     *
+     * @return    a list of Car represents car records, which cannot be
+     *            changed
+     */
+    public List<Car> getCars()
+    {
+        return cars;
+    }
+
+    /**
+     * Get number of cars in snapshot
+     *
+     * @return    an integer represents number of cars
+     */
+    public int getNumberOfCar()
+    {
+        return numberOfCar;
+    }
+
+    /**
+     * Get version of cars in car database which snapshot was taken of. A
+     * later version has every change made to the car database up to it.
+     *
+     * @return    a long represents version of snapshot
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * The Builder class represents a builder of the next version of a car
+     * snapshot. A chunk is copied the first time a car record in it is
+     * changed, and changed in place afterwards, since no snapshot shares
+     * it until the builder is built. A builder must not be used after it
+     * is built.
+     */
+    static class Builder
+    {
+        private Car[][] chunks;
+        private boolean[] isCopied;
+        private int numberOfCar;
+
+        /**
+         * Constructor for objects of class Builder, which starts from the
+         * car records of a snapshot
+         *
+         * @param  snapshot  a CarSnapshot object represents snapshot to be
+         *                   changed
+         */
+        Builder(CarSnapshot snapshot)
+        {
+            chunks = snapshot.chunks.clone();
+            isCopied = new boolean[chunks.length];
+            numberOfCar = snapshot.numberOfCar;
+        }
+
+        /**
+         * Add a copy of a car at the end of the car records
+         *
+         * @param  car  a Car object represents car to be added
+         * @return    an integer represents position of car record
+         */
+        int addCar(Car car)
+        {
+            if (numberOfCar == chunks.length * CHUNK_SIZE)
+            {
+                chunks = Arrays.copyOf(chunks, chunks.length + 1);
+                isCopied = Arrays.copyOf(isCopied, chunks.length);
+                chunks[chunks.length - 1] = new Car[CHUNK_SIZE];
+                isCopied[chunks.length - 1] = true;
+            }
+            numberOfCar++;
+            setRecord(numberOfCar - 1, new CarRecord(car));
+            return numberOfCar - 1;
+        }
+
+        /**
+         * Build the snapshot of the car records
+         *
+         * @param  version  a long represents version of snapshot
+         * @return    a CarSnapshot object represents snapshot built
+         */
+        CarSnapshot build(long version)
+        {
+            return new CarSnapshot(version, chunks, numberOfCar);
+        }
+
+        /**
+         * Get car record at a position
+         *
+         * @param  position  an integer represents position of car record
+         * @return    a Car object represents car record
+         */
+        Car getCar(int position)
+        {
+            return chunks[position / CHUNK_SIZE][position % CHUNK_SIZE];
+        }
+
+        /**
+         * Get number of car records
+         *
+         * @return    an integer represents number of car records
+         */
+        int getNumberOfCar()
+        {
+            return numberOfCar;
+        }
+
+        /**
+         * Remove the car record at a position by moving the last car record
+         * into its position
+         *
+         * @param  position  an integer represents position of car record
+         */
+        void removeCar(int position)
+        {
+            int lastPosition = numberOfCar - 1;
+            if (position != lastPosition)
+                setRecord(position, getCar(lastPosition));
+            setRecord(lastPosition, null);
+            numberOfCar--;
+        }
+
+        /**
+         * Replace the car record at a position with a copy of a car
+         *
+         * @param  position  an integer represents position of car record
+         * @param  car  a Car object represents car to be copied
+         */
+        void setCar(int position, Car car)
+        {
+            setRecord(position, new CarRecord(car));
+        }
+
+        /**
+         * Set car record at a position, copying its chunk first unless it
+         * is copied already
+         *
+         * @param  position  an integer represents position of car record
+         * @param  record  a Car object represents car record, or null
+         */
+        private void setRecord(int position, Car record)
+        {
+            int chunk = position / CHUNK_SIZE;
+            if (!isCopied[chunk])
+            {
+                chunks[chunk] = chunks[chunk].clone();
+                isCopied[chunk] = true;
+            }
+            chunks[chunk][position % CHUNK_SIZE] = record;
+        }
+    }
+
+    /**
+     * The CarRecordList class represents a read only list of the car
+     * records of the snapshot
+     */
+    private class CarRecordList extends AbstractList<Car>
+            implements RandomAccess
+    {
+        /**
+         * Get car record at a position in the list
+         *
+         * @param  index  an integer represents position in the list
+         * @return    a Car object represents car record at the position
+         */
+        @Override
+        public Car get(int index)
+        {
+            if (index < 0 || index >= numberOfCar)
+                throw new IndexOutOfBoundsException("Error: no car record " +
+                        "at " + index);
+            return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+        }
+
+        /**
+         * Get number of car records in the list
+         *
+         * @return    an integer represents number of car records
+         */
+        @Override
+        public int size()
+        {
+            return numberOfCar;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.mypackage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CarSnapshotFile class represents a car snapshot file object generator.
+ * It is used to generate a binary snapshot of the cars in a car database,
+ * which loads much faster than the comma separated car file because nothing
+ * has to be split or parsed as text.
+ *
+ * A snapshot is laid out as
+ * <pre>
+ *     int    magic number "UCWS"
+ *     short  version
+ *     int    number of dictionary strings
+ *     string dictionary strings, the first is always ""
+ *     int    number of cars
+ *     car    cars
+ * </pre>
+ * where a string is an unsigned short byte length followed by its UTF-8
+ * bytes, and a car is its registration number as a string followed by
+ * fixed width int fields for year made, price, car maker, car model and
+ * three colours. Car maker, car model and colours are indexes into the
+ * dictionary, so each distinct value is stored once.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarSnapshotFile
+{
+    public static final int MAGIC_NUMBER = 0x55435753;
+    public static final short VERSION = 1;
+
+    private String filename;
+
+    /**
+     * Constructor for objects of class CarSnapshotFile
+     *
+     * @param  newFilename  a string represents filename of snapshot
+     */
+    public CarSnapshotFile(String newFilename)
+    {
+        if (newFilename == null)
+            filename = "";
+        else
+            filename = newFilename;
+    }
+
+    /**
+     * Make room for a number of bytes in the buffer, writing out what is
+     * already in the buffer if needed
+     *
+     * @param  channel  a FileChannel object represents channel to write to
+     * @param  buffer  a ByteBuffer object represents buffer to be filled
+     * @param  numberOfByte  an integer represents number of bytes needed
+     * @throws    IOException if the buffer cannot be written
+     */
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer,
+                                        int numberOfByte) throws IOException
+    {
+        if (buffer.remaining() >= numberOfByte)
+            return;
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Make sure a number of bytes can be read from the buffer, reading more
+     * of the file into the buffer if needed
+     *
+     * @param  channel  a FileChannel object represents channel to read from
+     * @param  buffer  a ByteBuffer object represents buffer to be read
+     * @param  numberOfByte  an integer represents number of bytes needed
+     * @throws    IOException if the snapshot ends too early
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer,
+                             int numberOfByte) throws IOException
+    {
+        if (buffer.remaining() >= numberOfByte)
+            return;
+        buffer.compact();
+        while (buffer.position() < numberOfByte)
+            if (channel.read(buffer) < 0)
+                throw new EOFException("snapshot ends unexpectedly");
+        buffer.flip();
+    }
+
+    /**
+     * Get code of a symbol of the shared car symbol table in the
+     * dictionary, adding the symbol if it is new
+     *
+     * @param  symbolCode  an integer represents code of symbol in the
+     *                     shared car symbol table
+     * @param  codes  an array of integer represents dictionary code plus
+     *                one of each symbol code, or 0 if not in dictionary
+     * @param  dictionary  an array list of string represents dictionary
+     * @return    an integer represents code of symbol in the dictionary
+     */
+    private static int getCode(int symbolCode, int[] codes,
+                               ArrayList<String> dictionary)
+    {
+        if (codes[symbolCode] == 0)
+        {
+            codes[symbolCode] = dictionary.size() + 1;
+            dictionary.add(CarSymbolTable.getSharedTable().getSymbol
+                    (symbolCode));
+        }
+        return codes[symbolCode] - 1;
+    }
+
+    /**
+     * Get filename of snapshot
+     *
+     * @return    a string represents filename of snapshot
+     */
+    public String getFilename()
+    {
+        return filename;
+    }
+
+    /**
+     * Load cars from snapshot into a car database
+     *
+     * @param  carDatabase  a CarDatabase object represents car database to
+     *                      be loaded
+     * @return    an integer represents number of cars loaded
+     * @throws    IOException if the snapshot cannot be read or is not a
+     *                        snapshot of a supported version
+     */
+    public int loadCars(CarDatabase carDatabase) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(CarFileWriter.BUFFER_SIZE);
+            buffer.flip();
+            fill(channel, buffer, 6);
+            if (buffer.getInt() != MAGIC_NUMBER)
+                throw new IOException(filename + " is not a car snapshot");
+            short version = buffer.getShort();
+            if (version != VERSION)
+                throw new IOException(filename + " has unsupported version " +
+                        version);
+
+            fill(channel, buffer, 4);
+            String[] dictionary = new String[buffer.getInt()];
+            for (int index = 0; index < dictionary.length; index++)
+                dictionary[index] = readString(channel, buffer);
+
+            fill(channel, buffer, 4);
+            int numberOfCar = buffer.getInt();
+            for (int number = 0; number < numberOfCar; number++)
+            {
+                String registrationNumber = readString(channel, buffer);
+                fill(channel, buffer, 7 * 4);
+                int yearMade = buffer.getInt();
+                int price = buffer.getInt();
+                String carMaker = dictionary[buffer.getInt()];
+                String carModel = dictionary[buffer.getInt()];
+                String[] colours = new String[CarFileWriter.NUMBER_OF_COLOUR];
+                for (int index = 0; index < colours.length; index++)
+                    colours[index] = dictionary[buffer.getInt()];
+                carDatabase.addCar(new Car(registrationNumber, yearMade,
+                        colours, carMaker, carModel, price));
+            }
+            return numberOfCar;
+        }
+        catch (ArrayIndexOutOfBoundsException |
+                IllegalArgumentException exception)
+        {
+            throw new IOException(filename + " is corrupted", exception);
+        }
+    }
+
+    /**
+     * Read a length prefixed string from the buffer
+     *
+     * @param  channel  a FileChannel object represents channel to read from
+     * @param  buffer  a ByteBuffer object represents buffer to be read
+     * @return    a string represents string read
+     * @throws    IOException if the snapshot ends too early
+     */
+    private static String readString(FileChannel channel, ByteBuffer buffer)
+            throws IOException
+    {
+        fill(channel, buffer, 2);
+        int length = buffer.getShort() & 0xFFFF;
+        fill(channel, buffer, length);
+        String value = new String(buffer.array(), buffer.arrayOffset() +
+                buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Write cars to snapshot atomically
+     *
+     * @param  cars  a list of Car represents cars to be saved
+     * @return    an integer represents number of cars saved
+     * @throws    IOException if the cars cannot be saved, in which case the
+     *                        snapshot is left unchanged
+     */
+    public int writeCars(List<Car> cars) throws IOException
+    {
+        int[] codes = new int[CarSymbolTable.getSharedTable()
+                .getNumberOfSymbol()];
+        ArrayList<String> dictionary = new ArrayList<>();
+        getCode(CarSymbolTable.BLANK_CODE, codes, dictionary);
+        int[] carCodes = new int[cars.size() * 5];
+        for (int index = 0; index < cars.size(); index++)
+        {
+            Car thisCar = cars.get(index);
+            carCodes[index * 5] = getCode(thisCar.getCarMakerCode(), codes,
+                    dictionary);
+            carCodes[index * 5 + 1] = getCode(thisCar.getCarModelCode(),
+                    codes, dictionary);
+            for (int colour = 0; colour < CarFileWriter.NUMBER_OF_COLOUR;
+                 colour++)
+                carCodes[index * 5 + 2 + colour] = getCode
+                        (thisCar.getColourCode(colour), codes, dictionary);
+        }
+
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temporary = CarFileWriter.getTemporaryPath(target);
+        boolean saved = false;
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+            {
+                ByteBuffer buffer = ByteBuffer.allocate
+                        (CarFileWriter.BUFFER_SIZE);
+                buffer.putInt(MAGIC_NUMBER);
+                buffer.putShort(VERSION);
+                buffer.putInt(dictionary.size());
+                for (String thisString: dictionary)
+                    writeString(channel, buffer, thisString);
+                ensureRemaining(channel, buffer, 4);
+                buffer.putInt(cars.size());
+                for (int index = 0; index < cars.size(); index++)
+                {
+                    Car thisCar = cars.get(index);
+                    writeString(channel, buffer,
+                            thisCar.getRegistrationNumber());
+                    ensureRemaining(channel, buffer, 7 * 4);
+                    buffer.putInt(thisCar.getYearMade());
+                    buffer.putInt(thisCar.getPrice());
+                    for (int code = 0; code < 5; code++)
+                        buffer.putInt(carCodes[index * 5 + code]);
+                }
+                ensureRemaining(channel, buffer, buffer.capacity());
+                channel.force(true);
+            }
+            CarFileWriter.moveIntoPlace(temporary, target);
+            saved = true;
+        }
+        finally
+        {
+            if (!saved)
+                Files.deleteIfExists(temporary);
+        }
+        return cars.size();
+    }
+
+    /**
+     * Write a length prefixed string to the buffer
+     *
+     * @param  channel  a FileChannel object represents channel to write to
+     * @param  buffer  a ByteBuffer object represents buffer to be filled
+     * @param  value  a string represents string to be written
+     * @throws    IOException if the string is too long or the buffer cannot
+     *                        be written
+     */
+    private static void writeString(FileChannel channel, ByteBuffer buffer,
+                                    String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF || bytes.length + 2 > buffer.capacity())
+            throw new IOException("string is too long for a snapshot: " +
+                    value.substring(0, Math.min(value.length(), 20)));
+        ensureRemaining(channel, buffer, bytes.length + 2);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+}
@@ -0,0 +1,93 @@
+package com.mypackage;
+
+/**
+ * The CarStatus class represents the status codes returned by the changes
+ * of a car database in place of printing or throwing, so the caller
+ * decides how to report them, such as a car warehouse which prints them
+ * to its output or a car warehouse server which sends them in a response.
+ * A code other than OK means nothing is changed. The same codes are
+ * returned by a CarValidator for input which is not valid, whose message
+ * is given by the validator since it may name the valid range.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarStatus
+{
+    public static final int OK = 0;
+    public static final int NO_SUCH_CAR = 1;
+    public static final int NEGATIVE_PRICE = 2;
+    public static final int BLANK_COLOURS = 3;
+    public static final int DUPLICATE_CAR = 4;
+    public static final int INVALID_INPUT = 5;
+    public static final int NOT_A_NUMBER = 6;
+    public static final int OUT_OF_RANGE = 7;
+    public static final int OPTION_OUT_OF_RANGE = 8;
+    public static final int INVALID_REGISTRATION_LENGTH = 9;
+    public static final int INVALID_REGISTRATION_CHARACTER = 10;
+    public static final int TOO_MANY_COLOURS = 11;
+    public static final int WRONG_NUMBER_OF_ATTRIBUTES = 12;
+    public static final int BLANK_NAME = 13;
+    public static final int INVALID_NAME_LENGTH = 14;
+    public static final int INVALID_NAME_CHARACTER = 15;
+
+    /**
+     * Constructor for objects of class CarStatus
+     */
+    public CarStatus()
+    {
+    }
+
+    /**
+     * Get message of a status code
+     *
+     * @param  status  an integer represents status code
+     * @return    a string represents message of status code
+     */
+    public static String getMessage(int status)
+    {
+        switch (status)
+        {
+            case OK:
+                return "OK";
+            case NO_SUCH_CAR:
+                return "No such car with this Registration Number";
+            case NEGATIVE_PRICE:
+                return "Error: price must be a non negative value";
+            case BLANK_COLOURS:
+                return "Error: colour(s) must not be blank";
+            case DUPLICATE_CAR:
+                return "Error: registration number must be unique. This " +
+                        "number is already been registered";
+            case INVALID_INPUT:
+                return "Error: Please enter a valid input";
+            case NOT_A_NUMBER:
+                return "Error: Please enter a valid number";
+            case OUT_OF_RANGE:
+                return "Error: number is out of range";
+            case OPTION_OUT_OF_RANGE:
+                return "Error: your choice is out of range";
+            case INVALID_REGISTRATION_LENGTH:
+                return "Error: registration number must not be blank and " +
+                        "must only have maximum 6 characters";
+            case INVALID_REGISTRATION_CHARACTER:
+                return "Error: registration number must be numeric/" +
+                        "alphabetic (e.g. 8RT2WT)";
+            case TOO_MANY_COLOURS:
+                return "Error: a car can only have maximum 3 colours";
+            case WRONG_NUMBER_OF_ATTRIBUTES:
+                return "Error: a car must have " +
+                        CarFileLoader.NUMBER_OF_CAR_FIELDS + " attributes";
+            case BLANK_NAME:
+                return "Error: name must not be blank";
+            case INVALID_NAME_LENGTH:
+                return "Error: name must only have maximum " +
+                        CarValidator.MAXIMUM_NAME_LENGTH + " characters";
+            case INVALID_NAME_CHARACTER:
+                return "Error: name must not contain commas, line breaks " +
+                        "or other control characters";
+            default:
+                return "Error: unknown status " + status;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.mypackage;
+
+/**
+ * The CarStore interface represents a storage backend of a car database
+ * which keeps the attributes of cars in numbered slots instead of as Car
+ * objects. A slot keeps its number for as long as its car is stored, and
+ * the slot of a removed car may be used again for a later car. Each slot
+ * has a generation which changes whenever its car is removed, so that a
+ * view of the slot can tell that its car is gone. The car database hands
+ * out CarRow objects as lightweight views of the slots.
+ *
+ * Car maker, car model and colours are kept as codes of the shared
+ * CarSymbolTable. Searches select slots as bitmaps, where bit i of word
+ * i / 64 stands for slot i, so that the bitmaps of several criteria can be
+ * ANDed with CarScanKernel. Slot numbers passed to a car store must be of
+ * slots in use unless stated otherwise.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public interface CarStore
+{
+    /**
+     * Add the attributes of a car to a free slot
+     *
+     * @param  car  a Car object represents car to be added
+     * @return    an integer represents slot of car
+     */
+    int addCar(Car car);
+
+    /**
+     * Remove every car from car store
+     */
+    void clear();
+
+    /**
+     * Copy car store, so that the copy is not changed by later changes of
+     * this car store
+     *
+     * @return    a CarStore object represents copy of car store
+     */
+    CarStore copy();
+
+    /**
+     * Find slot of a car by registration number, which is compared case
+     * insensitively
+     *
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     * @return    an integer represents slot of car, or -1 if not found
+     */
+    int findCar(String registrationNumber);
+
+    /**
+     * Get code of car maker of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents code of car maker
+     */
+    int getCarMakerCode(int slot);
+
+    /**
+     * Get code of car model of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents code of car model
+     */
+    int getCarModelCode(int slot);
+
+    /**
+     * Get packed codes of colours of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    a long represents packed codes of colours
+     */
+    long getColourCodes(int slot);
+
+    /**
+     * Get generation of a slot, which changes whenever the car in the slot
+     * is removed. Any slot below the slot limit may be checked.
+     *
+     * @param  slot  an integer represents slot
+     * @return    an integer represents generation of slot
+     */
+    int getGeneration(int slot);
+
+    /**
+     * Get maximum number of cars which can be kept in car store at once
+     *
+     * @return    an integer represents maximum number of cars
+     */
+    int getMaximumNumberOfCar();
+
+    /**
+     * Get number of cars in car store
+     *
+     * @return    an integer represents number of cars
+     */
+    int getNumberOfCar();
+
+    /**
+     * Get price of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents price of car
+     */
+    int getPrice(int slot);
+
+    /**
+     * Get registration number of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    a string represents registration number of car
+     */
+    String getRegistrationNumber(int slot);
+
+    /**
+     * Get number of slots which may be in use. Every car is in a slot
+     * below this number.
+     *
+     * @return    an integer represents number of slots
+     */
+    int getSlotLimit();
+
+    /**
+     * Get year made of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @return    an integer represents year made of car
+     */
+    int getYearMade(int slot);
+
+    /**
+     * Check whether a slot is in use. Any slot number may be checked.
+     *
+     * @param  slot  an integer represents slot
+     * @return    a boolean represents whether slot is in use or not
+     */
+    boolean isUsed(int slot);
+
+    /**
+     * Remove a car from its slot
+     *
+     * @param  slot  an integer represents slot of car
+     */
+    void removeCar(int slot);
+
+    /**
+     * Select slots of cars whose car maker and car model match
+     *
+     * @param  carMakerCode  an integer represents code of car maker
+     * @param  carModelCode  an integer represents code of car model, or
+     *                       CarSymbolTable.NO_CODE for every model
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    long[] selectCarMakerAndModel(int carMakerCode, int carModelCode);
+
+    /**
+     * Select slots of cars whose price is within a range
+     *
+     * @param  minimumPrice  an integer represents minimum price of car
+     * @param  maximumPrice  an integer represents maximum price of car
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    long[] selectPriceRange(int minimumPrice, int maximumPrice);
+
+    /**
+     * Select slots of every car
+     *
+     * @return    an array of long represents bitmap of slots in use,
+     *            covering every slot below the slot limit
+     */
+    long[] selectUsed();
+
+    /**
+     * Select slots of cars whose year made is within a range
+     *
+     * @param  fromYear  an integer represents earliest year made of car
+     * @param  toYear  an integer represents latest year made of car
+     * @return    an array of long represents bitmap of slots selected,
+     *            covering every slot below the slot limit
+     */
+    long[] selectYearRange(int fromYear, int toYear);
+
+    /**
+     * Set codes of car maker and car model of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  carMakerCode  an integer represents code of car maker
+     * @param  carModelCode  an integer represents code of car model
+     */
+    void setCarMakerAndModel(int slot, int carMakerCode, int carModelCode);
+
+    /**
+     * Set packed codes of colours of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  colourCodes  a long represents packed codes of colours
+     */
+    void setColourCodes(int slot, long colourCodes);
+
+    /**
+     * Set scan which splits large scans of car store into ranges scanned
+     * in parallel
+     *
+     * @param  newParallelScan  a CarParallelScan object represents parallel
+     *                          scan of car store
+     */
+    void setParallelScan(CarParallelScan newParallelScan);
+
+    /**
+     * Set price of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  price  an integer represents price of car
+     */
+    void setPrice(int slot, int price);
+
+    /**
+     * Set registration number of a car. The caller checks that no other
+     * car has the registration number.
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  registrationNumber  a string represents registration
+     *                             number of car
+     */
+    void setRegistrationNumber(int slot, String registrationNumber);
+
+    /**
+     * Set year made of a car
+     *
+     * @param  slot  an integer represents slot of car
+     * @param  yearMade  an integer represents year made of car
+     */
+    void setYearMade(int slot, int yearMade);
+}
@@ -0,0 +1,198 @@
+package com.mypackage;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The CarSymbolTable class represents a car symbol table object generator.
+ * It is used to generate a table which turns the car maker, car model and
+ * colour names repeated across many cars into small integer codes. A car
+ * keeps only the codes, so each name is stored once, and names are compared
+ * by comparing codes. Names are matched case insensitively and each code
+ * keeps the spelling the name was first added with. The first spellings
+ * seen are remembered as well, up to a fixed number of them, so encoding a
+ * name read again from a file mostly does not have to fold its case, while
+ * dirty input cannot grow the table of spellings without bound.
+ *
+ * A name with a comma, a line break or another control character is never
+ * added, since it could not be written to the car file or the journal.
+ * Names from input should be checked by a CarValidator before a car is
+ * made of them, and searches only find codes, so that the table only grows
+ * with the names of cars actually kept.
+ *
+ * Code 0 is always the blank name.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarSymbolTable
+{
+    public static final int BLANK_CODE = 0;
+    public static final int NO_CODE = -1;
+    public static final int CODE_BITS = 21;
+    public static final int MAXIMUM_NUMBER_OF_SYMBOL = 1 << CODE_BITS;
+    public static final int MAXIMUM_NUMBER_OF_SPELLING = 1 << 12;
+
+    private static final CarSymbolTable SHARED_TABLE = new CarSymbolTable();
+
+    private ConcurrentHashMap<String, Integer> codes;
+    private ConcurrentHashMap<String, Integer> spellingCodes;
+    private volatile String[] symbols;
+    private int numberOfSymbol;
+
+    /**
+     * Constructor for objects of class CarSymbolTable
+     */
+    public CarSymbolTable()
+    {
+        codes = new ConcurrentHashMap<>();
+        spellingCodes = new ConcurrentHashMap<>();
+        symbols = new String[64];
+        numberOfSymbol = 0;
+        getCode("");
+    }
+
+    /**
+     * Add the names of car makers and their available models to the table,
+     * so that they keep the spelling used by the car maker database
+     *
+     * @param  carMakerDatabase  a CarMakerDatabase object represents car
+     *                           makers to be added
+     */
+    public void addCarMakers(CarMakerDatabase carMakerDatabase)
+    {
+        for (CarMaker thisCarMaker: carMakerDatabase.getCarMakers())
+        {
+            getCode(thisCarMaker.getName());
+            for (String thisCarModel: thisCarMaker.getAvailableModels())
+                getCode(thisCarModel);
+        }
+    }
+
+    /**
+     * Add a name to the table
+     *
+     * @param  name  a string represents name to be added
+     * @param  key  a string represents case folded name
+     * @return    an integer represents code of name
+     * @throws    IllegalArgumentException if the table is full
+     */
+    private synchronized int addSymbol(String name, String key)
+    {
+        Integer code = codes.get(key);
+        if (code != null)
+            return code;
+        if (numberOfSymbol == MAXIMUM_NUMBER_OF_SYMBOL)
+            throw new IllegalArgumentException("Error: too many different " +
+                    "car makers, car models and colours");
+        String[] currentSymbols = symbols;
+        if (numberOfSymbol == currentSymbols.length)
+            currentSymbols = Arrays.copyOf(currentSymbols,
+                    currentSymbols.length * 2);
+        currentSymbols[numberOfSymbol] = name;
+        symbols = currentSymbols;
+        codes.put(key, numberOfSymbol);
+        numberOfSymbol++;
+        return numberOfSymbol - 1;
+    }
+
+    /**
+     * Find code of a name without adding it to the table
+     *
+     * @param  name  a string represents name to be found
+     * @return    an integer represents code of name, or NO_CODE if the name
+     *            is not in the table
+     */
+    public int findCode(String name)
+    {
+        if (name == null)
+            return BLANK_CODE;
+        Integer code = spellingCodes.get(name);
+        if (code == null)
+            code = codes.get(getKey(name));
+        if (code == null)
+            return NO_CODE;
+        return code;
+    }
+
+    /**
+     * Get code of a name, adding the name to the table if it is new
+     *
+     * @param  name  a string represents name to be encoded
+     * @return    an integer represents code of name
+     * @throws    IllegalArgumentException if the name has a comma, a line
+     *                                     break or another control
+     *                                     character, or the table is full
+     */
+    public int getCode(String name)
+    {
+        if (name == null)
+            return BLANK_CODE;
+        Integer code = spellingCodes.get(name);
+        if (code != null)
+            return code;
+        String trimmedName = name.trim();
+        String key = getKey(trimmedName);
+        code = codes.get(key);
+        if (code == null)
+        {
+            if (CarValidator.getNameStatus(trimmedName) ==
+                    CarStatus.INVALID_NAME_CHARACTER)
+                throw new IllegalArgumentException(CarStatus.getMessage
+                        (CarStatus.INVALID_NAME_CHARACTER));
+            code = addSymbol(trimmedName, key);
+        }
+        if (spellingCodes.size() < MAXIMUM_NUMBER_OF_SPELLING)
+            spellingCodes.put(name, code);
+        return code;
+    }
+
+    /**
+     * Get the key of a name in the table
+     *
+     * @param  name  a string represents name
+     * @return    a string represents case folded name
+     */
+    private static String getKey(String name)
+    {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Get number of names in the table
+     *
+     * @return    an integer represents number of names
+     */
+    public synchronized int getNumberOfSymbol()
+    {
+        return numberOfSymbol;
+    }
+
+    /**
+     * Get the table shared by every car
+     *
+     * @return    a CarSymbolTable object represents shared table
+     */
+    public static CarSymbolTable getSharedTable()
+    {
+        return SHARED_TABLE;
+    }
+
+    /**
+     * Get name of a code
+     *
+     * @param  code  an integer represents code of name
+     * @return    a string represents name of code
+     * @throws    IllegalArgumentException if the code is not in the table
+     */
+    public String getSymbol(int code)
+    {
+        String[] currentSymbols = symbols;
+        if (code < 0 || code >= currentSymbols.length ||
+                currentSymbols[code] == null)
+            throw new IllegalArgumentException("Error: unknown symbol code " +
+                    code);
+        return currentSymbols[code];
+    }
+}
@@ -0,0 +1,524 @@
+package com.mypackage;
+
+/**
+ * The CarValidator class represents a car validator object generator. It is
+ * used to generate a validator which checks the attributes of a car, and
+ * the input of a user, against the rules of the car warehouse. A check
+ * returns a status code of CarStatus instead of throwing, and numbers are
+ * parsed digit by digit from the input, so a check allocates nothing and
+ * a dirty car file of many bad lines costs no exceptions or stack traces.
+ *
+ * The values parsed by the last checks, and what is needed for the message
+ * of the last status, are kept in the validator, so a validator may be
+ * reused for many checks but must not be shared by many threads. The
+ * interactive menu, the car file loader, batches of a car database and the
+ * car warehouse server all check their input with a CarValidator.
+ *
+ * Car makers, car models and colours are kept in lines of attributes
+ * separated by commas, in the car file and in the journal, so a name must
+ * not have a comma, a line break or any other control character.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarValidator
+{
+    public static final int MAXIMUM_NAME_LENGTH = 30;
+    public static final int MAXIMUM_NUMBER_LENGTH = 10;
+    public static final int MAXIMUM_REGISTRATION_LENGTH = 6;
+    public static final int MINIMUM_PRICE = 500;
+    public static final int MAXIMUM_PRICE = 30000;
+    public static final int MINIMUM_YEAR_MADE = 1950;
+
+    private int status;
+    private int number;
+    private int yearMade;
+    private int price;
+    private String[] colours;
+    private String rangeName;
+    private String fieldName;
+    private int minimum;
+    private int maximum;
+
+    /**
+     * Constructor for objects of class CarValidator
+     */
+    public CarValidator()
+    {
+        status = CarStatus.OK;
+        number = 0;
+        yearMade = 0;
+        price = 0;
+        colours = null;
+        rangeName = null;
+        fieldName = null;
+        minimum = 0;
+        maximum = 0;
+    }
+
+    /**
+     * Check age of car from input
+     *
+     * @param  input  a CharSequence object represents age of car
+     * @param  currentYear  an integer represents current year
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkAge(CharSequence input, int currentYear)
+    {
+        return checkRange(input, "age", 0, currentYear - MINIMUM_YEAR_MADE);
+    }
+
+    /**
+     * Check attributes of a car made outside the validator, such as a car
+     * added by a batch
+     *
+     * @param  car  a Car object represents car to be checked
+     * @param  currentYear  an integer represents current year
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkCar(Car car, int currentYear)
+    {
+        if (checkRegistrationNumber(car.getRegistrationNumber()) !=
+                CarStatus.OK)
+            return status;
+        if (checkYearMade(car.getYearMade(), currentYear) != CarStatus.OK)
+            return status;
+        if (checkColours(car.getColours()) != CarStatus.OK)
+            return status;
+        if (checkCarMaker(car.getCarMaker()) != CarStatus.OK)
+            return status;
+        if (checkCarModel(car.getCarModel()) != CarStatus.OK)
+            return status;
+        return checkPrice(car.getPrice());
+    }
+
+    /**
+     * Check attributes of a car from input, keeping its year made, colours
+     * and price if they are valid
+     *
+     * @param  registrationNumber  a CharSequence object represents
+     *                             registration number of car
+     * @param  yearMadeInput  a CharSequence object represents year made of
+     *                        car
+     * @param  colourInputs  an array of string represents colours of car
+     * @param  carMaker  a CharSequence object represents car maker
+     * @param  carModel  a CharSequence object represents car model
+     * @param  priceInput  a CharSequence object represents price of car
+     * @param  currentYear  an integer represents current year
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkCar(CharSequence registrationNumber,
+                        CharSequence yearMadeInput, String[] colourInputs,
+                        CharSequence carMaker, CharSequence carModel,
+                        CharSequence priceInput, int currentYear)
+    {
+        if (checkRegistrationNumber(registrationNumber) != CarStatus.OK)
+            return status;
+        if (checkYearMade(yearMadeInput, currentYear) != CarStatus.OK)
+            return status;
+        if (checkColours(colourInputs) != CarStatus.OK)
+            return status;
+        if (checkCarMaker(carMaker) != CarStatus.OK)
+            return status;
+        if (checkCarModel(carModel) != CarStatus.OK)
+            return status;
+        return checkPrice(priceInput);
+    }
+
+    /**
+     * Check name of car maker
+     *
+     * @param  input  a CharSequence object represents name of car maker
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkCarMaker(CharSequence input)
+    {
+        return checkName(input, "car maker", false);
+    }
+
+    /**
+     * Check name of car model
+     *
+     * @param  input  a CharSequence object represents name of car model
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkCarModel(CharSequence input)
+    {
+        return checkName(input, "car model", false);
+    }
+
+    /**
+     * Check colours of car, keeping them as an array of 3 trimmed colours
+     * where missing colours are blank
+     *
+     * @param  colourInputs  an array of string represents colours of car
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkColours(String[] colourInputs)
+    {
+        if (colourInputs == null || colourInputs.length == 0)
+            return setStatus(CarStatus.BLANK_COLOURS);
+        if (colourInputs.length > CarFileWriter.NUMBER_OF_COLOUR)
+            return setStatus(CarStatus.TOO_MANY_COLOURS);
+        String[] newColours = new String[CarFileWriter.NUMBER_OF_COLOUR];
+        boolean isBlank = true;
+        for (int index = 0; index < newColours.length; index++)
+        {
+            if (index < colourInputs.length && colourInputs[index] != null)
+            {
+                if (checkName(colourInputs[index], "colour", true) !=
+                        CarStatus.OK)
+                    return status;
+                newColours[index] = colourInputs[index].trim();
+            }
+            else
+                newColours[index] = "";
+            if (newColours[index].length() > 0)
+                isBlank = false;
+        }
+        if (isBlank)
+            return setStatus(CarStatus.BLANK_COLOURS);
+        colours = newColours;
+        return setStatus(CarStatus.OK);
+    }
+
+    /**
+     * Check colours of car from input of colours separated by commas
+     *
+     * @param  input  a string represents colours of car
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkColours(String input)
+    {
+        if (input.length() == 0)
+            return setStatus(CarStatus.BLANK_COLOURS);
+        return checkColours(input.split(","));
+    }
+
+    /**
+     * Check maximum price of car from input, which must not be less than
+     * the minimum price
+     *
+     * @param  minimumPrice  an integer represents minimum price of car
+     * @param  input  a CharSequence object represents maximum price of car
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkMaximumPrice(int minimumPrice, CharSequence input)
+    {
+        return checkRange(input, "maximum price", minimumPrice,
+                MAXIMUM_PRICE);
+    }
+
+    /**
+     * Check a name of car maker, car model or colour, which is trimmed of
+     * spaces and must not be longer than the maximum name length
+     *
+     * @param  input  a CharSequence object represents name
+     * @param  name  a string represents what is named for the message
+     * @param  isBlankAllowed  a boolean represents whether a blank name is
+     *                         valid or not
+     * @return    an integer represents status code of CarStatus
+     */
+    private int checkName(CharSequence input, String name,
+                          boolean isBlankAllowed)
+    {
+        fieldName = name;
+        int nameStatus = getNameStatus(input);
+        if (nameStatus == CarStatus.BLANK_NAME && isBlankAllowed)
+            return setStatus(CarStatus.OK);
+        return setStatus(nameStatus);
+    }
+
+    /**
+     * Check a whole number from input, which has only digits
+     *
+     * @param  input  a CharSequence object represents number
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkNumber(CharSequence input)
+    {
+        int length = input.length();
+        if (length == 0 || length > MAXIMUM_NUMBER_LENGTH)
+            return setStatus(CarStatus.INVALID_INPUT);
+        long newNumber = 0;
+        for (int index = 0; index < length; index++)
+        {
+            char thisCharacter = input.charAt(index);
+            if (thisCharacter < '0' || thisCharacter > '9')
+                return setStatus(CarStatus.NOT_A_NUMBER);
+            newNumber = newNumber * 10 + (thisCharacter - '0');
+        }
+        if (newNumber > Integer.MAX_VALUE)
+            return setStatus(CarStatus.NOT_A_NUMBER);
+        number = (int) newNumber;
+        return setStatus(CarStatus.OK);
+    }
+
+    /**
+     * Check number of attributes of a car split from a line of a car file
+     *
+     * @param  numberOfAttribute  an integer represents number of attributes
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkNumberOfAttribute(int numberOfAttribute)
+    {
+        number = numberOfAttribute;
+        if (numberOfAttribute != CarFileLoader.NUMBER_OF_CAR_FIELDS)
+            return setStatus(CarStatus.WRONG_NUMBER_OF_ATTRIBUTES);
+        return setStatus(CarStatus.OK);
+    }
+
+    /**
+     * Check an option of a menu from input
+     *
+     * @param  input  a CharSequence object represents option
+     * @param  numberOfOption  an integer represents number of options,
+     *                         which are numbered from 1
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkOption(CharSequence input, int numberOfOption)
+    {
+        if (checkNumber(input) != CarStatus.OK)
+            return status;
+        maximum = numberOfOption;
+        if (number < 1 || number > numberOfOption)
+            return setStatus(CarStatus.OPTION_OUT_OF_RANGE);
+        return status;
+    }
+
+    /**
+     * Check price of car
+     *
+     * @param  newPrice  an integer represents price of car
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkPrice(int newPrice)
+    {
+        if (checkRange(newPrice, "price", MINIMUM_PRICE, MAXIMUM_PRICE) ==
+                CarStatus.OK)
+            price = newPrice;
+        return status;
+    }
+
+    /**
+     * Check price of car from input
+     *
+     * @param  input  a CharSequence object represents price of car
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkPrice(CharSequence input)
+    {
+        if (checkNumber(input) != CarStatus.OK)
+            return status;
+        return checkPrice(number);
+    }
+
+    /**
+     * Check a number against a range
+     *
+     * @param  newNumber  an integer represents number to be checked
+     * @param  name  a string represents name of number for the message
+     * @param  newMinimum  an integer represents minimum of range
+     * @param  newMaximum  an integer represents maximum of range
+     * @return    an integer represents status code of CarStatus
+     */
+    private int checkRange(int newNumber, String name, int newMinimum,
+                           int newMaximum)
+    {
+        number = newNumber;
+        rangeName = name;
+        minimum = newMinimum;
+        maximum = newMaximum;
+        if (newNumber < newMinimum || newNumber > newMaximum)
+            return setStatus(CarStatus.OUT_OF_RANGE);
+        return setStatus(CarStatus.OK);
+    }
+
+    /**
+     * Check a number from input against a range
+     *
+     * @param  input  a CharSequence object represents number
+     * @param  name  a string represents name of number for the message
+     * @param  newMinimum  an integer represents minimum of range
+     * @param  newMaximum  an integer represents maximum of range
+     * @return    an integer represents status code of CarStatus
+     */
+    private int checkRange(CharSequence input, String name, int newMinimum,
+                           int newMaximum)
+    {
+        if (checkNumber(input) != CarStatus.OK)
+            return status;
+        return checkRange(number, name, newMinimum, newMaximum);
+    }
+
+    /**
+     * Check registration number of car, which has no more than 6 letters
+     * and digits
+     *
+     * @param  input  a CharSequence object represents registration number
+     *                of car
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkRegistrationNumber(CharSequence input)
+    {
+        int length = input.length();
+        if (length == 0 || length > MAXIMUM_REGISTRATION_LENGTH)
+            return setStatus(CarStatus.INVALID_REGISTRATION_LENGTH);
+        for (int index = 0; index < length; index++)
+            if (!Character.isLetterOrDigit(input.charAt(index)))
+                return setStatus(CarStatus.INVALID_REGISTRATION_CHARACTER);
+        return setStatus(CarStatus.OK);
+    }
+
+    /**
+     * Check year made of car
+     *
+     * @param  newYearMade  an integer represents year made of car
+     * @param  currentYear  an integer represents current year
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkYearMade(int newYearMade, int currentYear)
+    {
+        if (checkRange(newYearMade, "year made of a car", MINIMUM_YEAR_MADE,
+                currentYear) == CarStatus.OK)
+            yearMade = newYearMade;
+        return status;
+    }
+
+    /**
+     * Check year made of car from input
+     *
+     * @param  input  a CharSequence object represents year made of car
+     * @param  currentYear  an integer represents current year
+     * @return    an integer represents status code of CarStatus
+     */
+    public int checkYearMade(CharSequence input, int currentYear)
+    {
+        if (checkNumber(input) != CarStatus.OK)
+            return status;
+        return checkYearMade(number, currentYear);
+    }
+
+    /**
+     * Get colours checked by the last check of colours
+     *
+     * @return    an array of string represents 3 colours of car, which
+     *            are blank if missing
+     */
+    public String[] getColours()
+    {
+        return colours;
+    }
+
+    /**
+     * Get message of the status of the last check, naming the valid range
+     * if the input is out of range
+     *
+     * @return    a string represents message of status
+     */
+    public String getMessage()
+    {
+        if (status == CarStatus.OUT_OF_RANGE)
+            return "Error: " + rangeName + " must be between " + minimum +
+                    " and " + maximum + " (both inclusive)";
+        if (status == CarStatus.OPTION_OUT_OF_RANGE)
+            return "Error: your choice must be between 1-" + maximum;
+        if (status == CarStatus.WRONG_NUMBER_OF_ATTRIBUTES)
+            return "Error: a car must have " +
+                    CarFileLoader.NUMBER_OF_CAR_FIELDS + " attributes but " +
+                    number + " are found";
+        if (status == CarStatus.BLANK_NAME)
+            return "Error: " + fieldName + " must not be blank";
+        if (status == CarStatus.INVALID_NAME_LENGTH)
+            return "Error: " + fieldName + " must only have maximum " +
+                    MAXIMUM_NAME_LENGTH + " characters";
+        if (status == CarStatus.INVALID_NAME_CHARACTER)
+            return "Error: " + fieldName + " must not contain commas, line " +
+                    "breaks or other control characters";
+        return CarStatus.getMessage(status);
+    }
+
+    /**
+     * Get status of a name of car maker, car model or colour, without
+     * keeping it as the status of a validator, so that it may be checked
+     * by many threads at once
+     *
+     * @param  input  a CharSequence object represents name
+     * @return    an integer represents status code of CarStatus, which is
+     *            BLANK_NAME if the name has only spaces
+     */
+    static int getNameStatus(CharSequence input)
+    {
+        if (input == null)
+            return CarStatus.BLANK_NAME;
+        int start = 0;
+        int end = input.length();
+        while (start < end && input.charAt(start) == ' ')
+            start++;
+        while (end > start && input.charAt(end - 1) == ' ')
+            end--;
+        if (start == end)
+            return CarStatus.BLANK_NAME;
+        for (int index = start; index < end; index++)
+        {
+            char thisCharacter = input.charAt(index);
+            if (thisCharacter == ',' || Character.isISOControl(thisCharacter))
+                return CarStatus.INVALID_NAME_CHARACTER;
+        }
+        if (end - start > MAXIMUM_NAME_LENGTH)
+            return CarStatus.INVALID_NAME_LENGTH;
+        return CarStatus.OK;
+    }
+
+    /**
+     * Get number parsed by the last check of a number, age or option
+     *
+     * @return    an integer represents number
+     */
+    public int getNumber()
+    {
+        return number;
+    }
+
+    /**
+     * Get price checked by the last check of price
+     *
+     * @return    an integer represents price of car
+     */
+    public int getPrice()
+    {
+        return price;
+    }
+
+    /**
+     * Get status of the last check
+     *
+     * @return    an integer represents status code of CarStatus
+     */
+    public int getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * Get year made checked by the last check of year made
+     *
+     * @return    an integer represents year made of car
+     */
+    public int getYearMade()
+    {
+        return yearMade;
+    }
+
+    /**
+     * Set status of the last check
+     *
+     * @param  newStatus  an integer represents status code of CarStatus
+     * @return    an integer represents status code
+     */
+    private int setStatus(int newStatus)
+    {
+        status = newStatus;
+        return newStatus;
+    }
+}
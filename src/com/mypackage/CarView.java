@@ -0,0 +1,265 @@
+package com.mypackage;
+
+import java.io.PrintWriter;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * The CarView class represents a read only view of cars found in a car
+ * database. It is used to return search results straight from the indexes
+ * of a car database without copying the cars into a new car database.
+ * The view is live, so it reflects later changes of the car database. A
+ * view may also carry a filter, in which case cars are checked lazily as
+ * the view is iterated. A view can be read a page at a time, either by
+ * offset and limit or through a CarCursor which goes on from the last car
+ * read, so the first page of a large search is found without visiting the
+ * rest of the cars.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarView extends AbstractCollection<Car>
+{
+    private Collection<? extends Collection<Car>> carGroups;
+    private Predicate<Car> filter;
+
+    /**
+     * Constructor for objects of class CarView
+     *
+     * @param  newCarGroups  a collection of collections of Car represents
+     *                       groups of cars in the view
+     */
+    public CarView(Collection<? extends Collection<Car>> newCarGroups)
+    {
+        this(newCarGroups, null);
+    }
+
+    /**
+     * Constructor for objects of class CarView with a filter
+     *
+     * @param  newCarGroups  a collection of collections of Car represents
+     *                       groups of cars to be filtered
+     * @param  newFilter  a predicate of Car represents filter of cars in the
+     *                    view, or null to keep every car
+     */
+    public CarView(Collection<? extends Collection<Car>> newCarGroups,
+                   Predicate<Car> newFilter)
+    {
+        if (newCarGroups == null)
+            carGroups = Collections.emptyList();
+        else
+            carGroups = newCarGroups;
+        filter = newFilter;
+    }
+
+    /**
+     * Display cars in car view
+     *
+     * @param  output  a PrintWriter object represents output of cars
+     */
+    public void displayCars(PrintWriter output)
+    {
+        int number = 0;
+        for (Car thisCar: this)
+        {
+            number++;
+            thisCar.displayCar(output);
+            output.println("(Car " + number + " Information)");
+        }
+    }
+
+    /**
+     * Get number of cars in car view
+     *
+     * @return    an integer represents number of cars in car view
+     */
+    public int getNumberOfCar()
+    {
+        return getNumberOfCar(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get number of cars in car view, counting no further than a limit
+     *
+     * @param  limit  an integer represents maximum number to be counted
+     * @return    an integer represents number of cars in car view, or the
+     *            limit if there are more cars than the limit
+     */
+    public int getNumberOfCar(int limit)
+    {
+        int numberOfCar = 0;
+        if (filter == null)
+        {
+            for (Collection<Car> thisCarGroup: carGroups)
+            {
+                if (numberOfCar >= limit)
+                    return limit;
+                numberOfCar = numberOfCar + thisCarGroup.size();
+            }
+        }
+        else
+        {
+            Iterator<Car> carIterator = iterator();
+            while (numberOfCar < limit && carIterator.hasNext())
+            {
+                carIterator.next();
+                numberOfCar++;
+            }
+        }
+        return Math.min(numberOfCar, limit);
+    }
+
+    /**
+     * Get a page of cars in car view
+     *
+     * @param  offset  an integer represents number of cars before the page
+     * @param  limit  an integer represents maximum number of cars in page
+     * @return    an array list of Car represents cars of page, which is
+     *            empty if there are no more cars than the offset
+     */
+    public ArrayList<Car> getPage(int offset, int limit)
+    {
+        return openCursor(offset).nextPage(limit);
+    }
+
+    /**
+     * Check whether car view has no car
+     *
+     * @return    a boolean represents whether car view is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return getNumberOfCar(1) == 0;
+    }
+
+    /**
+     * Get number of cars in car view as a collection
+     *
+     * @return    an integer represents number of cars in car view
+     */
+    @Override
+    public int size()
+    {
+        return getNumberOfCar();
+    }
+
+    /**
+     * Get an iterator over cars in car view
+     *
+     * @return    an iterator of Car represents cars in car view
+     */
+    @Override
+    public Iterator<Car> iterator()
+    {
+        return iterator(0);
+    }
+
+    /**
+     * Get an iterator over cars in car view which skips a number of cars.
+     * Without a filter, whole groups are skipped by their size and a list
+     * is entered at the first car to be read, so the cars skipped are not
+     * visited.
+     *
+     * @param  offset  an integer represents number of cars to be skipped
+     * @return    an iterator of Car represents cars in car view after the
+     *            cars skipped
+     */
+    private Iterator<Car> iterator(int offset)
+    {
+        final Iterator<? extends Collection<Car>> groupIterator =
+                carGroups.iterator();
+        Iterator<Car> firstCarIterator = Collections.emptyIterator();
+        int numberToSkip = offset;
+        if (filter == null)
+        {
+            while (numberToSkip > 0 && groupIterator.hasNext())
+            {
+                Collection<Car> thisCarGroup = groupIterator.next();
+                int groupSize = thisCarGroup.size();
+                if (groupSize <= numberToSkip)
+                    numberToSkip = numberToSkip - groupSize;
+                else
+                {
+                    if (thisCarGroup instanceof List)
+                    {
+                        firstCarIterator = ((List<Car>) thisCarGroup)
+                                .listIterator(numberToSkip);
+                        numberToSkip = 0;
+                    }
+                    else
+                        firstCarIterator = thisCarGroup.iterator();
+                    break;
+                }
+            }
+        }
+        final Iterator<Car> startingCarIterator = firstCarIterator;
+        Iterator<Car> carsInView = new Iterator<Car>()
+        {
+            private Iterator<Car> carIterator = startingCarIterator;
+            private Car nextCar = null;
+
+            @Override
+            public boolean hasNext()
+            {
+                while (nextCar == null)
+                {
+                    while (!carIterator.hasNext() && groupIterator.hasNext())
+                        carIterator = groupIterator.next().iterator();
+                    if (!carIterator.hasNext())
+                        return false;
+                    Car thisCar = carIterator.next();
+                    if (filter == null || filter.test(thisCar))
+                        nextCar = thisCar;
+                }
+                return true;
+            }
+
+            @Override
+            public Car next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Car thisCar = nextCar;
+                nextCar = null;
+                return thisCar;
+            }
+        };
+        while (numberToSkip > 0 && carsInView.hasNext())
+        {
+            carsInView.next();
+            numberToSkip--;
+        }
+        return carsInView;
+    }
+
+    /**
+     * Open a cursor which reads cars in car view a page at a time from the
+     * first car
+     *
+     * @return    a CarCursor object represents cursor over cars in car view
+     */
+    public CarCursor openCursor()
+    {
+        return openCursor(0);
+    }
+
+    /**
+     * Open a cursor which reads cars in car view a page at a time, after
+     * skipping a number of cars
+     *
+     * @param  offset  an integer represents number of cars to be skipped
+     * @return    a CarCursor object represents cursor over cars in car view
+     */
+    public CarCursor openCursor(int offset)
+    {
+        return new CarCursor(iterator(Math.max(0, offset)),
+                Math.max(0, offset));
+    }
+}
@@ -1,19 +1,47 @@
 package com.mypackage;
 
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
 
 /**
  * The CarWarehouse class represents a car warehouse object generator. It is
  * used to generate a car warehouse which keeps databases of the used cars
  * and car makers, and produces a report of cars based on some criteria.
+ * Cars found by a search are displayed a page at a time.
+ *
+ * Everything displayed by a car warehouse is written to its output, which
+ * is a buffered writer to the console unless another one is set, and is
+ * flushed before user input is read. The car database returns status codes
+ * and empty views instead of printing, and the car warehouse renders them.
  *
  * @author  Zi Sing Lim
  * @version 1.0 (29.Apr.2021)
  */
 public class CarWarehouse
 {
+    public static final int PAGE_SIZE = 20;
+    public static final String DEFAULT_DATA_DIRECTORY = "data";
+
     private CarDatabase carDatabase;
     private CarMakerDatabase carMakerDatabase;
+    private String dataDirectory;
+    private boolean isJournalSynchronous;
+    private BufferedReader input;
+    private PrintWriter output;
+    private CarValidator validator;
 
     /**
      * Constructor for objects of class CarWarehouse
@@ -22,19 +50,62 @@ public class CarWarehouse
     {
         carDatabase = new CarDatabase();
         carMakerDatabase = new CarMakerDatabase();
+        dataDirectory = DEFAULT_DATA_DIRECTORY;
+        isJournalSynchronous = true;
+        input = newConsoleInput();
+        output = newConsoleOutput();
+        validator = new CarValidator();
         start();
     }
 
     /**
-     * Accept input from user
+     * Constructor for objects of class CarWarehouse which keeps given
+     * databases without starting the menu, such as a car warehouse served
+     * by a CarWarehouseServer
+     *
+     * @param  newCarDatabase  a CarDatabase object represents database of
+     *                         used cars
+     * @param  newCarMakerDatabase  a CarMakerDatabase object represents
+     *                              database of car makers
+     */
+    public CarWarehouse(CarDatabase newCarDatabase,
+                        CarMakerDatabase newCarMakerDatabase)
+    {
+        carDatabase = newCarDatabase;
+        carMakerDatabase = newCarMakerDatabase;
+        dataDirectory = DEFAULT_DATA_DIRECTORY;
+        isJournalSynchronous = true;
+        input = newConsoleInput();
+        output = newConsoleOutput();
+        validator = new CarValidator();
+    }
+
+    /**
+     * Accept a line of input from user. The output is flushed only when
+     * the input has no line ready, so the user sees the prompt while input
+     * which is piped or scripted is read at full speed.
      *
      * @return    a string represents user input
+     * @throws    NoSuchElementException if there is no more input or the
+     *                                   input cannot be read
      */
     public String acceptUserInput()
     {
-        Scanner console = new Scanner(System.in);
-        String input = console.nextLine().trim();
-        return input;
+        try
+        {
+            if (!input.ready())
+                output.flush();
+            String line = input.readLine();
+            if (line == null)
+                throw new NoSuchElementException("Error: there is no more " +
+                        "input");
+            return line.trim();
+        }
+        catch (IOException exception)
+        {
+            throw new NoSuchElementException("Error: input cannot be read (" +
+                    exception + ")");
+        }
     }
 
     /**
@@ -42,19 +113,19 @@ public class CarWarehouse
      */
     public void addNewCar()
     {
-        System.out.println("Please enter the car's attributes as per requested");
-        System.out.print("Registration Number: ");
+        output.println("Please enter the car's attributes as per requested");
+        output.print("Registration Number: ");
         String registrationNumber = acceptUserInput();
         try
         {
             isValidRegistrationNumber(registrationNumber);
             carDatabase.checkDuplicateCar(registrationNumber);
 
-            System.out.print("Year Made: ");
+            output.print("Year Made: ");
             String yearMadeString = acceptUserInput();
             int yearMade = isValidYearMade(yearMadeString);
 
-            System.out.print("Colours (e.g. White,Blue,Red): ");
+            output.print("Colours (e.g. White,Blue,Red): ");
             String colourString = acceptUserInput();
             String[] colours = isValidColours(colourString);
 
@@ -63,21 +134,57 @@ public class CarWarehouse
 
             String carModel = selectCarModel(carMakerFound, "add");
 
-            System.out.print("Price: ");
+            output.print("Price: ");
             String priceString = acceptUserInput();
             int price = isValidPrice(priceString);
 
             Car newCar = new Car(registrationNumber, yearMade, colours,
                     carMaker, carModel, price);
             carDatabase.addCar(newCar);
-            System.out.println();
-            System.out.println("This car is added successfully");
-            newCar.displayCar();
+            output.println();
+            output.println("This car is added successfully");
+            newCar.displayCar(output);
         }
         catch(IllegalArgumentException exception)
         {
-            System.out.println(exception.getMessage());
+            output.println(exception.getMessage());
+        }
+    }
+
+    /**
+     * Check the status of the last check of the validator, so the menu
+     * goes on with a valid input or reports the error of an invalid one
+     *
+     * @param  status  an integer represents status code of the check
+     * @return    an integer represents number parsed by the check
+     * @throws    IllegalArgumentException if the input is not valid
+     */
+    private int check(int status)
+    {
+        if (status != CarStatus.OK)
+            throw new IllegalArgumentException(validator.getMessage());
+        return validator.getNumber();
+    }
+
+    /**
+     * Save cars of car warehouse and close its journal. The car file is
+     * rewritten from the journal, or written directly if the journal
+     * cannot be compacted, and a binary snapshot is written after it.
+     *
+     * @return    a boolean represents whether cars are saved or not, in
+     *            which case the journal is left open
+     */
+    public boolean closeDatabases()
+    {
+        if (carDatabase.compactJournal(false) ||
+                carDatabase.writeCarFile(getDataFilename("usedcars.txt")))
+        {
+            carDatabase.closeJournal();
+            carDatabase.writeCarSnapshot(getDataFilename
+                    ("usedcars.snapshot"));
+            return true;
         }
+        return false;
     }
 
     /**
@@ -87,7 +194,8 @@ public class CarWarehouse
     {
         Car carFound = searchByRegistrationNumber();
         if (carFound != null)
-            carDatabase.deleteCar(carFound);
+            displayStatus(carDatabase.deleteCar(carFound),
+                    "This car is deleted successfully");
     }
 
     /**
@@ -95,11 +203,46 @@ public class CarWarehouse
      */
     public void displayCarEditOption()
     {
-        System.out.println();
-        System.out.println("Car attributes that can be edited: ");
-        System.out.println("(1) Colour");
-        System.out.println("(2) Price");
-        System.out.print("Choose a car attribute option: ");
+        output.println();
+        output.println("Car attributes that can be edited: ");
+        output.println("(1) Colour");
+        output.println("(2) Price");
+        output.print("Choose a car attribute option: ");
+    }
+
+    /**
+     * Display cars found by a search a page at a time. Only the cars of a
+     * page are read before it is displayed, and the user is asked whether
+     * to go on after each full page.
+     *
+     * @param  carsFound  a CarView object represents cars found
+     */
+    public void displayCarPages(CarView carsFound)
+    {
+        int numberOfCar = carsFound.getNumberOfCar(PAGE_SIZE + 1);
+        if (numberOfCar > PAGE_SIZE)
+            output.println("More than " + PAGE_SIZE + " cars found!");
+        else
+            output.println(numberOfCar + " car(s) found!");
+        CarCursor cursor = carsFound.openCursor();
+        boolean isNextPage = true;
+        while (isNextPage)
+        {
+            int number = cursor.getNumberOfCarRead();
+            for (Car thisCar: cursor.nextPage(PAGE_SIZE))
+            {
+                number++;
+                thisCar.displayCar(output);
+                output.println("(Car " + number + " Information)");
+            }
+            isNextPage = false;
+            if (cursor.hasNext())
+            {
+                output.print("Show the next " + PAGE_SIZE + " cars? " +
+                        "(Y/N): ");
+                isNextPage = acceptUserInput().equalsIgnoreCase("Y");
+            }
+        }
     }
 
     /**
@@ -107,15 +250,16 @@ public class CarWarehouse
      */
     public void displayCarSearchingMenu()
     {
-        System.out.println();
-        System.out.println("Car Searching Options:");
-        System.out.println("======================");
-        System.out.println("(1) By Registration Number");
-        System.out.println("(2) By Car Make and Car Model");
-        System.out.println("(3) By Car Age");
-        System.out.println("(4) By Price (range)");
-        System.out.println("(5) Back to Main Menu");
-        System.out.print("Choose a car searching option: ");
+        output.println();
+        output.println("Car Searching Options:");
+        output.println("======================");
+        output.println("(1) By Registration Number");
+        output.println("(2) By Car Make and Car Model");
+        output.println("(3) By Car Age");
+        output.println("(4) By Price (range)");
+        output.println("(5) By Multiple Criteria");
+        output.println("(6) Back to Main Menu");
+        output.print("Choose a car searching option: ");
     }
 
     /**
@@ -123,15 +267,31 @@ public class CarWarehouse
      */
     public void displayMainMenu()
     {
-        System.out.println();
-        System.out.println("Welcome to Used Car Warehouse Database System");
-        System.out.println("=============================================");
-        System.out.println("(1) Search Cars");
-        System.out.println("(2) Add Car");
-        System.out.println("(3) Delete Car");
-        System.out.println("(4) Edit Car");
-        System.out.println("(5) Exit System");
-        System.out.print("Choose an option: ");
+        output.println();
+        output.println("Welcome to Used Car Warehouse Database System");
+        output.println("=============================================");
+        output.println("(1) Search Cars");
+        output.println("(2) Add Car");
+        output.println("(3) Delete Car");
+        output.println("(4) Edit Car");
+        output.println("(5) Exit System");
+        output.print("Choose an option: ");
+    }
+
+    /**
+     * Display status of a change of car database
+     *
+     * @param  status  an integer represents status code of CarStatus
+     * @param  successMessage  a string represents message displayed if the
+     *                         change is done
+     */
+    public void displayStatus(int status, String successMessage)
+    {
+        output.println();
+        if (status == CarStatus.OK)
+            output.println(successMessage);
+        else
+            output.println(CarStatus.getMessage(status));
     }
 
     /**
@@ -151,11 +311,11 @@ public class CarWarehouse
                     editExistingCarColour(carFound);
                 else
                     editExistingCarPrice(carFound);
-                carFound.displayCar();
+                carFound.displayCar(output);
             }
             catch(IllegalArgumentException exception)
             {
-                System.out.println(exception.getMessage());
+                output.println(exception.getMessage());
             }
         }
     }
@@ -167,10 +327,11 @@ public class CarWarehouse
      */
     public void editExistingCarColour(Car car)
     {
-        System.out.print("Please enter new colours: ");
+        output.print("Please enter new colours: ");
         String colourString = acceptUserInput();
         String[] colours = isValidColours(colourString);
-        carDatabase.editCarColour(car, colours);
+        displayStatus(carDatabase.editCarColour(car, colours),
+                "This car colour is edited successfully");
     }
 
     /**
@@ -180,10 +341,53 @@ public class CarWarehouse
      */
     public void editExistingCarPrice(Car car)
     {
-        System.out.print("Please enter new price: ");
+        output.print("Please enter new price: ");
         String priceString = acceptUserInput();
         int price = isValidPrice(priceString);
-        carDatabase.editCarPrice(car, price);
+        displayStatus(carDatabase.editCarPrice(car, price),
+                "This car price is edited successfully");
+    }
+
+    /**
+     * Get database of used cars of car warehouse
+     *
+     * @return    a CarDatabase object represents database of used cars
+     */
+    public CarDatabase getCarDatabase()
+    {
+        return carDatabase;
+    }
+
+    /**
+     * Get database of car makers of car warehouse
+     *
+     * @return    a CarMakerDatabase object represents database of car
+     *            makers
+     */
+    public CarMakerDatabase getCarMakerDatabase()
+    {
+        return carMakerDatabase;
+    }
+
+    /**
+     * Get filename of a file in the data directory of car warehouse
+     *
+     * @param  name  a string represents name of file
+     * @return    a string represents filename of file
+     */
+    private String getDataFilename(String name)
+    {
+        return new File(dataDirectory, name).getPath();
+    }
+
+    /**
+     * Get output which everything displayed by car warehouse is written to
+     *
+     * @return    a PrintWriter object represents output of car warehouse
+     */
+    public PrintWriter getOutput()
+    {
+        return output;
     }
 
     /**
@@ -195,15 +399,8 @@ public class CarWarehouse
      */
     public int isValidAge(String userInput)
     {
-        int age = isValidNumber(userInput);
-        int currentYear = 2021;
-        int maximumAge = currentYear - 1950;
-        int minimumAge = currentYear - currentYear;
-        if (age < minimumAge || age > maximumAge)
-            throw new IllegalArgumentException("Error: age must be between " +
-                    minimumAge + " and " +
-                    maximumAge + " (both inclusive)");
-        return age;
+        return check(validator.checkAge(userInput,
+                carDatabase.getCurrentYear()));
     }
 
     /**
@@ -215,24 +412,8 @@ public class CarWarehouse
      */
     public String[] isValidColours(String userInput)
     {
-        if (userInput.length() == 0)
-        {
-            throw new IllegalArgumentException("Error: colour(s) must not be " +
-                    "blank");
-        }
-        String[] temporaryColours = userInput.split(",");
-        if (temporaryColours.length > 3)
-        {
-            throw new IllegalArgumentException("Error: a car can only have " +
-                    "maximum 3 colours");
-        }
-        String[] colours = new String[3];
-        for (int index = 0; index < temporaryColours.length; index++)
-            colours[index] = temporaryColours[index].trim();
-        for (int index = 0; index < colours.length; index++)
-            if (colours[index] == null)
-                colours[index] = "";
-        return colours;
+        check(validator.checkColours(userInput));
+        return validator.getColours();
     }
 
     /**
@@ -244,11 +425,7 @@ public class CarWarehouse
      */
     public int isValidEditOption(String userInput)
     {
-        int option = isValidNumber(userInput);
-        if (option < 1 || option > 2)
-            throw new IllegalArgumentException("Error: your choice must be " +
-                    "between 1-2");
-        return option;
+        return check(validator.checkOption(userInput, 2));
     }
 
     /**
@@ -261,12 +438,7 @@ public class CarWarehouse
      */
     public int isValidMaximumPrice(int minimumPrice, String userInput)
     {
-        int maximumPrice = isValidNumber(userInput);
-        if (maximumPrice < minimumPrice || maximumPrice > 30000)
-            throw new IllegalArgumentException("Error: maximum price must be " +
-                    "between " + minimumPrice +
-                    " and 30000 (both inclusive)");
-        return maximumPrice;
+        return check(validator.checkMaximumPrice(minimumPrice, userInput));
     }
 
     /**
@@ -278,20 +450,7 @@ public class CarWarehouse
      */
     public int isValidNumber(String userInput)
     {
-        if (userInput.length() == 0 || userInput.length() > 10)
-            throw new IllegalArgumentException("Error: Please enter a valid " +
-                    "input");
-        int index = 0;
-        while (index < userInput.length())
-        {
-            char thisCharacter = userInput.charAt(index);
-            if (!Character.isDigit(thisCharacter))
-                throw new IllegalArgumentException("Error: Please enter a " +
-                        "valid number");
-            index++;
-        }
-        int inputNumber = Integer.parseInt(userInput);
-        return inputNumber;
+        return check(validator.checkNumber(userInput));
     }
 
     /**
@@ -303,11 +462,19 @@ public class CarWarehouse
      */
     public int isValidOption(String userInput)
     {
-        int option = isValidNumber(userInput);
-        if (option < 1 || option > 5)
-            throw new IllegalArgumentException("Error: your choice must be " +
-                    "between 1-5");
-        return option;
+        return check(validator.checkOption(userInput, 5));
+    }
+
+    /**
+     * Validates whether user input is a valid search option or not
+     *
+     * @param  userInput  a string represents user input
+     * @return    an integer represents valid user input search option
+     * @throws    IllegalArgumentException if user input is not valid
+     */
+    public int isValidSearchOption(String userInput)
+    {
+        return check(validator.checkOption(userInput, 6));
     }
 
     /**
@@ -319,12 +486,7 @@ public class CarWarehouse
      */
     public int isValidPrice(String userInput)
     {
-        int price = isValidNumber(userInput);
-        if (price < 500 || price > 30000)
-            throw new IllegalArgumentException("Error: price must be " +
-                    "between 500 and 30000 " +
-                    "(both inclusive)");
-        return price;
+        return check(validator.checkPrice(userInput));
     }
 
     /**
@@ -338,25 +500,7 @@ public class CarWarehouse
      */
     public boolean isValidRegistrationNumber(String userInput)
     {
-        if (userInput.length() == 0 || userInput.length() > 6)
-        {
-            throw new IllegalArgumentException("Error: registration number " +
-                    "must not be blank and must " +
-                    "only have maximum 6 characters");
-        }
-        int index = 0;
-        while (index < userInput.length())
-        {
-            char thisCharacter = userInput.charAt(index);
-            if (!Character.isDigit(thisCharacter) &&
-                    !Character.isLetter(thisCharacter))
-            {
-                throw new IllegalArgumentException("Error: registration " +
-                        "number must be numeric/" +
-                        "alphabetic (e.g. 8RT2WT)");
-            }
-            index++;
-        }
+        check(validator.checkRegistrationNumber(userInput));
         return true;
     }
 
@@ -369,13 +513,125 @@ public class CarWarehouse
      */
     public int isValidYearMade(String userInput)
     {
-        int yearMade = isValidNumber(userInput);
-        int currentYear = 2021;
-        if (yearMade < 1950 || yearMade > currentYear)
-            throw new IllegalArgumentException("Error: year made of a car " +
-                    "must be between 1950 and " +
-                    currentYear + " (both inclusive)");
-        return yearMade;
+        return check(validator.checkYearMade(userInput,
+                carDatabase.getCurrentYear()));
+    }
+
+    /**
+     * Load cars into car warehouse. The binary snapshot is loaded when it
+     * is at least as new as the car file, since it loads much faster, and
+     * the car file is imported otherwise.
+     */
+    public void loadCars()
+    {
+        File carFile = new File(dataDirectory, "usedcars.txt");
+        File snapshot = new File(dataDirectory, "usedcars.snapshot");
+        if (snapshot.isFile() &&
+                snapshot.lastModified() >= carFile.lastModified())
+        {
+            if (carDatabase.readCarSnapshot(snapshot.getPath()))
+                return;
+            carDatabase.setCars(new ArrayList<>());
+        }
+        carDatabase.importCarFile(carFile.getPath());
+    }
+
+    /**
+     * Make a buffered input from the console, which is kept for the whole
+     * session so no input read ahead into its buffer is lost
+     *
+     * @return    a BufferedReader object represents input from the console
+     */
+    private static BufferedReader newConsoleInput()
+    {
+        return new BufferedReader(new InputStreamReader(System.in));
+    }
+
+    /**
+     * Make a buffered output to the console
+     *
+     * @return    a PrintWriter object represents output to the console
+     */
+    private static PrintWriter newConsoleOutput()
+    {
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter
+                (System.out)));
+    }
+
+    /**
+     * Read car makers and cars of car warehouse, and open the journal of
+     * changes of cars
+     */
+    public void openDatabases()
+    {
+        carMakerDatabase.readCarMakerFile(getDataFilename("carmakers.txt"));
+        carDatabase.indexCarMakers(carMakerDatabase);
+        loadCars();
+        carDatabase.openJournal(getDataFilename("usedcars.journal"),
+                getDataFilename("usedcars.txt"), isJournalSynchronous);
+    }
+
+    /**
+     * Replay a script of user input through the menu of a car warehouse,
+     * without waiting for a user, such as for a regression run of many
+     * operations. The script has one line of input per line, as it would
+     * be typed in the console, and everything displayed is written to the
+     * console. The car warehouse is closed when the script ends.
+     *
+     * The script is run against the files of a data directory. If none is
+     * given, the files of the default data directory are copied into a new
+     * temporary directory first, which is deleted afterwards, so the script
+     * can be run again from the same cars and never changes them. The
+     * journal is not forced to disk after every change, since a script
+     * which is cut off can be run again.
+     *
+     * @param  scriptFilename  a string represents name of script file
+     * @param  newDataDirectory  a string represents directory of car files,
+     *                           or null to run against a copy of the
+     *                           default data directory
+     * @throws    IOException if the script cannot be opened or the data
+     *            directory cannot be copied
+     */
+    public static void replay(String scriptFilename, String newDataDirectory)
+            throws IOException
+    {
+        Path copy = null;
+        if (newDataDirectory == null)
+        {
+            copy = Files.createTempDirectory("carwarehouse");
+            try (DirectoryStream<Path> dataFiles = Files.newDirectoryStream
+                    (Paths.get(DEFAULT_DATA_DIRECTORY)))
+            {
+                for (Path thisDataFile: dataFiles)
+                    if (Files.isRegularFile(thisDataFile))
+                        Files.copy(thisDataFile, copy.resolve
+                                (thisDataFile.getFileName()));
+            }
+            newDataDirectory = copy.toString();
+        }
+        try (BufferedReader script = Files.newBufferedReader(Paths.get
+                (scriptFilename), StandardCharsets.UTF_8))
+        {
+            CarWarehouse carWarehouse = new CarWarehouse(new CarDatabase(),
+                    new CarMakerDatabase());
+            carWarehouse.setDataDirectory(newDataDirectory);
+            carWarehouse.setJournalSynchronous(false);
+            carWarehouse.setInput(script);
+            carWarehouse.start();
+        }
+        finally
+        {
+            if (copy != null)
+            {
+                try (DirectoryStream<Path> copiedFiles =
+                        Files.newDirectoryStream(copy))
+                {
+                    for (Path thisCopiedFile: copiedFiles)
+                        Files.delete(thisCopiedFile);
+                }
+                Files.delete(copy);
+            }
+        }
     }
 
     /**
@@ -383,19 +639,23 @@ public class CarWarehouse
      */
     public void searchByAge()
     {
-        System.out.print("Please enter the maximum age of cars you want " +
+        output.print("Please enter the maximum age of cars you want " +
                 "to search: ");
         String ageString = acceptUserInput();
         try
         {
             int age = isValidAge(ageString);
-            CarDatabase carsFound = carDatabase.getCarsByAge(age);
-            System.out.println(carsFound.getNumberOfCar() + " car(s) found!");
-            carsFound.displayCars();
+            CarView carsFound = carDatabase.getCarsInAgeRange
+                    (Integer.MIN_VALUE, age);
+            if (carsFound.isEmpty())
+                output.println("There is no car younger than or equal to " +
+                        "this age in the warehouse currently");
+            else
+                displayCarPages(carsFound);
         }
         catch(IllegalArgumentException exception)
         {
-            System.out.println(exception.getMessage());
+            output.println(exception.getMessage());
         }
     }
 
@@ -410,16 +670,97 @@ public class CarWarehouse
             String carModelFound = selectCarModel(carMakerFound, "search");
 
             String carMakerName = carMakerFound.getName();
-            System.out.println(carModelFound + " from " + carMakerName +
+            output.println(carModelFound + " from " + carMakerName +
                     " is selected");
-            CarDatabase carsFound = carDatabase.getCarsByMakerAndModel
+            CarView carsFound = carDatabase.getCarsOfMakerAndModel
                     (carMakerName, carModelFound);
-            System.out.println(carsFound.getNumberOfCar() + " car(s) found!");
-            carsFound.displayCars();
+            if (carsFound.isEmpty())
+                output.println("There is no car with this car maker and " +
+                        "model in the warehouse currently");
+            else
+                displayCarPages(carsFound);
         }
         catch(IllegalArgumentException exception)
         {
-            System.out.println(exception.getMessage());
+            output.println(exception.getMessage());
+        }
+    }
+
+    /**
+     * Search cars by multiple criteria in car warehouse. Each criterion can
+     * be left blank to match every car, and the cheapest or newest cars
+     * can be asked for first.
+     */
+    public void searchByMultipleCriteria()
+    {
+        CarQuery query = new CarQuery();
+        try
+        {
+            output.print("Do you want to search by car maker? (Y/N): ");
+            if (acceptUserInput().equalsIgnoreCase("Y"))
+            {
+                CarMaker carMakerFound = selectCarMaker();
+                query.setCarMaker(carMakerFound.getName());
+                query.setCarModel(selectCarModel(carMakerFound, "search"));
+            }
+
+            output.print("Please enter the minimum price (leave blank " +
+                    "for any): ");
+            String minimumPriceString = acceptUserInput();
+            if (minimumPriceString.length() > 0)
+            {
+                int minimumPrice = isValidPrice(minimumPriceString);
+                output.print("Please enter the maximum price: ");
+                String maximumPriceString = acceptUserInput();
+                int maximumPrice = isValidMaximumPrice(minimumPrice,
+                        maximumPriceString);
+                query.setPriceRange(minimumPrice, maximumPrice);
+            }
+
+            output.print("Please enter the maximum age (leave blank " +
+                    "for any): ");
+            String ageString = acceptUserInput();
+            if (ageString.length() > 0)
+                query.setAgeRange(Integer.MIN_VALUE, isValidAge(ageString));
+
+            output.print("Please enter colours, any of which a car " +
+                    "may have (e.g. White,Blue, leave blank for any): ");
+            query.setColour(acceptUserInput());
+
+            output.print("Please enter the order of cars, P for " +
+                    "cheapest first or N for newest first (leave blank " +
+                    "for any): ");
+            String orderString = acceptUserInput();
+            if (orderString.equalsIgnoreCase("P"))
+                query.setOrder(CarQuery.ORDER_BY_PRICE, true);
+            else if (orderString.equalsIgnoreCase("N"))
+                query.setOrder(CarQuery.ORDER_BY_YEAR_MADE, false);
+            else if (orderString.length() > 0)
+                throw new IllegalArgumentException("Error: order must be " +
+                        "P, N or blank");
+
+            CarView carsFound;
+            if (query.hasOrder())
+            {
+                output.print("Please enter the number of cars you " +
+                        "want to see: ");
+                int limit = isValidNumber(acceptUserInput());
+                if (limit < 1)
+                    throw new IllegalArgumentException("Error: number of " +
+                            "cars must be at least 1");
+                carsFound = carDatabase.findCars(query, limit);
+            }
+            else
+                carsFound = carDatabase.findCars(query);
+            if (carsFound.isEmpty())
+                output.println("There is no car matching these criteria " +
+                        "in the warehouse currently");
+            else
+                displayCarPages(carsFound);
+        }
+        catch(IllegalArgumentException exception)
+        {
+            output.println(exception.getMessage());
         }
     }
 
@@ -428,26 +769,28 @@ public class CarWarehouse
      */
     public void searchByPrice()
     {
-        System.out.print("Please enter the minimum price of cars you want " +
+        output.print("Please enter the minimum price of cars you want " +
                 "to search: ");
         String minimumPriceString = acceptUserInput();
         try
         {
             int minimumPrice = isValidPrice(minimumPriceString);
 
-            System.out.print("Please enter the maximum price of cars you " +
+            output.print("Please enter the maximum price of cars you " +
                     "want to search: ");
             String maximumPriceString = acceptUserInput();
             int maximumPrice = isValidMaximumPrice(minimumPrice, maximumPriceString);
 
-            CarDatabase carsFound = carDatabase.getCarsByPrice
+            CarView carsFound = carDatabase.getCarsInPriceRange
                     (minimumPrice, maximumPrice);
-            System.out.println(carsFound.getNumberOfCar() + " car(s) found!");
-            carsFound.displayCars();
+            if (carsFound.isEmpty())
+                output.println("There is no car within this price range");
+            else
+                displayCarPages(carsFound);
         }
         catch(IllegalArgumentException exception)
         {
-            System.out.println(exception.getMessage());
+            output.println(exception.getMessage());
         }
     }
 
@@ -461,21 +804,26 @@ public class CarWarehouse
         boolean isValidInput = false;
         while(!isValidInput)
         {
-            System.out.print("Please enter a valid registration " +
+            output.print("Please enter a valid registration " +
                     "number: ");
             String registrationNumber = acceptUserInput();
             try
             {
                 isValidInput = isValidRegistrationNumber(registrationNumber);
-                Car carFound = carDatabase.getCarByRegistrationNumber
-                        (registrationNumber);
-                System.out.println("Car found!");
-                carFound.displayCar();
-                return carFound;
+                Car carFound = carDatabase.findCar(registrationNumber);
+                if (carFound == null)
+                    output.println(CarStatus.getMessage
+                            (CarStatus.NO_SUCH_CAR));
+                else
+                {
+                    output.println("Car found!");
+                    carFound.displayCar(output);
+                    return carFound;
+                }
             }
             catch(IllegalArgumentException exception)
             {
-                System.out.println(exception.getMessage());
+                output.println(exception.getMessage());
             }
         }
         return null;
@@ -493,7 +841,7 @@ public class CarWarehouse
             String userInput = acceptUserInput();
             try
             {
-                int option = isValidOption(userInput);
+                int option = isValidSearchOption(userInput);
                 switch (option)
                 {
                     case 1:
@@ -509,6 +857,9 @@ public class CarWarehouse
                         searchByPrice();
                         break;
                     case 5:
+                        searchByMultipleCriteria();
+                        break;
+                    case 6:
                         exit = true;
                         break;
                     default:
@@ -517,7 +868,7 @@ public class CarWarehouse
             }
             catch(IllegalArgumentException exception)
             {
-                System.out.println(exception.getMessage());
+                output.println(exception.getMessage());
             }
         }
     }
@@ -529,8 +880,8 @@ public class CarWarehouse
      */
     public CarMaker selectCarMaker()
     {
-        carMakerDatabase.displayCarMakers();
-        System.out.print("Choose a car maker option: ");
+        carMakerDatabase.displayCarMakers(output);
+        output.print("Choose a car maker option: ");
         String carMakerInput = acceptUserInput();
         int carMakerNumber = isValidNumber(carMakerInput);
         CarMaker carMakerFound = carMakerDatabase.getCarMaker(carMakerNumber);
@@ -548,14 +899,14 @@ public class CarWarehouse
      */
     public String selectCarModel(CarMaker carMaker, String mode)
     {
-        carMaker.displayAvailableModels();
+        carMaker.displayAvailableModels(output);
         if (mode.equalsIgnoreCase("search"))
         {
-            System.out.println("Special Option (0) - ANY");
-            System.out.println("Choose Option (0) if you want to search all " +
+            output.println("Special Option (0) - ANY");
+            output.println("Choose Option (0) if you want to search all " +
                     carMaker.getName() + " models from the database");
         }
-        System.out.print("Choose a car maker option: ");
+        output.print("Choose a car maker option: ");
         String carModelInput = acceptUserInput();
         int carModelNumber = isValidNumber(carModelInput);
         String carModelFound = carMaker.getModel(carModelNumber);
@@ -563,21 +914,79 @@ public class CarWarehouse
     }
 
     /**
-     * Start to perform operations in car warehouse
+     * Set directory which car makers, cars and the journal of car warehouse
+     * are read from and written to
+     *
+     * @param  newDataDirectory  a string represents data directory
+     */
+    public void setDataDirectory(String newDataDirectory)
+    {
+        if (newDataDirectory == null || newDataDirectory.trim().length() == 0)
+            output.println("Error: data directory must not be blank");
+        else
+            dataDirectory = newDataDirectory;
+    }
+
+    /**
+     * Set input which every line of user input is read from
+     *
+     * @param  newInput  a BufferedReader object represents input of car
+     *                   warehouse
+     */
+    public void setInput(BufferedReader newInput)
+    {
+        if (newInput == null)
+            output.println("Error: input must not be blank");
+        else
+            input = newInput;
+    }
+
+    /**
+     * Set whether every change is forced to disk by the journal before it
+     * returns, which is the default. Changes are faster without it, but the
+     * last of them may be lost if the machine crashes.
+     *
+     * @param  newIsJournalSynchronous  a boolean represents whether the
+     *                                  journal is synchronous or not
+     */
+    public void setJournalSynchronous(boolean newIsJournalSynchronous)
+    {
+        isJournalSynchronous = newIsJournalSynchronous;
+    }
+
+    /**
+     * Set output which everything displayed by car warehouse is written to
+     *
+     * @param  newOutput  a PrintWriter object represents output of car
+     *                    warehouse
+     */
+    public void setOutput(PrintWriter newOutput)
+    {
+        if (newOutput == null)
+            output.println("Error: output must not be blank");
+        else
+        {
+            output.flush();
+            output = newOutput;
+        }
+    }
+
+    /**
+     * Start to perform operations in car warehouse until the user exits or
+     * the input ends, in which case car warehouse is closed as if the user
+     * exits
      */
     public void start()
     {
-        carDatabase.readCarFile("data/usedcars.txt");
-        carMakerDatabase.readCarMakerFile("data/carmakers.txt");
+        openDatabases();
 
         boolean exit = false;
         while (!exit)
         {
             displayMainMenu();
-            String userInput = acceptUserInput();
             try
             {
-                int option = isValidOption(userInput);
+                int option = isValidOption(acceptUserInput());
                 switch (option)
                 {
                     case 1:
@@ -593,8 +1002,11 @@ public class CarWarehouse
                         editCar();
                         break;
                     case 5:
-                        carDatabase.writeCarFile("data/usedcars.txt");
-                        exit = true;
+                        if (closeDatabases())
+                            exit = true;
+                        else
+                            output.println("Changes are not saved, " +
+                                    "please try again");
                         break;
                     default:
                         break;
@@ -602,9 +1014,23 @@ public class CarWarehouse
             }
             catch(IllegalArgumentException exception)
             {
-                System.out.println(exception.getMessage());
+                output.println(exception.getMessage());
+            }
+            catch(UncheckedIOException exception)
+            {
+                output.println("Error: this change cannot be saved (" +
+                        exception.getCause() + ")");
+            }
+            catch(NoSuchElementException exception)
+            {
+                output.println();
+                output.println(exception.getMessage());
+                if (!closeDatabases())
+                    output.println("Changes are not saved");
+                exit = true;
             }
         }
+        output.flush();
     }
 }
 
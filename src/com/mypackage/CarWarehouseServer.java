@@ -0,0 +1,718 @@
+package com.mypackage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The CarWarehouseServer class represents a car warehouse server object
+ * generator. It is used to generate an HTTP server which serves the cars
+ * and car makers of a car warehouse as JSON, so that other programs such as
+ * a dealer portal can search, add, edit and delete cars while the data is
+ * kept in one place.
+ * <pre>
+ *     GET    /cars                   search cars, by the parameters
+ *                                    carMaker, carModel, minPrice, maxPrice,
+ *                                    minAge, maxAge, colour, orderBy (price
+ *                                    or yearMade), order (asc or desc),
+ *                                    limit and after
+ *     POST   /cars                   add a car
+ *     GET    /cars/{registration}    get a car
+ *     PUT    /cars/{registration}    edit price and/or colours of a car
+ *     DELETE /cars/{registration}    delete a car
+ *     GET    /carmakers              list car makers and their models
+ * </pre>
+ * Each request is handled on its own virtual thread when the Java runtime
+ * has them, and on a fixed pool of threads otherwise. The car database
+ * must be in concurrent mode. Cars found are written to the response one
+ * at a time as the search is read, a page at a time, so a response never
+ * builds a string of all its cars. Cars are found in order of price unless
+ * ordered by year made, and then of registration number. A page which is
+ * not the last ends with the resume key of its last car, its price or
+ * year made and its registration number, which is given as after to get
+ * the next page, so no page reads the cars of the pages before it.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarWarehouseServer
+{
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAXIMUM_LIMIT = 1000;
+    public static final int BACKLOG = 4096;
+    public static final int MAXIMUM_BODY_SIZE = 65536;
+    public static final int MAXIMUM_PORT = 65535;
+    public static final int THREADS_PER_PROCESSOR = 32;
+
+    private CarDatabase carDatabase;
+    private CarMakerDatabase carMakerDatabase;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructor for objects of class CarWarehouseServer
+     *
+     * @param  newCarWarehouse  a CarWarehouse object represents car
+     *                          warehouse to be served, whose car database
+     *                          is in concurrent mode
+     * @throws    IllegalArgumentException if the car database is not in
+     *            concurrent mode
+     */
+    public CarWarehouseServer(CarWarehouse newCarWarehouse)
+    {
+        if (!newCarWarehouse.getCarDatabase().isConcurrent())
+            throw new IllegalArgumentException("Error: a car database must " +
+                    "be in concurrent mode to be served");
+        carDatabase = newCarWarehouse.getCarDatabase();
+        carMakerDatabase = newCarWarehouse.getCarMakerDatabase();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Add a car from the JSON object of a request
+     *
+     * @param  exchange  an HttpExchange object represents request and
+     *                   response
+     * @throws    IOException if the request cannot be read or the response
+     *            cannot be written
+     */
+    private void addCar(HttpExchange exchange) throws IOException
+    {
+        Map<String, Object> attributes = readBody(exchange);
+        String registrationNumber = getString(attributes,
+                "registrationNumber");
+        CarValidator validator = new CarValidator();
+        if (validator.checkCar(registrationNumber, getNumber(attributes,
+                "yearMade"), getColours(attributes), getString
+                (attributes, "carMaker"), getString(attributes, "carModel"),
+                getNumber(attributes, "price"), carDatabase.getCurrentYear())
+                != CarStatus.OK)
+        {
+            sendError(exchange, 400, validator.getMessage());
+            return;
+        }
+        if (carDatabase.findCar(registrationNumber) != null)
+        {
+            sendError(exchange, 400, CarStatus.getMessage
+                    (CarStatus.DUPLICATE_CAR));
+            return;
+        }
+        CarMaker carMaker = findCarMaker(getString(attributes, "carMaker"));
+        String carModel = findCarModel(carMaker, getString(attributes,
+                "carModel"));
+        Car newCar = new Car(registrationNumber, validator.getYearMade(),
+                validator.getColours(), carMaker.getName(), carModel,
+                validator.getPrice());
+        int status = carDatabase.tryAddCar(newCar);
+        if (status == CarStatus.OK)
+            sendCar(exchange, 201, newCar);
+        else
+            sendError(exchange, 400, CarStatus.getMessage(status));
+    }
+
+    /**
+     * Delete a car
+     *
+     * @param  exchange  an HttpExchange object represents request and
+     *                   response
+     * @param  car  a Car object represents car to be deleted
+     * @throws    IOException if the response cannot be written
+     */
+    private void deleteCar(HttpExchange exchange, Car car) throws IOException
+    {
+        int status = carDatabase.deleteCar(car);
+        if (status == CarStatus.OK)
+            exchange.sendResponseHeaders(204, -1);
+        else
+            sendError(exchange, 404, CarStatus.getMessage(status));
+    }
+
+    /**
+     * Edit price and/or colours of a car from the JSON object of a request.
+     * Both are applied as one batch, so they are journaled as one record
+     * and either both are edited or neither is.
+     *
+     * @param  exchange  an HttpExchange object represents request and
+     *                   response
+     * @param  registrationNumber  a string represents registration number
+     *                             of car to be edited
+     * @throws    IOException if the request cannot be read or the response
+     *            cannot be written
+     */
+    private void editCar(HttpExchange exchange, String registrationNumber)
+            throws IOException
+    {
+        Map<String, Object> attributes = readBody(exchange);
+        if (!attributes.containsKey("price") &&
+                !attributes.containsKey("colours"))
+            throw new IllegalArgumentException("Error: price or colours " +
+                    "must be given");
+        CarValidator validator = new CarValidator();
+        if ((attributes.containsKey("price") && validator.checkPrice
+                (getNumber(attributes, "price")) != CarStatus.OK) ||
+                (attributes.containsKey("colours") && validator.checkColours
+                (getColours(attributes)) != CarStatus.OK))
+        {
+            sendError(exchange, 400, validator.getMessage());
+            return;
+        }
+        CarBatch batch = new CarBatch();
+        if (attributes.containsKey("price"))
+            batch.editCarPrice(registrationNumber, validator.getPrice());
+        if (attributes.containsKey("colours"))
+            batch.editCarColour(registrationNumber, validator.getColours());
+        try
+        {
+            carDatabase.applyBatch(batch);
+        }
+        catch (IllegalArgumentException exception)
+        {
+            if (carDatabase.findCar(registrationNumber) != null)
+                throw exception;
+        }
+        Car car = carDatabase.findCar(registrationNumber);
+        if (car == null)
+            sendError(exchange, 404, CarStatus.getMessage
+                    (CarStatus.NO_SUCH_CAR));
+        else
+            sendCar(exchange, 200, car);
+    }
+
+    /**
+     * Find a car maker by name, which is compared case insensitively
+     *
+     * @param  name  a string represents name of car maker
+     * @return    a CarMaker object represents car maker found
+     * @throws    IllegalArgumentException if there is no such car maker
+     */
+    private CarMaker findCarMaker(String name)
+    {
+        for (CarMaker thisCarMaker: carMakerDatabase.getCarMakers())
+            if (thisCarMaker.getName().equalsIgnoreCase(name))
+                return thisCarMaker;
+        throw new IllegalArgumentException("Error: there is no car maker " +
+                "named " + name);
+    }
+
+    /**
+     * Find an available model of a car maker by name, which is compared
+     * case insensitively
+     *
+     * @param  carMaker  a CarMaker object represents car maker
+     * @param  name  a string represents name of car model
+     * @return    a string represents car model found
+     * @throws    IllegalArgumentException if the car maker has no such
+     *            model
+     */
+    private String findCarModel(CarMaker carMaker, String name)
+    {
+        for (String thisModel: carMaker.getAvailableModels())
+            if (thisModel.equalsIgnoreCase(name))
+                return thisModel;
+        throw new IllegalArgumentException("Error: " + carMaker.getName() +
+                " has no model named " + name);
+    }
+
+    /**
+     * Find cars by the parameters of a request, and write a page of them
+     * to the response as they are read
+     *
+     * @param  exchange  an HttpExchange object represents request and
+     *                   response
+     * @throws    IOException if the response cannot be written
+     */
+    private void findCars(HttpExchange exchange) throws IOException
+    {
+        Map<String, String> parameters = readParameters(exchange);
+        CarValidator validator = new CarValidator();
+        CarQuery query = new CarQuery();
+        query.setCarMaker(parameters.get("carMaker"));
+        query.setCarModel(parameters.get("carModel"));
+        query.setColour(parameters.get("colour"));
+        int minimumPrice = getNumber(parameters, "minPrice", 0, validator);
+        int maximumPrice = getNumber(parameters, "maxPrice",
+                Integer.MAX_VALUE, validator);
+        int minimumAge = getNumber(parameters, "minAge", 0, validator);
+        int maximumAge = getNumber(parameters, "maxAge", Integer.MAX_VALUE,
+                validator);
+        if (minimumPrice > maximumPrice || minimumAge > maximumAge)
+            throw new IllegalArgumentException("Error: minimum must not be " +
+                    "greater than maximum");
+        if (parameters.containsKey("minPrice") ||
+                parameters.containsKey("maxPrice"))
+            query.setPriceRange(minimumPrice, maximumPrice);
+        if (parameters.containsKey("minAge") ||
+                parameters.containsKey("maxAge"))
+            query.setAgeRange(minimumAge, maximumAge);
+        boolean isAscending = !"desc".equalsIgnoreCase(parameters.get
+                ("order"));
+        String orderBy = parameters.get("orderBy");
+        if (orderBy == null || "price".equalsIgnoreCase(orderBy))
+            query.setOrder(CarQuery.ORDER_BY_PRICE, isAscending);
+        else if ("yearMade".equalsIgnoreCase(orderBy))
+            query.setOrder(CarQuery.ORDER_BY_YEAR_MADE, isAscending);
+        else
+            throw new IllegalArgumentException("Error: cars can only be " +
+                    "ordered by price or yearMade");
+        if (parameters.containsKey("offset"))
+            throw new IllegalArgumentException("Error: offset is not " +
+                    "supported, the next page is found after the resume " +
+                    "key of a page");
+        if (parameters.containsKey("after"))
+            setResumeKey(query, parameters.get("after"), validator);
+        int limit = Math.min(getNumber(parameters, "limit", DEFAULT_LIMIT,
+                validator), MAXIMUM_LIMIT);
+
+        CarCursor cursor = carDatabase.findCars(query, limit + 1)
+                .openCursor();
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = openWriter(exchange))
+        {
+            out.write("{\"cars\":[");
+            int numberOfCar = 0;
+            Car lastCar = null;
+            while (numberOfCar < limit && cursor.hasNext())
+            {
+                if (numberOfCar > 0)
+                    out.write(',');
+                lastCar = cursor.next();
+                CarJson.writeCar(out, lastCar);
+                numberOfCar++;
+            }
+            out.write("],\"hasMore\":");
+            out.write(Boolean.toString(cursor.hasNext()));
+            out.write(",\"after\":");
+            if (cursor.hasNext() && lastCar != null)
+                CarJson.writeString(out, query.getOrderKey(lastCar) + "," +
+                        lastCar.getRegistrationNumber());
+            else
+                out.write("null");
+            out.write('}');
+        }
+    }
+
+    /**
+     * Get colours of a JSON object, each as it is given, so that a colour
+     * with a comma is rejected by the validator instead of being split
+     *
+     * @param  attributes  a map represents names and values of JSON object
+     * @return    an array of string represents colours
+     * @throws    IllegalArgumentException if colours are not an array of
+     *            strings
+     */
+    private static String[] getColours(Map<String, Object> attributes)
+    {
+        Object colours = attributes.get("colours");
+        if (!(colours instanceof List))
+            throw new IllegalArgumentException("Error: colours must be an " +
+                    "array of colours");
+        List<?> colourList = (List<?>) colours;
+        String[] colourArray = new String[colourList.size()];
+        for (int index = 0; index < colourArray.length; index++)
+        {
+            if (!(colourList.get(index) instanceof String))
+                throw new IllegalArgumentException("Error: a colour must be " +
+                        "a string");
+            colourArray[index] = (String) colourList.get(index);
+        }
+        return colourArray;
+    }
+
+    /**
+     * Get a number of a JSON object, as a string to be validated
+     *
+     * @param  attributes  a map represents names and values of JSON object
+     * @param  name  a string represents name of number
+     * @return    a string represents number
+     * @throws    IllegalArgumentException if the number is not given
+     */
+    private static String getNumber(Map<String, Object> attributes,
+                                    String name)
+    {
+        Object value = attributes.get(name);
+        if (!(value instanceof Long))
+            throw new IllegalArgumentException("Error: " + name + " must " +
+                    "be a whole number");
+        return value.toString();
+    }
+
+    /**
+     * Get a number of the parameters of a request
+     *
+     * @param  parameters  a map represents names and values of parameters
+     * @param  name  a string represents name of number
+     * @param  defaultNumber  an integer represents number if not given
+     * @param  validator  a CarValidator object represents validator of
+     *                    the request
+     * @return    an integer represents number
+     * @throws    IllegalArgumentException if the number is not valid
+     */
+    private static int getNumber(Map<String, String> parameters,
+                                 String name, int defaultNumber,
+                                 CarValidator validator)
+    {
+        String value = parameters.get(name);
+        if (value == null)
+            return defaultNumber;
+        if (validator.checkNumber(value) != CarStatus.OK)
+            throw new IllegalArgumentException(validator.getMessage());
+        return validator.getNumber();
+    }
+
+    /**
+     * Get port which server listens on
+     *
+     * @return    an integer represents port of server, or -1 if server is
+     *            not started
+     */
+    public int getPort()
+    {
+        if (server == null)
+            return -1;
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Get a string of a JSON object
+     *
+     * @param  attributes  a map represents names and values of JSON object
+     * @param  name  a string represents name of string
+     * @return    a string represents value of string
+     * @throws    IllegalArgumentException if the string is not given
+     */
+    private static String getString(Map<String, Object> attributes,
+                                    String name)
+    {
+        Object value = attributes.get(name);
+        if (!(value instanceof String))
+            throw new IllegalArgumentException("Error: " + name + " must " +
+                    "not be blank");
+        return ((String) value).trim();
+    }
+
+    /**
+     * Handle a request of car makers
+     *
+     * @param  exchange  an HttpExchange object represents request and
+     *                   response
+     * @throws    IOException if the response cannot be written
+     */
+    private void handleCarMakers(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            if (!exchange.getRequestMethod().equals("GET"))
+            {
+                sendError(exchange, 405, "Error: method is not allowed");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type",
+                    "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = openWriter(exchange))
+            {
+                out.write('[');
+                List<CarMaker> carMakers = carMakerDatabase.getCarMakers();
+                for (int index = 0; index < carMakers.size(); index++)
+                {
+                    if (index > 0)
+                        out.write(',');
+                    CarJson.writeCarMaker(out, carMakers.get(index));
+                }
+                out.write(']');
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handle a request of cars. Invalid requests are answered with status
+     * 400, requests of a car which does not exist with 404 and changes
+     * which cannot be saved with 500.
+     *
+     * @param  exchange  an HttpExchange object represents request and
+     *                   response
+     * @throws    IOException if the response cannot be written
+     */
+    private void handleCars(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String registrationNumber = "";
+            if (path.startsWith("/cars/"))
+                registrationNumber = path.substring("/cars/".length());
+            if (registrationNumber.length() == 0)
+            {
+                if (method.equals("GET"))
+                    findCars(exchange);
+                else if (method.equals("POST"))
+                    addCar(exchange);
+                else
+                    sendError(exchange, 405, "Error: method is not allowed");
+                return;
+            }
+            Car car = carDatabase.findCar(registrationNumber);
+            if (car == null)
+            {
+                sendError(exchange, 404, CarStatus.getMessage
+                        (CarStatus.NO_SUCH_CAR));
+                return;
+            }
+            if (method.equals("GET"))
+                sendCar(exchange, 200, car);
+            else if (method.equals("PUT"))
+                editCar(exchange, registrationNumber);
+            else if (method.equals("DELETE"))
+                deleteCar(exchange, car);
+            else
+                sendError(exchange, 405, "Error: method is not allowed");
+        }
+        catch (IllegalArgumentException exception)
+        {
+            sendError(exchange, 400, exception.getMessage());
+        }
+        catch (UncheckedIOException exception)
+        {
+            sendError(exchange, 500, "Error: this change cannot be saved (" +
+                    exception.getCause() + ")");
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Make the executor which handles requests, which starts a virtual
+     * thread per request if the Java runtime has virtual threads
+     *
+     * @return    an ExecutorService object represents executor of requests
+     */
+    private static ExecutorService newExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod
+                    ("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException exception)
+        {
+            // fall back to a fixed pool of platform threads
+        }
+        return Executors.newFixedThreadPool(Runtime.getRuntime()
+                .availableProcessors() * THREADS_PER_PROCESSOR);
+    }
+
+    /**
+     * Open a buffered writer of UTF-8 text over the body of a response
+     *
+     * @param  exchange  an HttpExchange object represents response
+     * @return    a Writer object represents writer of response body
+     */
+    private static Writer openWriter(HttpExchange exchange)
+    {
+        return new BufferedWriter(new OutputStreamWriter
+                (exchange.getResponseBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the JSON object in the body of a request
+     *
+     * @param  exchange  an HttpExchange object represents request
+     * @return    a map represents names and values of JSON object
+     * @throws    IOException if the body cannot be read
+     * @throws    IllegalArgumentException if the body is too large or not a
+     *            JSON object
+     */
+    private static Map<String, Object> readBody(HttpExchange exchange)
+            throws IOException
+    {
+        byte[] body = exchange.getRequestBody().readNBytes
+                (MAXIMUM_BODY_SIZE + 1);
+        if (body.length > MAXIMUM_BODY_SIZE)
+            throw new IllegalArgumentException("Error: request must not be " +
+                    "larger than " + MAXIMUM_BODY_SIZE + " bytes");
+        return CarJson.readObject(new String(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the parameters of the query of a request
+     *
+     * @param  exchange  an HttpExchange object represents request
+     * @return    a map represents names and values of parameters
+     */
+    private static Map<String, String> readParameters(HttpExchange exchange)
+    {
+        HashMap<String, String> parameters = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null)
+            return parameters;
+        for (String thisParameter: rawQuery.split("&"))
+        {
+            int equals = thisParameter.indexOf('=');
+            if (equals > 0)
+                parameters.put(URLDecoder.decode(thisParameter.substring
+                        (0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(thisParameter.substring
+                        (equals + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Send a car as the JSON object of a response
+     *
+     * @param  exchange  an HttpExchange object represents response
+     * @param  status  an integer represents status of response
+     * @param  car  a Car object represents car to be sent
+     * @throws    IOException if the response cannot be written
+     */
+    private static void sendCar(HttpExchange exchange, int status, Car car)
+            throws IOException
+    {
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        try (Writer out = openWriter(exchange))
+        {
+            CarJson.writeCar(out, car);
+        }
+    }
+
+    /**
+     * Send an error as the JSON object of a response, unless the response
+     * has already been started
+     *
+     * @param  exchange  an HttpExchange object represents response
+     * @param  status  an integer represents status of response
+     * @param  message  a string represents error message
+     * @throws    IOException if the response cannot be written
+     */
+    private static void sendError(HttpExchange exchange, int status,
+                                  String message) throws IOException
+    {
+        if (exchange.getResponseCode() != -1)
+            return;
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        try (Writer out = openWriter(exchange))
+        {
+            out.write("{\"error\":");
+            CarJson.writeString(out, message);
+            out.write('}');
+        }
+    }
+
+    /**
+     * Serve the car warehouse in the data folder until the program is
+     * stopped, after which its cars are saved
+     *
+     * @param  port  an integer represents port to listen on
+     * @throws    IOException if the server cannot be started
+     */
+    public static void serve(int port) throws IOException
+    {
+        CarWarehouse carWarehouse = new CarWarehouse(new CarDatabase(null,
+                true), new CarMakerDatabase());
+        carWarehouse.openDatabases();
+        CarWarehouseServer server = new CarWarehouseServer(carWarehouse);
+        try
+        {
+            server.start(port);
+        }
+        catch (IOException exception)
+        {
+            carWarehouse.closeDatabases();
+            throw exception;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        {
+            server.stop(1);
+            if (!carWarehouse.closeDatabases())
+                System.out.println("Error: changes are not saved");
+        }));
+        System.out.println("Car warehouse is served at http://localhost:" +
+                server.getPort() + "/cars");
+    }
+
+    /**
+     * Set the resume key of a car query from the after parameter of a
+     * request, which is the price or year made and the registration number
+     * of the last car of the page before, separated by a comma
+     *
+     * @param  query  a CarQuery object represents query to be resumed
+     * @param  after  a string represents resume key
+     * @param  validator  a CarValidator object represents validator of
+     *                    the request
+     * @throws    IllegalArgumentException if the resume key is not valid
+     */
+    private static void setResumeKey(CarQuery query, String after,
+                                     CarValidator validator)
+    {
+        int separator = after.indexOf(',');
+        if (separator < 0 || validator.checkRegistrationNumber(after
+                .substring(separator + 1)) != CarStatus.OK ||
+                validator.checkNumber(after.substring(0, separator)) !=
+                CarStatus.OK)
+            throw new IllegalArgumentException("Error: after must be a " +
+                    "price or year made and a registration number, " +
+                    "separated by a comma");
+        query.setResumeKey(validator.getNumber(), after.substring(separator +
+                1));
+    }
+
+    /**
+     * Start server listening on a port
+     *
+     * @param  port  an integer represents port to listen on, or 0 for any
+     *               free port
+     * @throws    IOException if the port cannot be listened on
+     */
+    public void start(int port) throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/cars", this::handleCars);
+        server.createContext("/carmakers", this::handleCarMakers);
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Stop server, waiting for requests being handled to finish
+     *
+     * @param  delay  an integer represents seconds to wait for requests
+     */
+    public void stop(int delay)
+    {
+        if (server == null)
+            return;
+        server.stop(delay);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+}
@@ -1,7 +1,39 @@
 package com.mypackage;
 
+import java.io.IOException;
+
 public class Main {
-    public static void main(String[] args) {
-        new CarWarehouse();
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int port = CarWarehouseServer.DEFAULT_PORT;
+            if (args.length > 1) {
+                CarValidator validator = new CarValidator();
+                if (validator.checkNumber(args[1]) != CarStatus.OK ||
+                        validator.getNumber() >
+                        CarWarehouseServer.MAXIMUM_PORT) {
+                    System.out.println("Error: port must be a number " +
+                            "between 0 and " +
+                            CarWarehouseServer.MAXIMUM_PORT);
+                    System.out.println("Usage: --serve [<port>]");
+                    return;
+                }
+                port = validator.getNumber();
+            }
+            try {
+                CarWarehouseServer.serve(port);
+            }
+            catch (IOException exception) {
+                System.out.println("Error: car warehouse cannot be served " +
+                        "on port " + port + " (" + exception + ")");
+            }
+        }
+        else if (args.length > 1 && args[0].equals("--script")) {
+            String dataDirectory = null;
+            if (args.length > 2)
+                dataDirectory = args[2];
+            CarWarehouse.replay(args[1], dataDirectory);
+        }
+        else
+            new CarWarehouse();
     }
 }
@@ -0,0 +1,138 @@
+package com.mypackage;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The CarVectorScanKernel class represents a car vector scan kernel object
+ * generator. It is used to generate a kernel which checks a whole vector of
+ * rows of a column at once with the Vector API, and turns the mask of
+ * matching lanes straight into bits of the bitmap. The widest vector the
+ * processor supports is used, whose number of lanes always divides the 64
+ * rows of a bitmap word.
+ *
+ * This class needs the incubating jdk.incubator.vector module both to be
+ * compiled and to be run, so it is kept in its own source root, vector,
+ * and is only loaded by CarScanKernel when the module is present. The
+ * rest of the program is compiled without the module, and this class is
+ * compiled afterwards against it, so only this compilation warns about
+ * the incubating module:
+ *
+ *     javac -d out src/com/mypackage/*.java
+ *     javac --add-modules jdk.incubator.vector -cp out -d out
+ *             vector/com/mypackage/*.java
+ *     java --add-modules jdk.incubator.vector -cp out com.mypackage.Main
+ *
+ * Without the second step, or without the module when the program is run,
+ * the scalar CarScanKernel is used.
+ *
+ * @author  Zi Sing Lim
+ * @version 1.0 (29.Apr.2021)
+ */
+public class CarVectorScanKernel extends CarScanKernel
+{
+    private static final VectorSpecies<Integer> SPECIES =
+            IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Constructor for objects of class CarVectorScanKernel
+     */
+    public CarVectorScanKernel()
+    {
+    }
+
+    /**
+     * Check whether kernel checks a whole vector of rows at once
+     *
+     * @return    a boolean represents whether kernel is vectorized or not
+     */
+    @Override
+    public boolean isVectorized()
+    {
+        return true;
+    }
+
+    /**
+     * Mark rows of a column which equal a value in a bitmap
+     *
+     * @param  column  an array of integer represents column to be scanned
+     * @param  fromRow  an integer represents first row to be scanned,
+     *                  which is a multiple of 64
+     * @param  toRow  an integer represents row after the last to be
+     *                scanned
+     * @param  value  an integer represents value to be matched
+     * @param  bitmap  an array of long represents bitmap of rows, whose
+     *                 marks of the words of the rows scanned are replaced
+     */
+    @Override
+    public void selectEqual(int[] column, int fromRow, int toRow, int value,
+                            long[] bitmap)
+    {
+        int lanes = SPECIES.length();
+        int wholeWords = toRow >>> 6;
+        for (int wordIndex = fromRow >>> 6; wordIndex < wholeWords;
+             wordIndex++)
+        {
+            int firstRow = wordIndex << 6;
+            long word = 0;
+            for (int lane = 0; lane < 64; lane = lane + lanes)
+            {
+                IntVector values = IntVector.fromArray(SPECIES, column,
+                        firstRow + lane);
+                VectorMask<Integer> matches = values.compare
+                        (VectorOperators.EQ, value);
+                word = word | matches.toLong() << lane;
+            }
+            bitmap[wordIndex] = word;
+        }
+        if (wholeWords << 6 < toRow)
+            bitmap[wholeWords] = 0;
+        for (int row = wholeWords << 6; row < toRow; row++)
+            if (column[row] == value)
+                bitmap[row >>> 6] = bitmap[row >>> 6] | 1L << (row & 63);
+    }
+
+    /**
+     * Mark rows of a column within a range in a bitmap
+     *
+     * @param  column  an array of integer represents column to be scanned
+     * @param  fromRow  an integer represents first row to be scanned,
+     *                  which is a multiple of 64
+     * @param  toRow  an integer represents row after the last to be
+     *                scanned
+     * @param  minimum  an integer represents minimum value
+     * @param  maximum  an integer represents maximum value
+     * @param  bitmap  an array of long represents bitmap of rows, whose
+     *                 marks of the words of the rows scanned are replaced
+     */
+    @Override
+    public void selectRange(int[] column, int fromRow, int toRow,
+                            int minimum, int maximum, long[] bitmap)
+    {
+        int lanes = SPECIES.length();
+        int wholeWords = toRow >>> 6;
+        for (int wordIndex = fromRow >>> 6; wordIndex < wholeWords;
+             wordIndex++)
+        {
+            int firstRow = wordIndex << 6;
+            long word = 0;
+            for (int lane = 0; lane < 64; lane = lane + lanes)
+            {
+                IntVector values = IntVector.fromArray(SPECIES, column,
+                        firstRow + lane);
+                VectorMask<Integer> matches = values.compare
+                        (VectorOperators.GE, minimum).and(values.compare
+                        (VectorOperators.LE, maximum));
+                word = word | matches.toLong() << lane;
+            }
+            bitmap[wordIndex] = word;
+        }
+        if (wholeWords << 6 < toRow)
+            bitmap[wholeWords] = 0;
+        for (int row = wholeWords << 6; row < toRow; row++)
+            if (column[row] >= minimum && column[row] <= maximum)
+                bitmap[row >>> 6] = bitmap[row >>> 6] | 1L << (row & 63);
+    }
+}